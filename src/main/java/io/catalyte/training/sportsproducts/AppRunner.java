@@ -3,6 +3,7 @@ package io.catalyte.training.sportsproducts;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -10,6 +11,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * This class is the main application. Running this class will start the SpringBoot server.
  */
 @SpringBootApplication
+@EnableScheduling
 public class AppRunner {
 
   /**
@@ -0,0 +1,55 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static io.catalyte.training.sportsproducts.constants.StringConstants.FORBIDDEN;
+import static io.catalyte.training.sportsproducts.constants.StringConstants.UNAUTHORIZED;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.sportsproducts.exceptions.ExceptionResponse;
+import java.io.IOException;
+import java.util.Date;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.access.AccessDeniedHandler;
+
+/**
+ * Writes authentication failures as 401 and missing roles as 403, in the same body as every other
+ * error response.
+ */
+public class AuthenticationErrorHandler implements AuthenticationEntryPoint, AccessDeniedHandler {
+
+  private final ObjectMapper objectMapper;
+
+  public AuthenticationErrorHandler(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void commence(HttpServletRequest request, HttpServletResponse response,
+      AuthenticationException authException) throws IOException {
+    response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+    write(response, HttpStatus.UNAUTHORIZED, UNAUTHORIZED,
+        authException instanceof BadCredentialsException ? authException.getMessage()
+            : "Authentication is required.");
+  }
+
+  @Override
+  public void handle(HttpServletRequest request, HttpServletResponse response,
+      AccessDeniedException accessDeniedException) throws IOException {
+    write(response, HttpStatus.FORBIDDEN, FORBIDDEN, "You do not have access to this resource.");
+  }
+
+  private void write(HttpServletResponse response, HttpStatus status, String error,
+      String message) throws IOException {
+    response.setStatus(status.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(),
+        new ExceptionResponse(error, new Date(), message));
+  }
+}
@@ -4,23 +4,90 @@ import static io.catalyte.training.sportsproducts.constants.StringConstants.GOOG
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.Clock;
 import io.catalyte.training.sportsproducts.domains.user.User;
+import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.security.PublicKey;
 import java.util.Collections;
+import javax.annotation.PostConstruct;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.http.HttpStatus;
-import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 
-@Component
+/**
+ * Verifies Google ID tokens with one shared verifier. Google's signing keys are fetched once,
+ * cached for as long as Google's Cache-Control header allows, and optionally fetched at startup,
+ * so verifying a token is normally local CPU work.
+ *
+ * <p>Tokens that pass verification are remembered by their hash until they expire, so the
+ * repeat requests of a session skip signature checks entirely.
+ *
+ * <p>When Google rotates its keys, tokens signed with the new key fail against the cached ones.
+ * A token whose signature matches no cached key forces a refresh, at most once per
+ * min-refresh-interval so that forged tokens cannot make every request fetch keys.
+ */
 public class GoogleAuthService {
 
   Logger logger = LogManager.getLogger(GoogleAuthService.class);
 
-  public GoogleAuthService() {
+  private final JsonFactory jsonFactory = GsonFactory.getDefaultInstance();
+  private final GooglePublicKeysManager publicKeysManager;
+  private final GoogleIdTokenVerifier verifier;
+  private final VerifiedTokenCache<GoogleIdToken.Payload> verifiedTokens;
+  private final long minRefreshIntervalMillis;
+  private final boolean warmKeys;
+  private final Clock clock;
+
+  private final Object refreshLock = new Object();
+  private long lastForcedRefreshMillis;
+  private long keyGeneration;
+
+  public GoogleAuthService(String certsUrl, long minRefreshIntervalMillis, boolean warmKeys,
+      int tokenCacheSize) {
+    this(new NetHttpTransport(), certsUrl, GOOGLE_CLIENT_ID, minRefreshIntervalMillis, warmKeys,
+        tokenCacheSize, Clock.SYSTEM);
+  }
+
+  GoogleAuthService(HttpTransport transport, String certsUrl, String clientId,
+      long minRefreshIntervalMillis, boolean warmKeys, int tokenCacheSize, Clock clock) {
+    this.publicKeysManager = new GooglePublicKeysManager.Builder(transport, jsonFactory)
+        .setPublicCertsEncodedUrl(certsUrl)
+        .setClock(clock)
+        .build();
+    this.verifier = new GoogleIdTokenVerifier.Builder(publicKeysManager)
+        .setAudience(Collections.singletonList(clientId))
+        .setClock(clock)
+        .build();
+    this.verifiedTokens = new VerifiedTokenCache<>(tokenCacheSize, clock::currentTimeMillis);
+    this.minRefreshIntervalMillis = minRefreshIntervalMillis;
+    this.warmKeys = warmKeys;
+    this.clock = clock;
+    this.lastForcedRefreshMillis = clock.currentTimeMillis() - minRefreshIntervalMillis;
+  }
+
+  /**
+   * Fetches Google's signing keys at startup, so the first request does not wait for them.
+   */
+  @PostConstruct
+  public void warmKeys() {
+    if (!warmKeys) {
+      return;
+    }
+
+    try {
+      publicKeysManager.refresh();
+      logger.info("Loaded " + publicKeysManager.getPublicKeys().size() + " Google signing keys");
+    } catch (IOException | GeneralSecurityException e) {
+      logger.warn("Could not load Google signing keys, they will be fetched on first use: "
+          + e.getMessage());
+    }
   }
 
   /**
@@ -53,38 +120,105 @@ public class GoogleAuthService {
 
     String token = getTokenFromHeader(bearerToken);
 
-    // BUILD GOOGLE VERIFIER OBJECT
-    GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-        new NetHttpTransport(),
-        new GsonFactory()
-    )
-        .setAudience(Collections.singletonList(GOOGLE_CLIENT_ID))
-        .build();
+    // GET EMAIL FROM GOOGLE TOKEN
+    String googleEmail = verifyToken(token).getEmail();
+
+    // AUTHENTICATE USER
+    return googleEmail.equals(user.getEmail());
+  }
+
+  /**
+   * Verifies the signature, issuer, audience and expiry of a Google ID token.
+   *
+   * @param token JWT Token
+   * @return GoogleIdToken.Payload - the verified claims
+   */
+  public GoogleIdToken.Payload verifyToken(String token) {
+
+    // SKIP VERIFICATION FOR TOKENS ALREADY VERIFIED
+    GoogleIdToken.Payload cached = verifiedTokens.get(token);
+    if (cached != null) {
+      return cached;
+    }
 
     GoogleIdToken idToken;
 
-    // VERIFY TOKEN
+    // PARSE TOKEN
+    try {
+      idToken = GoogleIdToken.parse(jsonFactory, token);
+    } catch (IOException | RuntimeException e) {
+      logger.error("There was a problem reading the token");
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "There was a problem reading the token");
+    }
+
+    // VERIFY TOKEN, REFRESHING THE KEYS IF GOOGLE HAS ROTATED THEM
     try {
-      idToken = verifier.verify(token);
-      logger.info("Verified token");
+      long generation = currentKeyGeneration();
+      if (verifier.verify(idToken) || (!signedByCachedKey(idToken) && refreshKeys(generation)
+          && verifier.verify(idToken))) {
+        logger.info("Verified token");
+        remember(token, idToken.getPayload());
+        return idToken.getPayload();
+      }
     } catch (GeneralSecurityException gse) {
       logger.error(gse.getMessage());
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, gse.getMessage());
-    } catch (Exception e) {
-      logger.error("There was a problem reading the token");
+    } catch (IOException e) {
+      logger.error("Could not load Google signing keys: " + e.getMessage());
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
           "There was a problem reading the token");
     }
 
-    if (idToken == null) {
-      logger.error("Could not verify token");
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not verify token");
+    logger.error("Could not verify token");
+    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not verify token");
+  }
+
+  private void remember(String token, GoogleIdToken.Payload payload) {
+    Long expiresAtSeconds = payload.getExpirationTimeSeconds();
+    if (expiresAtSeconds != null) {
+      verifiedTokens.put(token, payload, expiresAtSeconds * 1000);
     }
+  }
 
-    // GET EMAIL FROM GOOGLE TOKEN
-    String googleEmail = idToken.getPayload().getEmail();
+  private boolean signedByCachedKey(GoogleIdToken idToken)
+      throws GeneralSecurityException, IOException {
+    for (PublicKey publicKey : publicKeysManager.getPublicKeys()) {
+      if (idToken.verifySignature(publicKey)) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-    // AUTHENTICATE USER
-    return googleEmail.equals(user.getEmail());
+  private long currentKeyGeneration() {
+    synchronized (refreshLock) {
+      return keyGeneration;
+    }
+  }
+
+  /**
+   * Forces a key refresh after a failed signature check, unless one happened recently.
+   *
+   * @param seenGeneration - the key generation the check ran against
+   * @return true if the keys changed since the check, so it is worth retrying
+   */
+  private boolean refreshKeys(long seenGeneration) throws GeneralSecurityException, IOException {
+    synchronized (refreshLock) {
+      if (keyGeneration != seenGeneration) {
+        return true;
+      }
+
+      long now = clock.currentTimeMillis();
+      if (now - lastForcedRefreshMillis < minRefreshIntervalMillis) {
+        return false;
+      }
+
+      lastForcedRefreshMillis = now;
+      publicKeysManager.refresh();
+      keyGeneration++;
+      logger.info("Refreshed Google signing keys after a signature mismatch");
+      return true;
+    }
   }
 }
@@ -0,0 +1,37 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import java.time.Instant;
+
+/**
+ * A session token and what it grants
+ */
+public class Session {
+
+  private final String token;
+  private final String email;
+  private final String role;
+  private final Instant expiresAt;
+
+  public Session(String token, String email, String role, Instant expiresAt) {
+    this.token = token;
+    this.email = email;
+    this.role = role;
+    this.expiresAt = expiresAt;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+}
@@ -0,0 +1,40 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static io.catalyte.training.sportsproducts.constants.Paths.AUTH_PATH;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Rest controller for sessions
+ */
+@RestController
+@RequestMapping(value = AUTH_PATH)
+public class SessionController {
+
+  Logger logger = LogManager.getLogger(SessionController.class);
+
+  @Autowired
+  private SessionService sessionService;
+
+  /**
+   * Controller method for exchanging a Google ID token for a session token
+   *
+   * @param bearerToken String value in the Authorization property of the header
+   * @return Session
+   */
+  @PostMapping(path = "/session")
+  public ResponseEntity<Session> createSession(
+      @RequestHeader("Authorization") String bearerToken
+  ) {
+    logger.info("Request received for createSession");
+    return new ResponseEntity<>(sessionService.createSession(bearerToken), HttpStatus.CREATED);
+  }
+}
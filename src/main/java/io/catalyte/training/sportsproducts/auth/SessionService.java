@@ -0,0 +1,57 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static io.catalyte.training.sportsproducts.constants.Roles.CUSTOMER;
+
+import io.catalyte.training.sportsproducts.domains.user.User;
+import io.catalyte.training.sportsproducts.domains.user.UserService;
+import io.catalyte.training.sportsproducts.exceptions.ResourceNotFound;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Exchanges Google ID tokens for sessions
+ */
+@Service
+public class SessionService {
+
+  private final Logger logger = LogManager.getLogger(SessionService.class);
+
+  private final GoogleAuthService googleAuthService;
+  private final SessionTokenService sessionTokenService;
+  private final UserService userService;
+
+  @Autowired
+  public SessionService(GoogleAuthService googleAuthService,
+      SessionTokenService sessionTokenService, UserService userService) {
+    this.googleAuthService = googleAuthService;
+    this.sessionTokenService = sessionTokenService;
+    this.userService = userService;
+  }
+
+  /**
+   * Verifies a Google ID token and starts a session for its email. Users who have not signed up
+   * yet get a customer session, so they can create their account with it. The role is looked up
+   * by the normalized email, through the user cache.
+   *
+   * @param bearerToken String value in the Authorization property of the header
+   * @return Session
+   */
+  public Session createSession(String bearerToken) {
+    String email = googleAuthService.verifyToken(googleAuthService.getTokenFromHeader(bearerToken))
+        .getEmail();
+
+    User user;
+    try {
+      user = userService.getUserByEmail(email);
+    } catch (ResourceNotFound e) {
+      // NOT SIGNED UP YET
+      user = null;
+    }
+
+    String role = user == null || user.getRole() == null ? CUSTOMER : user.getRole();
+    logger.info("Started session");
+    return sessionTokenService.issue(email, role);
+  }
+}
@@ -0,0 +1,125 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.function.LongSupplier;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Issues and validates the short-lived session tokens handed out in exchange for a Google ID
+ * token. Sessions are HS256 JWTs carrying the user's email and role, signed with a key built once
+ * at startup, so checking one is a single HMAC.
+ *
+ * <p>The key comes from auth.session.secret, base64 encoded and at least 256 bits. Without one a
+ * random key is generated, which works for a single instance but ends every session on restart.
+ */
+public class SessionTokenService {
+
+  private final Logger logger = LogManager.getLogger(SessionTokenService.class);
+
+  static final String ISSUER = "sportsproducts";
+
+  static final String ROLE_CLAIM = "role";
+
+  static final int MIN_KEY_BYTES = 32;
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final SecretKey key;
+  private final long ttlMillis;
+  private final LongSupplier clock;
+
+  /**
+   * @param secret    - the base64 encoded signing key, or empty to generate one
+   * @param ttlMillis - how long a session lasts
+   * @param clock     - the current time in milliseconds
+   */
+  public SessionTokenService(String secret, long ttlMillis, LongSupplier clock) {
+    byte[] keyBytes;
+
+    if (secret == null || secret.isEmpty()) {
+      keyBytes = new byte[MIN_KEY_BYTES];
+      new SecureRandom().nextBytes(keyBytes);
+      logger.warn("No auth.session.secret set, sessions are signed with a random key and end on "
+          + "restart");
+    } else {
+      keyBytes = Base64.getDecoder().decode(secret);
+      if (keyBytes.length < MIN_KEY_BYTES) {
+        throw new IllegalStateException(
+            "auth.session.secret must be at least " + MIN_KEY_BYTES + " bytes");
+      }
+    }
+
+    this.key = new SecretKeySpec(keyBytes, SignatureAlgorithm.HS256.getJcaName());
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * @param email - the verified email of the user
+   * @param role  - the user's role
+   * @return the session
+   */
+  public Session issue(String email, String role) {
+    long now = clock.getAsLong();
+    Date expiresAt = new Date(now + ttlMillis);
+
+    String token = Jwts.builder()
+        .setIssuer(ISSUER)
+        .setSubject(email)
+        .claim(ROLE_CLAIM, role)
+        .setIssuedAt(new Date(now))
+        .setExpiration(expiresAt)
+        .signWith(SignatureAlgorithm.HS256, key)
+        .compact();
+
+    return new Session(token, email, role, expiresAt.toInstant());
+  }
+
+  /**
+   * Tells sessions apart from other bearer tokens by their signing algorithm, without checking the
+   * signature.
+   *
+   * @param token - a bearer token
+   * @return true if the token claims to be HMAC signed, as sessions are
+   */
+  public boolean isSessionToken(String token) {
+    int end = token.indexOf('.');
+    if (end <= 0) {
+      return false;
+    }
+
+    try {
+      JsonNode header = OBJECT_MAPPER.readTree(
+          Base64.getUrlDecoder().decode(token.substring(0, end)));
+      return header != null && header.path("alg").asText().startsWith("HS");
+    } catch (IOException | IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @param token - a session token
+   * @return the claims of the session
+   * @throws JwtException if the token is malformed, not signed by this service or expired
+   */
+  public Claims validate(String token) {
+    return Jwts.parser()
+        .setSigningKey(key)
+        .requireIssuer(ISSUER)
+        .setClock(() -> new Date(clock.getAsLong()))
+        .parseClaimsJws(token)
+        .getBody();
+  }
+}
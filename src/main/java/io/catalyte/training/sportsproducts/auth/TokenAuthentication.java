@@ -0,0 +1,41 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import java.util.Collections;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * The verified principal of a request carrying a valid session or Google ID token. The principal
+ * is the user's email and the authority is their role prefixed with ROLE_.
+ */
+public class TokenAuthentication extends AbstractAuthenticationToken {
+
+  private final String email;
+  private final String role;
+
+  public TokenAuthentication(String email, String role) {
+    super(role == null ? Collections.emptyList()
+        : Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
+    this.email = email;
+    this.role = role;
+    setAuthenticated(true);
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  @Override
+  public Object getPrincipal() {
+    return email;
+  }
+
+  @Override
+  public Object getCredentials() {
+    return null;
+  }
+}
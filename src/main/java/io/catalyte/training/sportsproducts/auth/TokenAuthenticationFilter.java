@@ -0,0 +1,101 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static io.catalyte.training.sportsproducts.constants.Roles.CUSTOMER;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Verifies the bearer token of every request once, before the body is read, and stores the
+ * verified principal in the SecurityContext for the endpoints to share.
+ *
+ * <p>Session tokens are checked with a single HMAC. Any other token is verified as a Google ID
+ * token, which GoogleAuthService caches, and gets the customer role; admins need a session, which
+ * carries the role from the database. A request to a protected endpoint with an invalid token is
+ * rejected with 401 right here. Public endpoints do not need a token, so a request to one with an
+ * invalid token continues unauthenticated, like a request with no token; the security rules reject
+ * the latter if the endpoint is protected.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+  private final Logger logger = LogManager.getLogger(TokenAuthenticationFilter.class);
+
+  private final SessionTokenService sessionTokenService;
+  private final GoogleAuthService googleAuthService;
+  private final AuthenticationEntryPoint authenticationEntryPoint;
+  private final RequestMatcher protectedRoutes;
+
+  /**
+   * @param protectedRoutes - the requests that need authentication, where an invalid token is
+   *                        rejected rather than ignored
+   */
+  public TokenAuthenticationFilter(SessionTokenService sessionTokenService,
+      GoogleAuthService googleAuthService, AuthenticationEntryPoint authenticationEntryPoint,
+      RequestMatcher protectedRoutes) {
+    this.sessionTokenService = sessionTokenService;
+    this.googleAuthService = googleAuthService;
+    this.authenticationEntryPoint = authenticationEntryPoint;
+    this.protectedRoutes = protectedRoutes;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+    if (header != null) {
+      try {
+        SecurityContextHolder.getContext().setAuthentication(authenticate(header));
+      } catch (BadCredentialsException e) {
+        SecurityContextHolder.clearContext();
+        if (protectedRoutes.matches(request)) {
+          authenticationEntryPoint.commence(request, response, e);
+          return;
+        }
+        // A STALE TOKEN MUST NOT LOCK THE USER OUT OF PUBLIC PAGES
+        logger.info("Ignored invalid token on public route: " + e.getMessage());
+      }
+    }
+
+    filterChain.doFilter(request, response);
+  }
+
+  private Authentication authenticate(String header) {
+    if (!header.startsWith("Bearer ")) {
+      throw new BadCredentialsException("Authorization Header must start with 'Bearer '");
+    }
+    String token = header.substring(7);
+
+    if (sessionTokenService.isSessionToken(token)) {
+      try {
+        Claims claims = sessionTokenService.validate(token);
+        return new TokenAuthentication(claims.getSubject(),
+            claims.get(SessionTokenService.ROLE_CLAIM, String.class));
+      } catch (JwtException | IllegalArgumentException e) {
+        logger.error("Rejected session: " + e.getMessage());
+        throw new BadCredentialsException("Session is invalid or has expired");
+      }
+    }
+
+    try {
+      return new TokenAuthentication(googleAuthService.verifyToken(token).getEmail(), CUSTOMER);
+    } catch (ResponseStatusException e) {
+      throw new BadCredentialsException(e.getReason());
+    }
+  }
+}
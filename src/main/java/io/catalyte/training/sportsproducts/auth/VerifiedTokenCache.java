@@ -0,0 +1,47 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import io.catalyte.training.sportsproducts.util.Hashing;
+import io.catalyte.training.sportsproducts.util.SegmentedCache;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers tokens that passed verification until they expire, so a session's repeat requests
+ * skip signature checks. Tokens are keyed by their SHA-256, so the cache never holds a usable
+ * token.
+ */
+class VerifiedTokenCache<V> {
+
+  private final SegmentedCache<String, V> cache;
+
+  /**
+   * @param maxEntries - the most tokens to remember
+   * @param clock      - the current time in milliseconds
+   */
+  VerifiedTokenCache(int maxEntries, LongSupplier clock) {
+    this.cache = new SegmentedCache<>(maxEntries, clock);
+  }
+
+  /**
+   * @param token - the raw token
+   * @return the value stored for the token, or null if it is unknown or has expired
+   */
+  V get(String token) {
+    return cache.get(Hashing.sha256(token));
+  }
+
+  /**
+   * @param token           - the raw token, which has just been verified
+   * @param value           - the value to return for it
+   * @param expiresAtMillis - when the token expires
+   */
+  void put(String token, V value, long expiresAtMillis) {
+    cache.put(Hashing.sha256(token), value, expiresAtMillis);
+  }
+
+  /**
+   * @return the number of tokens remembered, including expired ones not yet dropped
+   */
+  int size() {
+    return cache.size();
+  }
+}
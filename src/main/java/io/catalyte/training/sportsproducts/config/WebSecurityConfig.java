@@ -1,24 +1,101 @@
 package io.catalyte.training.sportsproducts.config;
 
+import static io.catalyte.training.sportsproducts.constants.Paths.ANALYTICS_PATH;
+import static io.catalyte.training.sportsproducts.constants.Paths.PROMOCODE_PATH;
+import static io.catalyte.training.sportsproducts.constants.Paths.PURCHASES_PATH;
+import static io.catalyte.training.sportsproducts.constants.Paths.USERS_PATH;
+import static io.catalyte.training.sportsproducts.constants.Roles.ADMIN;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.sportsproducts.auth.*;
+import org.springframework.beans.factory.annotation.*;
 import org.springframework.context.annotation.*;
 import org.springframework.http.*;
 import org.springframework.security.config.annotation.web.builders.*;
 import org.springframework.security.config.annotation.web.configuration.*;
 import org.springframework.security.config.http.*;
+import org.springframework.security.web.authentication.*;
+import org.springframework.security.web.servlet.util.matcher.*;
+import org.springframework.security.web.util.matcher.*;
+import org.springframework.web.servlet.handler.*;
 
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
   /**
-   * Disables the login page for Spring boot and cross referencing
+   * Verifies Google ID tokens. Declared here rather than scanned, like the session token service,
+   * so the security filter chain can always be built, including in web slice tests.
+   */
+  @Bean
+  public static GoogleAuthService googleAuthService(
+      @Value("${auth.google.certs-url:https://www.googleapis.com/oauth2/v1/certs}") String certsUrl,
+      @Value("${auth.google.min-refresh-interval-ms:60000}") long minRefreshIntervalMillis,
+      @Value("${auth.google.warm-keys:true}") boolean warmKeys,
+      @Value("${auth.google.token-cache-size:10000}") int tokenCacheSize) {
+    return new GoogleAuthService(certsUrl, minRefreshIntervalMillis, warmKeys, tokenCacheSize);
+  }
+
+  /**
+   * Signs and validates session tokens
+   */
+  @Bean
+  public static SessionTokenService sessionTokenService(
+      @Value("${auth.session.secret:}") String secret,
+      @Value("${auth.session.ttl-minutes:15}") long ttlMinutes) {
+    return new SessionTokenService(secret, ttlMinutes * 60_000, System::currentTimeMillis);
+  }
+
+  /**
+   * Disables the login page for Spring boot and cross referencing, verifies bearer tokens before
+   * any endpoint runs and restricts user updates to signed in users and reporting, bulk and import
+   * endpoints to admins. The token filter shares the matchers, so it only rejects invalid tokens
+   * on the endpoints that need one.
    */
   @Override
   protected void configure(HttpSecurity security) throws Exception {
+    AuthenticationErrorHandler errorHandler = new AuthenticationErrorHandler(
+        getApplicationContext().getBean(ObjectMapper.class));
+    HandlerMappingIntrospector introspector =
+        getApplicationContext().getBean(HandlerMappingIntrospector.class);
+
+    RequestMatcher userImport = route(introspector, HttpMethod.POST, USERS_PATH + "/import");
+    RequestMatcher signUp = route(introspector, HttpMethod.POST, USERS_PATH);
+    RequestMatcher userUpdate = route(introspector, HttpMethod.PUT, USERS_PATH + "/**");
+    RequestMatcher export = route(introspector, HttpMethod.GET, PURCHASES_PATH + "/export");
+    RequestMatcher analytics = route(introspector, null, ANALYTICS_PATH + "/**");
+    RequestMatcher bulk = new OrRequestMatcher(
+        route(introspector, null, PROMOCODE_PATH + "/bulk"),
+        route(introspector, null, PROMOCODE_PATH + "/bulk/**"));
+
+    TokenAuthenticationFilter tokenAuthenticationFilter = new TokenAuthenticationFilter(
+        getApplicationContext().getBean(SessionTokenService.class),
+        getApplicationContext().getBean(GoogleAuthService.class), errorHandler,
+        new OrRequestMatcher(userImport, signUp, userUpdate, export, analytics, bulk));
+
     security.httpBasic().disable();
     security.csrf().disable()
-        .authorizeRequests().antMatchers(HttpMethod.PUT, "/users").authenticated().and()
+        .addFilterBefore(tokenAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+        .authorizeRequests()
+        .requestMatchers(userImport).hasRole(ADMIN)
+        .requestMatchers(signUp).authenticated()
+        .requestMatchers(userUpdate).authenticated()
+        .requestMatchers(export).hasRole(ADMIN)
+        .requestMatchers(analytics).hasRole(ADMIN)
+        .requestMatchers(bulk).hasRole(ADMIN)
+        .anyRequest().permitAll().and()
+        .exceptionHandling()
+        .authenticationEntryPoint(errorHandler)
+        .accessDeniedHandler(errorHandler).and()
         .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
   }
 
+  private static RequestMatcher route(HandlerMappingIntrospector introspector, HttpMethod method,
+      String pattern) {
+    MvcRequestMatcher matcher = new MvcRequestMatcher(introspector, pattern);
+    if (method != null) {
+      matcher.setMethod(method);
+    }
+    return matcher;
+  }
 }
@@ -7,5 +7,7 @@ public class Paths {
   public static final String PURCHASES_PATH = "/purchases";
   public static final String USERS_PATH = "/users";
   public static final String PROMOCODE_PATH = "/promocode";
+  public static final String ANALYTICS_PATH = "/analytics";
+  public static final String AUTH_PATH = "/auth";
 
 }
@@ -3,5 +3,6 @@ package io.catalyte.training.sportsproducts.constants;
 public class Roles {
 
   public static final String CUSTOMER = "Customer";
+  public static final String ADMIN = "Admin";
 
 }
@@ -5,9 +5,16 @@ public class StringConstants {
   // Exceptions and Errors
   public static final String NOT_FOUND = "404 Not Found";
   public static final String BAD_REQUEST = "400 Bad Request";
+  public static final String UNAUTHORIZED = "401 Unauthorized";
+  public static final String FORBIDDEN = "403 Forbidden";
   public static final String CONFLICT = "409 Conflict";
   public static final String SERVER_ERROR = "500 An unexpected error occurred.";
   public static final String SERVICE_UNAVAILABLE = "503 Service Unavailable";
+  public static final String TOO_MANY_REQUESTS = "429 Too Many Requests";
+
+  // Headers
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  public static final String API_KEY_HEADER = "X-Api-Key";
 
   // Google Client ID
   public static final String GOOGLE_CLIENT_ID = "912899852587-7996nh9mlpvpa2446q0il4f9hj5o492h.apps.googleusercontent.com";
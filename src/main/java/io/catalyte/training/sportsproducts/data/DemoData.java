@@ -70,8 +70,21 @@ public class DemoData implements CommandLineRunner {
       numberOfProducts = DEFAULT_NUMBER_OF_PRODUCTS;
     }
 
-    // Generate products
-    List<Product> productList = productFactory.generateRandomProducts(numberOfProducts);
+    // Generate products, the same ones every run if a seed is set
+    List<Product> productList;
+    String seed = env.getProperty("products.seed");
+
+    if (seed == null || seed.isEmpty()) {
+      productList = productFactory.generateRandomProducts(numberOfProducts);
+    } else {
+      try {
+        productList = productFactory.generateSeededProducts(numberOfProducts,
+            Long.parseLong(seed));
+      } catch (NumberFormatException nfe) {
+        logger.error("config variable seed could not be parsed, falling back to random products");
+        productList = productFactory.generateRandomProducts(numberOfProducts);
+      }
+    }
 
     // Persist them to the database
     logger.info("Loading " + numberOfProducts + " products...");
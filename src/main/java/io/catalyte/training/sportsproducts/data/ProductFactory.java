@@ -5,16 +5,40 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadLocalRandom;
 import org.apache.commons.lang3.RandomStringUtils;
 
 /**
  * This class provides tools for random generation of products.
+ *
+ * <p>Products can also be generated from a seed, for load tests that need the same large dataset
+ * every run. Seeded products are built in parallel on the common fork-join pool, each chunk from
+ * its own SplittableRandom split off the seed in order, so the result depends only on the seed
+ * and the count and not on how the chunks are scheduled.
  */
 public class ProductFactory {
 
+  /**
+   * The products each task of a seeded generation builds with one random generator
+   */
+  static final int CHUNK_SIZE = 1024;
+
+  /**
+   * Seeded products are released within these fixed dates rather than up to today, so a seed gives
+   * the same products on any day
+   */
+  static final LocalDate SEEDED_RELEASE_START = LocalDate.of(2019, 1, 1);
+  static final LocalDate SEEDED_RELEASE_END = LocalDate.of(2024, 1, 1);
+
+  private static final String[] materials = {"Leather", "Suede", "Synthetic", "Cotton",
+      "Polyester"};
+  private static final String[] brands = {"Under Armour", "Nike", "Adidas"};
+
   private static final String[] colors = {
       "#000000", // white
       "#ffffff", // black
@@ -93,8 +117,7 @@ public class ProductFactory {
    * @return - a string
    */
   public static String getRandomField(String[] field) {
-    Random randomGenerator = new Random();
-    return field[randomGenerator.nextInt(field.length)];
+    return field[ThreadLocalRandom.current().nextInt(field.length)];
   }
 
   /**
@@ -144,7 +167,7 @@ public class ProductFactory {
   }
 
   private static int getRandomQuantity() {
-    return new Random().nextInt(2501);
+    return ThreadLocalRandom.current().nextInt(2501);
   }
 
   private static String getRandomDescription(String category, String demographic) {
@@ -157,7 +180,6 @@ public class ProductFactory {
   }
 
   private static String getRandomMaterial() {
-    String[] materials = {"Leather", "Suede", "Synthetic", "Cotton", "Polyester"};
     return getRandomField(materials);
   }
 
@@ -202,8 +224,7 @@ public class ProductFactory {
     product.setSecondaryColorCode(getRandomField(colors));
     product.setActive(getRandomBoolean());
     product.setMaterial(getRandomMaterial());
-    product.setBrand(getRandomField(new String[]{"Under Armour", "Nike", "Adidas"}));
-    product.setDescription(getRandomDescription(category, demographic));
+    product.setBrand(getRandomField(brands));
     product.setReleaseDate(String.valueOf(between(LocalDate.of(2019, 1, 1), LocalDate.now())));
     product.setQuantity((long) getRandomQuantity());
 
@@ -212,4 +233,108 @@ public class ProductFactory {
 
     return product;
   }
+
+  /**
+   * Generates a number of products from a seed. The same seed and number always give the same
+   * products, in the same order.
+   *
+   * @param numberOfProducts - the number of products to generate
+   * @param seed             - the seed of the random generators
+   * @return - a fixed-size list of the generated products
+   */
+  public List<Product> generateSeededProducts(int numberOfProducts, long seed) {
+    Product[] products = new Product[numberOfProducts];
+    int chunks = (numberOfProducts + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+    // SPLIT ONE GENERATOR PER CHUNK IN ORDER, SO THE SCHEDULING OF THE CHUNKS DOES NOT MATTER
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] randoms = new SplittableRandom[chunks];
+    for (int i = 0; i < chunks; i++) {
+      randoms[i] = root.split();
+    }
+
+    ForkJoinPool.commonPool().invoke(new GenerateChunks(products, randoms, 0, chunks));
+    return Arrays.asList(products);
+  }
+
+  /**
+   * Builds a product from a seeded random generator, drawing the fields in a fixed order.
+   *
+   * @param random - the generator of the product's chunk
+   * @return - the product
+   */
+  static Product createSeededProduct(SplittableRandom random) {
+    Product product = new Product();
+    String demographic = pick(random, demographics);
+    String category = pick(random, categories);
+    String type = pick(random, types);
+
+    product.setCategory(category);
+    product.setType(type);
+    product.setDemographic(demographic);
+    product.setGlobalProductCode("po-" + digits(random, 7));
+    product.setStyleNumber("sc" + digits(random, 5));
+    product.setDescription(category + " " + demographic + " " + pick(random, adjectives));
+    product.setName(getRandomName(pick(random, adjectives), category, type));
+    product.setPrice(BigDecimal.valueOf(random.nextInt(1, 50001), 2));
+    product.setPrimaryColorCode(pick(random, colors));
+    product.setSecondaryColorCode(pick(random, colors));
+    product.setActive(random.nextBoolean());
+    product.setMaterial(pick(random, materials));
+    product.setBrand(pick(random, brands));
+    product.setReleaseDate(String.valueOf(LocalDate.ofEpochDay(random.nextLong(
+        SEEDED_RELEASE_START.toEpochDay(), SEEDED_RELEASE_END.toEpochDay()))));
+    product.setQuantity((long) random.nextInt(2501));
+
+    return product;
+  }
+
+  private static String pick(SplittableRandom random, String[] field) {
+    return field[random.nextInt(field.length)];
+  }
+
+  private static String digits(SplittableRandom random, int count) {
+    char[] digits = new char[count];
+    for (int i = 0; i < count; i++) {
+      digits[i] = (char) ('0' + random.nextInt(10));
+    }
+    return new String(digits);
+  }
+
+  /**
+   * Fills a range of chunks, splitting it in half until one chunk is left
+   */
+  private static class GenerateChunks extends RecursiveAction {
+
+    private final Product[] products;
+    private final SplittableRandom[] randoms;
+    private final int fromChunk;
+    private final int toChunk;
+
+    GenerateChunks(Product[] products, SplittableRandom[] randoms, int fromChunk, int toChunk) {
+      this.products = products;
+      this.randoms = randoms;
+      this.fromChunk = fromChunk;
+      this.toChunk = toChunk;
+    }
+
+    @Override
+    protected void compute() {
+      if (toChunk - fromChunk > 1) {
+        int middle = (fromChunk + toChunk) >>> 1;
+        invokeAll(new GenerateChunks(products, randoms, fromChunk, middle),
+            new GenerateChunks(products, randoms, middle, toChunk));
+        return;
+      }
+
+      if (fromChunk == toChunk) {
+        return;
+      }
+      SplittableRandom random = randoms[fromChunk];
+      int end = Math.min(products.length, (fromChunk + 1) * CHUNK_SIZE);
+      for (int i = fromChunk * CHUNK_SIZE; i < end; i++) {
+        products[i] = createSeededProduct(random);
+      }
+    }
+  }
 }
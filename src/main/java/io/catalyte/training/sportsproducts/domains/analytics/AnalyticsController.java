@@ -0,0 +1,49 @@
+package io.catalyte.training.sportsproducts.domains.analytics;
+
+import static io.catalyte.training.sportsproducts.constants.Paths.ANALYTICS_PATH;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes sales reporting endpoints. Reports are read from the sales rollups only.
+ */
+@RestController
+@RequestMapping(value = ANALYTICS_PATH)
+public class AnalyticsController {
+
+  Logger logger = LogManager.getLogger(AnalyticsController.class);
+
+  private AnalyticsService analyticsService;
+
+  @Autowired
+  public AnalyticsController(AnalyticsService analyticsService) {
+    this.analyticsService = analyticsService;
+  }
+
+  /**
+   * @param from    first day of the report, yyyy-MM-dd
+   * @param to      last day of the report, yyyy-MM-dd
+   * @param groupBy optional dimension to combine by: day, category or brand
+   * @return units sold and revenue per group and 200 status
+   */
+  @GetMapping("/sales")
+  public ResponseEntity<List<SalesSummary>> getSales(
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+      @RequestParam(required = false) String groupBy) {
+    logger.info("Request received for getSales");
+    return new ResponseEntity<>(analyticsService.getSales(from, to, groupBy), HttpStatus.OK);
+  }
+}
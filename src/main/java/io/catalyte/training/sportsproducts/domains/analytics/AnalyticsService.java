@@ -0,0 +1,15 @@
+package io.catalyte.training.sportsproducts.domains.analytics;
+
+import io.catalyte.training.sportsproducts.domains.purchase.Purchase;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * This interface provides an abstraction layer for the Analytics Service
+ */
+public interface AnalyticsService {
+
+  void recordPurchase(Purchase purchase);
+
+  List<SalesSummary> getSales(LocalDate from, LocalDate to, String groupBy);
+}
@@ -0,0 +1,274 @@
+package io.catalyte.training.sportsproducts.domains.analytics;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import io.catalyte.training.sportsproducts.domains.product.ProductRepository;
+import io.catalyte.training.sportsproducts.domains.purchase.LineItem;
+import io.catalyte.training.sportsproducts.domains.purchase.Purchase;
+import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This class provides the implementation for the AnalyticsService interface.
+ */
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+  private final Logger logger = LogManager.getLogger(AnalyticsServiceImpl.class);
+
+  static final String UNKNOWN = "Unknown";
+
+  static final int DEFAULT_REPORT_DAYS = 30;
+
+  /**
+   * The order rollup rows are updated in, so two purchases touching the same rows lock them in the
+   * same order and cannot deadlock
+   */
+  private static final Comparator<RollupKey> UPDATE_ORDER = Comparator
+      .comparing((RollupKey key) -> key.saleDate)
+      .thenComparing(key -> key.category)
+      .thenComparing(key -> key.brand);
+
+  SalesRollupRepository salesRollupRepository;
+  ProductRepository productRepository;
+
+  private final TransactionTemplate newRowTransaction;
+
+  @Autowired
+  public AnalyticsServiceImpl(SalesRollupRepository salesRollupRepository,
+      ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+    this.salesRollupRepository = salesRollupRepository;
+    this.productRepository = productRepository;
+    this.newRowTransaction = new TransactionTemplate(transactionManager);
+    this.newRowTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Adds the line items of a purchase to the rollups of the UTC day it was accepted, which differs
+   * from today for purchases replayed from the order journal. Line items are first combined by
+   * category and brand so each group costs one update, and the groups are updated in key order.
+   * This joins the transaction saving the purchase, so the rollups commit or roll back with it,
+   * and failures are thrown to roll it back. The rows are normally created ahead of time by
+   * prepareRollups.
+   *
+   * @param purchase - the purchase being saved, with full product information on its line items
+   */
+  @Override
+  public void recordPurchase(Purchase purchase) {
+    if (purchase.getProducts() == null || purchase.getProducts().isEmpty()) {
+      return;
+    }
+
+    LocalDate saleDate = purchase.getCreatedAt() == null ? LocalDate.now(ZoneOffset.UTC)
+        : purchase.getCreatedAt().atOffset(ZoneOffset.UTC).toLocalDate();
+    Map<RollupKey, SalesRollup> increments = new TreeMap<>(UPDATE_ORDER);
+
+    for (LineItem lineItem : purchase.getProducts()) {
+      Product product = lineItem.getProduct();
+      if (product == null) {
+        continue;
+      }
+
+      RollupKey key = new RollupKey(saleDate, valueOrUnknown(product.getCategory()),
+          valueOrUnknown(product.getBrand()));
+      SalesRollup increment = increments.computeIfAbsent(key,
+          k -> new SalesRollup(k.saleDate, k.category, k.brand, 0, 0));
+
+      long priceCents = product.getPrice() == null ? 0
+          : product.getPrice().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+      increment.setUnits(increment.getUnits() + lineItem.getQuantity());
+      increment.setRevenueCents(increment.getRevenueCents() + priceCents * lineItem.getQuantity());
+    }
+
+    for (SalesRollup increment : increments.values()) {
+      upsert(increment);
+    }
+  }
+
+  /**
+   * Creates the empty rollup rows of today and tomorrow for every category and brand on sale, so
+   * checkout only increments existing rows. Runs at startup, once products are loaded, and every
+   * hour, well before each UTC midnight.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${analytics.rollups.prepare-cron:0 0 * * * *}", zone = "UTC")
+  public void prepareRollups() {
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    int created = 0;
+
+    try {
+      Set<RollupKey> existing = new HashSet<>();
+      for (SalesRollup rollup : salesRollupRepository
+          .findBySaleDateBetweenOrderBySaleDate(today, today.plusDays(1))) {
+        existing.add(new RollupKey(rollup.getSaleDate(), rollup.getCategory(), rollup.getBrand()));
+      }
+
+      for (Object[] group : productRepository.findDistinctCategoriesAndBrands()) {
+        for (LocalDate day = today; !day.isAfter(today.plusDays(1)); day = day.plusDays(1)) {
+          RollupKey key = new RollupKey(day, valueOrUnknown((String) group[0]),
+              valueOrUnknown((String) group[1]));
+          if (existing.add(key)) {
+            created += createRow(key.saleDate, key.category, key.brand) ? 1 : 0;
+          }
+        }
+      }
+    } catch (DataAccessException e) {
+      logger.error("Could not prepare sales rollups: " + e.getMessage());
+      return;
+    }
+
+    if (created > 0) {
+      logger.info("Prepared " + created + " sales rollups");
+    }
+  }
+
+  /**
+   * Reads units sold and revenue from the rollups, optionally combined by one dimension.
+   *
+   * @param from    - the first day of the report, defaults to 30 days before to
+   * @param to      - the last day of the report, defaults to today
+   * @param groupBy - day, category or brand; null keeps one row per day, category and brand
+   * @return the sales summaries
+   */
+  @Override
+  public List<SalesSummary> getSales(LocalDate from, LocalDate to, String groupBy) {
+    if (to == null) {
+      to = LocalDate.now(ZoneOffset.UTC);
+    }
+    if (from == null) {
+      from = to.minusDays(DEFAULT_REPORT_DAYS - 1);
+    }
+    if (from.isAfter(to)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "The from date must not be after the to date.");
+    }
+    if (groupBy != null && !groupBy.equals("day") && !groupBy.equals("category")
+        && !groupBy.equals("brand")) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Invalid groupBy: must be either 'day', 'category' or 'brand'.");
+    }
+
+    List<SalesRollup> rollups;
+
+    try {
+      rollups = salesRollupRepository.findBySaleDateBetweenOrderBySaleDate(from, to);
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+
+    Map<RollupKey, SalesSummary> summaries = new LinkedHashMap<>();
+
+    for (SalesRollup rollup : rollups) {
+      RollupKey key = new RollupKey(
+          groupBy == null || groupBy.equals("day") ? rollup.getSaleDate() : null,
+          groupBy == null || groupBy.equals("category") ? rollup.getCategory() : null,
+          groupBy == null || groupBy.equals("brand") ? rollup.getBrand() : null);
+      summaries.computeIfAbsent(key, k -> new SalesSummary(k.saleDate, k.category, k.brand))
+          .add(rollup);
+    }
+
+    return new ArrayList<>(summaries.values());
+  }
+
+  /**
+   * Increments a rollup row. A row prepareRollups has not created, for a category and brand first
+   * sold since it last ran, is created empty in its own transaction, so an insert that loses a race
+   * on the unique constraint does not abort the purchase's transaction. That takes a second
+   * connection, which is why the rows are normally created ahead of time.
+   */
+  private void upsert(SalesRollup increment) {
+    if (increment(increment) > 0) {
+      return;
+    }
+
+    logger.warn("Sales rollup " + increment.getSaleDate() + " " + increment.getCategory() + " "
+        + increment.getBrand() + " was not prepared, creating it at checkout");
+    createRow(increment.getSaleDate(), increment.getCategory(), increment.getBrand());
+
+    if (increment(increment) == 0) {
+      throw new IllegalStateException("Sales rollup " + increment + " could not be created");
+    }
+  }
+
+  /**
+   * @return true if the row was created, false if another instance or purchase created it first
+   */
+  private boolean createRow(LocalDate saleDate, String category, String brand) {
+    try {
+      newRowTransaction.execute(status -> salesRollupRepository.save(
+          new SalesRollup(saleDate, category, brand, 0, 0)));
+      return true;
+    } catch (DataIntegrityViolationException e) {
+      return false;
+    }
+  }
+
+  private int increment(SalesRollup increment) {
+    return salesRollupRepository.increment(increment.getSaleDate(), increment.getCategory(),
+        increment.getBrand(), increment.getUnits(), increment.getRevenueCents());
+  }
+
+  private static String valueOrUnknown(String value) {
+    return value == null || value.isEmpty() ? UNKNOWN : value;
+  }
+
+  /**
+   * Identifies one group of sales
+   */
+  private static final class RollupKey {
+
+    private final LocalDate saleDate;
+    private final String category;
+    private final String brand;
+
+    RollupKey(LocalDate saleDate, String category, String brand) {
+      this.saleDate = saleDate;
+      this.category = category;
+      this.brand = brand;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      RollupKey that = (RollupKey) o;
+      return Objects.equals(saleDate, that.saleDate)
+          && Objects.equals(category, that.category)
+          && Objects.equals(brand, that.brand);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(saleDate, category, brand);
+    }
+  }
+}
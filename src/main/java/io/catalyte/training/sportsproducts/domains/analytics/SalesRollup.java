@@ -0,0 +1,108 @@
+package io.catalyte.training.sportsproducts.domains.analytics;
+
+import java.time.LocalDate;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * Running totals of units sold and revenue for one category and brand on one day. Rows are
+ * incremented as purchases are saved, so analytics never has to read line items.
+ */
+@Entity
+@Table(name = "sales_rollups",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"sale_date", "category", "brand"}))
+public class SalesRollup {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "sale_date", nullable = false)
+  private LocalDate saleDate;
+
+  @Column(nullable = false)
+  private String category;
+
+  @Column(nullable = false)
+  private String brand;
+
+  private long units;
+
+  private long revenueCents;
+
+  public SalesRollup() {
+  }
+
+  public SalesRollup(LocalDate saleDate, String category, String brand, long units,
+      long revenueCents) {
+    this.saleDate = saleDate;
+    this.category = category;
+    this.brand = brand;
+    this.units = units;
+    this.revenueCents = revenueCents;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public LocalDate getSaleDate() {
+    return saleDate;
+  }
+
+  public void setSaleDate(LocalDate saleDate) {
+    this.saleDate = saleDate;
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public void setCategory(String category) {
+    this.category = category;
+  }
+
+  public String getBrand() {
+    return brand;
+  }
+
+  public void setBrand(String brand) {
+    this.brand = brand;
+  }
+
+  public long getUnits() {
+    return units;
+  }
+
+  public void setUnits(long units) {
+    this.units = units;
+  }
+
+  public long getRevenueCents() {
+    return revenueCents;
+  }
+
+  public void setRevenueCents(long revenueCents) {
+    this.revenueCents = revenueCents;
+  }
+
+  @Override
+  public String toString() {
+    return "SalesRollup{" +
+        "saleDate=" + saleDate +
+        ", category='" + category + '\'' +
+        ", brand='" + brand + '\'' +
+        ", units=" + units +
+        ", revenueCents=" + revenueCents +
+        '}';
+  }
+}
@@ -0,0 +1,25 @@
+package io.catalyte.training.sportsproducts.domains.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE SalesRollup r SET r.units = r.units + :units, "
+      + "r.revenueCents = r.revenueCents + :revenueCents "
+      + "WHERE r.saleDate = :saleDate AND r.category = :category AND r.brand = :brand")
+  int increment(@Param("saleDate") LocalDate saleDate, @Param("category") String category,
+      @Param("brand") String brand, @Param("units") long units,
+      @Param("revenueCents") long revenueCents);
+
+  List<SalesRollup> findBySaleDateBetweenOrderBySaleDate(LocalDate from, LocalDate to);
+}
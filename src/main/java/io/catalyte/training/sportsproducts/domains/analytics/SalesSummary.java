@@ -0,0 +1,76 @@
+package io.catalyte.training.sportsproducts.domains.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Describes units sold and revenue for one group of the analytics report. Dimensions that the
+ * report is not grouped by are left null.
+ */
+public class SalesSummary {
+
+  private LocalDate day;
+  private String category;
+  private String brand;
+  private long units;
+  private long revenueCents;
+
+  public SalesSummary() {
+  }
+
+  public SalesSummary(LocalDate day, String category, String brand) {
+    this.day = day;
+    this.category = category;
+    this.brand = brand;
+  }
+
+  /**
+   * Adds the totals of a rollup row to this summary.
+   *
+   * @param rollup - the rollup row to add
+   */
+  public void add(SalesRollup rollup) {
+    units += rollup.getUnits();
+    revenueCents += rollup.getRevenueCents();
+  }
+
+  public LocalDate getDay() {
+    return day;
+  }
+
+  public void setDay(LocalDate day) {
+    this.day = day;
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public void setCategory(String category) {
+    this.category = category;
+  }
+
+  public String getBrand() {
+    return brand;
+  }
+
+  public void setBrand(String brand) {
+    this.brand = brand;
+  }
+
+  public long getUnits() {
+    return units;
+  }
+
+  public void setUnits(long units) {
+    this.units = units;
+  }
+
+  public BigDecimal getRevenue() {
+    return BigDecimal.valueOf(revenueCents, 2);
+  }
+
+  public void setRevenue(BigDecimal revenue) {
+    this.revenueCents = revenue.movePointRight(2).longValue();
+  }
+}
@@ -11,4 +11,6 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
   List<String> findDistinctCategories();
   @Query("SELECT DISTINCT p.type FROM Product p")
   List<String> findDistinctTypes();
+  @Query("SELECT DISTINCT p.category, p.brand FROM Product p")
+  List<Object[]> findDistinctCategoriesAndBrands();
 }
@@ -1,5 +1,6 @@
 package io.catalyte.training.sportsproducts.domains.product;
 
+import io.catalyte.training.sportsproducts.domains.purchase.PriceTable;
 import io.catalyte.training.sportsproducts.exceptions.ResourceNotFound;
 import io.catalyte.training.sportsproducts.exceptions.ServerError;
 import java.math.BigDecimal;
@@ -28,10 +29,12 @@ public class ProductServiceImpl implements ProductService {
   private final Logger logger = LogManager.getLogger(ProductServiceImpl.class);
 
   ProductRepository productRepository;
+  PriceTable priceTable;
 
   @Autowired
-  public ProductServiceImpl(ProductRepository productRepository) {
+  public ProductServiceImpl(ProductRepository productRepository, PriceTable priceTable) {
     this.productRepository = productRepository;
+    this.priceTable = priceTable;
   }
 
   /**
@@ -94,7 +97,8 @@ public class ProductServiceImpl implements ProductService {
   }
 
   /**
-   * Creates a new product and persists it across the database.
+   * Creates a new product and persists it across the database. A product saved with the id of an
+   * existing one replaces it, so its cached price is dropped for checkout to read it again.
    *
    * @param product - the product to be persisted
    * @return - the product
@@ -107,7 +111,11 @@ public class ProductServiceImpl implements ProductService {
           String.join(", ", validationErrors));
     }
 
-    return productRepository.save(product);
+    Product savedProduct = productRepository.save(product);
+    if (savedProduct.getId() != null) {
+      priceTable.evict(savedProduct.getId());
+    }
+    return savedProduct;
   }
 
   /**
@@ -240,4 +248,4 @@ public class ProductServiceImpl implements ProductService {
 
     return validationErrors;
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+
+/**
+ * Describes the discount a promocode gives on a subtotal. Amounts are calculated in cents and
+ * exposed as dollars.
+ */
+public class AppliedPromocode {
+
+  private final String title;
+  private final String type;
+  private final BigDecimal rate;
+  private final long subtotalCents;
+  private final long discountCents;
+
+  public AppliedPromocode(Promocode promocode, long subtotalCents) {
+    this.title = promocode.getTitle();
+    this.type = promocode.getType();
+    this.rate = promocode.getRate();
+    this.subtotalCents = subtotalCents;
+    this.discountCents = promocode.discountCents(subtotalCents);
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public BigDecimal getRate() {
+    return rate;
+  }
+
+  public BigDecimal getSubtotal() {
+    return BigDecimal.valueOf(subtotalCents, 2);
+  }
+
+  public BigDecimal getDiscount() {
+    return BigDecimal.valueOf(discountCents, 2);
+  }
+
+  public BigDecimal getTotal() {
+    return BigDecimal.valueOf(getTotalCents(), 2);
+  }
+
+  @JsonIgnore
+  public long getDiscountCents() {
+    return discountCents;
+  }
+
+  @JsonIgnore
+  public long getTotalCents() {
+    return subtotalCents - discountCents;
+  }
+}
@@ -0,0 +1,36 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import java.math.BigDecimal;
+
+/**
+ * The promocode title and cart subtotal sent to apply a promocode.
+ */
+public class ApplyPromocodeRequest {
+
+  private String title;
+  private BigDecimal subtotal;
+
+  public ApplyPromocodeRequest() {
+  }
+
+  public ApplyPromocodeRequest(String title, BigDecimal subtotal) {
+    this.title = title;
+    this.subtotal = subtotal;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  public BigDecimal getSubtotal() {
+    return subtotal;
+  }
+
+  public void setSubtotal(BigDecimal subtotal) {
+    this.subtotal = subtotal;
+  }
+}
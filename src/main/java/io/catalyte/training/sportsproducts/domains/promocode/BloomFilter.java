@@ -0,0 +1,118 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import io.catalyte.training.sportsproducts.util.Hashing;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of strings. mightContain never returns false for a string that was put, and
+ * returns true for a string that was not put with a probability that grows as the filter fills.
+ *
+ * <p>Bits are set with compare-and-set, so puts and lookups can run concurrently without locks.
+ * The k bit positions come from two 64-bit hashes combined as h1 + i * h2.
+ */
+class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitSize;
+  private final int hashCount;
+  private final long capacity;
+  private final AtomicLong bitsSet = new AtomicLong();
+  private final AtomicLong insertions = new AtomicLong();
+
+  private BloomFilter(long bitSize, int hashCount, long capacity) {
+    this.words = new AtomicLongArray((int) ((bitSize + 63) / 64));
+    this.bitSize = words.length() * 64L;
+    this.hashCount = hashCount;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Sizes a filter for a number of strings and a target false positive rate.
+   *
+   * @param expectedInsertions - the number of strings expected to be put
+   * @param falsePositiveRate  - the target false positive rate once they are
+   * @return an empty filter
+   */
+  static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    return new BloomFilter(Math.max(64, bits), hashes, n);
+  }
+
+  /**
+   * @param value - the string to add
+   */
+  void put(String value) {
+    insertions.incrementAndGet();
+    long h1 = hash(value, 0x9E3779B97F4A7C15L);
+    long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+      int index = (int) (bit >>> 6);
+      long mask = 1L << bit;
+
+      long word = words.get(index);
+      while ((word & mask) == 0) {
+        if (words.compareAndSet(index, word, word | mask)) {
+          bitsSet.incrementAndGet();
+          break;
+        }
+        word = words.get(index);
+      }
+    }
+  }
+
+  /**
+   * @param value - the string to look up
+   * @return false if the string was definitely never put
+   */
+  boolean mightContain(String value) {
+    long h1 = hash(value, 0x9E3779B97F4A7C15L);
+    long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the probability that a string never put is reported as present, estimated from the
+   * fraction of bits set
+   */
+  double expectedFalsePositiveRate() {
+    return Math.pow((double) bitsSet.get() / bitSize, hashCount);
+  }
+
+  /**
+   * @return true once more strings were put than the filter was sized for, so its false positive
+   * rate is above the target
+   */
+  boolean isOverCapacity() {
+    return insertions.get() > capacity;
+  }
+
+  long bitSize() {
+    return bitSize;
+  }
+
+  int hashCount() {
+    return hashCount;
+  }
+
+  private static long hash(String value, long seed) {
+    long h = seed ^ value.length();
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001B3L;
+      h = Long.rotateLeft(h, 29);
+    }
+    return Hashing.mix(h);
+  }
+}
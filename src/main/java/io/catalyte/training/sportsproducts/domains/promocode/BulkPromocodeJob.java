@@ -0,0 +1,85 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The progress of a bulk promocode generation.
+ */
+public class BulkPromocodeJob {
+
+  /**
+   * The states of a job
+   */
+  public enum Status {
+    RUNNING, COMPLETED, FAILED
+  }
+
+  private final String id;
+  private final String prefix;
+  private final int requested;
+  private final Instant startedAt;
+  private final AtomicLong generated = new AtomicLong();
+
+  private volatile Status status = Status.RUNNING;
+  private volatile Instant finishedAt;
+  private volatile String error;
+
+  public BulkPromocodeJob(String id, String prefix, int requested) {
+    this.id = id;
+    this.prefix = prefix;
+    this.requested = requested;
+    this.startedAt = Instant.now();
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getPrefix() {
+    return prefix;
+  }
+
+  public int getRequested() {
+    return requested;
+  }
+
+  public long getGenerated() {
+    return generated.get();
+  }
+
+  public int getPercentComplete() {
+    return requested == 0 ? 100 : (int) (generated.get() * 100 / requested);
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  void addGenerated(long codes) {
+    generated.addAndGet(codes);
+  }
+
+  void complete() {
+    finishedAt = Instant.now();
+    status = Status.COMPLETED;
+  }
+
+  void fail(String error) {
+    this.error = error;
+    finishedAt = Instant.now();
+    status = Status.FAILED;
+  }
+}
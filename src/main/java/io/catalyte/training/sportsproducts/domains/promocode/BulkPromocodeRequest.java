@@ -0,0 +1,46 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+/**
+ * A request to generate many single-use promocodes from one template. Every code shares the
+ * template's description, type, rate, limits and validity window; titles are the prefix followed
+ * by a generated campaign code.
+ */
+public class BulkPromocodeRequest {
+
+  private String prefix;
+  private int count;
+  private Promocode template;
+
+  public BulkPromocodeRequest() {
+  }
+
+  public BulkPromocodeRequest(String prefix, int count, Promocode template) {
+    this.prefix = prefix;
+    this.count = count;
+    this.template = template;
+  }
+
+  public String getPrefix() {
+    return prefix;
+  }
+
+  public void setPrefix(String prefix) {
+    this.prefix = prefix;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public void setCount(int count) {
+    this.count = count;
+  }
+
+  public Promocode getTemplate() {
+    return template;
+  }
+
+  public void setTemplate(Promocode template) {
+    this.template = template;
+  }
+}
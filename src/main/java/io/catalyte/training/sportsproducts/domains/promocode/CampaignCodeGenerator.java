@@ -0,0 +1,120 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import io.catalyte.training.sportsproducts.util.Hashing;
+import java.security.SecureRandom;
+
+/**
+ * Generates campaign codes: 12 base32 characters holding 60 bits, followed by a Luhn mod 32 check
+ * character that catches any single mistyped character and most swapped pairs.
+ *
+ * <p>Each code is a keyed permutation of a sequence number, so the codes of one generator are
+ * unique by construction and can be produced in parallel from disjoint ranges of numbers without
+ * coordination. The round keys come from SecureRandom, so codes cannot be predicted from each
+ * other.
+ */
+class CampaignCodeGenerator {
+
+  /**
+   * Crockford's base32, which leaves out I, L, O and U to avoid misreadings
+   */
+  static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+  static final int BODY_LENGTH = 12;
+
+  static final int CODE_LENGTH = BODY_LENGTH + 1;
+
+  private static final int ROUNDS = 4;
+
+  private static final long HALF_MASK = (1L << 30) - 1;
+
+  private final long[] roundKeys = new long[ROUNDS];
+
+  CampaignCodeGenerator(SecureRandom random) {
+    for (int i = 0; i < ROUNDS; i++) {
+      roundKeys[i] = random.nextLong();
+    }
+  }
+
+  /**
+   * @param sequence - a number below 2^60 that has not been used with this generator
+   * @return the code for the number
+   */
+  String codeFor(long sequence) {
+    long value = permute(sequence);
+    char[] code = new char[CODE_LENGTH];
+
+    for (int i = BODY_LENGTH - 1; i >= 0; i--) {
+      code[i] = ALPHABET.charAt((int) (value & 31));
+      value >>>= 5;
+    }
+    code[BODY_LENGTH] = checkCharacter(code, BODY_LENGTH);
+
+    return new String(code);
+  }
+
+  /**
+   * @param title - a promocode title
+   * @return true if the title is a prefix followed by a code with a valid check character
+   */
+  static boolean isCampaignTitle(String title) {
+    return title.length() > CODE_LENGTH
+        && hasValidCheck(title.substring(title.length() - CODE_LENGTH));
+  }
+
+  /**
+   * @param code - a code as entered by a customer
+   * @return true if the code has the right length, alphabet and check character
+   */
+  static boolean hasValidCheck(String code) {
+    if (code.length() != CODE_LENGTH) {
+      return false;
+    }
+
+    int sum = 0;
+    int factor = 1;
+    for (int i = code.length() - 1; i >= 0; i--) {
+      int value = ALPHABET.indexOf(code.charAt(i));
+      if (value < 0) {
+        return false;
+      }
+      int addend = factor * value;
+      sum += addend / 32 + addend % 32;
+      factor = factor == 1 ? 2 : 1;
+    }
+
+    return sum % 32 == 0;
+  }
+
+  /**
+   * Computes the Luhn mod 32 check character of the first length characters.
+   */
+  static char checkCharacter(char[] code, int length) {
+    int sum = 0;
+    int factor = 2;
+
+    for (int i = length - 1; i >= 0; i--) {
+      int addend = factor * ALPHABET.indexOf(code[i]);
+      sum += addend / 32 + addend % 32;
+      factor = factor == 2 ? 1 : 2;
+    }
+
+    return ALPHABET.charAt((32 - sum % 32) % 32);
+  }
+
+  /**
+   * A four round Feistel network over two 30-bit halves. Any round function gives a bijection, so
+   * distinct sequence numbers always give distinct values.
+   */
+  private long permute(long sequence) {
+    long left = (sequence >>> 30) & HALF_MASK;
+    long right = sequence & HALF_MASK;
+
+    for (long key : roundKeys) {
+      long next = left ^ (Hashing.mix(right ^ key) & HALF_MASK);
+      left = right;
+      right = next;
+    }
+
+    return (left << 30) | right;
+  }
+}
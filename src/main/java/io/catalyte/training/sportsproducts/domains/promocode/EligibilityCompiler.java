@@ -0,0 +1,304 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Compiles eligibility rules into product predicates.
+ *
+ * <p>The rule is first simplified: constants are folded, double negations dropped, nested alls and
+ * anys flattened, and lists on the same field merged, so that an any of three category rules
+ * becomes a single set lookup. Cheap field checks are ordered before nested rules. The result is
+ * then emitted as a tree of small predicates, with fields of one value compared directly, a few
+ * values scanned and larger lists looked up in a hash set. Evaluating the predicate allocates
+ * nothing.
+ */
+final class EligibilityCompiler {
+
+  static final int MAX_DEPTH = 16;
+
+  static final Predicate<Product> ALWAYS = product -> true;
+
+  static final Predicate<Product> NEVER = product -> false;
+
+  private static final int LINEAR_SCAN_LIMIT = 4;
+
+  private EligibilityCompiler() {
+  }
+
+  /**
+   * @param rule - the rule to compile, or null for a code that applies to every product
+   * @return the predicate
+   * @throws IllegalArgumentException if the rule is malformed
+   */
+  static Predicate<Product> compile(EligibilityRule rule) {
+    if (rule == null) {
+      return ALWAYS;
+    }
+    return emit(simplify(rule, 1));
+  }
+
+  private enum Field {
+    CATEGORY(Product::getCategory),
+    BRAND(Product::getBrand),
+    DEMOGRAPHIC(Product::getDemographic);
+
+    private final Function<Product, String> getter;
+
+    Field(Function<Product, String> getter) {
+      this.getter = getter;
+    }
+  }
+
+  private static Node simplify(EligibilityRule rule, int depth) {
+    if (rule == null) {
+      throw new IllegalArgumentException("Eligibility rules must not be null.");
+    }
+    if (depth > MAX_DEPTH) {
+      throw new IllegalArgumentException(
+          "Eligibility rules must not be nested more than " + MAX_DEPTH + " deep.");
+    }
+
+    int set = (rule.getAll() != null ? 1 : 0) + (rule.getAny() != null ? 1 : 0)
+        + (rule.getNot() != null ? 1 : 0) + (rule.getCategories() != null ? 1 : 0)
+        + (rule.getBrands() != null ? 1 : 0) + (rule.getDemographics() != null ? 1 : 0);
+    if (set != 1) {
+      throw new IllegalArgumentException("Each eligibility rule must set exactly one of all, any, "
+          + "not, categories, brands or demographics.");
+    }
+
+    if (rule.getCategories() != null) {
+      return leaf(Field.CATEGORY, rule.getCategories());
+    }
+    if (rule.getBrands() != null) {
+      return leaf(Field.BRAND, rule.getBrands());
+    }
+    if (rule.getDemographics() != null) {
+      return leaf(Field.DEMOGRAPHIC, rule.getDemographics());
+    }
+    if (rule.getNot() != null) {
+      return negate(simplify(rule.getNot(), depth + 1));
+    }
+
+    boolean all = rule.getAll() != null;
+    List<Node> children = new ArrayList<>();
+    for (EligibilityRule child : all ? rule.getAll() : rule.getAny()) {
+      children.add(simplify(child, depth + 1));
+    }
+    return combine(all, children);
+  }
+
+  private static Node leaf(Field field, List<String> values) {
+    if (values.isEmpty() || values.contains(null)) {
+      throw new IllegalArgumentException(
+          "Eligibility rule values must be a non-empty list of strings.");
+    }
+    return new Leaf(field, new LinkedHashSet<>(values));
+  }
+
+  private static Node negate(Node node) {
+    if (node instanceof Constant) {
+      return Constant.of(!((Constant) node).value);
+    }
+    if (node instanceof Not) {
+      return ((Not) node).child;
+    }
+    return new Not(node);
+  }
+
+  /**
+   * Simplifies an all (conjunction) or an any (disjunction). The identity constant of the
+   * operation is dropped, the absorbing constant short-circuits the whole node, and lists on the
+   * same field are intersected or unioned.
+   */
+  private static Node combine(boolean conjunction, List<Node> children) {
+    List<Node> flattened = new ArrayList<>();
+    for (Node child : children) {
+      if (child instanceof Combination && ((Combination) child).conjunction == conjunction) {
+        flattened.addAll(((Combination) child).children);
+      } else {
+        flattened.add(child);
+      }
+    }
+
+    Map<Field, Set<String>> merged = new EnumMap<>(Field.class);
+    List<Node> others = new ArrayList<>();
+    for (Node child : flattened) {
+      if (child instanceof Constant) {
+        if (((Constant) child).value != conjunction) {
+          return child;
+        }
+      } else if (child instanceof Leaf) {
+        Leaf leaf = (Leaf) child;
+        Set<String> values = merged.get(leaf.field);
+        if (values == null) {
+          merged.put(leaf.field, new LinkedHashSet<>(leaf.values));
+        } else if (conjunction) {
+          values.retainAll(leaf.values);
+        } else {
+          values.addAll(leaf.values);
+        }
+      } else {
+        others.add(child);
+      }
+    }
+
+    List<Node> result = new ArrayList<>();
+    for (Map.Entry<Field, Set<String>> entry : merged.entrySet()) {
+      if (entry.getValue().isEmpty()) {
+        // only an all can empty a list, and then nothing can match
+        return Constant.of(false);
+      }
+      result.add(new Leaf(entry.getKey(), entry.getValue()));
+    }
+    result.addAll(others);
+
+    if (result.isEmpty()) {
+      return Constant.of(conjunction);
+    }
+    if (result.size() == 1) {
+      return result.get(0);
+    }
+    return new Combination(conjunction, result);
+  }
+
+  private static Predicate<Product> emit(Node node) {
+    if (node instanceof Constant) {
+      return ((Constant) node).value ? ALWAYS : NEVER;
+    }
+    if (node instanceof Leaf) {
+      return emitLeaf((Leaf) node);
+    }
+    if (node instanceof Not) {
+      Predicate<Product> child = emit(((Not) node).child);
+      return product -> !child.test(product);
+    }
+
+    Combination combination = (Combination) node;
+    List<Predicate<Product>> emitted = new ArrayList<>(combination.children.size());
+    for (Node child : combination.children) {
+      emitted.add(emit(child));
+    }
+
+    if (emitted.size() == 2) {
+      Predicate<Product> first = emitted.get(0);
+      Predicate<Product> second = emitted.get(1);
+      return combination.conjunction
+          ? product -> first.test(product) && second.test(product)
+          : product -> first.test(product) || second.test(product);
+    }
+
+    @SuppressWarnings("unchecked")
+    Predicate<Product>[] children = emitted.toArray(new Predicate[0]);
+    if (combination.conjunction) {
+      return product -> {
+        for (Predicate<Product> child : children) {
+          if (!child.test(product)) {
+            return false;
+          }
+        }
+        return true;
+      };
+    }
+    return product -> {
+      for (Predicate<Product> child : children) {
+        if (child.test(product)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  private static Predicate<Product> emitLeaf(Leaf leaf) {
+    Function<Product, String> getter = leaf.field.getter;
+
+    if (leaf.values.size() == 1) {
+      String value = leaf.values.iterator().next();
+      return product -> value.equals(getter.apply(product));
+    }
+
+    if (leaf.values.size() <= LINEAR_SCAN_LIMIT) {
+      String[] values = leaf.values.toArray(new String[0]);
+      return product -> {
+        String actual = getter.apply(product);
+        if (actual != null) {
+          for (String value : values) {
+            if (value.equals(actual)) {
+              return true;
+            }
+          }
+        }
+        return false;
+      };
+    }
+
+    Set<String> values = new HashSet<>(leaf.values);
+    return product -> {
+      String actual = getter.apply(product);
+      return actual != null && values.contains(actual);
+    };
+  }
+
+  /**
+   * A simplified rule, before it is emitted as a predicate
+   */
+  private interface Node {
+
+  }
+
+  private static final class Constant implements Node {
+
+    private static final Constant TRUE = new Constant(true);
+    private static final Constant FALSE = new Constant(false);
+
+    private final boolean value;
+
+    private Constant(boolean value) {
+      this.value = value;
+    }
+
+    static Constant of(boolean value) {
+      return value ? TRUE : FALSE;
+    }
+  }
+
+  private static final class Leaf implements Node {
+
+    private final Field field;
+    private final Set<String> values;
+
+    Leaf(Field field, Set<String> values) {
+      this.field = field;
+      this.values = values;
+    }
+  }
+
+  private static final class Not implements Node {
+
+    private final Node child;
+
+    Not(Node child) {
+      this.child = child;
+    }
+  }
+
+  private static final class Combination implements Node {
+
+    private final boolean conjunction;
+    private final List<Node> children;
+
+    Combination(boolean conjunction, List<Node> children) {
+      this.conjunction = conjunction;
+      this.children = children;
+    }
+  }
+}
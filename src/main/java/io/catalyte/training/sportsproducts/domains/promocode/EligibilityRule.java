@@ -0,0 +1,76 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.List;
+
+/**
+ * A rule deciding which products a promocode applies to. Each rule sets exactly one field: a list
+ * of accepted categories, brands or demographics, or all, any or not over nested rules. For
+ * example, running or training products that are not from Acme:
+ *
+ * <pre>
+ * {"all": [{"categories": ["Running", "Training"]}, {"not": {"brands": ["Acme"]}}]}
+ * </pre>
+ *
+ * <p>Values match the product's fields exactly. Rules are compiled into predicates by
+ * EligibilityCompiler when a promocode loads.
+ */
+@JsonInclude(Include.NON_NULL)
+public class EligibilityRule {
+
+  private List<EligibilityRule> all;
+  private List<EligibilityRule> any;
+  private EligibilityRule not;
+  private List<String> categories;
+  private List<String> brands;
+  private List<String> demographics;
+
+  public List<EligibilityRule> getAll() {
+    return all;
+  }
+
+  public void setAll(List<EligibilityRule> all) {
+    this.all = all;
+  }
+
+  public List<EligibilityRule> getAny() {
+    return any;
+  }
+
+  public void setAny(List<EligibilityRule> any) {
+    this.any = any;
+  }
+
+  public EligibilityRule getNot() {
+    return not;
+  }
+
+  public void setNot(EligibilityRule not) {
+    this.not = not;
+  }
+
+  public List<String> getCategories() {
+    return categories;
+  }
+
+  public void setCategories(List<String> categories) {
+    this.categories = categories;
+  }
+
+  public List<String> getBrands() {
+    return brands;
+  }
+
+  public void setBrands(List<String> brands) {
+    this.brands = brands;
+  }
+
+  public List<String> getDemographics() {
+    return demographics;
+  }
+
+  public void setDemographics(List<String> demographics) {
+    this.demographics = demographics;
+  }
+}
@@ -0,0 +1,42 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores an eligibility rule as JSON in a single column.
+ */
+@Converter
+public class EligibilityRuleConverter implements AttributeConverter<EligibilityRule, String> {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Override
+  public String convertToDatabaseColumn(EligibilityRule rule) {
+    if (rule == null) {
+      return null;
+    }
+
+    try {
+      return OBJECT_MAPPER.writeValueAsString(rule);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Could not write eligibility rule: " + e.getMessage());
+    }
+  }
+
+  @Override
+  public EligibilityRule convertToEntityAttribute(String json) {
+    if (json == null || json.isEmpty()) {
+      return null;
+    }
+
+    try {
+      return OBJECT_MAPPER.readValue(json, EligibilityRule.class);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not read eligibility rule: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A hashed timer wheel: a ring of buckets, one per tick, each holding the timeouts that fall on
+ * it. Scheduling and cancelling are constant time no matter how many timeouts are waiting, and a
+ * tick only looks at one bucket. Timeouts more than one turn of the wheel away carry a count of
+ * remaining turns.
+ *
+ * <p>A timeout never fires before its deadline and fires at most one tick after it. Tasks run on
+ * the wheel's thread and should be short.
+ */
+class HashedTimerWheel {
+
+  private final Logger logger = LogManager.getLogger(HashedTimerWheel.class);
+
+  private final String name;
+  private final long tickMillis;
+  private final int mask;
+  private final List<List<Timeout>> buckets;
+  private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+  private final LongSupplier clock;
+  private final long startMillis;
+
+  private long nextTick;
+  private volatile Thread worker;
+
+  /**
+   * @param name       - the name of the wheel's thread
+   * @param tickMillis - the length of a tick, which bounds how late a timeout can fire
+   * @param wheelSize  - the number of buckets, rounded up to a power of two
+   * @param clock      - the current time in milliseconds
+   */
+  HashedTimerWheel(String name, long tickMillis, int wheelSize, LongSupplier clock) {
+    int size = 1;
+    while (size < wheelSize) {
+      size <<= 1;
+    }
+
+    this.name = name;
+    this.tickMillis = tickMillis;
+    this.mask = size - 1;
+    this.buckets = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      buckets.add(new ArrayList<>());
+    }
+    this.clock = clock;
+    this.startMillis = clock.getAsLong();
+  }
+
+  /**
+   * Schedules a task to run once the clock reaches a deadline. Deadlines in the past run on the
+   * next tick.
+   *
+   * @param task           - the task to run
+   * @param deadlineMillis - the time to run it at
+   * @return the timeout, which can be cancelled
+   */
+  Timeout schedule(Runnable task, long deadlineMillis) {
+    Timeout timeout = new Timeout(task, deadlineMillis);
+    scheduled.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Starts the thread that advances the wheel.
+   */
+  synchronized void start() {
+    if (worker != null) {
+      return;
+    }
+
+    worker = new Thread(this::run, name);
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Stops the wheel's thread. Waiting timeouts are dropped.
+   */
+  synchronized void stop() {
+    Thread thread = worker;
+    worker = null;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  /**
+   * Processes every tick up to the current time.
+   *
+   * @return the number of timeouts that fired
+   */
+  synchronized int advance() {
+    long currentTick = (clock.getAsLong() - startMillis) / tickMillis;
+    int fired = 0;
+
+    while (nextTick <= currentTick) {
+      transferScheduled();
+      fired += expire(buckets.get((int) (nextTick & mask)));
+      nextTick++;
+    }
+
+    return fired;
+  }
+
+  private void run() {
+    while (worker == Thread.currentThread()) {
+      advance();
+
+      long sleepMillis = startMillis + nextTick * tickMillis - clock.getAsLong();
+      try {
+        Thread.sleep(Math.max(1, sleepMillis));
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Places newly scheduled timeouts in the bucket of the first tick at or after their deadline.
+   */
+  private void transferScheduled() {
+    Timeout timeout;
+
+    while ((timeout = scheduled.poll()) != null) {
+      if (timeout.cancelled) {
+        continue;
+      }
+
+      long deadlineTick = Math.max(nextTick,
+          (timeout.deadlineMillis - startMillis + tickMillis - 1) / tickMillis);
+      timeout.rounds = (deadlineTick - nextTick) / buckets.size();
+      buckets.get((int) (deadlineTick & mask)).add(timeout);
+    }
+  }
+
+  private int expire(List<Timeout> bucket) {
+    int fired = 0;
+    Iterator<Timeout> iterator = bucket.iterator();
+
+    while (iterator.hasNext()) {
+      Timeout timeout = iterator.next();
+      if (timeout.cancelled) {
+        iterator.remove();
+      } else if (timeout.rounds > 0) {
+        timeout.rounds--;
+      } else {
+        iterator.remove();
+        fired++;
+        try {
+          timeout.task.run();
+        } catch (RuntimeException e) {
+          logger.error("Timer task on " + name + " failed: " + e.getMessage());
+        }
+      }
+    }
+
+    return fired;
+  }
+
+  /**
+   * A task waiting on the wheel
+   */
+  static final class Timeout {
+
+    private final Runnable task;
+    private final long deadlineMillis;
+    private long rounds;
+    private volatile boolean cancelled;
+
+    Timeout(Runnable task, long deadlineMillis) {
+      this.task = task;
+      this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Stops the task from running. It is removed from the wheel when its bucket is next visited.
+     */
+    void cancel() {
+      cancelled = true;
+    }
+  }
+}
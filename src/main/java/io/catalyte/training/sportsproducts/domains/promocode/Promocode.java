@@ -1,10 +1,19 @@
 package io.catalyte.training.sportsproducts.domains.promocode;
 
+import io.catalyte.training.sportsproducts.domains.product.Product;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.function.Predicate;
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
 
 /**
  * This class is a representation of a promotion code.
@@ -15,10 +24,31 @@ public class Promocode {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
+
+  @Column(unique = true, nullable = false)
   private String title;
   private String description;
   private String type;
   private BigDecimal rate;
+  private Long maxRedemptions;
+  private Long maxRedemptionsPerCustomer;
+  private long redemptions;
+  private Instant startsAt;
+  private Instant endsAt;
+  private BigDecimal minCartValue;
+
+  @Convert(converter = EligibilityRuleConverter.class)
+  @Column(length = 4000)
+  private EligibilityRule eligibility;
+
+  /**
+   * True for single-use codes generated in bulk, which are loaded on first lookup instead of at
+   * startup
+   */
+  private boolean campaign;
+
+  @Transient
+  private volatile Predicate<Product> eligiblePredicate;
 
   public Promocode() {
   }
@@ -61,4 +91,149 @@ public class Promocode {
   public void setRate(BigDecimal rate) {
     this.rate = rate;
   }
-}
\ No newline at end of file
+
+  public Long getMaxRedemptions() {
+    return maxRedemptions;
+  }
+
+  public void setMaxRedemptions(Long maxRedemptions) {
+    this.maxRedemptions = maxRedemptions;
+  }
+
+  public Long getMaxRedemptionsPerCustomer() {
+    return maxRedemptionsPerCustomer;
+  }
+
+  public void setMaxRedemptionsPerCustomer(Long maxRedemptionsPerCustomer) {
+    this.maxRedemptionsPerCustomer = maxRedemptionsPerCustomer;
+  }
+
+  /**
+   * @return the redemptions written to the database, which trail checkouts by up to one flush
+   */
+  public long getRedemptions() {
+    return redemptions;
+  }
+
+  public void setRedemptions(long redemptions) {
+    this.redemptions = redemptions;
+  }
+
+  public Instant getStartsAt() {
+    return startsAt;
+  }
+
+  public void setStartsAt(Instant startsAt) {
+    this.startsAt = startsAt;
+  }
+
+  public Instant getEndsAt() {
+    return endsAt;
+  }
+
+  public void setEndsAt(Instant endsAt) {
+    this.endsAt = endsAt;
+  }
+
+  /**
+   * @return the smallest cart subtotal, in dollars, the code can be applied to, or null
+   */
+  public BigDecimal getMinCartValue() {
+    return minCartValue;
+  }
+
+  public void setMinCartValue(BigDecimal minCartValue) {
+    this.minCartValue = minCartValue;
+  }
+
+  /**
+   * @return the rule deciding which products the code applies to, or null for every product
+   */
+  public EligibilityRule getEligibility() {
+    return eligibility;
+  }
+
+  public void setEligibility(EligibilityRule eligibility) {
+    this.eligibility = eligibility;
+    this.eligiblePredicate = null;
+  }
+
+  public boolean isCampaign() {
+    return campaign;
+  }
+
+  public void setCampaign(boolean campaign) {
+    this.campaign = campaign;
+  }
+
+  /**
+   * Compiles the eligibility rule, so carts are checked against a predicate rather than the rule.
+   * Runs when the code is loaded or saved.
+   *
+   * @throws IllegalArgumentException if the rule is malformed
+   */
+  @PostLoad
+  @PostPersist
+  public void compileEligibility() {
+    eligiblePredicate = EligibilityCompiler.compile(eligibility);
+  }
+
+  /**
+   * @return true if the code only applies to some products
+   */
+  public boolean hasEligibilityRule() {
+    return eligibility != null;
+  }
+
+  /**
+   * @param product - a product in the cart
+   * @return true if the code applies to the product
+   */
+  public boolean appliesTo(Product product) {
+    Predicate<Product> predicate = eligiblePredicate;
+    if (predicate == null) {
+      compileEligibility();
+      predicate = eligiblePredicate;
+    }
+    return predicate.test(product);
+  }
+
+  /**
+   * @param subtotalCents - the cart subtotal in cents
+   * @return true if the subtotal reaches the code's minimum cart value
+   */
+  public boolean meetsMinimum(long subtotalCents) {
+    return minCartValue == null || subtotalCents >= minCartValue.setScale(2, RoundingMode.HALF_UP)
+        .unscaledValue().longValueExact();
+  }
+
+  /**
+   * A code is valid from its start, inclusive, to its end, exclusive. Either may be missing.
+   *
+   * @param epochMillis - the time to check
+   * @return true if the code can be applied at that time
+   */
+  public boolean isActiveAt(long epochMillis) {
+    return (startsAt == null || startsAt.toEpochMilli() <= epochMillis)
+        && (endsAt == null || epochMillis < endsAt.toEpochMilli());
+  }
+
+  /**
+   * Calculates the discount this code gives on a subtotal. Flat codes take their rate off the
+   * subtotal, percent codes take rate percent of it, rounded half up to the cent.
+   *
+   * @param subtotalCents - the subtotal in cents
+   * @return the discount in cents, never more than the subtotal
+   */
+  public long discountCents(long subtotalCents) {
+    long discount;
+
+    if ("percent".equals(type)) {
+      discount = (Math.multiplyExact(subtotalCents, rate.longValue()) + 50) / 100;
+    } else {
+      discount = rate.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    return Math.min(Math.max(discount, 0), subtotalCents);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,328 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import io.catalyte.training.sportsproducts.exceptions.ResourceNotFound;
+import io.catalyte.training.sportsproducts.util.UniqueViolation;
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Generates campaigns of single-use promocodes in the background.
+ *
+ * <p>The template is validated once, then worker threads claim ranges of sequence numbers, turn
+ * them into campaign codes and insert each range with one JDBC batch in its own transaction. Codes
+ * are unique within a campaign by construction; should a batch still hit the unique index on title
+ * because of another campaign, it is retried row by row and the colliding codes are replaced.
+ * Progress is kept in memory and reported by job id.
+ */
+@Service
+public class PromocodeBulkService {
+
+  private final Logger logger = LogManager.getLogger(PromocodeBulkService.class);
+
+  static final String INSERT_SQL = "INSERT INTO promocode (title, description, type, rate, "
+      + "max_redemptions, max_redemptions_per_customer, redemptions, starts_at, ends_at, "
+      + "min_cart_value, eligibility, campaign) VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, TRUE)";
+
+  private static final EligibilityRuleConverter ELIGIBILITY_CONVERTER =
+      new EligibilityRuleConverter();
+
+  static final int MAX_PREFIX_LENGTH = 20;
+
+  static final int MAX_JOBS = 100;
+
+  private static final int MAX_COLLISION_RETRIES = 5;
+
+  private final PromocodeService promocodeService;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int threads;
+  private final int batchSize;
+  private final int maxCount;
+
+  private final ExecutorService executor;
+  private final SecureRandom random = new SecureRandom();
+  private final Map<String, BulkPromocodeJob> jobs = Collections.synchronizedMap(
+      new LinkedHashMap<String, BulkPromocodeJob>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BulkPromocodeJob> eldest) {
+          return size() > MAX_JOBS;
+        }
+      });
+
+  @Autowired
+  public PromocodeBulkService(PromocodeService promocodeService, DataSource dataSource,
+      PlatformTransactionManager transactionManager,
+      @Value("${promocodes.bulk.threads:4}") int threads,
+      @Value("${promocodes.bulk.batch-size:1000}") int batchSize,
+      @Value("${promocodes.bulk.max-count:5000000}") int maxCount) {
+    this.promocodeService = promocodeService;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.threads = threads;
+    this.batchSize = batchSize;
+    this.maxCount = maxCount;
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "promocode-bulk");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Validates a campaign and starts generating its codes.
+   *
+   * @param request - the prefix, number of codes and template
+   * @return the job, which reports progress while the codes are inserted
+   */
+  public BulkPromocodeJob generate(BulkPromocodeRequest request) {
+    validateRequest(request);
+
+    Promocode template = copyOf(request.getTemplate());
+    if (template.getMaxRedemptions() == null) {
+      template.setMaxRedemptions(1L);
+    }
+
+    CampaignCodeGenerator generator = new CampaignCodeGenerator(random);
+    template.setTitle(request.getPrefix() + generator.codeFor(0));
+    List<String> errors = promocodeService.validatePromocode(template);
+    if (!errors.isEmpty()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", errors));
+    }
+
+    BulkPromocodeJob job = new BulkPromocodeJob(UUID.randomUUID().toString(),
+        request.getPrefix(), request.getCount());
+    jobs.put(job.getId(), job);
+
+    AtomicLong nextSequence = new AtomicLong();
+    AtomicLong spareSequence = new AtomicLong(request.getCount());
+    AtomicBoolean failed = new AtomicBoolean();
+    List<CompletableFuture<Void>> workers = new ArrayList<>(threads);
+
+    for (int i = 0; i < threads; i++) {
+      workers.add(CompletableFuture.runAsync(() -> {
+        try {
+          generateRanges(job, template, generator, nextSequence, spareSequence, failed);
+        } catch (RuntimeException e) {
+          failed.set(true);
+          throw e;
+        }
+      }, executor));
+    }
+
+    CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]))
+        .whenComplete((ignored, error) -> {
+          if (error == null) {
+            job.complete();
+            logger.info("Generated " + job.getGenerated() + " promo codes for " + job.getPrefix());
+          } else {
+            Throwable cause = error.getCause() == null ? error : error.getCause();
+            job.fail(cause.getMessage());
+            logger.error("Promo code generation for " + job.getPrefix() + " failed after "
+                + job.getGenerated() + " codes: " + cause.getMessage());
+          }
+        });
+
+    return job;
+  }
+
+  /**
+   * @param id - the id returned when the job started
+   * @return the job
+   */
+  public BulkPromocodeJob getJob(String id) {
+    BulkPromocodeJob job = jobs.get(id);
+    if (job == null) {
+      throw new ResourceNotFound("Bulk promo code job " + id + " does not exist.");
+    }
+    return job;
+  }
+
+  private void generateRanges(BulkPromocodeJob job, Promocode template,
+      CampaignCodeGenerator generator, AtomicLong nextSequence, AtomicLong spareSequence,
+      AtomicBoolean failed) {
+    int count = job.getRequested();
+    List<String> titles = new ArrayList<>(batchSize);
+
+    while (!failed.get()) {
+      long start = nextSequence.getAndAdd(batchSize);
+      if (start >= count) {
+        return;
+      }
+
+      titles.clear();
+      for (long sequence = start; sequence < Math.min(start + batchSize, count); sequence++) {
+        titles.add(job.getPrefix() + generator.codeFor(sequence));
+      }
+
+      List<String> inserted;
+      try {
+        insertBatch(titles, template);
+        inserted = titles;
+      } catch (DataIntegrityViolationException e) {
+        inserted = insertRowByRow(titles, template, job.getPrefix(), generator, spareSequence);
+      }
+
+      promocodeService.registerGeneratedTitles(inserted);
+      job.addGenerated(inserted.size());
+    }
+  }
+
+  private void insertBatch(List<String> titles, Promocode template) {
+    String eligibility = ELIGIBILITY_CONVERTER.convertToDatabaseColumn(template.getEligibility());
+
+    transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL,
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement statement, int i) throws SQLException {
+            bind(statement, titles.get(i), template, eligibility);
+          }
+
+          @Override
+          public int getBatchSize() {
+            return titles.size();
+          }
+        }));
+  }
+
+  /**
+   * Inserts a batch that collided with existing titles one row at a time, replacing each
+   * colliding code with one from the spare sequence numbers past the end of the campaign. Any
+   * other constraint violation is rethrown at once.
+   */
+  private List<String> insertRowByRow(List<String> titles, Promocode template, String prefix,
+      CampaignCodeGenerator generator, AtomicLong spareSequence) {
+    List<String> inserted = new ArrayList<>(titles.size());
+    String eligibility = ELIGIBILITY_CONVERTER.convertToDatabaseColumn(template.getEligibility());
+
+    for (String title : titles) {
+      for (int attempt = 0; ; attempt++) {
+        try {
+          String candidate = title;
+          jdbcTemplate.update(INSERT_SQL,
+              statement -> bind(statement, candidate, template, eligibility));
+          inserted.add(title);
+          break;
+        } catch (DataIntegrityViolationException e) {
+          // only a colliding title is worth another sequence number
+          if (!UniqueViolation.isUniqueViolation(e) || attempt == MAX_COLLISION_RETRIES) {
+            throw e;
+          }
+          title = prefix + generator.codeFor(spareSequence.getAndIncrement());
+        }
+      }
+    }
+
+    return inserted;
+  }
+
+  private static void bind(PreparedStatement statement, String title, Promocode template,
+      String eligibility) throws SQLException {
+    statement.setString(1, title);
+    statement.setString(2, template.getDescription());
+    statement.setString(3, template.getType());
+    statement.setBigDecimal(4, template.getRate());
+    setLong(statement, 5, template.getMaxRedemptions());
+    setLong(statement, 6, template.getMaxRedemptionsPerCustomer());
+    setInstant(statement, 7, template.getStartsAt());
+    setInstant(statement, 8, template.getEndsAt());
+    statement.setBigDecimal(9, template.getMinCartValue());
+    statement.setString(10, eligibility);
+  }
+
+  private static void setLong(PreparedStatement statement, int index, Long value)
+      throws SQLException {
+    if (value == null) {
+      statement.setNull(index, Types.BIGINT);
+    } else {
+      statement.setLong(index, value);
+    }
+  }
+
+  /**
+   * Timestamps are stored as UTC wall-clock time, as Hibernate writes them.
+   */
+  private static void setInstant(PreparedStatement statement, int index, Instant value)
+      throws SQLException {
+    if (value == null) {
+      statement.setNull(index, Types.TIMESTAMP);
+    } else {
+      statement.setObject(index, value.atOffset(ZoneOffset.UTC).toLocalDateTime());
+    }
+  }
+
+  private void validateRequest(BulkPromocodeRequest request) {
+    List<String> errors = new ArrayList<>();
+
+    if (request.getCount() < 1 || request.getCount() > maxCount) {
+      errors.add("Invalid count: Count must be between 1 and " + maxCount + ".");
+    }
+
+    String prefix = request.getPrefix();
+    if (prefix == null || prefix.isEmpty() || prefix.length() > MAX_PREFIX_LENGTH) {
+      errors.add("Invalid prefix: Prefix must have 1 to " + MAX_PREFIX_LENGTH + " characters.");
+    } else {
+      for (int i = 0; i < prefix.length(); i++) {
+        char c = prefix.charAt(i);
+        if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '-') {
+          errors.add("Invalid prefix: Prefix must contain only uppercase letters, digits and "
+              + "dashes.");
+          break;
+        }
+      }
+    }
+
+    if (request.getTemplate() == null) {
+      errors.add("Invalid template: Template must exist.");
+    }
+
+    if (!errors.isEmpty()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", errors));
+    }
+  }
+
+  private static Promocode copyOf(Promocode template) {
+    Promocode copy = new Promocode(null, template.getDescription(), template.getType(),
+        template.getRate());
+    copy.setMaxRedemptions(template.getMaxRedemptions());
+    copy.setMaxRedemptionsPerCustomer(template.getMaxRedemptionsPerCustomer());
+    copy.setStartsAt(template.getStartsAt());
+    copy.setEndsAt(template.getEndsAt());
+    copy.setMinCartValue(template.getMinCartValue());
+    copy.setEligibility(template.getEligibility());
+    return copy;
+  }
+}
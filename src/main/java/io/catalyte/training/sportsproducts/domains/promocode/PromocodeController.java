@@ -30,10 +30,34 @@ public class PromocodeController {
     @Autowired
     private PromocodeService promoCodeService;
 
+    @Autowired
+    private PromocodeBulkService promocodeBulkService;
+
   @PostMapping
   public ResponseEntity<Promocode> create(@RequestBody Promocode promoCode) {
     Promocode savedPromoCode = promoCodeService.savePromoCode(promoCode);
     return new ResponseEntity<>(savedPromoCode, HttpStatus.CREATED);
   }
 
+  @GetMapping(value = "/{title}")
+  public ResponseEntity<Promocode> getPromoCodeByTitle(@PathVariable String title) {
+    return new ResponseEntity<>(promoCodeService.getPromoCodeByTitle(title), HttpStatus.OK);
+  }
+
+  @PostMapping(value = "/apply")
+  public ResponseEntity<AppliedPromocode> applyPromoCode(
+      @RequestBody ApplyPromocodeRequest request) {
+    return new ResponseEntity<>(promoCodeService.applyPromoCode(request), HttpStatus.OK);
+  }
+
+  @PostMapping(value = "/bulk")
+  public ResponseEntity<BulkPromocodeJob> generateBulk(@RequestBody BulkPromocodeRequest request) {
+    return new ResponseEntity<>(promocodeBulkService.generate(request), HttpStatus.ACCEPTED);
+  }
+
+  @GetMapping(value = "/bulk/{id}")
+  public ResponseEntity<BulkPromocodeJob> getBulkJob(@PathVariable String id) {
+    return new ResponseEntity<>(promocodeBulkService.getJob(id), HttpStatus.OK);
+  }
+
 }
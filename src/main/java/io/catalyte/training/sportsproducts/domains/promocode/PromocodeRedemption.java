@@ -0,0 +1,60 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * The number of times a customer redeemed a promocode.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"title", "email"}))
+public class PromocodeRedemption {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+  private String title;
+  private String email;
+  private long redemptions;
+
+  public PromocodeRedemption() {
+  }
+
+  public PromocodeRedemption(String title, String email, long redemptions) {
+    this.title = title;
+    this.email = email;
+    this.redemptions = redemptions;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public void setEmail(String email) {
+    this.email = email;
+  }
+
+  public long getRedemptions() {
+    return redemptions;
+  }
+
+  public void setRedemptions(long redemptions) {
+    this.redemptions = redemptions;
+  }
+}
@@ -0,0 +1,22 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface PromocodeRedemptionRepository extends JpaRepository<PromocodeRedemption, Long> {
+
+  Optional<PromocodeRedemption> findByTitleAndEmail(String title, String email);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE PromocodeRedemption r SET r.redemptions = r.redemptions + :delta "
+      + "WHERE r.title = :title AND r.email = :email")
+  int addRedemptions(@Param("title") String title, @Param("email") String email,
+      @Param("delta") long delta);
+}
@@ -0,0 +1,284 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Enforces promocode redemption limits at checkout and writes the counts to the database.
+ *
+ * <p>A code with a redemption limit is redeemed with a conditional update of its row, so its limit
+ * holds across every instance. Redemptions of codes without a limit go to a striped
+ * RedemptionCounter, so a viral code does not serialize checkouts on one row or one atomic, and a
+ * periodic flush adds the counted changes to the stored counts; a crash loses at most one flush
+ * interval of those counts. While the database is unavailable a code with a limit cannot be redeemed
+ * and checkout is rejected with 503, since no instance could tell whether the limit was reached.
+ *
+ * <p>Redemptions per customer are only tracked for codes with a per customer limit; a customer's
+ * stored count is read once and kept in memory until it has been flushed. Those limits are
+ * enforced per instance.
+ */
+@Component
+public class PromocodeRedemptionTracker {
+
+  private final Logger logger = LogManager.getLogger(PromocodeRedemptionTracker.class);
+
+  private final PromocodeService promocodeService;
+  private final PromocodeRepository promocodeRepository;
+  private final PromocodeRedemptionRepository redemptionRepository;
+
+  private final ConcurrentHashMap<String, RedemptionCounter> counters = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<CustomerKey, CustomerRedemptions> customers =
+      new ConcurrentHashMap<>();
+
+  @Autowired
+  public PromocodeRedemptionTracker(PromocodeService promocodeService,
+      PromocodeRepository promocodeRepository,
+      PromocodeRedemptionRepository redemptionRepository) {
+    this.promocodeService = promocodeService;
+    this.promocodeRepository = promocodeRepository;
+    this.redemptionRepository = redemptionRepository;
+  }
+
+  /**
+   * Counts a redemption of a promocode, or rejects it with 422 if the code or the customer has
+   * reached its limit, or with 503 if the code has a limit and the database is unavailable.
+   *
+   * @param title - the title of the promocode applied to the purchase
+   * @param email - the billing email of the purchase
+   */
+  public void redeem(String title, String email) {
+    Promocode promocode = promocodeService.getPromoCodeByTitle(title);
+    CustomerKey customer = null;
+
+    if (promocode.getMaxRedemptionsPerCustomer() != null) {
+      if (email == null || email.isEmpty()) {
+        throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+            "Promo code " + title + " requires a billing email.");
+      }
+      customer = new CustomerKey(title, email.trim().toLowerCase(Locale.ROOT));
+      if (!redeemForCustomer(customer, promocode.getMaxRedemptionsPerCustomer())) {
+        throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+            "Promo code " + title + " has reached its limit for this customer.");
+      }
+    }
+
+    boolean redeemed;
+    try {
+      redeemed = redeemForCode(promocode);
+    } catch (DataAccessException e) {
+      if (customer != null) {
+        releaseForCustomer(customer);
+      }
+      logger.error("Could not redeem promo code " + title + " in the database: " + e.getMessage());
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+          "Promo code " + title + " cannot be redeemed right now.");
+    }
+
+    if (!redeemed) {
+      if (customer != null) {
+        releaseForCustomer(customer);
+      }
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+          "Promo code " + title + " has reached its redemption limit.");
+    }
+  }
+
+  /**
+   * Gives back a redemption whose purchase could not be saved.
+   *
+   * @param title - the title of the promocode
+   * @param email - the billing email of the purchase
+   */
+  public void release(String title, String email) {
+    RedemptionCounter counter = counters.get(title);
+    if (counter != null) {
+      counter.release();
+    } else {
+      try {
+        promocodeRepository.releaseRedemption(title);
+      } catch (DataAccessException e) {
+        // the redemption stays counted, which can only make the limit stricter
+        logger.error("Could not release a redemption of promo code " + title + ": "
+            + e.getMessage());
+      }
+    }
+    if (email != null && !email.isEmpty()) {
+      releaseForCustomer(new CustomerKey(title, email.trim().toLowerCase(Locale.ROOT)));
+    }
+  }
+
+  /**
+   * Adds the redemptions counted since the last flush to the stored counts. Changes that cannot be
+   * written are kept for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${promocodes.redemptions.flush-interval-ms:5000}")
+  @PreDestroy
+  public void flush() {
+    for (Map.Entry<String, RedemptionCounter> entry : counters.entrySet()) {
+      long delta = entry.getValue().drainUnflushed();
+      if (delta == 0) {
+        continue;
+      }
+      try {
+        promocodeRepository.addRedemptions(entry.getKey(), delta);
+      } catch (DataAccessException e) {
+        entry.getValue().restoreUnflushed(delta);
+        logger.error("Could not flush redemptions of promo code " + entry.getKey() + ": "
+            + e.getMessage());
+      }
+    }
+
+    for (CustomerKey customer : customers.keySet()) {
+      flushCustomer(customer);
+    }
+  }
+
+  /**
+   * Takes a redemption from the code's limit in the database, or counts it in memory for a code
+   * without a limit.
+   *
+   * @throws DataAccessException if the code has a limit and the database is unavailable
+   */
+  private boolean redeemForCode(Promocode promocode) {
+    if (promocode.getMaxRedemptions() != null) {
+      return promocodeRepository.redeemWithinLimit(promocode.getTitle()) > 0;
+    }
+    return counters.computeIfAbsent(promocode.getTitle(),
+        title -> new RedemptionCounter(RedemptionCounter.UNLIMITED, promocode.getRedemptions()))
+        .tryRedeem();
+  }
+
+  private boolean redeemForCustomer(CustomerKey customer, long limit) {
+    // read outside the map so other customers are not blocked on the query
+    long stored = customers.containsKey(customer) ? 0 : loadStored(customer);
+    boolean[] redeemed = {false};
+
+    customers.compute(customer, (key, redemptions) -> {
+      if (redemptions == null) {
+        redemptions = new CustomerRedemptions(stored);
+      }
+      if (redemptions.total < limit) {
+        redemptions.total++;
+        redemptions.unflushed++;
+        redeemed[0] = true;
+      }
+      return redemptions;
+    });
+
+    return redeemed[0];
+  }
+
+  private void releaseForCustomer(CustomerKey customer) {
+    customers.computeIfPresent(customer, (key, redemptions) -> {
+      redemptions.total--;
+      redemptions.unflushed--;
+      return redemptions;
+    });
+  }
+
+  private long loadStored(CustomerKey customer) {
+    return redemptionRepository.findByTitleAndEmail(customer.title, customer.email)
+        .map(PromocodeRedemption::getRedemptions)
+        .orElse(0L);
+  }
+
+  /**
+   * Writes a customer's counted change. A customer with nothing counted since the previous flush
+   * is dropped from memory, since its stored count is current and is read again when needed.
+   */
+  private void flushCustomer(CustomerKey customer) {
+    long[] delta = {0};
+
+    customers.computeIfPresent(customer, (key, redemptions) -> {
+      if (redemptions.unflushed == 0) {
+        return null;
+      }
+      delta[0] = redemptions.unflushed;
+      redemptions.unflushed = 0;
+      return redemptions;
+    });
+
+    if (delta[0] == 0) {
+      return;
+    }
+
+    try {
+      upsert(customer, delta[0]);
+    } catch (DataAccessException e) {
+      customers.computeIfPresent(customer, (key, redemptions) -> {
+        redemptions.unflushed += delta[0];
+        return redemptions;
+      });
+      logger.error("Could not flush redemptions of promo code " + customer.title
+          + " for a customer: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Increments the customer's row, or inserts it. A concurrent insert from another instance makes
+   * the insert fail on the unique constraint, in which case the row is incremented instead.
+   */
+  private void upsert(CustomerKey customer, long delta) {
+    if (redemptionRepository.addRedemptions(customer.title, customer.email, delta) > 0) {
+      return;
+    }
+
+    try {
+      redemptionRepository.save(new PromocodeRedemption(customer.title, customer.email, delta));
+    } catch (DataIntegrityViolationException e) {
+      redemptionRepository.addRedemptions(customer.title, customer.email, delta);
+    }
+  }
+
+  /**
+   * The redemptions of one code by one customer, guarded by the map entry
+   */
+  private static final class CustomerRedemptions {
+
+    private long total;
+    private long unflushed;
+
+    CustomerRedemptions(long stored) {
+      this.total = stored;
+    }
+  }
+
+  private static final class CustomerKey {
+
+    private final String title;
+    private final String email;
+
+    CustomerKey(String title, String email) {
+      this.title = title;
+      this.email = email;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CustomerKey)) {
+        return false;
+      }
+      CustomerKey that = (CustomerKey) o;
+      return title.equals(that.title) && email.equals(that.email);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * title.hashCode() + email.hashCode();
+    }
+  }
+}
@@ -1,12 +1,57 @@
 package io.catalyte.training.sportsproducts.domains.promocode;
 
 
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface PromocodeRepository extends JpaRepository<Promocode, Long> {
 
   Optional<Promocode> findByTitle(String title);
-}
\ No newline at end of file
+
+  List<Promocode> findByCampaignFalse();
+
+  long countByCampaignTrue();
+
+  /**
+   * Reads the titles of campaign codes in pages ordered by id, without loading the codes.
+   *
+   * @param afterId  - the last id of the previous page, or 0
+   * @param pageable - the page size
+   * @return the id and title of each code
+   */
+  @Query("SELECT p.id, p.title FROM Promocode p WHERE p.campaign = true AND p.id > :afterId "
+      + "ORDER BY p.id")
+  List<Object[]> findCampaignTitlesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE Promocode p SET p.redemptions = p.redemptions + :delta WHERE p.title = :title")
+  int addRedemptions(@Param("title") String title, @Param("delta") long delta);
+
+  /**
+   * Counts one redemption of a code with a redemption limit, unless the limit is reached. The
+   * check and the increment are one statement, so the limit holds across instances.
+   *
+   * @param title - the title of the promocode
+   * @return 1 if the redemption was counted, 0 if the code is at its limit
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE Promocode p SET p.redemptions = p.redemptions + 1 WHERE p.title = :title "
+      + "AND p.redemptions < p.maxRedemptions")
+  int redeemWithinLimit(@Param("title") String title);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE Promocode p SET p.redemptions = p.redemptions - 1 WHERE p.title = :title "
+      + "AND p.redemptions > 0")
+  int releaseRedemption(@Param("title") String title);
+}
\ No newline at end of file
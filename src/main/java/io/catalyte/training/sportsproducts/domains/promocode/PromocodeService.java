@@ -1,6 +1,7 @@
 package io.catalyte.training.sportsproducts.domains.promocode;
 
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -9,4 +10,12 @@ import java.util.List;
 public interface PromocodeService {
 
   Promocode savePromoCode(Promocode promoCode);
-}
\ No newline at end of file
+
+  Promocode getPromoCodeByTitle(String title);
+
+  AppliedPromocode applyPromoCode(ApplyPromocodeRequest request);
+
+  List<String> validatePromocode(Promocode promoCode);
+
+  void registerGeneratedTitles(Collection<String> titles);
+}
\ No newline at end of file
@@ -2,35 +2,265 @@ package io.catalyte.training.sportsproducts.domains.promocode;
 
 import io.catalyte.training.sportsproducts.exceptions.ResourceNotFound;
 import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import io.catalyte.training.sportsproducts.util.UniqueViolation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 /**
  * This class provides the implementation for the ProductService interface.
+ *
+ * <p>Lookups by title are served from an in-memory table of every promocode that is not a
+ * single-use campaign code, loaded at startup, updated on save and reloaded periodically to pick up
+ * codes saved by other instances. Campaign codes can number in the millions, so they are read from
+ * the database on first lookup and cached then. Codes with a validity window are activated and
+ * expired in the table by a timer wheel.
+ *
+ * <p>A Bloom filter of every title in the database sits in front of the table, so titles that were
+ * never created, such as guesses from bots, are rejected without a table or database lookup; the
+ * check character of campaign codes rejects most of the rest before the database is asked. Titles
+ * created on other instances pass the filter after its next rebuild on reload. A filter that fills
+ * past its capacity as campaigns are generated is rebuilt at twice the size.
  */
 @Service
-public class PromocodeServiceImpl implements PromocodeService {
+public class PromocodeServiceImpl implements PromocodeService, MeterBinder {
 
   private final Logger logger = LogManager.getLogger(
       io.catalyte.training.sportsproducts.domains.promocode.PromocodeServiceImpl.class);
 
+  static final long TIMER_TICK_MILLIS = 100;
+
+  static final int TIMER_WHEEL_SIZE = 512;
+
+  static final int EXPIRED_CLEANUP_BATCH_SIZE = 1000;
+
+  static final int TITLE_FILTER_MIN_CAPACITY = 10_000;
+
+  static final double TITLE_FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+  static final int CAMPAIGN_TITLE_PAGE_SIZE = 10_000;
+
   PromocodeRepository promoCodeRepository;
 
+  private final HashedTimerWheel timerWheel = new HashedTimerWheel("promocode-timer-wheel",
+      TIMER_TICK_MILLIS, TIMER_WHEEL_SIZE, System::currentTimeMillis);
+
+  private final PromocodeTable promocodeTable = new PromocodeTable(timerWheel,
+      System::currentTimeMillis);
+
+  private volatile BloomFilter titleFilter = BloomFilter.create(TITLE_FILTER_MIN_CAPACITY,
+      TITLE_FILTER_FALSE_POSITIVE_RATE);
+
+  // held for a whole reload, so a rebuild of a full filter never runs alongside the scheduled one
+  private final Object loadLock = new Object();
+  private final AtomicBoolean rebuildingFilter = new AtomicBoolean();
+
+  // codes saved while a reload is reading the database, which its snapshot may have missed
+  private final Object reloadLock = new Object();
+  private List<Promocode> savedDuringReload;
+  private List<String> generatedDuringReload;
+
+  private final AtomicLong filterRejections = new AtomicLong();
+  private final AtomicLong filterFalsePositives = new AtomicLong();
+
   @Autowired
   public PromocodeServiceImpl(PromocodeRepository promoCodeRepository) {
     this.promoCodeRepository = promoCodeRepository;
   }
 
+  @PostConstruct
+  public void initialize() {
+    loadCodes();
+    timerWheel.start();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timerWheel.stop();
+  }
+
+  /**
+   * Publishes promocodes.filter.rejected (lookups rejected by the title filter),
+   * promocodes.filter.false.positives (lookups the filter passed for titles that do not exist),
+   * promocodes.filter.false.positive.rate (the share of lookups for titles that do not exist which
+   * the filter passed) and promocodes.filter.expected.false.positive.rate (estimated from how full
+   * the filter is).
+   */
+  @Override
+  public void bindTo(MeterRegistry meterRegistry) {
+    FunctionCounter.builder("promocodes.filter.rejected", filterRejections, AtomicLong::get)
+        .description("Promo code lookups rejected by the title filter")
+        .register(meterRegistry);
+    FunctionCounter.builder("promocodes.filter.false.positives", filterFalsePositives,
+        AtomicLong::get)
+        .description("Promo code lookups the title filter passed for titles that do not exist")
+        .register(meterRegistry);
+    Gauge.builder("promocodes.filter.false.positive.rate", this,
+        PromocodeServiceImpl::observedFalsePositiveRate)
+        .description("Share of lookups for titles that do not exist which the title filter passed")
+        .register(meterRegistry);
+    Gauge.builder("promocodes.filter.expected.false.positive.rate", this,
+        service -> service.titleFilter.expectedFalsePositiveRate())
+        .description("False positive rate of the title filter estimated from its fill")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Loads every promocode except campaign codes into the in-memory table and rebuilds the title
+   * filter from every title, replacing the previous ones.
+   */
+  @Scheduled(fixedDelayString = "${promocodes.reload-interval-ms:300000}",
+      initialDelayString = "${promocodes.reload-interval-ms:300000}")
+  public void loadCodes() {
+    synchronized (loadLock) {
+      reload();
+    }
+  }
+
+  private void reload() {
+    List<Promocode> promoCodes;
+    BloomFilter filter;
+
+    synchronized (reloadLock) {
+      savedDuringReload = new ArrayList<>();
+      generatedDuringReload = new ArrayList<>();
+    }
+
+    try {
+      promoCodes = promoCodeRepository.findByCampaignFalse();
+      long campaignCodes = promoCodeRepository.countByCampaignTrue();
+
+      // sized for twice the current titles, so the rate holds until the next reload
+      filter = BloomFilter.create(
+          Math.max(TITLE_FILTER_MIN_CAPACITY, 2L * (promoCodes.size() + campaignCodes)),
+          TITLE_FILTER_FALSE_POSITIVE_RATE);
+      putCampaignTitles(filter);
+    } catch (DataAccessException e) {
+      synchronized (reloadLock) {
+        savedDuringReload = null;
+        generatedDuringReload = null;
+      }
+      logger.error("Could not load promo codes, keeping " + promocodeTable.size() + ": "
+          + e.getMessage());
+      return;
+    }
+
+    for (Promocode promoCode : promoCodes) {
+      if (promoCode.getTitle() != null) {
+        filter.put(promoCode.getTitle());
+      }
+    }
+    promocodeTable.replaceAll(promoCodes);
+
+    synchronized (reloadLock) {
+      for (Promocode promoCode : savedDuringReload) {
+        filter.put(promoCode.getTitle());
+        promocodeTable.put(promoCode);
+      }
+      generatedDuringReload.forEach(filter::put);
+      titleFilter = filter;
+      savedDuringReload = null;
+      generatedDuringReload = null;
+    }
+
+    logger.info("Loaded " + promocodeTable.size() + " current promo codes");
+  }
+
+  /**
+   * Adds the title of every campaign code to the filter, one page at a time, without keeping the
+   * codes.
+   */
+  private void putCampaignTitles(BloomFilter filter) {
+    long afterId = 0;
+    List<Object[]> page;
+
+    do {
+      page = promoCodeRepository.findCampaignTitlesAfter(afterId,
+          PageRequest.of(0, CAMPAIGN_TITLE_PAGE_SIZE));
+      for (Object[] row : page) {
+        afterId = (Long) row[0];
+        filter.put((String) row[1]);
+      }
+    } while (page.size() == CAMPAIGN_TITLE_PAGE_SIZE);
+  }
+
+  private double observedFalsePositiveRate() {
+    long falsePositives = filterFalsePositives.get();
+    long invalidLookups = falsePositives + filterRejections.get();
+    return invalidLookups == 0 ? 0 : (double) falsePositives / invalidLookups;
+  }
+
+  /**
+   * Adds a saved promocode to the title filter and the in-memory table.
+   */
+  private void addSavedCode(Promocode promoCode) {
+    synchronized (reloadLock) {
+      titleFilter.put(promoCode.getTitle());
+      promocodeTable.put(promoCode);
+      if (savedDuringReload != null) {
+        savedDuringReload.add(promoCode);
+      }
+    }
+  }
+
+  /**
+   * Adds the titles of codes inserted by bulk generation to the title filter. They are loaded into
+   * the in-memory table on first lookup. Once the filter holds more titles than it was sized for,
+   * the calling generator thread rebuilds it from the database at twice the size.
+   *
+   * @param titles - the titles inserted
+   */
+  @Override
+  public void registerGeneratedTitles(Collection<String> titles) {
+    synchronized (reloadLock) {
+      titles.forEach(titleFilter::put);
+      if (generatedDuringReload != null) {
+        generatedDuringReload.addAll(titles);
+      }
+    }
+
+    if (titleFilter.isOverCapacity() && rebuildingFilter.compareAndSet(false, true)) {
+      try {
+        logger.info("Promo code title filter is over capacity, rebuilding it");
+        loadCodes();
+      } finally {
+        rebuildingFilter.set(false);
+      }
+    }
+  }
+
+  /**
+   * Removes a batch of expired promocodes from the in-memory table. They stay in the database.
+   */
+  @Scheduled(fixedDelayString = "${promocodes.expired-cleanup-interval-ms:10000}")
+  public void removeExpiredCodes() {
+    int removed = promocodeTable.removeExpired(EXPIRED_CLEANUP_BATCH_SIZE);
+    if (removed > 0) {
+      logger.info("Removed " + removed + " expired promo codes from memory");
+    }
+  }
+
   /**
    * Helper function to find unique titles for promocode verification.
    *
@@ -38,29 +268,146 @@ public class PromocodeServiceImpl implements PromocodeService {
    * @return the titles that conflict with the inserted promocode
    */
   private Promocode getPromoCodeByTitleHelper(String title) {
-    Promocode promoCode = promoCodeRepository.findByTitle(title).orElse(null);
+    if (title == null) {
+      return null;
+    }
+
+    if (!titleFilter.mightContain(title)) {
+      filterRejections.incrementAndGet();
+      return null;
+    }
+
+    Promocode promoCode = promocodeTable.getActive(title);
+    if (promoCode != null || promocodeTable.contains(title)) {
+      return promoCode;
+    }
+
+    // other codes are loaded into the table, so only a campaign code is worth reading from the
+    // database
+    if (!CampaignCodeGenerator.isCampaignTitle(title)) {
+      filterFalsePositives.incrementAndGet();
+      return null;
+    }
+
+    promoCode = promoCodeRepository.findByTitle(title).orElse(null);
+    if (promoCode == null) {
+      filterFalsePositives.incrementAndGet();
+      return null;
+    }
+    promocodeTable.put(promoCode);
+    return promocodeTable.getActive(title);
+  }
+
+  /**
+   * Retrieves the active promocode with the provided title from the in-memory table.
+   *
+   * @param title - the title of the promocode
+   * @return the promocode
+   */
+  @Override
+  public Promocode getPromoCodeByTitle(String title) {
+    Promocode promoCode;
+
+    try {
+      promoCode = getPromoCodeByTitleHelper(title);
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+
+    if (promoCode == null && title != null && promocodeTable.contains(title)) {
+      logger.info("Promo code with title " + title + " is not active.");
+      throw new ResourceNotFound("Promo code with title " + title + " is not active.");
+    }
+    if (promoCode == null) {
+      logger.info("Promo code with title " + title + " does not exist.");
+      throw new ResourceNotFound("Promo code with title " + title + " does not exist.");
+    }
+
     return promoCode;
   }
 
   /**
-   * Persists a promocode to the database
+   * Persists a promocode to the database with a single insert. Title uniqueness is enforced by the
+   * unique index on title, so concurrent creates with the same title cannot both succeed.
    *
    * @param promoCode - the purchase to persist
    * @return the persisted purchase with ids
    */
   @Override
   public Promocode savePromoCode(Promocode promoCode) {
-    // Unique Title Check.
-    if  (getPromoCodeByTitleHelper(promoCode.getTitle()) != null) {
-      throw new ResponseStatusException(HttpStatus.CONFLICT, "Invalid title: title must be unique.");
-    }
-
     List<String> errors = validatePromocode(promoCode);
     if (!errors.isEmpty()) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", errors));
     }
 
-    return promoCodeRepository.save(promoCode);
+    // Unique Title Check, answered from memory for titles this instance already knows.
+    if (promocodeTable.contains(promoCode.getTitle())) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT, "Invalid title: title must be unique.");
+    }
+
+    // redemptions are only counted at checkout, and only bulk generation makes campaign codes
+    promoCode.setRedemptions(0);
+    promoCode.setCampaign(false);
+
+    Promocode savedPromoCode;
+    try {
+      savedPromoCode = promoCodeRepository.save(promoCode);
+    } catch (DataIntegrityViolationException e) {
+      if (UniqueViolation.isUniqueViolation(e)) {
+        throw new ResponseStatusException(HttpStatus.CONFLICT,
+            "Invalid title: title must be unique.");
+      }
+      logger.error(e.getMessage());
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Invalid promo code: a field is missing or too long.");
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+
+    addSavedCode(savedPromoCode);
+    return savedPromoCode;
+  }
+
+  /**
+   * Calculates the discount a promocode gives on a cart subtotal. Only the subtotal is known
+   * here, so a code limited to some products is treated as if the whole subtotal were eligible;
+   * checkout applies it to the eligible line items only.
+   *
+   * @param request - the promocode title and the subtotal in dollars
+   * @return the promocode with the discount and the discounted total
+   */
+  @Override
+  public AppliedPromocode applyPromoCode(ApplyPromocodeRequest request) {
+    BigDecimal subtotal = request.getSubtotal();
+    if (subtotal == null || subtotal.signum() < 0 || subtotal.scale() > 2) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Invalid subtotal: Subtotal must be a non-negative amount in dollars and cents.");
+    }
+
+    Promocode promoCode;
+    try {
+      promoCode = getPromoCodeByTitle(request.getTitle());
+    } catch (ResourceNotFound e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Invalid promo code: " + request.getTitle());
+    }
+
+    long subtotalCents;
+    try {
+      subtotalCents = subtotal.movePointRight(2).longValueExact();
+    } catch (ArithmeticException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart total is too large.");
+    }
+
+    if (!promoCode.meetsMinimum(subtotalCents)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Promo code " + promoCode.getTitle() + " requires a subtotal of at least "
+              + promoCode.getMinCartValue() + ".");
+    }
+
+    return new AppliedPromocode(promoCode, subtotalCents);
   }
 
   /**
@@ -68,6 +415,7 @@ public class PromocodeServiceImpl implements PromocodeService {
    *
    * @param promoCode - the promocode to be verified
    */
+  @Override
   public List<String> validatePromocode(Promocode promoCode) {
     List<String> errors = new ArrayList<>();
 
@@ -109,6 +457,34 @@ public class PromocodeServiceImpl implements PromocodeService {
       }
     }
 
+    // Validity window validation
+    if (promoCode.getStartsAt() != null && promoCode.getEndsAt() != null
+        && !promoCode.getEndsAt().isAfter(promoCode.getStartsAt())) {
+      errors.add("Invalid validity window: End must be after start.");
+    }
+
+    // Redemption limit validation
+    if (promoCode.getMaxRedemptions() != null && promoCode.getMaxRedemptions() < 1) {
+      errors.add("Invalid max redemptions: Max redemptions must be at least 1.");
+    }
+    if (promoCode.getMaxRedemptionsPerCustomer() != null
+        && promoCode.getMaxRedemptionsPerCustomer() < 1) {
+      errors.add("Invalid max redemptions per customer: "
+          + "Max redemptions per customer must be at least 1.");
+    }
+
+    // Eligibility validation
+    if (promoCode.getMinCartValue() != null && (promoCode.getMinCartValue().signum() < 0
+        || promoCode.getMinCartValue().scale() > 2)) {
+      errors.add("Invalid min cart value: "
+          + "Min cart value must be a non-negative amount in dollars and cents.");
+    }
+    try {
+      promoCode.compileEligibility();
+    } catch (IllegalArgumentException e) {
+      errors.add("Invalid eligibility: " + e.getMessage());
+    }
+
     return errors;
 
     }
@@ -0,0 +1,188 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * The in-process table of promocodes. It holds every known code that has not expired, and the
+ * subset that is active right now.
+ *
+ * <p>Codes with a validity window get timers on a HashedTimerWheel that move them into the active
+ * set when they start and out of it when they end, so lookups never compare dates against the
+ * database. A lookup still checks the end of the window, so a code is never accepted after it
+ * expires even if its timer is a tick late. Expired codes are queued and removed from the table in
+ * batches.
+ */
+class PromocodeTable {
+
+  private final HashedTimerWheel wheel;
+  private final LongSupplier clock;
+
+  private volatile ConcurrentHashMap<String, Promocode> codes = new ConcurrentHashMap<>();
+  private volatile ConcurrentHashMap<String, Promocode> active = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, List<HashedTimerWheel.Timeout>> timers =
+      new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<String> expired = new ConcurrentLinkedQueue<>();
+
+  PromocodeTable(HashedTimerWheel wheel, LongSupplier clock) {
+    this.wheel = wheel;
+    this.clock = clock;
+  }
+
+  /**
+   * @param title - the title of the promocode
+   * @return the promocode if it is active, otherwise null
+   */
+  Promocode getActive(String title) {
+    Promocode promocode = active.get(title);
+    if (promocode == null || (promocode.getEndsAt() != null
+        && clock.getAsLong() >= promocode.getEndsAt().toEpochMilli())) {
+      return null;
+    }
+    return promocode;
+  }
+
+  /**
+   * @param title - the title of the promocode
+   * @return true if the table holds the promocode, active or not
+   */
+  boolean contains(String title) {
+    return codes.containsKey(title);
+  }
+
+  /**
+   * @return the number of promocodes in the table
+   */
+  int size() {
+    return codes.size();
+  }
+
+  /**
+   * @param title - the title of the promocode
+   * @return true if the promocode has activation or expiry timers waiting on the wheel
+   */
+  boolean hasTimers(String title) {
+    return timers.containsKey(title);
+  }
+
+  /**
+   * Adds or replaces a promocode and schedules its activation and expiry. Codes that have already
+   * expired are not added.
+   *
+   * @param promocode - the promocode
+   */
+  void put(Promocode promocode) {
+    register(promocode, codes, active);
+  }
+
+  /**
+   * Replaces the contents of the table. Codes missing from the new contents have their timers
+   * cancelled.
+   *
+   * @param promocodes - every promocode
+   */
+  void replaceAll(Iterable<Promocode> promocodes) {
+    ConcurrentHashMap<String, Promocode> newCodes = new ConcurrentHashMap<>();
+    ConcurrentHashMap<String, Promocode> newActive = new ConcurrentHashMap<>();
+
+    for (Promocode promocode : promocodes) {
+      if (promocode.getTitle() != null) {
+        register(promocode, newCodes, newActive);
+      }
+    }
+
+    codes = newCodes;
+    active = newActive;
+
+    for (String title : timers.keySet()) {
+      if (!newCodes.containsKey(title)) {
+        cancelTimers(title);
+      }
+    }
+  }
+
+  /**
+   * Removes up to a batch of expired promocodes from the table.
+   *
+   * @param batchSize - the most promocodes to remove
+   * @return the number of promocodes removed
+   */
+  int removeExpired(int batchSize) {
+    int removed = 0;
+    long now = clock.getAsLong();
+    String title;
+
+    while (removed < batchSize && (title = expired.poll()) != null) {
+      Promocode promocode = codes.get(title);
+      if (promocode == null) {
+        // dropped by a reload after its expiry timer fired
+        timers.remove(title);
+      } else if (isExpired(promocode, now)) {
+        codes.remove(title, promocode);
+        timers.remove(title);
+        removed++;
+      }
+    }
+
+    return removed;
+  }
+
+  private void register(Promocode promocode, ConcurrentHashMap<String, Promocode> toCodes,
+      ConcurrentHashMap<String, Promocode> toActive) {
+    String title = promocode.getTitle();
+    long now = clock.getAsLong();
+
+    cancelTimers(title);
+
+    if (isExpired(promocode, now)) {
+      toCodes.remove(title);
+      toActive.remove(title);
+      return;
+    }
+
+    toCodes.put(title, promocode);
+    if (promocode.isActiveAt(now)) {
+      toActive.put(title, promocode);
+    } else {
+      toActive.remove(title);
+    }
+
+    List<HashedTimerWheel.Timeout> scheduled = new ArrayList<>(2);
+    if (promocode.getStartsAt() != null && promocode.getStartsAt().toEpochMilli() > now) {
+      scheduled.add(wheel.schedule(() -> activate(title, promocode),
+          promocode.getStartsAt().toEpochMilli()));
+    }
+    if (promocode.getEndsAt() != null) {
+      scheduled.add(wheel.schedule(() -> expire(title, promocode),
+          promocode.getEndsAt().toEpochMilli()));
+    }
+    if (!scheduled.isEmpty()) {
+      timers.put(title, scheduled);
+    }
+  }
+
+  private void cancelTimers(String title) {
+    List<HashedTimerWheel.Timeout> previous = timers.remove(title);
+    if (previous != null) {
+      previous.forEach(HashedTimerWheel.Timeout::cancel);
+    }
+  }
+
+  private void activate(String title, Promocode promocode) {
+    if (codes.get(title) == promocode && promocode.isActiveAt(clock.getAsLong())) {
+      active.put(title, promocode);
+    }
+  }
+
+  private void expire(String title, Promocode promocode) {
+    active.remove(title, promocode);
+    expired.add(title);
+  }
+
+  private static boolean isExpired(Promocode promocode, long now) {
+    return promocode.getEndsAt() != null && now >= promocode.getEndsAt().toEpochMilli();
+  }
+}
@@ -0,0 +1,132 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts redemptions of one promocode across striped cells, so concurrent checkouts of a popular
+ * code rarely contend on the same cache line.
+ *
+ * <p>A limited code splits its remaining redemptions between the stripes. A redemption takes one
+ * from the caller's stripe and moves on to the other stripes only when it is empty, so the code
+ * can never be redeemed more times than its limit. Each stripe also counts the redemptions not yet
+ * written to the database, which drainUnflushed collects for the write-behind.
+ */
+class RedemptionCounter {
+
+  static final long UNLIMITED = -1;
+
+  /**
+   * Cells are spaced a cache line apart to avoid false sharing between stripes
+   */
+  private static final int PAD = 8;
+
+  private final int stripes;
+  private final boolean limited;
+  private final AtomicLongArray remaining;
+  private final AtomicLongArray unflushed;
+
+  /**
+   * @param limit    - the maximum redemptions of the code, or UNLIMITED
+   * @param redeemed - the redemptions already recorded in the database
+   */
+  RedemptionCounter(long limit, long redeemed) {
+    this(limit, redeemed, Runtime.getRuntime().availableProcessors());
+  }
+
+  RedemptionCounter(long limit, long redeemed, int parallelism) {
+    int size = 1;
+    while (size < parallelism) {
+      size <<= 1;
+    }
+    this.stripes = size;
+    this.limited = limit != UNLIMITED;
+    this.remaining = new AtomicLongArray(stripes * PAD);
+    this.unflushed = new AtomicLongArray(stripes * PAD);
+
+    if (limited) {
+      long available = Math.max(0, limit - redeemed);
+      for (int i = 0; i < stripes; i++) {
+        remaining.set(i * PAD, available / stripes + (i < available % stripes ? 1 : 0));
+      }
+    }
+  }
+
+  /**
+   * Takes one redemption if the limit allows it.
+   *
+   * @return true if the code was redeemed
+   */
+  boolean tryRedeem() {
+    int home = ThreadLocalRandom.current().nextInt(stripes);
+
+    if (limited && !takeFrom(home)) {
+      return false;
+    }
+
+    unflushed.incrementAndGet(home * PAD);
+    return true;
+  }
+
+  /**
+   * Gives back a redemption whose checkout failed.
+   */
+  void release() {
+    int home = ThreadLocalRandom.current().nextInt(stripes);
+
+    if (limited) {
+      remaining.incrementAndGet(home * PAD);
+    }
+    unflushed.decrementAndGet(home * PAD);
+  }
+
+  /**
+   * @return the redemptions still available, or UNLIMITED
+   */
+  long remaining() {
+    if (!limited) {
+      return UNLIMITED;
+    }
+
+    long total = 0;
+    for (int i = 0; i < stripes; i++) {
+      total += remaining.get(i * PAD);
+    }
+    return total;
+  }
+
+  /**
+   * Collects and resets the redemptions counted since the last drain. The result may be negative
+   * when more redemptions were released than taken.
+   *
+   * @return the change to add to the stored redemption count
+   */
+  long drainUnflushed() {
+    long total = 0;
+    for (int i = 0; i < stripes; i++) {
+      total += unflushed.getAndSet(i * PAD, 0);
+    }
+    return total;
+  }
+
+  /**
+   * Adds back a drained change that could not be written.
+   */
+  void restoreUnflushed(long delta) {
+    unflushed.addAndGet(0, delta);
+  }
+
+  private boolean takeFrom(int home) {
+    for (int n = 0; n < stripes; n++) {
+      int index = ((home + n) & (stripes - 1)) * PAD;
+      long available = remaining.get(index);
+      while (available > 0) {
+        if (remaining.compareAndSet(index, available, available - 1)) {
+          return true;
+        }
+        available = remaining.get(index);
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,227 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates credit card information without regular expressions, date formatters or intermediate
+ * strings, since it runs on every checkout attempt. The expiration is hand-parsed as MM/yy and
+ * compared as a month index against the current month, which is cached until the month ends.
+ */
+@Component
+public class CreditCardValidator {
+
+  static final int CARD_NUMBER_LENGTH = 16;
+
+  static final int CVV_LENGTH = 3;
+
+  /**
+   * The card networks accepted at checkout, detected by issuer identification number
+   */
+  public enum CardBrand {
+    VISA, MASTERCARD, DISCOVER
+  }
+
+  private final Clock clock;
+
+  private volatile CachedMonth currentMonth = new CachedMonth(0, 0, 0);
+
+  public CreditCardValidator() {
+    this(Clock.systemDefaultZone());
+  }
+
+  CreditCardValidator(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Validates the information in a CreditCard object.
+   *
+   * @param creditCard - the creditCard to validate
+   * @return errors - the errors found while validating, empty if the card is valid
+   */
+  public List<String> validate(CreditCard creditCard) {
+    if (creditCard == null) {
+      return Collections.singletonList("Credit card information is missing.");
+    }
+
+    List<String> errors = null;
+
+    String cardNumber = creditCard.getCardNumber();
+    if (!isDigits(cardNumber, CARD_NUMBER_LENGTH)) {
+      errors = add(errors, "Credit card number must have 16 digits.");
+    } else if (!passesLuhn(cardNumber)) {
+      errors = add(errors, "Credit card number is invalid.");
+    } else if (detectBrand(cardNumber) == null) {
+      errors = add(errors, "Credit card type is not supported.");
+    }
+
+    if (!isDigits(creditCard.getCvv(), CVV_LENGTH)) {
+      errors = add(errors, "CVV must have 3 digits.");
+    }
+
+    String expiration = creditCard.getExpiration();
+    if (expiration == null) {
+      errors = add(errors, "Expiration date is missing.");
+    } else {
+      int expirationMonth = parseExpiration(expiration);
+      if (expirationMonth < 0) {
+        errors = add(errors, "Expiration date must be in MM/yy format.");
+      } else if (expirationMonth < currentMonthIndex()) {
+        errors = add(errors, "Credit card is expired.");
+      }
+    }
+
+    if (creditCard.getCardholder() == null || creditCard.getCardholder().isEmpty()) {
+      errors = add(errors, "Cardholder name is missing.");
+    }
+
+    return errors == null ? Collections.emptyList() : errors;
+  }
+
+  /**
+   * Runs the Luhn mod 10 checksum over a string of digits.
+   *
+   * @param digits - the card number, already checked to contain only digits
+   * @return true if the checksum is valid
+   */
+  static boolean passesLuhn(String digits) {
+    int sum = 0;
+    boolean doubled = false;
+
+    for (int i = digits.length() - 1; i >= 0; i--) {
+      int digit = digits.charAt(i) - '0';
+      if (doubled) {
+        digit *= 2;
+        if (digit > 9) {
+          digit -= 9;
+        }
+      }
+      sum += digit;
+      doubled = !doubled;
+    }
+
+    return sum % 10 == 0;
+  }
+
+  /**
+   * Detects the card network from the leading digits of the card number.
+   *
+   * @param digits - the card number, already checked to contain only digits
+   * @return the brand, or null if the number belongs to an unsupported network
+   */
+  static CardBrand detectBrand(String digits) {
+    if (digits.charAt(0) == '4') {
+      return CardBrand.VISA;
+    }
+
+    int prefix2 = leadingNumber(digits, 2);
+    int prefix4 = leadingNumber(digits, 4);
+    if ((prefix2 >= 51 && prefix2 <= 55) || (prefix4 >= 2221 && prefix4 <= 2720)) {
+      return CardBrand.MASTERCARD;
+    }
+
+    int prefix3 = leadingNumber(digits, 3);
+    if (prefix4 == 6011 || prefix2 == 65 || (prefix3 >= 644 && prefix3 <= 649)) {
+      return CardBrand.DISCOVER;
+    }
+
+    return null;
+  }
+
+  /**
+   * Parses an expiration in MM/yy format.
+   *
+   * @param expiration - the expiration entered by the customer
+   * @return the month index (year * 12 + month - 1), or -1 if the format is invalid
+   */
+  static int parseExpiration(String expiration) {
+    if (expiration.length() != 5 || expiration.charAt(2) != '/'
+        || !isDigit(expiration.charAt(0)) || !isDigit(expiration.charAt(1))
+        || !isDigit(expiration.charAt(3)) || !isDigit(expiration.charAt(4))) {
+      return -1;
+    }
+
+    int month = (expiration.charAt(0) - '0') * 10 + (expiration.charAt(1) - '0');
+    int year = 2000 + (expiration.charAt(3) - '0') * 10 + (expiration.charAt(4) - '0');
+    if (month < 1 || month > 12) {
+      return -1;
+    }
+
+    return year * 12 + month - 1;
+  }
+
+  /**
+   * A card is valid through the last day of its expiration month, so it is expired only once its
+   * month index is below the current one. The index is recomputed only when the clock leaves the
+   * cached month.
+   */
+  private int currentMonthIndex() {
+    long now = clock.millis();
+    CachedMonth cached = currentMonth;
+
+    if (now < cached.startMillis || now >= cached.endMillis) {
+      LocalDate firstOfMonth = LocalDate.now(clock).withDayOfMonth(1);
+      ZoneId zone = clock.getZone();
+      cached = new CachedMonth(firstOfMonth.getYear() * 12 + firstOfMonth.getMonthValue() - 1,
+          firstOfMonth.atStartOfDay(zone).toInstant().toEpochMilli(),
+          firstOfMonth.plusMonths(1).atStartOfDay(zone).toInstant().toEpochMilli());
+      currentMonth = cached;
+    }
+
+    return cached.monthIndex;
+  }
+
+  private static boolean isDigits(String value, int length) {
+    if (value == null || value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (!isDigit(value.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static int leadingNumber(String digits, int count) {
+    int number = 0;
+    for (int i = 0; i < count; i++) {
+      number = number * 10 + (digits.charAt(i) - '0');
+    }
+    return number;
+  }
+
+  private static List<String> add(List<String> errors, String error) {
+    if (errors == null) {
+      errors = new ArrayList<>(4);
+    }
+    errors.add(error);
+    return errors;
+  }
+
+  /**
+   * The index of the current month and the instants at which it starts and ends
+   */
+  private static final class CachedMonth {
+
+    private final int monthIndex;
+    private final long startMillis;
+    private final long endMillis;
+
+    CachedMonth(int monthIndex, long startMillis, long endMillis) {
+      this.monthIndex = monthIndex;
+      this.startMillis = startMillis;
+      this.endMillis = endMillis;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * Records the response of a purchase request made with an Idempotency-Key header so that client
+ * retries can be answered without creating a second purchase. A record without a response body is
+ * a claim held by a request that is still in progress.
+ *
+ * <p>The key is stored as a hash of the client's key and the billing email, and the request as a
+ * hash of its body. The stored response leaves out the credit card.
+ */
+@Entity
+@Table(name = "idempotency_records",
+    uniqueConstraints = @UniqueConstraint(columnNames = "idempotency_key"))
+public class IdempotencyRecord {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "idempotency_key", nullable = false)
+  private String idempotencyKey;
+
+  @Column(name = "request_hash", nullable = false)
+  private String requestHash;
+
+  @Column(columnDefinition = "text")
+  private String responseBody;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  public IdempotencyRecord() {
+  }
+
+  public IdempotencyRecord(String idempotencyKey, String requestHash, Instant createdAt) {
+    this.idempotencyKey = idempotencyKey;
+    this.requestHash = requestHash;
+    this.createdAt = createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public void setIdempotencyKey(String idempotencyKey) {
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public String getRequestHash() {
+    return requestHash;
+  }
+
+  public void setRequestHash(String requestHash) {
+    this.requestHash = requestHash;
+  }
+
+  public String getResponseBody() {
+    return responseBody;
+  }
+
+  public void setResponseBody(String responseBody) {
+    this.responseBody = responseBody;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  @Override
+  public String toString() {
+    return "IdempotencyRecord{" +
+        "id=" + id +
+        ", idempotencyKey='" + idempotencyKey + '\'' +
+        ", createdAt=" + createdAt +
+        '}';
+  }
+}
@@ -0,0 +1,21 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+  Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+  int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
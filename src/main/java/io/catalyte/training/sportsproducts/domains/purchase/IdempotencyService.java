@@ -0,0 +1,11 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.util.function.Supplier;
+
+/**
+ * This interface provides an abstraction layer for de-duplicating retried purchase requests
+ */
+public interface IdempotencyService {
+
+  Purchase execute(String idempotencyKey, Purchase request, Supplier<Purchase> purchaseSupplier);
+}
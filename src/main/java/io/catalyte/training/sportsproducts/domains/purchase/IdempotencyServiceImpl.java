@@ -0,0 +1,309 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import io.catalyte.training.sportsproducts.journal.DatabaseOutage;
+import io.catalyte.training.sportsproducts.journal.OrderJournal;
+import io.catalyte.training.sportsproducts.util.Hashing;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This class provides the implementation for the IdempotencyService interface.
+ *
+ * <p>Keys are first de-duplicated in memory, so replays and concurrent duplicates handled by this
+ * instance never reach the database. The first request for a key also claims it in the
+ * idempotency_records table, whose unique constraint collapses duplicates across instances.
+ * While the database is unavailable only the in-memory de-duplication applies.
+ *
+ * <p>A key is scoped to the billing email of the purchase, so two customers who happen to send the
+ * same key never see each other's purchase. Each key remembers a hash of the request it was first
+ * used with, and reusing it for a different purchase is rejected with 422 instead of replaying.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+  private final Logger logger = LogManager.getLogger(IdempotencyServiceImpl.class);
+
+  /**
+   * Claims older than this without a stored response belong to a request that never finished
+   */
+  static final long ABANDONED_CLAIM_MILLIS = 60_000;
+
+  static final int MAX_KEY_LENGTH = 255;
+
+  static final String KEY_REUSED_MESSAGE =
+      "This Idempotency-Key was already used for a different purchase.";
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  IdempotencyRecordRepository idempotencyRecordRepository;
+  ObjectMapper objectMapper;
+  OrderJournal orderJournal;
+  private final long ttlMillis;
+
+  @Autowired
+  public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+      ObjectMapper objectMapper, OrderJournal orderJournal,
+      @Value("${purchases.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+    this.idempotencyRecordRepository = idempotencyRecordRepository;
+    this.objectMapper = objectMapper;
+    this.orderJournal = orderJournal;
+    this.ttlMillis = ttlSeconds * 1000;
+  }
+
+  /**
+   * Runs the purchase supplier once per idempotency key. Replays and concurrent duplicates wait for
+   * and return the result of the first request.
+   *
+   * @param idempotencyKey   - the value of the Idempotency-Key header
+   * @param request          - the purchase as received, before it is saved
+   * @param purchaseSupplier - saves the purchase when the key is seen for the first time
+   * @return the purchase created by the first request with this key
+   */
+  @Override
+  public Purchase execute(String idempotencyKey, Purchase request,
+      Supplier<Purchase> purchaseSupplier) {
+    if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters.");
+    }
+
+    return execute(scopedKey(idempotencyKey, request), hashRequest(request), purchaseSupplier);
+  }
+
+  private Purchase execute(String scopedKey, String requestHash,
+      Supplier<Purchase> purchaseSupplier) {
+    long now = System.currentTimeMillis();
+    Entry entry = new Entry(now, requestHash);
+    Entry existing = entries.putIfAbsent(scopedKey, entry);
+
+    if (existing != null) {
+      if (!existing.isExpired(now, ttlMillis)) {
+        if (!existing.requestHash.equals(requestHash)) {
+          throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, KEY_REUSED_MESSAGE);
+        }
+        logger.info("Replaying purchase for idempotency key: " + scopedKey);
+        return existing.await();
+      }
+      if (!entries.replace(scopedKey, existing, entry)) {
+        return execute(scopedKey, requestHash, purchaseSupplier);
+      }
+    }
+
+    try {
+      Purchase purchase = claimAndSave(scopedKey, requestHash, purchaseSupplier, true);
+      entry.result.complete(purchase);
+      return purchase;
+    } catch (RuntimeException e) {
+      // Failed requests are not remembered, so the client can retry with the same key
+      entries.remove(scopedKey, entry);
+      entry.result.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Removes keys older than the configured time to live from memory and from the database.
+   */
+  @Scheduled(fixedDelayString = "${purchases.idempotency.eviction-interval-ms:60000}")
+  public void evictExpired() {
+    long now = System.currentTimeMillis();
+    entries.values().removeIf(entry -> entry.isExpired(now, ttlMillis));
+
+    try {
+      int deleted = idempotencyRecordRepository
+          .deleteCreatedBefore(Instant.ofEpochMilli(now - ttlMillis));
+      if (deleted > 0) {
+        logger.info("Evicted " + deleted + " expired idempotency records");
+      }
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+    }
+  }
+
+  /**
+   * Claims the key in the database, saves the purchase and stores the response for later replays.
+   */
+  private Purchase claimAndSave(String idempotencyKey, String requestHash,
+      Supplier<Purchase> purchaseSupplier, boolean retryAbandonedClaim) {
+    // purchases are being journaled, so do not wait on the database for the claim either
+    if (orderJournal.hasPending()) {
+      return purchaseSupplier.get();
+    }
+
+    IdempotencyRecord record;
+
+    try {
+      record = idempotencyRecordRepository
+          .save(new IdempotencyRecord(idempotencyKey, requestHash, Instant.now()));
+    } catch (DataIntegrityViolationException e) {
+      return replayRecord(idempotencyKey, requestHash, purchaseSupplier, retryAbandonedClaim);
+    } catch (DataAccessException | TransactionException e) {
+      if (DatabaseOutage.isOutage(e)) {
+        logger.warn("Database unavailable, idempotency key is only held in memory: "
+            + idempotencyKey);
+        return purchaseSupplier.get();
+      }
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+
+    Purchase purchase;
+
+    try {
+      purchase = purchaseSupplier.get();
+    } catch (RuntimeException e) {
+      releaseClaim(record);
+      throw e;
+    }
+
+    record.setResponseBody(writeResponse(purchase));
+
+    try {
+      idempotencyRecordRepository.save(record);
+    } catch (DataAccessException | TransactionException e) {
+      // The purchase is already saved; this instance can still replay it from memory
+      logger.error(e.getMessage());
+    }
+
+    return purchase;
+  }
+
+  /**
+   * Answers a key that was claimed by another instance of the service.
+   */
+  private Purchase replayRecord(String idempotencyKey, String requestHash,
+      Supplier<Purchase> purchaseSupplier, boolean retryAbandonedClaim) {
+    Optional<IdempotencyRecord> existing;
+
+    try {
+      existing = idempotencyRecordRepository.findByIdempotencyKey(idempotencyKey);
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+
+    if (!existing.isPresent()) {
+      if (retryAbandonedClaim) {
+        return claimAndSave(idempotencyKey, requestHash, purchaseSupplier, false);
+      }
+    } else if (!requestHash.equals(existing.get().getRequestHash())) {
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, KEY_REUSED_MESSAGE);
+    } else if (existing.get().getResponseBody() != null) {
+      logger.info("Replaying stored purchase for idempotency key: " + idempotencyKey);
+      return readResponse(existing.get().getResponseBody());
+    } else if (retryAbandonedClaim && existing.get().getCreatedAt()
+        .isBefore(Instant.now().minusMillis(ABANDONED_CLAIM_MILLIS))) {
+      logger.info("Taking over abandoned idempotency key: " + idempotencyKey);
+      releaseClaim(existing.get());
+      return claimAndSave(idempotencyKey, requestHash, purchaseSupplier, false);
+    }
+
+    throw new ResponseStatusException(HttpStatus.CONFLICT,
+        "A purchase with this Idempotency-Key is already being processed.");
+  }
+
+  private void releaseClaim(IdempotencyRecord record) {
+    try {
+      idempotencyRecordRepository.delete(record);
+    } catch (DataAccessException | TransactionException e) {
+      logger.error(e.getMessage());
+    }
+  }
+
+  /**
+   * Hashes the client's key together with the billing email, which is the closest thing to a
+   * client identity a guest checkout has.
+   */
+  private static String scopedKey(String idempotencyKey, Purchase request) {
+    String email = request.getBillingAddress() == null
+        || request.getBillingAddress().getEmail() == null ? ""
+        : request.getBillingAddress().getEmail().trim().toLowerCase(Locale.ROOT);
+    return Hashing.sha256(email + '\n' + idempotencyKey);
+  }
+
+  String hashRequest(Purchase request) {
+    try {
+      return Hashing.sha256(objectMapper.writeValueAsBytes(request));
+    } catch (JsonProcessingException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+  }
+
+  /**
+   * Serializes the purchase for replays, without the credit card, which is never stored.
+   */
+  private String writeResponse(Purchase purchase) {
+    try {
+      ObjectNode response = objectMapper.valueToTree(purchase);
+      response.remove("creditCard");
+      return objectMapper.writeValueAsString(response);
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      logger.error(e.getMessage());
+      return null;
+    }
+  }
+
+  private Purchase readResponse(String responseBody) {
+    try {
+      return objectMapper.readValue(responseBody, Purchase.class);
+    } catch (IOException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+  }
+
+  /**
+   * The in-memory state of one idempotency key
+   */
+  private static class Entry {
+
+    private final long createdAt;
+    private final String requestHash;
+    private final CompletableFuture<Purchase> result = new CompletableFuture<>();
+
+    Entry(long createdAt, String requestHash) {
+      this.createdAt = createdAt;
+      this.requestHash = requestHash;
+    }
+
+    boolean isExpired(long now, long ttlMillis) {
+      return result.isDone() && now - createdAt > ttlMillis;
+    }
+
+    Purchase await() {
+      try {
+        return result.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new ServerError(e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ServerError(e.getMessage());
+      }
+    }
+  }
+}
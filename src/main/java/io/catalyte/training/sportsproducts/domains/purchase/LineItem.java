@@ -2,12 +2,15 @@ package io.catalyte.training.sportsproducts.domains.purchase;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.catalyte.training.sportsproducts.domains.product.Product;
+import java.time.Instant;
 import java.util.Objects;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
 
 /**
  * Describes one line item of a purchase transaction
@@ -29,6 +32,12 @@ public class LineItem {
 
   private int quantity;
 
+  /**
+   * Copied from the purchase, so a line item lives in the same monthly partition as its purchase
+   */
+  @Column(nullable = false)
+  private Instant createdAt;
+
   public LineItem() {
   }
 
@@ -71,6 +80,22 @@ public class LineItem {
     this.quantity = quantity;
   }
 
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  @PrePersist
+  void onCreate() {
+    if (createdAt == null) {
+      createdAt = purchase != null && purchase.getCreatedAt() != null ? purchase.getCreatedAt()
+          : Instant.now();
+    }
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
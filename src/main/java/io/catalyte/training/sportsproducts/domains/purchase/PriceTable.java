@@ -0,0 +1,96 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import io.catalyte.training.sportsproducts.domains.product.ProductRepository;
+import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import io.catalyte.training.sportsproducts.journal.DatabaseOutage;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches product prices in cents for the pricing engine. Products missing from the table are
+ * loaded together with a single query.
+ */
+@Component
+public class PriceTable {
+
+  private final Logger logger = LogManager.getLogger(PriceTable.class);
+
+  private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+  ProductRepository productRepository;
+
+  @Autowired
+  public PriceTable(ProductRepository productRepository) {
+    this.productRepository = productRepository;
+  }
+
+  /**
+   * @param productId - the id of the product
+   * @return the cached entry for the product, or null if it has not been loaded yet
+   */
+  public Entry get(Long productId) {
+    return entries.get(productId);
+  }
+
+  /**
+   * Loads the given products from the database into the table. Failures caused by an unreachable
+   * database are thrown unchanged, so checkout can journal the purchase instead.
+   *
+   * @param productIds - ids of products that are not in the table yet
+   */
+  public void load(Collection<Long> productIds) {
+    try {
+      productRepository.findAllById(productIds).forEach(this::put);
+    } catch (DataAccessException e) {
+      if (DatabaseOutage.isOutage(e)) {
+        throw e;
+      }
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+  }
+
+  /**
+   * Removes a product from the table so that its next lookup reads it from the database.
+   *
+   * @param productId - the id of the product
+   */
+  public void evict(Long productId) {
+    entries.remove(productId);
+  }
+
+  void put(Product product) {
+    long priceCents = product.getPrice() == null ? 0
+        : product.getPrice().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    entries.put(product.getId(), new Entry(product, priceCents));
+  }
+
+  /**
+   * A product together with its price in cents
+   */
+  public static class Entry {
+
+    private final Product product;
+    private final long priceCents;
+
+    Entry(Product product, long priceCents) {
+      this.product = product;
+      this.priceCents = priceCents;
+    }
+
+    public Product getProduct() {
+      return product;
+    }
+
+    public long getPriceCents() {
+      return priceCents;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import io.catalyte.training.sportsproducts.domains.promocode.Promocode;
+import io.catalyte.training.sportsproducts.domains.promocode.PromocodeService;
+import io.catalyte.training.sportsproducts.exceptions.ResourceNotFound;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Prices a whole cart in one pass over its line items. Prices come from the cached price table and
+ * all arithmetic is done in cents, so a cart costs no database round trips once its products are
+ * cached.
+ */
+@Component
+public class PricingEngine {
+
+  PriceTable priceTable;
+  PromocodeService promocodeService;
+
+  @Autowired
+  public PricingEngine(PriceTable priceTable, PromocodeService promocodeService) {
+    this.priceTable = priceTable;
+    this.promocodeService = promocodeService;
+  }
+
+  /**
+   * Prices the line items of a purchase and applies its promocode, if it has one.
+   *
+   * @param purchase - the purchase to price
+   * @return the quote for the purchase
+   */
+  public Quote quote(Purchase purchase) {
+    return quote(purchase.getProducts(), resolvePromocode(purchase.getPromocode()));
+  }
+
+  /**
+   * Prices line items and applies a promocode. A code limited to some products is applied to the
+   * subtotal of the eligible line items only.
+   *
+   * @param lineItems - the line items to price
+   * @param promocode - the promocode to apply, or null
+   * @return the quote for the line items
+   */
+  public Quote quote(Collection<LineItem> lineItems, Promocode promocode) {
+    if (lineItems == null) {
+      lineItems = Collections.emptyList();
+    }
+
+    loadMissingPrices(lineItems);
+
+    long subtotalCents = 0;
+    long eligibleCents = 0;
+    int itemCount = 0;
+    boolean restricted = promocode != null && promocode.hasEligibilityRule();
+
+    try {
+      for (LineItem lineItem : lineItems) {
+        PriceTable.Entry entry = priceTable.get(lineItem.getProduct().getId());
+        if (entry == null) {
+          throw new ResourceNotFound(
+              "Get by id failed, it does not exist in the database: " + lineItem.getProduct()
+                  .getId());
+        }
+        long lineCents = Math.multiplyExact(entry.getPriceCents(), lineItem.getQuantity());
+        subtotalCents = Math.addExact(subtotalCents, lineCents);
+        if (restricted && promocode.appliesTo(entry.getProduct())) {
+          eligibleCents += lineCents;
+        }
+        itemCount = Math.addExact(itemCount, lineItem.getQuantity());
+      }
+    } catch (ArithmeticException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart total is too large.");
+    }
+
+    if (promocode == null) {
+      return new Quote(null, subtotalCents, 0, itemCount);
+    }
+
+    if (!promocode.meetsMinimum(subtotalCents)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Promo code " + promocode.getTitle() + " requires a subtotal of at least "
+              + promocode.getMinCartValue() + ".");
+    }
+    if (!restricted) {
+      eligibleCents = subtotalCents;
+    } else if (eligibleCents == 0) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Promo code " + promocode.getTitle() + " does not apply to any item in the cart.");
+    }
+
+    return new Quote(promocode.getTitle(), subtotalCents, promocode.discountCents(eligibleCents),
+        itemCount);
+  }
+
+  /**
+   * Validates the line items and loads any products missing from the price table with one query.
+   */
+  private void loadMissingPrices(Collection<LineItem> lineItems) {
+    List<Long> missing = null;
+
+    for (LineItem lineItem : lineItems) {
+      if (lineItem.getProduct() == null || lineItem.getProduct().getId() == null) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+            "Every line item must reference a product id.");
+      }
+      if (lineItem.getQuantity() < 1) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+            "Line item quantity must be at least 1.");
+      }
+      if (priceTable.get(lineItem.getProduct().getId()) == null) {
+        if (missing == null) {
+          missing = new ArrayList<>();
+        }
+        missing.add(lineItem.getProduct().getId());
+      }
+    }
+
+    if (missing != null) {
+      priceTable.load(missing);
+    }
+  }
+
+  private Promocode resolvePromocode(String title) {
+    if (title == null || title.isEmpty()) {
+      return null;
+    }
+
+    try {
+      return promocodeService.getPromoCodeByTitle(title);
+    } catch (ResourceNotFound e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid promo code: " + title);
+    }
+  }
+}
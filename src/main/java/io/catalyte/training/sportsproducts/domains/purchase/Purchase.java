@@ -1,11 +1,15 @@
 package io.catalyte.training.sportsproducts.domains.purchase;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Set;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
 
 /**
  * Describes a purchase object that holds the information for a transaction
@@ -26,6 +30,21 @@ public class Purchase {
 
   private CreditCard creditCard;
 
+  private String promocode;
+
+  private BigDecimal subtotal;
+
+  private BigDecimal discount;
+
+  private BigDecimal total;
+
+  /**
+   * When the purchase was accepted, in UTC. The purchase and line item tables are partitioned by
+   * month on this column, so queries that bound it only read the matching partitions.
+   */
+  @Column(nullable = false)
+  private Instant createdAt;
+
   public Purchase() {
     billingAddress = new BillingAddress();
     deliveryAddress = new DeliveryAddress();
@@ -72,6 +91,53 @@ public class Purchase {
     this.creditCard = creditCard;
   }
 
+  public String getPromocode() {
+    return promocode;
+  }
+
+  public void setPromocode(String promocode) {
+    this.promocode = promocode;
+  }
+
+  public BigDecimal getSubtotal() {
+    return subtotal;
+  }
+
+  public void setSubtotal(BigDecimal subtotal) {
+    this.subtotal = subtotal;
+  }
+
+  public BigDecimal getDiscount() {
+    return discount;
+  }
+
+  public void setDiscount(BigDecimal discount) {
+    this.discount = discount;
+  }
+
+  public BigDecimal getTotal() {
+    return total;
+  }
+
+  public void setTotal(BigDecimal total) {
+    this.total = total;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  @PrePersist
+  void onCreate() {
+    if (createdAt == null) {
+      createdAt = Instant.now();
+    }
+  }
+
   @Override
   public String toString() {
     return "Purchase{" +
@@ -79,6 +145,9 @@ public class Purchase {
         ", deliveryAddress=" + deliveryAddress +
         ", billingAddress=" + billingAddress +
         ", creditCard=" + creditCard +
+        ", promocode='" + promocode + '\'' +
+        ", total=" + total +
+        ", createdAt=" + createdAt +
         '}';
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,11 +1,16 @@
 package io.catalyte.training.sportsproducts.domains.purchase;
 
 import static io.catalyte.training.sportsproducts.constants.Paths.PURCHASES_PATH;
+import static io.catalyte.training.sportsproducts.constants.StringConstants.IDEMPOTENCY_KEY_HEADER;
 
+import java.time.LocalDate;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -13,9 +18,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Exposes endpoints for the purchase domain
@@ -28,21 +36,66 @@ public class PurchaseController {
 
   private PurchaseService purchaseService;
 
+  private IdempotencyService idempotencyService;
+
+  private PurchaseExportService purchaseExportService;
+
   @Autowired
-  public PurchaseController(PurchaseService purchaseService) {
+  public PurchaseController(PurchaseService purchaseService,
+      IdempotencyService idempotencyService, PurchaseExportService purchaseExportService) {
     this.purchaseService = purchaseService;
+    this.idempotencyService = idempotencyService;
+    this.purchaseExportService = purchaseExportService;
   }
 
   /**
-   * Updated this method to return the response object and a 201 status code.
+   * Updated this method to return the response object and a 201 status code. Requests that carry
+   * an Idempotency-Key header are saved at most once; retries return the original purchase.
+   * Purchases accepted while the database is unavailable are journaled and answered with 202.
    * @param purchase
-   * @return Created purchase and 201 status
+   * @param idempotencyKey optional client generated key identifying this checkout attempt
+   * @return Created purchase and 201 status, or the accepted purchase and 202 status
    */
   @PostMapping
-  public ResponseEntity savePurchase(@RequestBody Purchase purchase) {
+  public ResponseEntity savePurchase(@RequestBody Purchase purchase,
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
-    return new ResponseEntity<>(purchaseService.savePurchase(purchase), HttpStatus.CREATED);
+    Purchase savedPurchase = idempotencyKey == null ? purchaseService.savePurchase(purchase)
+        : idempotencyService.execute(idempotencyKey, purchase,
+            () -> purchaseService.savePurchase(purchase));
+
+    return new ResponseEntity<>(savedPurchase,
+        savedPurchase.getId() == null ? HttpStatus.ACCEPTED : HttpStatus.CREATED);
   }
+  /**
+   * Prices a cart, applying its promocode, without saving a purchase.
+   * @param purchase the cart to price
+   * @return the subtotal, discount and total of the cart and 200 status
+   */
+  @PostMapping("/quote")
+  public ResponseEntity<Quote> quotePurchase(@RequestBody Purchase purchase) {
+    logger.info("Request received for quotePurchase");
+    return new ResponseEntity<>(purchaseService.quotePurchase(purchase), HttpStatus.OK);
+  }
+
+  /**
+   * Streams the purchases created in a range of UTC days, one row per line item, as CSV.
+   * @param from first day, yyyy-MM-dd
+   * @param to last day, yyyy-MM-dd
+   * @return the CSV body and 200 status
+   */
+  @GetMapping(value = "/export", produces = "text/csv")
+  public ResponseEntity<StreamingResponseBody> exportPurchases(
+      @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+      @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+    logger.info("Request received for exportPurchases from " + from + " to " + to);
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"purchases-" + from + "-" + to + ".csv\"")
+        .contentType(MediaType.parseMediaType("text/csv"))
+        .body(purchaseExportService.exportCsv(from, to));
+  }
+
 //@PostMapping
 //public ResponseEntity<Object> savePurchase(@RequestBody Purchase purchase) {
 //  try {
@@ -57,12 +110,21 @@ public class PurchaseController {
 //}
 
 
+  /**
+   * Finds the purchases of an email, optionally limited to a range of UTC days.
+   * @param email the billing email
+   * @param from optional first day, yyyy-MM-dd
+   * @param to optional last day, yyyy-MM-dd
+   * @return the purchases and 200 status
+   */
   @GetMapping("/{email}")
-  public ResponseEntity<List<Purchase>> findPurchasesByEmail(@PathVariable("email") String email) {
+  public ResponseEntity<List<Purchase>> findPurchasesByEmail(@PathVariable("email") String email,
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
     if (email == null || email.isEmpty()) {
       throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Email not specified.");
     }
-    List<Purchase> purchases = purchaseService.findPurchasesByEmail(email);
+    List<Purchase> purchases = purchaseService.findPurchasesByEmail(email, from, to);
     return new ResponseEntity<>(purchases, HttpStatus.OK);
   }
 
@@ -70,4 +132,4 @@ public class PurchaseController {
   public ResponseEntity<List<Purchase>> invalidFindPurchase () {
     throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Email not specified.");
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
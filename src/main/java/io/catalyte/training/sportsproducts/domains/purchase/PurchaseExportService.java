@@ -0,0 +1,164 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Streams purchases and their line items as CSV for reconciliation.
+ *
+ * <p>Rows are read through a forward-only cursor with a bounded fetch size and written as they
+ * arrive, so memory use does not grow with the size of the export. Postgres only honours the
+ * fetch size inside a transaction, so the query runs in a read-only one that holds its pooled
+ * connection for the duration of the export and no longer.
+ */
+@Service
+public class PurchaseExportService {
+
+  private final Logger logger = LogManager.getLogger(PurchaseExportService.class);
+
+  static final String HEADER = "purchase_id,created_at,email,promocode,subtotal,discount,total,"
+      + "line_item_id,product_id,product_name,quantity,unit_price";
+
+  static final String EXPORT_QUERY = "SELECT p.id, p.created_at, p.email, p.promocode, "
+      + "p.subtotal, p.discount, p.total, li.id, li.product_id, pr.name, li.quantity, pr.price "
+      + "FROM purchase p "
+      + "LEFT JOIN line_item li ON li.purchase_id = p.id AND li.created_at = p.created_at "
+      + "LEFT JOIN product pr ON pr.id = li.product_id "
+      + "WHERE p.created_at >= ? AND p.created_at < ? "
+      + "ORDER BY p.created_at, p.id, li.id";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  @Autowired
+  public PurchaseExportService(DataSource dataSource,
+      PlatformTransactionManager transactionManager,
+      @Value("${purchases.export.fetch-size:1000}") int fetchSize) {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.setFetchSize(fetchSize);
+
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+  }
+
+  /**
+   * Prepares an export of the purchases created in a range of UTC days. Nothing is read until the
+   * body is written to the response.
+   *
+   * @param from - the first day to export
+   * @param to   - the last day to export
+   * @return the body that streams the CSV
+   */
+  public StreamingResponseBody exportCsv(LocalDate from, LocalDate to) {
+    if (from.isAfter(to)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "The from date must not be after the to date.");
+    }
+
+    // created_at holds UTC wall-clock time, so bind and read it without a time zone
+    LocalDateTime start = from.atStartOfDay();
+    LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+    return outputStream -> writeCsv(start, end, outputStream);
+  }
+
+  private void writeCsv(LocalDateTime start, LocalDateTime end, OutputStream outputStream)
+      throws IOException {
+    Writer writer = new BufferedWriter(
+        new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+    writer.write(HEADER);
+    writer.write('\n');
+
+    long[] rows = {0};
+
+    try {
+      transactionTemplate.execute(status -> {
+        jdbcTemplate.query(EXPORT_QUERY, (RowCallbackHandler) resultSet -> {
+          writeRow(resultSet, writer);
+          rows[0]++;
+        }, start, end);
+        return null;
+      });
+    } catch (UncheckedIOException e) {
+      // the client went away; the cursor and connection are already released
+      logger.info("Purchase export aborted after " + rows[0] + " rows: " + e.getMessage());
+      throw e.getCause();
+    }
+
+    writer.flush();
+    logger.info("Exported " + rows[0] + " purchase rows");
+  }
+
+  private void writeRow(ResultSet resultSet, Writer writer) throws SQLException {
+    LocalDateTime createdAt = resultSet.getObject(2, LocalDateTime.class);
+
+    try {
+      writer.write(value(resultSet.getObject(1)));
+      writer.write(',');
+      writer.write(createdAt == null ? "" : createdAt.toInstant(ZoneOffset.UTC).toString());
+      for (int column = 3; column <= 12; column++) {
+        writer.write(',');
+        writer.write(escape(value(resultSet.getObject(column))));
+      }
+      writer.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String value(Object value) {
+    return value == null ? "" : value.toString();
+  }
+
+  /**
+   * Quotes a CSV field when needed, and defuses values a spreadsheet would run as a formula.
+   */
+  static String escape(String field) {
+    if (field.isEmpty()) {
+      return field;
+    }
+
+    char first = field.charAt(0);
+    if (first == '=' || first == '+' || first == '-' || first == '@') {
+      boolean numeric = true;
+      for (int i = 1; i < field.length() && numeric; i++) {
+        char c = field.charAt(i);
+        numeric = (c >= '0' && c <= '9') || c == '.';
+      }
+      if (!numeric || first != '-') {
+        field = "'" + field;
+      }
+    }
+
+    boolean quote = false;
+    for (int i = 0; i < field.length() && !quote; i++) {
+      char c = field.charAt(i);
+      quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+
+    return quote ? '"' + field.replace("\"", "\"\"") + '"' : field;
+  }
+}
@@ -0,0 +1,261 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the purchase and line_item tables range partitioned by month on created_at when running on
+ * Postgres and purchases.partitions.enabled is set. It is off by default: the conversion rewrites
+ * both tables and their keys, and the test suite runs on H2, so it is only exercised against a
+ * real Postgres. Other databases, such as H2 in tests, keep the single tables Hibernate creates.
+ *
+ * <p>On startup the tables Hibernate created are converted into partitioned tables, with a default
+ * partition for rows outside the monthly ranges. A daily job creates partitions ahead of time and
+ * detaches partitions older than the retention period. Rows already in the default partition for a
+ * month being created are moved into the new partition. Detached partitions remain as standalone
+ * tables to be archived and dropped outside the application.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class PurchasePartitionManager {
+
+  private final Logger logger = LogManager.getLogger(PurchasePartitionManager.class);
+
+  static final String[] PARTITIONED_TABLES = {"purchase", "line_item"};
+
+  private static final Pattern PARTITION_NAME = Pattern.compile("_y(\\d{4})m(\\d{2})$");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int monthsAhead;
+  private final int retentionMonths;
+
+  @Autowired
+  public PurchasePartitionManager(DataSource dataSource,
+      PlatformTransactionManager transactionManager,
+      @Value("${purchases.partitions.enabled:false}") boolean enabled,
+      @Value("${purchases.partitions.months-ahead:3}") int monthsAhead,
+      @Value("${purchases.partitions.retention-months:24}") int retentionMonths) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled && isPostgres(dataSource);
+    this.monthsAhead = monthsAhead;
+    this.retentionMonths = retentionMonths;
+  }
+
+  @PostConstruct
+  public void initialize() {
+    if (!enabled) {
+      logger.info("Purchase partitioning is off, using unpartitioned tables");
+      return;
+    }
+
+    transactionTemplate.execute(status -> {
+      for (String table : PARTITIONED_TABLES) {
+        if (!isPartitioned(table)) {
+          convertToPartitioned(table);
+        }
+      }
+      return null;
+    });
+
+    maintainPartitions();
+  }
+
+  /**
+   * Creates the partitions for the coming months and detaches those past the retention period. A
+   * partition that cannot be created or detached is logged and skipped, so it does not hold up the
+   * others.
+   */
+  @Scheduled(cron = "${purchases.partitions.maintenance-cron:0 15 0 * * *}", zone = "UTC")
+  public void maintainPartitions() {
+    if (!enabled) {
+      return;
+    }
+
+    YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+    for (String table : PARTITIONED_TABLES) {
+      for (int i = -1; i <= monthsAhead; i++) {
+        YearMonth month = current.plusMonths(i);
+        try {
+          transactionTemplate.execute(status -> {
+            createPartition(table, month);
+            return null;
+          });
+        } catch (DataAccessException e) {
+          logger.error("Could not create partition " + partitionName(table, month) + ": "
+              + e.getMessage());
+        }
+      }
+    }
+
+    YearMonth oldestKept = current.minusMonths(retentionMonths);
+    for (String table : PARTITIONED_TABLES) {
+      List<String> partitions;
+      try {
+        partitions = listPartitions(table);
+      } catch (DataAccessException e) {
+        logger.error("Could not list the partitions of " + table + ": " + e.getMessage());
+        continue;
+      }
+
+      for (String partition : partitions) {
+        YearMonth month = monthOf(partition);
+        if (month == null || !month.isBefore(oldestKept)) {
+          continue;
+        }
+        try {
+          jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+          logger.info("Detached partition " + partition + " for archival");
+        } catch (DataAccessException e) {
+          logger.error("Could not detach partition " + partition + ": " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  static String partitionName(String table, YearMonth month) {
+    return String.format("%s_y%04dm%02d", table, month.getYear(), month.getMonthValue());
+  }
+
+  static YearMonth monthOf(String partitionName) {
+    Matcher matcher = PARTITION_NAME.matcher(partitionName);
+    if (!matcher.find()) {
+      return null;
+    }
+    return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+  }
+
+  /**
+   * Creates a month's partition unless it exists. Postgres refuses to create a partition while the
+   * default partition holds rows in its range, so those rows are moved: the default partition is
+   * detached, the month is created, the rows are copied into it and the default is attached again.
+   * Must run in a transaction.
+   */
+  private void createPartition(String table, YearMonth month) {
+    String partition = partitionName(table, month);
+    if (jdbcTemplate.queryForObject("SELECT count(*) FROM pg_class WHERE relname = ?",
+        Integer.class, partition) > 0) {
+      return;
+    }
+
+    String defaultPartition = table + "_default";
+    LocalDate start = month.atDay(1);
+    String range = " WHERE created_at >= '" + start + "' AND created_at < '"
+        + start.plusMonths(1) + "'";
+    String create = "CREATE TABLE " + partition + " PARTITION OF " + table
+        + " FOR VALUES FROM ('" + start + "') TO ('" + start.plusMonths(1) + "')";
+
+    Long stranded = jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM " + defaultPartition + range, Long.class);
+    if (stranded == null || stranded == 0) {
+      jdbcTemplate.execute(create);
+      return;
+    }
+
+    logger.warn("Moving " + stranded + " rows of " + table + " from the default partition into "
+        + partition);
+    jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + defaultPartition);
+    jdbcTemplate.execute(create);
+    jdbcTemplate.execute("INSERT INTO " + table + " SELECT * FROM " + defaultPartition + range);
+    jdbcTemplate.execute("DELETE FROM " + defaultPartition + range);
+    jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + defaultPartition
+        + " DEFAULT");
+  }
+
+  private boolean isPartitioned(String table) {
+    List<String> kinds = jdbcTemplate.queryForList(
+        "SELECT relkind::text FROM pg_class WHERE relname = ? AND relkind IN ('r', 'p')",
+        String.class, table);
+    return kinds.contains("p");
+  }
+
+  private List<String> listPartitions(String table) {
+    return jdbcTemplate.queryForList("SELECT child.relname FROM pg_inherits i "
+        + "JOIN pg_class child ON child.oid = i.inhrelid "
+        + "JOIN pg_class parent ON parent.oid = i.inhparent "
+        + "WHERE parent.relname = ?", String.class, table);
+  }
+
+  /**
+   * Replaces a plain table with a partitioned copy. The id sequence is detached before the old
+   * table is dropped and handed to the new one. The primary key must include the partition key,
+   * so foreign keys that referenced purchase(id) alone are dropped; line items are only written
+   * in the same transaction as their purchase.
+   */
+  private void convertToPartitioned(String table) {
+    String legacy = table + "_unpartitioned";
+    String sequence = jdbcTemplate.queryForObject(
+        "SELECT pg_get_serial_sequence(?, 'id')", String.class, table);
+
+    logger.info("Converting " + table + " into a table partitioned by month");
+
+    for (String constraint : jdbcTemplate.queryForList(
+        "SELECT con.conname || ' ON ' || rel.relname FROM pg_constraint con "
+            + "JOIN pg_class rel ON rel.oid = con.conrelid "
+            + "JOIN pg_class ref ON ref.oid = con.confrelid "
+            + "WHERE con.contype = 'f' AND ref.relname = ?", String.class, table)) {
+      String[] parts = constraint.split(" ON ");
+      jdbcTemplate.execute("ALTER TABLE " + parts[1] + " DROP CONSTRAINT " + parts[0]);
+    }
+
+    jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + legacy);
+    jdbcTemplate.execute("CREATE TABLE " + table + " (LIKE " + legacy
+        + " INCLUDING DEFAULTS, PRIMARY KEY (id, created_at)) PARTITION BY RANGE (created_at)");
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + "_default PARTITION OF " + table
+        + " DEFAULT");
+    jdbcTemplate.execute("CREATE INDEX ON " + table + " (created_at)");
+    if (table.equals("purchase")) {
+      jdbcTemplate.execute("CREATE INDEX ON purchase (email, created_at)");
+    } else {
+      jdbcTemplate.execute("CREATE INDEX ON line_item (purchase_id)");
+    }
+
+    YearMonth current = YearMonth.now(ZoneOffset.UTC);
+    for (int i = -1; i <= monthsAhead; i++) {
+      createPartition(table, current.plusMonths(i));
+    }
+
+    jdbcTemplate.execute("INSERT INTO " + table + " SELECT * FROM " + legacy);
+    if (sequence != null) {
+      jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " OWNED BY NONE");
+    }
+    jdbcTemplate.execute("DROP TABLE " + legacy + " CASCADE");
+    if (sequence != null) {
+      jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " OWNED BY " + table + ".id");
+    }
+    if (table.equals("line_item")) {
+      jdbcTemplate.execute("ALTER TABLE line_item ADD FOREIGN KEY (product_id) "
+          + "REFERENCES product (id)");
+    }
+  }
+
+  private static boolean isPostgres(DataSource dataSource) {
+    try (Connection connection = dataSource.getConnection()) {
+      return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres");
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+}
@@ -1,11 +1,22 @@
 package io.catalyte.training.sportsproducts.domains.purchase;
 
+import java.time.Instant;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
 
   List<Purchase> findByBillingAddressEmail(String email);
+
+  /**
+   * Bounding createdAt lets Postgres prune the monthly partitions outside [from, to).
+   */
+  @Query("SELECT p FROM Purchase p WHERE p.billingAddress.email = :email "
+      + "AND p.createdAt >= :from AND p.createdAt < :to ORDER BY p.createdAt DESC")
+  List<Purchase> findByBillingAddressEmailAndCreatedAtRange(@Param("email") String email,
+      @Param("from") Instant from, @Param("to") Instant to);
 }
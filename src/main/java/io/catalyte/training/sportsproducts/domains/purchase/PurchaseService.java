@@ -1,10 +1,17 @@
 package io.catalyte.training.sportsproducts.domains.purchase;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface PurchaseService {
 
   Purchase savePurchase(Purchase purchaseToSave);
 
+  Purchase replayPurchase(Purchase journaledPurchase);
+
+  Quote quotePurchase(Purchase purchase);
+
   List<Purchase> findPurchasesByEmail(String email);
+
+  List<Purchase> findPurchasesByEmail(String email, LocalDate from, LocalDate to);
 }
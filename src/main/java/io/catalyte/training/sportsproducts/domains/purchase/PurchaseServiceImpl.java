@@ -1,22 +1,31 @@
 package io.catalyte.training.sportsproducts.domains.purchase;
 
+import io.catalyte.training.sportsproducts.domains.analytics.AnalyticsService;
 import io.catalyte.training.sportsproducts.domains.product.Product;
 import io.catalyte.training.sportsproducts.domains.product.ProductService;
+import io.catalyte.training.sportsproducts.domains.promocode.PromocodeRedemptionTracker;
 import io.catalyte.training.sportsproducts.exceptions.ServerError;
-import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
+import io.catalyte.training.sportsproducts.journal.DatabaseOutage;
+import io.catalyte.training.sportsproducts.journal.OrderJournal;
+import io.catalyte.training.sportsproducts.outbox.OutboxService;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.time.LocalDate;
+import java.util.function.Function;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -27,13 +36,32 @@ public class PurchaseServiceImpl implements PurchaseService {
   PurchaseRepository purchaseRepository;
   ProductService productService;
   LineItemRepository lineItemRepository;
+  PricingEngine pricingEngine;
+  PromocodeRedemptionTracker redemptionTracker;
+  CreditCardValidator creditCardValidator;
+  VelocityScreen velocityScreen;
+  AnalyticsService analyticsService;
+  OutboxService outboxService;
+  OrderJournal orderJournal;
+  TransactionTemplate transactionTemplate;
 
   @Autowired
   public PurchaseServiceImpl(PurchaseRepository purchaseRepository, ProductService productService,
-      LineItemRepository lineItemRepository) {
+      LineItemRepository lineItemRepository, PricingEngine pricingEngine,
+      PromocodeRedemptionTracker redemptionTracker, CreditCardValidator creditCardValidator, VelocityScreen velocityScreen,
+      AnalyticsService analyticsService, OutboxService outboxService, OrderJournal orderJournal,
+      PlatformTransactionManager transactionManager) {
     this.purchaseRepository = purchaseRepository;
     this.productService = productService;
     this.lineItemRepository = lineItemRepository;
+    this.pricingEngine = pricingEngine;
+    this.redemptionTracker = redemptionTracker;
+    this.creditCardValidator = creditCardValidator;
+    this.velocityScreen = velocityScreen;
+    this.analyticsService = analyticsService;
+    this.outboxService = outboxService;
+    this.orderJournal = orderJournal;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
   /**
@@ -47,14 +75,57 @@ public class PurchaseServiceImpl implements PurchaseService {
   }
 
   /**
-   * Persists a purchase to the database
+   * Retrieves the purchases of an email within a range of UTC days. Only the monthly partitions
+   * covering the range are read.
+   *
+   * @param email - the billing email
+   * @param from  - the first day, defaults to the beginning of time when only to is given
+   * @param to    - the last day, defaults to today when only from is given
+   * @return the purchases, newest first
+   */
+  public List<Purchase> findPurchasesByEmail(String email, LocalDate from, LocalDate to) {
+    if (from == null && to == null) {
+      return findPurchasesByEmail(email);
+    }
+    if (to == null) {
+      to = LocalDate.now(ZoneOffset.UTC);
+    }
+    if (from != null && from.isAfter(to)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "The from date must not be after the to date.");
+    }
+
+    Instant start = from == null ? Instant.EPOCH : from.atStartOfDay(ZoneOffset.UTC).toInstant();
+    Instant end = to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+
+    try {
+      return purchaseRepository.findByBillingAddressEmailAndCreatedAtRange(email, start, end);
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+  }
+
+  /**
+   * Prices a purchase without persisting it
+   *
+   * @param purchase - the cart to price, with an optional promocode title
+   * @return the subtotal, discount and total of the cart
+   */
+  public Quote quotePurchase(Purchase purchase) {
+    return pricingEngine.quote(purchase);
+  }
+
+  /**
+   * Persists a purchase to the database. If the database is unavailable the purchase is written to
+   * the order journal instead and returned without an id; it is saved once the database recovers.
    *
    * @param newPurchase - the purchase to persist
-   * @return the persisted purchase with ids
+   * @return the persisted purchase with ids, or the journaled purchase without ids
    */
   public Purchase savePurchase(Purchase newPurchase) {
 
-    List<String> errors = new ArrayList<>(validateCreditCard(newPurchase.getCreditCard()));
+    List<String> errors = validateCreditCard(newPurchase.getCreditCard());
 
     Set<LineItem> lineItems = newPurchase.getProducts();
     List<Map<String, Object>> inactiveProducts = new ArrayList<>();
@@ -75,67 +146,156 @@ public class PurchaseServiceImpl implements PurchaseService {
       response.put("inactiveProducts", inactiveProducts);
       throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, response.toString());
     }
+
+    if (!errors.isEmpty()) {
+      String errorMessage = String.join(" ", errors);
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, errorMessage);
+    }
+
+    // counted in memory so screening never adds a query to checkout
+    velocityScreen.screen(newPurchase);
+
+    newPurchase.setCreatedAt(Instant.now());
+
+    Quote quote;
+
     try {
-      purchaseRepository.save(newPurchase);
-    } catch (DataAccessException e) {
+      quote = pricingEngine.quote(newPurchase);
+    } catch (DataAccessException | TransactionException e) {
+      if (DatabaseOutage.isOutage(e)) {
+        // prices that are not cached cannot be read now, so the purchase is priced on replay
+        logger.warn("Database unavailable, journaling unpriced purchase: " + e.getMessage());
+        return journalPurchase(newPurchase);
+      }
       logger.error(e.getMessage());
       throw new ServerError(e.getMessage());
     }
 
-    if (!errors.isEmpty()) {
-      String errorMessage = String.join(" ", errors);
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, errorMessage);
+    return redeemAndSave(newPurchase, quote, this::persistOrJournalPurchase);
+  }
+
+  /**
+   * Applies a quote to a purchase, redeems its promocode and saves it with the given action,
+   * releasing the redemption if the save fails.
+   */
+  private Purchase redeemAndSave(Purchase purchase, Quote quote,
+      Function<Purchase, Purchase> save) {
+    purchase.setPromocode(quote.getPromocode());
+    purchase.setSubtotal(quote.getSubtotal());
+    purchase.setDiscount(quote.getDiscount());
+    purchase.setTotal(quote.getTotal());
+
+    String email = purchase.getBillingAddress() == null ? null
+        : purchase.getBillingAddress().getEmail();
+    if (quote.getPromocode() != null) {
+      redemptionTracker.redeem(quote.getPromocode(), email);
+    }
+
+    try {
+      return save.apply(purchase);
+    } catch (RuntimeException e) {
+      if (quote.getPromocode() != null) {
+        redemptionTracker.release(quote.getPromocode(), email);
+      }
+      throw e;
     }
+  }
 
-    // after the purchase is persisted and has an id, we need to handle its lineitems and persist them as well
-    handleLineItems(newPurchase);
+  /**
+   * Saves a validated and priced purchase, or journals it while the database is unavailable.
+   */
+  private Purchase persistOrJournalPurchase(Purchase newPurchase) {
+    // while earlier purchases wait in the journal the database is likely still down, and new
+    // purchases must not overtake them
+    if (orderJournal.hasPending()) {
+      return journalPurchase(newPurchase);
+    }
+
+    try {
+      persistPurchase(newPurchase);
+    } catch (DataAccessException | TransactionException e) {
+      if (DatabaseOutage.isOutage(e)) {
+        logger.warn("Database unavailable, journaling purchase: " + e.getMessage());
+        return journalPurchase(newPurchase);
+      }
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
 
     return newPurchase;
   }
 
   /**
-   * Validates the information in a CreditCard object being saved to the database.
+   * Saves a purchase that was accepted while the database was unavailable. It was validated at
+   * checkout and, if its prices were cached, priced too, so a priced purchase is persisted as is.
+   * One journaled before it could be priced is priced and redeems its promocode now. Database
+   * failures are thrown unchanged so the caller can tell an outage from a rejected purchase.
    *
-   * @param creditCard - the creditCard to validate
-   * @return errors - the errors found while validating.
+   * @param journaledPurchase - the purchase read back from the order journal
+   * @return the persisted purchase with ids
    */
-  public List<String> validateCreditCard(CreditCard creditCard) {
-    List<String> errors = new ArrayList<>();
+  public Purchase replayPurchase(Purchase journaledPurchase) {
+    if (journaledPurchase.getTotal() == null) {
+      return redeemAndSave(journaledPurchase, pricingEngine.quote(journaledPurchase),
+          this::persistReplayedPurchase);
+    }
+    return persistReplayedPurchase(journaledPurchase);
+  }
 
-    if (creditCard == null) {
-      errors.add("Credit card information is missing.");
-    } else {
-      if (creditCard.getCardNumber() == null || creditCard.getCardNumber().length() != 16) {
-        errors.add("Credit card number must have 16 digits.");
-      }
-      if (creditCard.getCvv() == null || creditCard.getCvv().length() != 3) {
-        errors.add("CVV must have 3 digits.");
-      }
-      if (creditCard.getExpiration() == null) {
-        errors.add("Expiration date is missing.");
-      } else {
-        DateTimeFormatter inputFormatter = DateTimeFormatter.ofPattern("MM/yy");
-        YearMonth yearMonth = YearMonth.parse(creditCard.getExpiration(), inputFormatter);
-        int lastDayOfMonth = yearMonth.lengthOfMonth();
-        String dateString = creditCard.getExpiration() + "/" + lastDayOfMonth;
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy/dd");
-        LocalDate expirationDate = LocalDate.parse(dateString, formatter);
-        LocalDate currentDate = LocalDate.now();
-        if (expirationDate.isBefore(currentDate)) {
-          errors.add("Credit card is expired.");
-        }
-      }
-      if (creditCard.getCardholder() == null || creditCard.getCardholder().isEmpty()) {
-        errors.add("Cardholder name is missing.");
+  private Purchase persistReplayedPurchase(Purchase journaledPurchase) {
+    persistPurchase(journaledPurchase);
+    return journaledPurchase;
+  }
+
+  /**
+   * Saves the purchase, its line items, its outbox event and its sales rollups in one transaction,
+   * so they commit or roll back together.
+   */
+  private void persistPurchase(Purchase purchase) {
+    transactionTemplate.execute(status -> {
+      purchaseRepository.save(purchase);
+
+      // after the purchase is persisted and has an id, we need to handle its lineitems and persist them as well
+      handleLineItems(purchase);
+
+      outboxService.enqueuePurchaseCreated(purchase);
+
+      // keep the sales rollups current so reporting never has to scan line items
+      analyticsService.recordPurchase(purchase);
+      return purchase;
+    });
+  }
+
+  /**
+   * Writes the purchase to the order journal, clearing any ids left by a rolled back save.
+   */
+  private Purchase journalPurchase(Purchase purchase) {
+    purchase.setId(null);
+    if (purchase.getProducts() != null) {
+      for (LineItem lineItem : purchase.getProducts()) {
+        lineItem.setId(null);
+        lineItem.setPurchase(null);
       }
     }
 
-    return errors;
+    orderJournal.append(purchase);
+    return purchase;
+  }
+
+  /**
+   * Validates the information in a CreditCard object being saved to the database.
+   *
+   * @param creditCard - the creditCard to validate
+   * @return errors - the errors found while validating.
+   */
+  public List<String> validateCreditCard(CreditCard creditCard) {
+    return creditCardValidator.validate(creditCard);
   }
 
 
   /**
-   * This helper method retrieves product information for each line item and persists it
+   * This helper method retrieves product information for each line item and persists it. Database
+   * failures are left to the caller, which runs it inside the purchase transaction.
    *
    * @param purchase - the purchase object to handle lineitems for
    */
@@ -153,16 +313,12 @@ public class PurchaseServiceImpl implements PurchaseService {
           lineItem.setProduct(product);
         }
 
-        // set the purchase on the line item
+        // set the purchase on the line item, in the same partition as the purchase
         lineItem.setPurchase(purchase);
+        lineItem.setCreatedAt(purchase.getCreatedAt());
 
         // persist the populated lineitem
-        try {
-          lineItemRepository.save(lineItem);
-        } catch (DataAccessException e) {
-          logger.error(e.getMessage());
-          throw new ServerError(e.getMessage());
-        }
+        lineItemRepository.save(lineItem);
       });
     }
   }
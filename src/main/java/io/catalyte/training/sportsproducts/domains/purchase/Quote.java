@@ -0,0 +1,68 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+
+/**
+ * Describes the priced totals of a cart. Amounts are calculated in cents and exposed as dollars.
+ */
+public class Quote {
+
+  private final String promocode;
+  private final long subtotalCents;
+  private final long discountCents;
+  private final int itemCount;
+
+  public Quote(String promocode, long subtotalCents, long discountCents, int itemCount) {
+    this.promocode = promocode;
+    this.subtotalCents = subtotalCents;
+    this.discountCents = discountCents;
+    this.itemCount = itemCount;
+  }
+
+  public String getPromocode() {
+    return promocode;
+  }
+
+  public int getItemCount() {
+    return itemCount;
+  }
+
+  public BigDecimal getSubtotal() {
+    return BigDecimal.valueOf(subtotalCents, 2);
+  }
+
+  public BigDecimal getDiscount() {
+    return BigDecimal.valueOf(discountCents, 2);
+  }
+
+  public BigDecimal getTotal() {
+    return BigDecimal.valueOf(getTotalCents(), 2);
+  }
+
+  @JsonIgnore
+  public long getSubtotalCents() {
+    return subtotalCents;
+  }
+
+  @JsonIgnore
+  public long getDiscountCents() {
+    return discountCents;
+  }
+
+  @JsonIgnore
+  public long getTotalCents() {
+    return subtotalCents - discountCents;
+  }
+
+  @Override
+  public String toString() {
+    return "Quote{" +
+        "promocode='" + promocode + '\'' +
+        ", subtotal=" + getSubtotal() +
+        ", discount=" + getDiscount() +
+        ", total=" + getTotal() +
+        ", itemCount=" + itemCount +
+        '}';
+  }
+}
@@ -0,0 +1,80 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+/**
+ * Counts events in a sliding time window split into a ring of equal buckets. Each bucket remembers
+ * which time slot it belongs to, so stale buckets are reset lazily when the ring wraps around and
+ * no background work is needed. Adding and summing cost one pass over the fixed number of
+ * buckets.
+ */
+class SlidingWindowCounter {
+
+  private final long bucketMillis;
+  private final int[] counts;
+  private final long[] slots;
+
+  SlidingWindowCounter(long windowMillis, int buckets) {
+    this.bucketMillis = Math.max(1, windowMillis / buckets);
+    this.counts = new int[buckets];
+    this.slots = new long[buckets];
+  }
+
+  /**
+   * Adds an event if the window holds fewer than limit events.
+   *
+   * @param now   - the current time in milliseconds
+   * @param limit - the most events allowed in the window
+   * @return true if the event was added
+   */
+  synchronized boolean tryAdd(long now, int limit) {
+    if (count(now) >= limit) {
+      return false;
+    }
+
+    long slot = now / bucketMillis;
+    int index = (int) (slot % counts.length);
+    if (slots[index] != slot) {
+      slots[index] = slot;
+      counts[index] = 0;
+    }
+    counts[index]++;
+    return true;
+  }
+
+  /**
+   * Takes back an event added at the same time, for an attempt that was rejected afterwards.
+   *
+   * @param now - the time the event was added with
+   */
+  synchronized void remove(long now) {
+    long slot = now / bucketMillis;
+    int index = (int) (slot % counts.length);
+    if (slots[index] == slot && counts[index] > 0) {
+      counts[index]--;
+    }
+  }
+
+  /**
+   * @param now - the current time in milliseconds
+   * @return the number of events in the window ending now
+   */
+  synchronized int count(long now) {
+    long oldest = now / bucketMillis - counts.length + 1;
+    int total = 0;
+
+    for (int i = 0; i < counts.length; i++) {
+      if (slots[i] >= oldest) {
+        total += counts[i];
+      }
+    }
+
+    return total;
+  }
+
+  /**
+   * @param now - the current time in milliseconds
+   * @return true if every event has left the window
+   */
+  boolean isIdle(long now) {
+    return count(now) == 0;
+  }
+}
@@ -0,0 +1,126 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import io.catalyte.training.sportsproducts.util.Hashing;
+import io.catalyte.training.sportsproducts.util.SegmentedCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Rejects checkouts from cards or emails that placed too many orders within the last window,
+ * without querying the database. Counts live in memory, per instance, in sliding windows keyed by
+ * the SHA-256 of the card number and by the lower cased billing email; card numbers themselves are
+ * never kept.
+ *
+ * <p>At most max-keys windows of each kind are kept. A new key arriving when they are all taken
+ * drops the least recently used window, so every checkout is screened however many keys are seen;
+ * idle windows are dropped in the background rather than at checkout.
+ */
+@Component
+public class VelocityScreen {
+
+  static final String REJECTED_MESSAGE =
+      "Too many orders for this card or email. Please try again later.";
+
+  private final SegmentedCache<String, SlidingWindowCounter> cardWindows;
+  private final SegmentedCache<String, SlidingWindowCounter> emailWindows;
+
+  private final long windowMillis;
+  private final int buckets;
+  private final int maxPerCard;
+  private final int maxPerEmail;
+  private final LongSupplier clock;
+
+  private final Counter cardRejections;
+  private final Counter emailRejections;
+
+  @Autowired
+  public VelocityScreen(MeterRegistry meterRegistry,
+      @Value("${purchases.velocity.window-seconds:60}") long windowSeconds,
+      @Value("${purchases.velocity.buckets:12}") int buckets,
+      @Value("${purchases.velocity.max-per-card:5}") int maxPerCard,
+      @Value("${purchases.velocity.max-per-email:5}") int maxPerEmail,
+      @Value("${purchases.velocity.max-keys:100000}") int maxKeys) {
+    this(meterRegistry, windowSeconds, buckets, maxPerCard, maxPerEmail, maxKeys,
+        System::currentTimeMillis);
+  }
+
+  VelocityScreen(MeterRegistry meterRegistry, long windowSeconds, int buckets, int maxPerCard,
+      int maxPerEmail, int maxKeys, LongSupplier clock) {
+    this.windowMillis = windowSeconds * 1000;
+    this.buckets = buckets;
+    this.maxPerCard = maxPerCard;
+    this.maxPerEmail = maxPerEmail;
+    this.clock = clock;
+    this.cardWindows = new SegmentedCache<>(maxKeys, clock);
+    this.emailWindows = new SegmentedCache<>(maxKeys, clock);
+
+    cardRejections = Counter.builder("purchases.velocity.rejected")
+        .description("Checkouts rejected for too many orders in the velocity window")
+        .tag("key", "card")
+        .register(meterRegistry);
+    emailRejections = Counter.builder("purchases.velocity.rejected")
+        .description("Checkouts rejected for too many orders in the velocity window")
+        .tag("key", "email")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Counts the purchase against its card and billing email, or rejects it with 429 if either has
+   * reached its limit.
+   *
+   * @param purchase - the validated purchase, before anything is written
+   */
+  public void screen(Purchase purchase) {
+    long now = clock.getAsLong();
+
+    String cardNumber = purchase.getCreditCard() == null ? null
+        : purchase.getCreditCard().getCardNumber();
+    String email = purchase.getBillingAddress() == null ? null
+        : purchase.getBillingAddress().getEmail();
+
+    SlidingWindowCounter cardWindow = cardNumber == null ? null
+        : window(cardWindows, Hashing.sha256(cardNumber));
+    SlidingWindowCounter emailWindow = email == null || email.isEmpty() ? null
+        : window(emailWindows, email.trim().toLowerCase(Locale.ROOT));
+
+    if (cardWindow != null && cardWindow.count(now) >= maxPerCard) {
+      cardRejections.increment();
+      throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, REJECTED_MESSAGE);
+    }
+    if (emailWindow != null && !emailWindow.tryAdd(now, maxPerEmail)) {
+      emailRejections.increment();
+      throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, REJECTED_MESSAGE);
+    }
+    if (cardWindow != null && !cardWindow.tryAdd(now, maxPerCard)) {
+      // another order took the card's last slot, the attempt does not count against the email
+      if (emailWindow != null) {
+        emailWindow.remove(now);
+      }
+      cardRejections.increment();
+      throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, REJECTED_MESSAGE);
+    }
+  }
+
+  /**
+   * Drops the windows of cards and emails without orders in the last window.
+   */
+  @Scheduled(fixedDelayString = "${purchases.velocity.eviction-interval-ms:60000}")
+  public void evictIdle() {
+    long now = clock.getAsLong();
+    cardWindows.removeIf(window -> window.isIdle(now));
+    emailWindows.removeIf(window -> window.isIdle(now));
+  }
+
+  private SlidingWindowCounter window(SegmentedCache<String, SlidingWindowCounter> windows,
+      String key) {
+    return windows.computeIfAbsent(key, k -> new SlidingWindowCounter(windowMillis, buckets));
+  }
+}
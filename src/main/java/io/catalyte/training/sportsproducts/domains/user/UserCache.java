@@ -0,0 +1,100 @@
+package io.catalyte.training.sportsproducts.domains.user;
+
+import io.catalyte.training.sportsproducts.util.SegmentedCache;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps recently loaded users by normalized email, so profile loads on every page do not each
+ * query the database. Entries live for a fixed time, which bounds how stale a user changed by
+ * another instance can be, and the least recently used users are dropped when the cache is full.
+ *
+ * <p>Users are copied in and out, so callers that modify the user they get cannot change the
+ * cached one. Every invalidation bumps a generation, and a load that started before an
+ * invalidation is not cached, so a slow read cannot put back a user that was just changed.
+ */
+class UserCache {
+
+  private final SegmentedCache<String, User> cache;
+  private final long ttlMillis;
+  private final LongSupplier clock;
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * @param maxEntries - the most users to keep
+   * @param ttlMillis  - how long a user is kept after it is loaded
+   * @param clock      - the current time in milliseconds
+   */
+  UserCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+    this.cache = new SegmentedCache<>(maxEntries, clock);
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Emails are compared without surrounding whitespace and case, so Jane@Example.com and
+   * jane@example.com are the same user.
+   *
+   * @param email - the email as entered
+   * @return the normalized email, or null if email is null
+   */
+  static String normalize(String email) {
+    return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @return the generation to pass to put, read before loading the user from the database
+   */
+  long generation() {
+    return generation.get();
+  }
+
+  /**
+   * @param email - the normalized email
+   * @return a copy of the cached user, or null if it is not cached or has expired
+   */
+  User get(String email) {
+    User user = cache.get(email);
+    return user == null ? null : copyOf(user);
+  }
+
+  /**
+   * Caches a user loaded from the database, unless it was invalidated while loading. The
+   * generation is checked under the lock of the user's segment, so an invalidation either sees
+   * the entry and drops it or makes the put skip it.
+   *
+   * @param user           - the loaded user
+   * @param seenGeneration - the generation read before the load
+   */
+  void put(User user, long seenGeneration) {
+    cache.putIf(normalize(user.getEmail()), copyOf(user), clock.getAsLong() + ttlMillis,
+        () -> generation.get() == seenGeneration);
+  }
+
+  /**
+   * Drops a user, so its next lookup reads it from the database.
+   *
+   * @param email - the normalized email
+   */
+  void invalidate(String email) {
+    if (email == null) {
+      return;
+    }
+
+    generation.incrementAndGet();
+    cache.remove(email);
+  }
+
+  /**
+   * @return the number of users cached, including expired ones not yet dropped
+   */
+  int size() {
+    return cache.size();
+  }
+
+  private static User copyOf(User user) {
+    return new User(user.getId(), user.getEmail(), user.getRole(), user.getFirstName(),
+        user.getLastName());
+  }
+}
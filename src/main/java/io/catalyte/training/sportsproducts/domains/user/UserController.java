@@ -2,9 +2,12 @@ package io.catalyte.training.sportsproducts.domains.user;
 
 import static io.catalyte.training.sportsproducts.constants.Paths.USERS_PATH;
 
+import io.catalyte.training.sportsproducts.domains.user.UserImportService.Format;
+import java.io.*;
 import org.apache.logging.log4j.*;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.http.*;
+import org.springframework.security.core.annotation.*;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -19,8 +22,11 @@ public class UserController {
   @Autowired
   private final UserServiceImpl userService;
 
-  public UserController(UserServiceImpl userService) {
+  private final UserImportService userImportService;
+
+  public UserController(UserServiceImpl userService, UserImportService userImportService) {
     this.userService = userService;
+    this.userImportService = userImportService;
   }
 
   // METHODS
@@ -28,35 +34,59 @@ public class UserController {
   /**
    * Controller method for logging the user in
    *
-   * @param user        User to login
-   * @param bearerToken String value in the Authorization property of the header
+   * @param user  User to login
+   * @param email Email verified from the bearer token
    * @return User
    */
   @PostMapping()
   public ResponseEntity<User> createUser(
       @RequestBody User user,
-      @RequestHeader("Authorization") String bearerToken
+      @AuthenticationPrincipal String email
   ) {
     logger.info("Request received for createUser");
-    return new ResponseEntity<>(userService.createUser(user), HttpStatus.CREATED);
+    return new ResponseEntity<>(userService.createUser(email, user), HttpStatus.CREATED);
   }
 
   /**
    * Controller method for updating the user
    *
-   * @param id          Id of the user to update
-   * @param user        User to update
-   * @param bearerToken String value in the Authorization property of the header
+   * @param id    Id of the user to update
+   * @param user  User to update
+   * @param email Email verified from the bearer token
    * @return User - Updated user
    */
   @PutMapping(path = "/{id}")
   public ResponseEntity<User> updateUser(
       @PathVariable Long id,
       @RequestBody User user,
-      @RequestHeader("Authorization") String bearerToken
+      @AuthenticationPrincipal String email
   ) {
     logger.info("Request received for updateUser");
-    return new ResponseEntity<>(userService.updateUser(bearerToken, id, user), HttpStatus.OK);
+    return new ResponseEntity<>(userService.updateUser(email, id, user), HttpStatus.OK);
+  }
+
+  /**
+   * Controller method for importing users from NDJSON, one user object per line
+   *
+   * @param body NDJSON stream of users with email, firstName and lastName
+   * @return UserImportResult - users imported and rows rejected
+   */
+  @PostMapping(path = "/import", consumes = "application/x-ndjson")
+  public ResponseEntity<UserImportResult> importNdjson(InputStream body) {
+    logger.info("Request received for importNdjson");
+    return new ResponseEntity<>(userImportService.importUsers(body, Format.NDJSON), HttpStatus.OK);
+  }
+
+  /**
+   * Controller method for importing users from CSV with a header line
+   *
+   * @param body CSV stream of users with email, firstName and lastName columns
+   * @return UserImportResult - users imported and rows rejected
+   */
+  @PostMapping(path = "/import", consumes = "text/csv")
+  public ResponseEntity<UserImportResult> importCsv(InputStream body) {
+    logger.info("Request received for importCsv");
+    return new ResponseEntity<>(userImportService.importUsers(body, Format.CSV), HttpStatus.OK);
   }
 
   /**
@@ -0,0 +1,110 @@
+package io.catalyte.training.sportsproducts.domains.user;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk user import. Every row read is either imported or rejected; only the first
+ * rejected rows are listed, so the report stays small however bad the file is.
+ */
+public class UserImportResult {
+
+  private final int maxRejectedRows;
+  private final List<RejectedRow> rejectedRows = new ArrayList<>();
+
+  private long received;
+  private long imported;
+  private long duplicates;
+  private long rejected;
+  private boolean truncated;
+
+  UserImportResult(int maxRejectedRows) {
+    this.maxRejectedRows = maxRejectedRows;
+  }
+
+  void addReceived() {
+    received++;
+  }
+
+  void addImported(int count) {
+    imported += count;
+  }
+
+  void addDuplicate(long line, String email) {
+    duplicates++;
+    addRejected(line, email, "Email is taken");
+  }
+
+  void addRejected(long line, String email, String reason) {
+    rejected++;
+    if (rejectedRows.size() < maxRejectedRows) {
+      rejectedRows.add(new RejectedRow(line, email, reason));
+    }
+  }
+
+  void setTruncated(boolean truncated) {
+    this.truncated = truncated;
+  }
+
+  /**
+   * @return the number of rows read, not counting a CSV header or blank lines
+   */
+  public long getReceived() {
+    return received;
+  }
+
+  public long getImported() {
+    return imported;
+  }
+
+  /**
+   * @return the rejected rows whose email was already in the file or the database
+   */
+  public long getDuplicates() {
+    return duplicates;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  /**
+   * @return true if the import stopped at the row limit, leaving the rest of the file unread
+   */
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  public List<RejectedRow> getRejectedRows() {
+    return Collections.unmodifiableList(rejectedRows);
+  }
+
+  /**
+   * A row that was not imported, and why
+   */
+  public static class RejectedRow {
+
+    private final long line;
+    private final String email;
+    private final String reason;
+
+    RejectedRow(long line, String email, String reason) {
+      this.line = line;
+      this.email = email;
+      this.reason = reason;
+    }
+
+    public long getLine() {
+      return line;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+  }
+}
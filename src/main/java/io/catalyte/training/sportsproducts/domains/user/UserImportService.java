@@ -0,0 +1,328 @@
+package io.catalyte.training.sportsproducts.domains.user;
+
+import static io.catalyte.training.sportsproducts.constants.Roles.CUSTOMER;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Imports users in bulk from NDJSON or CSV, for migrating customers from another shop.
+ *
+ * <p>The body is read one line at a time and valid rows are inserted with one JDBC batch per
+ * batch-size rows, each in its own transaction, so memory holds one batch plus the normalized
+ * emails seen so far, which is how duplicates within the file are caught. Emails already in the
+ * database are caught by the unique index: a batch that hits it is retried row by row and the
+ * taken emails are reported. Every user is imported as a customer.
+ */
+@Service
+public class UserImportService {
+
+  private final Logger logger = LogManager.getLogger(UserImportService.class);
+
+  static final String INSERT_SQL =
+      "INSERT INTO users (email, role, first_name, last_name) VALUES (?, ?, ?, ?)";
+
+  static final int MAX_FIELD_LENGTH = 255;
+
+  /**
+   * The supported formats of an import
+   */
+  public enum Format {
+    NDJSON, CSV
+  }
+
+  private final ObjectMapper objectMapper;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxRows;
+  private final int maxRejectedRows;
+
+  @Autowired
+  public UserImportService(ObjectMapper objectMapper, DataSource dataSource,
+      PlatformTransactionManager transactionManager,
+      @Value("${users.import.batch-size:1000}") int batchSize,
+      @Value("${users.import.max-rows:1000000}") int maxRows,
+      @Value("${users.import.max-rejected-rows:1000}") int maxRejectedRows) {
+    this.objectMapper = objectMapper;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxRows = maxRows;
+    this.maxRejectedRows = maxRejectedRows;
+  }
+
+  /**
+   * Reads users from a stream and inserts the valid ones.
+   *
+   * @param in     - the NDJSON or CSV body, UTF-8 encoded
+   * @param format - the format of the body
+   * @return the number of users imported and the rows rejected
+   */
+  public UserImportResult importUsers(InputStream in, Format format) {
+    UserImportResult result = new UserImportResult(maxRejectedRows);
+    Set<String> seenEmails = new HashSet<>();
+    List<Row> batch = new ArrayList<>(batchSize);
+
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      Map<String, Integer> columns = null;
+      long lineNumber = 0;
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+
+        // THE FIRST CSV LINE NAMES THE COLUMNS
+        if (format == Format.CSV && columns == null) {
+          columns = parseHeader(line);
+          continue;
+        }
+
+        if (result.getReceived() == maxRows) {
+          result.setTruncated(true);
+          break;
+        }
+        result.addReceived();
+
+        Row row;
+        try {
+          row = format == Format.CSV ? parseCsvRow(line, columns, lineNumber)
+              : parseJsonRow(line, lineNumber);
+        } catch (IllegalArgumentException e) {
+          result.addRejected(lineNumber, null, e.getMessage());
+          continue;
+        }
+
+        String error = validate(row);
+        if (error != null) {
+          result.addRejected(lineNumber, row.email, error);
+        } else if (!seenEmails.add(row.email)) {
+          result.addDuplicate(lineNumber, row.email);
+        } else {
+          batch.add(row);
+          if (batch.size() == batchSize) {
+            insert(batch, result);
+            batch.clear();
+          }
+        }
+      }
+    } catch (IOException e) {
+      logger.error("Could not read user import after " + result.getImported() + " users: "
+          + e.getMessage());
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not read the import.");
+    }
+
+    if (!batch.isEmpty()) {
+      insert(batch, result);
+    }
+
+    logger.info("Imported " + result.getImported() + " of " + result.getReceived() + " users");
+    return result;
+  }
+
+  private void insert(List<Row> batch, UserImportResult result) {
+    try {
+      transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL,
+          new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+              bind(statement, batch.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+              return batch.size();
+            }
+          }));
+      result.addImported(batch.size());
+    } catch (DataIntegrityViolationException e) {
+      insertRowByRow(batch, result);
+    } catch (DataAccessException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+  }
+
+  /**
+   * Inserts a batch that hit the unique index one row at a time, reporting the emails that are
+   * taken.
+   */
+  private void insertRowByRow(List<Row> batch, UserImportResult result) {
+    for (Row row : batch) {
+      try {
+        jdbcTemplate.update(INSERT_SQL, statement -> bind(statement, row));
+        result.addImported(1);
+      } catch (DataIntegrityViolationException e) {
+        result.addDuplicate(row.line, row.email);
+      } catch (DataAccessException e) {
+        logger.error(e.getMessage());
+        throw new ServerError(e.getMessage());
+      }
+    }
+  }
+
+  private static void bind(PreparedStatement statement, Row row) throws SQLException {
+    statement.setString(1, row.email);
+    statement.setString(2, CUSTOMER);
+    statement.setString(3, row.firstName);
+    statement.setString(4, row.lastName);
+  }
+
+  private static String validate(Row row) {
+    if (row.email == null || row.email.isEmpty()) {
+      return "User must have an email field";
+    }
+    int at = row.email.indexOf('@');
+    if (at < 1 || at != row.email.lastIndexOf('@') || at == row.email.length() - 1) {
+      return "Email is not valid";
+    }
+    if (row.email.length() > MAX_FIELD_LENGTH
+        || (row.firstName != null && row.firstName.length() > MAX_FIELD_LENGTH)
+        || (row.lastName != null && row.lastName.length() > MAX_FIELD_LENGTH)) {
+      return "Fields must be at most " + MAX_FIELD_LENGTH + " characters";
+    }
+    return null;
+  }
+
+  private Row parseJsonRow(String line, long lineNumber) {
+    JsonNode node;
+    try {
+      node = objectMapper.readTree(line);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Row is not valid JSON");
+    }
+    if (node == null || !node.isObject()) {
+      throw new IllegalArgumentException("Row must be a JSON object");
+    }
+    return new Row(lineNumber, text(node, "email"), text(node, "firstName"),
+        text(node, "lastName"));
+  }
+
+  private static String text(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asText();
+  }
+
+  /**
+   * Maps the column names to their positions. Names are matched without case, and first_name and
+   * last_name are accepted as well.
+   */
+  static Map<String, Integer> parseHeader(String line) {
+    List<String> names = parseCsvLine(line);
+    Map<String, Integer> columns = new HashMap<>();
+    for (int i = 0; i < names.size(); i++) {
+      columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+    }
+    if (!columns.containsKey("email")) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "The CSV header must have an email column.");
+    }
+    return columns;
+  }
+
+  private static Row parseCsvRow(String line, Map<String, Integer> columns, long lineNumber) {
+    List<String> values = parseCsvLine(line);
+    return new Row(lineNumber, column(values, columns, "email"),
+        column(values, columns, "firstname"), column(values, columns, "lastname"));
+  }
+
+  private static String column(List<String> values, Map<String, Integer> columns, String name) {
+    Integer index = columns.get(name);
+    if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+      return null;
+    }
+    return values.get(index);
+  }
+
+  /**
+   * Splits one CSV line. Fields may be quoted, with doubled quotes inside them; a quoted field
+   * cannot span lines.
+   *
+   * @param line - the line to split
+   * @return the fields of the line
+   */
+  static List<String> parseCsvLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"' && field.length() == 0) {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+
+    if (quoted) {
+      throw new IllegalArgumentException("Row has an unterminated quoted field");
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /**
+   * A user read from the import, with its email normalized
+   */
+  private static final class Row {
+
+    private final long line;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+
+    Row(long line, String email, String firstName, String lastName) {
+      this.line = line;
+      this.email = UserCache.normalize(email);
+      this.firstName = firstName;
+      this.lastName = lastName;
+    }
+  }
+}
@@ -5,9 +5,9 @@ package io.catalyte.training.sportsproducts.domains.user;
  */
 public interface UserService {
 
-  public User updateUser(String credentials, Long id, User user);
+  public User updateUser(String authenticatedEmail, Long id, User user);
 
-  public User createUser(User user);
+  public User createUser(String authenticatedEmail, User user);
 
   public User getUserByEmail(String email);
 }
@@ -2,31 +2,37 @@ package io.catalyte.training.sportsproducts.domains.user;
 
 import static io.catalyte.training.sportsproducts.constants.Roles.CUSTOMER;
 
-import io.catalyte.training.sportsproducts.auth.GoogleAuthService;
 import io.catalyte.training.sportsproducts.exceptions.ResourceNotFound;
 import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import io.catalyte.training.sportsproducts.util.UniqueViolation;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 /**
- * Implements user service interface
+ * Implements user service interface. Emails are stored normalized and users are looked up by email
+ * through a near cache, which is invalidated whenever a user is created or updated.
  */
 @Service
 public class UserServiceImpl implements UserService {
 
   private final Logger logger = LogManager.getLogger(UserController.class);
   private final UserRepository userRepository;
-  private final GoogleAuthService googleAuthService;
+  private final UserCache userCache;
 
   @Autowired
-  public UserServiceImpl(UserRepository userRepository, GoogleAuthService googleAuthService) {
+  public UserServiceImpl(UserRepository userRepository,
+      @Value("${users.cache.max-entries:10000}") int cacheMaxEntries,
+      @Value("${users.cache.ttl-seconds:300}") long cacheTtlSeconds) {
     this.userRepository = userRepository;
-    this.googleAuthService = googleAuthService;
+    this.userCache = new UserCache(cacheMaxEntries, cacheTtlSeconds * 1000,
+        System::currentTimeMillis);
   }
 
   // METHODS
@@ -34,22 +40,17 @@ public class UserServiceImpl implements UserService {
   /**
    * Updates user given valid credentials
    *
-   * @param bearerToken String value in the Authorization property of the header
-   * @param id          Id of the user to update
-   * @param updatedUser User to update
+   * @param authenticatedEmail Email verified from the bearer token
+   * @param id                 Id of the user to update
+   * @param updatedUser        User to update
    * @return User - Updated user
    */
   @Override
-  public User updateUser(String bearerToken, Long id, User updatedUser) {
+  public User updateUser(String authenticatedEmail, Long id, User updatedUser) {
 
     // AUTHENTICATES USER - SAME EMAIL, SAME PERSON
-    boolean isAuthenticated = googleAuthService.authenticateUser(bearerToken, updatedUser);
-
-    if (!isAuthenticated) {
-      logger.error("Email in the request body does not match email from JWT");
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-          "Email in the request body does not match email from JWT Token");
-    }
+    updatedUser.setEmail(UserCache.normalize(updatedUser.getEmail()));
+    checkEmailMatches(authenticatedEmail, updatedUser);
 
     // UPDATES USER
     User existingUser;
@@ -74,26 +75,40 @@ public class UserServiceImpl implements UserService {
       updatedUser.setId(id);
     }
 
+    User savedUser;
+
     try {
       logger.info("Saved user to");
-      return userRepository.save(updatedUser);
+      savedUser = userRepository.save(updatedUser);
+    } catch (DataIntegrityViolationException dive) {
+      throw rejected(dive);
     } catch (DataAccessException dae) {
       logger.error(dae.getMessage());
       throw new ServerError(dae.getMessage());
+    } finally {
+      // DROP BOTH EMAILS, THE UPDATE MAY HAVE CHANGED IT
+      userCache.invalidate(UserCache.normalize(existingUser.getEmail()));
+      userCache.invalidate(updatedUser.getEmail());
     }
 
+    return savedUser;
+
   }
 
   /**
-   * Creates user in the database, given email is not null and not taken
+   * Creates user in the database, given email is not null and not taken. The user is inserted
+   * with a single statement and the unique index on email rejects a taken email, so concurrent
+   * sign-ups with the same email cannot both succeed.
    *
-   * @param user User to create
+   * @param authenticatedEmail Email verified from the bearer token
+   * @param user               User to create
    * @return User
    */
   @Override
-  public User createUser(User user) {
+  public User createUser(String authenticatedEmail, User user) {
 
-    String email = user.getEmail();
+    String email = UserCache.normalize(user.getEmail());
+    user.setEmail(email);
 
     // CHECK TO MAKE SURE EMAIL EXISTS ON INCOMING USER
     if (email == null) {
@@ -101,20 +116,11 @@ public class UserServiceImpl implements UserService {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User must have an email field");
     }
 
-    // CHECK TO MAKE SURE USER EMAIL IS NOT TAKEN
-    User existingUser;
+    // USERS CAN ONLY SIGN THEMSELVES UP
+    checkEmailMatches(authenticatedEmail, user);
 
-    try {
-      existingUser = userRepository.findByEmail(user.getEmail());
-    } catch (DataAccessException dae) {
-      logger.error(dae.getMessage());
-      throw new ServerError(dae.getMessage());
-    }
-
-    if (existingUser != null) {
-      logger.error("Email is taken");
-      throw new ResponseStatusException(HttpStatus.CONFLICT, "Email is taken");
-    }
+    // ALWAYS INSERT, AN ID IN THE BODY WOULD OTHERWISE OVERWRITE THAT USER
+    user.setId(null);
 
     // SET DEFAULT ROLE TO CUSTOMER
     // NOT RUNNING CONDITIONAL DUE TO SOMEONE ASSIGNING THEMSELVES A ROLE
@@ -122,19 +128,56 @@ public class UserServiceImpl implements UserService {
     user.setRole(CUSTOMER);
     // }
 
-    // SAVE USER
+    // SAVE USER, THE UNIQUE INDEX ON EMAIL CHECKS IT IS NOT TAKEN
     try {
       logger.info("Saved user");
       return userRepository.save(user);
+    } catch (DataIntegrityViolationException dive) {
+      throw rejected(dive);
     } catch (DataAccessException dae) {
       logger.error(dae.getMessage());
       throw new ServerError(dae.getMessage());
+    } finally {
+      userCache.invalidate(email);
+    }
+
+  }
+
+  /**
+   * Maps a constraint violation on save to the response for the client
+   *
+   * @param dive - the violation thrown by the save
+   * @return 409 if the email belongs to another user, otherwise 400
+   */
+  private ResponseStatusException rejected(DataIntegrityViolationException dive) {
+    // THE UNIQUE INDEX ON EMAIL REJECTS AN EMAIL THAT BELONGS TO ANOTHER USER
+    if (UniqueViolation.isUniqueViolation(dive)) {
+      logger.error("Email is taken");
+      return new ResponseStatusException(HttpStatus.CONFLICT, "Email is taken");
     }
+    // ANY OTHER CONSTRAINT MEANS A FIELD IS MISSING OR TOO LONG
+    logger.error(dive.getMessage());
+    return new ResponseStatusException(HttpStatus.BAD_REQUEST,
+        "Invalid user: a field is missing or too long.");
+  }
 
+  /**
+   * Rejects requests for a user other than the one the bearer token was issued to
+   *
+   * @param authenticatedEmail Email verified from the bearer token
+   * @param user               User in the request body
+   */
+  private void checkEmailMatches(String authenticatedEmail, User user) {
+    if (authenticatedEmail == null
+        || !UserCache.normalize(authenticatedEmail).equals(user.getEmail())) {
+      logger.error("Email in the request body does not match email from JWT");
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Email in the request body does not match email from JWT Token");
+    }
   }
 
   /**
-   * Gets user by an email
+   * Gets user by an email, from the near cache when it was loaded recently
    *
    * @param email Email of the user
    * @return The user
@@ -142,10 +185,16 @@ public class UserServiceImpl implements UserService {
   @Override
   public User getUserByEmail(String email) {
 
-    User user;
+    String normalizedEmail = UserCache.normalize(email);
+    User user = userCache.get(normalizedEmail);
+    if (user != null) {
+      return user;
+    }
+
+    long generation = userCache.generation();
 
     try {
-      user = userRepository.findByEmail(email);
+      user = userRepository.findByEmail(normalizedEmail);
     } catch (DataAccessException dae) {
       logger.error(dae.getMessage());
       throw new ServerError(dae.getMessage());
@@ -155,6 +204,7 @@ public class UserServiceImpl implements UserService {
       throw new ResourceNotFound("User with email " + email + " does not exist.");
     }
 
+    userCache.put(user, generation);
     return user;
 
   }
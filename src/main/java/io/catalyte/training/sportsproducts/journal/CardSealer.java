@@ -0,0 +1,128 @@
+package io.catalyte.training.sportsproducts.journal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Keeps card data in the order journal unreadable on disk. The CVV is never journaled. With a key
+ * the card number is encrypted with AES-GCM and restored on replay; without one only its last four
+ * digits are kept.
+ */
+class CardSealer {
+
+  static final String SEALED_PREFIX = "aes:";
+
+  private static final int IV_BYTES = 12;
+
+  private static final int TAG_BITS = 128;
+
+  private static final int VISIBLE_DIGITS = 4;
+
+  private final SecretKeySpec key;
+  private final SecureRandom random = new SecureRandom();
+
+  /**
+   * @param cardKey - the base64 encoded AES key, or empty to keep only the last four digits
+   */
+  CardSealer(String cardKey) {
+    if (cardKey == null || cardKey.isEmpty()) {
+      this.key = null;
+      return;
+    }
+
+    byte[] keyBytes = Base64.getDecoder().decode(cardKey);
+    if (keyBytes.length != 16 && keyBytes.length != 32) {
+      throw new IllegalArgumentException("purchases.journal.card-key must be 16 or 32 bytes");
+    }
+    this.key = new SecretKeySpec(keyBytes, "AES");
+  }
+
+  /**
+   * @return true if card numbers are encrypted rather than truncated
+   */
+  boolean isEncrypting() {
+    return key != null;
+  }
+
+  /**
+   * Removes the CVV and seals the card number of a serialized purchase.
+   *
+   * @param purchase - the purchase as a JSON tree, changed in place
+   */
+  void seal(ObjectNode purchase) {
+    JsonNode card = purchase.get("creditCard");
+    if (card == null || !card.isObject()) {
+      return;
+    }
+
+    ObjectNode creditCard = (ObjectNode) card;
+    creditCard.remove("cvv");
+
+    JsonNode number = creditCard.get("cardNumber");
+    if (number != null && number.isTextual()) {
+      creditCard.put("cardNumber", key == null ? lastDigits(number.asText())
+          : encrypt(number.asText()));
+    }
+  }
+
+  /**
+   * Restores the card number of a purchase read back from the journal, where it can be.
+   *
+   * @param purchase - the purchase as a JSON tree, changed in place
+   */
+  void open(ObjectNode purchase) {
+    JsonNode card = purchase.get("creditCard");
+    if (card == null || !card.isObject()) {
+      return;
+    }
+
+    JsonNode number = card.get("cardNumber");
+    if (number != null && number.asText().startsWith(SEALED_PREFIX)) {
+      if (key == null) {
+        throw new IllegalStateException("Journaled card numbers need purchases.journal.card-key");
+      }
+      ((ObjectNode) card).put("cardNumber", decrypt(number.asText()));
+    }
+  }
+
+  private static String lastDigits(String cardNumber) {
+    return cardNumber.length() <= VISIBLE_DIGITS ? cardNumber
+        : cardNumber.substring(cardNumber.length() - VISIBLE_DIGITS);
+  }
+
+  private String encrypt(String cardNumber) {
+    byte[] iv = new byte[IV_BYTES];
+    random.nextBytes(iv);
+
+    try {
+      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+      byte[] sealed = cipher.doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+      return SEALED_PREFIX + Base64.getEncoder().encodeToString(
+          ByteBuffer.allocate(IV_BYTES + sealed.length).put(iv).put(sealed).array());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private String decrypt(String sealedNumber) {
+    byte[] bytes = Base64.getDecoder().decode(sealedNumber.substring(SEALED_PREFIX.length()));
+
+    try {
+      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+      return new String(cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES),
+          StandardCharsets.UTF_8);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
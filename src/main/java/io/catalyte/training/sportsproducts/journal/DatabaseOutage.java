@@ -0,0 +1,38 @@
+package io.catalyte.training.sportsproducts.journal;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Tells apart failures caused by an unreachable database from failures caused by the request.
+ */
+public final class DatabaseOutage {
+
+  private DatabaseOutage() {
+  }
+
+  /**
+   * @param e - the exception thrown by a repository or transaction
+   * @return true if the database could not be reached, so the work may be retried later
+   */
+  public static boolean isOutage(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof CannotCreateTransactionException
+          || cause instanceof DataAccessResourceFailureException
+          || cause instanceof TransientDataAccessResourceException
+          || cause instanceof QueryTimeoutException
+          || cause instanceof SQLTransientConnectionException
+          || cause instanceof SQLNonTransientConnectionException) {
+        return true;
+      }
+      if (cause.getCause() == cause) {
+        break;
+      }
+    }
+    return false;
+  }
+}
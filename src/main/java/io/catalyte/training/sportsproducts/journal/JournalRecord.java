@@ -0,0 +1,34 @@
+package io.catalyte.training.sportsproducts.journal;
+
+import io.catalyte.training.sportsproducts.domains.purchase.Purchase;
+
+/**
+ * One purchase read back from the order journal
+ */
+public class JournalRecord {
+
+  private final long offset;
+  private final long nextOffset;
+  private final Purchase purchase;
+
+  JournalRecord(long offset, long nextOffset, Purchase purchase) {
+    this.offset = offset;
+    this.nextOffset = nextOffset;
+    this.purchase = purchase;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  long getNextOffset() {
+    return nextOffset;
+  }
+
+  /**
+   * @return the journaled purchase, or null if the record could not be read as a purchase
+   */
+  public Purchase getPurchase() {
+    return purchase;
+  }
+}
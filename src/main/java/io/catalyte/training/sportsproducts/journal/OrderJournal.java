@@ -0,0 +1,367 @@
+package io.catalyte.training.sportsproducts.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.catalyte.training.sportsproducts.domains.purchase.Purchase;
+import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import javax.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A memory-mapped, append-only journal of purchases accepted while the database is unavailable.
+ *
+ * <p>The file starts with a header holding a magic number, the current epoch and the offset up to
+ * which records have been replayed. Each record is [length][epoch][crc32][purchase json]. Appends
+ * copy the record into the mapping and wait for the flusher thread, which forces every record
+ * written since its last pass with a single fsync (group commit). On startup records are scanned
+ * from the replayed offset until the first record with a wrong epoch or checksum, which drops a
+ * torn write at the tail. Once every record is replayed the journal is rewound and the epoch
+ * bumped, so stale records past the new tail are never read again.
+ *
+ * <p>Records never hold the CVV, and the card number is encrypted with purchases.journal.card-key,
+ * or cut to its last four digits when no key is set.
+ */
+@Component
+public class OrderJournal {
+
+  private final Logger logger = LogManager.getLogger(OrderJournal.class);
+
+  static final int MAGIC = 0x4f4a4e31;
+
+  static final int HEADER_SIZE = 64;
+
+  static final int RECORD_HEADER_SIZE = 12;
+
+  private static final int EPOCH_OFFSET = 4;
+
+  private static final int REPLAYED_OFFSET = 8;
+
+  private final ObjectMapper objectMapper;
+  private final CardSealer cardSealer;
+  private final long durableTimeoutMillis;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition written = lock.newCondition();
+  private final Condition forced = lock.newCondition();
+
+  private int epoch;
+  private int writePosition;
+  private int replayedPosition;
+  private int durablePosition;
+  private long writeSequence;
+  private long durableSequence;
+  private boolean closed;
+
+  private final AtomicLong pendingRecords = new AtomicLong();
+  private final Thread flusher;
+
+  @Autowired
+  public OrderJournal(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      @Value("${purchases.journal.file:journal/orders.journal}") String file,
+      @Value("${purchases.journal.capacity-mb:64}") int capacityMb,
+      @Value("${purchases.journal.durable-timeout-ms:5000}") long durableTimeoutMillis,
+      @Value("${purchases.journal.card-key:}") String cardKey)
+      throws IOException {
+    this.objectMapper = objectMapper;
+    this.cardSealer = new CardSealer(cardKey);
+    this.durableTimeoutMillis = durableTimeoutMillis;
+
+    if (!cardSealer.isEncrypting()) {
+      logger.warn("No purchases.journal.card-key set, journaled purchases keep only the last four "
+          + "digits of the card number");
+    }
+
+    Path path = Paths.get(file);
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacityMb * 1024 * 1024);
+
+    recover();
+
+    Gauge.builder("purchases.journal.pending", pendingRecords, AtomicLong::get)
+        .description("Journaled purchases waiting to be replayed to the database")
+        .register(meterRegistry);
+
+    flusher = new Thread(this::flushLoop, "order-journal-flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * @return true while journaled purchases are waiting to be replayed
+   */
+  public boolean hasPending() {
+    return pendingRecords.get() > 0;
+  }
+
+  /**
+   * Durably appends a purchase. Returns once the record has been forced to disk.
+   *
+   * @param purchase - the priced purchase that could not be saved to the database
+   */
+  public void append(Purchase purchase) {
+    byte[] payload;
+
+    try {
+      ObjectNode record = objectMapper.valueToTree(purchase);
+      cardSealer.seal(record);
+      payload = objectMapper.writeValueAsBytes(record);
+    } catch (IOException | IllegalArgumentException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    long sequence;
+
+    lock.lock();
+    try {
+      if (closed) {
+        throw new ServerError("The order journal is closed.");
+      }
+      if ((long) writePosition + RECORD_HEADER_SIZE + payload.length > buffer.capacity()) {
+        throw new ServerError("The order journal is full.");
+      }
+
+      buffer.putInt(writePosition, payload.length);
+      buffer.putInt(writePosition + 4, epoch);
+      buffer.putInt(writePosition + 8, (int) crc.getValue());
+      buffer.position(writePosition + RECORD_HEADER_SIZE);
+      buffer.put(payload);
+      writePosition += RECORD_HEADER_SIZE + payload.length;
+
+      sequence = ++writeSequence;
+      pendingRecords.incrementAndGet();
+      written.signal();
+
+      long remaining = TimeUnit.MILLISECONDS.toNanos(durableTimeoutMillis);
+      while (durableSequence < sequence) {
+        if (remaining <= 0) {
+          throw new ServerError("Timed out waiting for the order journal to reach disk.");
+        }
+        remaining = forced.awaitNanos(remaining);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServerError(e.getMessage());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reads durable records that have not been replayed yet, oldest first.
+   *
+   * @param max - the maximum number of records to return
+   * @return the pending records
+   */
+  public List<JournalRecord> readPending(int max) {
+    List<JournalRecord> records = new ArrayList<>();
+
+    lock.lock();
+    try {
+      int position = replayedPosition;
+
+      while (records.size() < max && position < durablePosition) {
+        int length = buffer.getInt(position);
+        byte[] payload = new byte[length];
+        buffer.position(position + RECORD_HEADER_SIZE);
+        buffer.get(payload);
+        int next = position + RECORD_HEADER_SIZE + length;
+        records.add(new JournalRecord(position, next, readPurchase(position, payload)));
+        position = next;
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    return records;
+  }
+
+  /**
+   * Records that a journaled purchase reached the database, and rewinds the journal once every
+   * record has been replayed.
+   *
+   * @param record - the record returned by readPending
+   */
+  public void markReplayed(JournalRecord record) {
+    lock.lock();
+    try {
+      if (record.getOffset() != replayedPosition) {
+        return;
+      }
+      replayedPosition = (int) record.getNextOffset();
+      pendingRecords.decrementAndGet();
+
+      if (replayedPosition == writePosition) {
+        epoch++;
+        replayedPosition = HEADER_SIZE;
+        writePosition = HEADER_SIZE;
+        durablePosition = HEADER_SIZE;
+        buffer.putInt(EPOCH_OFFSET, epoch);
+      }
+      buffer.putLong(REPLAYED_OFFSET, replayedPosition);
+    } finally {
+      lock.unlock();
+    }
+
+    // a crash before this force replays the record again
+    buffer.force();
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      closed = true;
+      written.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      flusher.join(durableTimeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    buffer.force();
+    channel.close();
+  }
+
+  /**
+   * Forces everything written since the last pass with one fsync, then wakes the appenders whose
+   * records it covered. Appends that arrive during a force are batched into the next one.
+   */
+  private void flushLoop() {
+    while (true) {
+      long sequence;
+      int position;
+
+      lock.lock();
+      try {
+        while (writeSequence == durableSequence && !closed) {
+          written.awaitUninterruptibly();
+        }
+        if (closed && writeSequence == durableSequence) {
+          return;
+        }
+        sequence = writeSequence;
+        position = writePosition;
+      } finally {
+        lock.unlock();
+      }
+
+      buffer.force();
+
+      lock.lock();
+      try {
+        durableSequence = sequence;
+        durablePosition = position;
+        forced.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Restores the positions from the header and finds the end of the last complete record.
+   */
+  private void recover() {
+    if (buffer.getInt(0) != MAGIC) {
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(EPOCH_OFFSET, 0);
+      buffer.putLong(REPLAYED_OFFSET, HEADER_SIZE);
+      buffer.force();
+    }
+
+    epoch = buffer.getInt(EPOCH_OFFSET);
+    replayedPosition = (int) buffer.getLong(REPLAYED_OFFSET);
+    int position = replayedPosition;
+    long records = 0;
+
+    while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || buffer.getInt(position + 4) != epoch
+          || (long) position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+        break;
+      }
+
+      byte[] payload = new byte[length];
+      buffer.position(position + RECORD_HEADER_SIZE);
+      buffer.get(payload);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      if ((int) crc.getValue() != buffer.getInt(position + 8)) {
+        logger.warn("Ignoring torn order journal record at offset " + position);
+        break;
+      }
+
+      position += RECORD_HEADER_SIZE + length;
+      records++;
+    }
+
+    writePosition = position;
+    durablePosition = position;
+    pendingRecords.set(records);
+
+    if (records > 0) {
+      logger.warn("Order journal holds " + records + " purchases waiting to be replayed");
+    }
+  }
+
+  private Purchase readPurchase(int position, byte[] payload) {
+    ObjectNode record;
+
+    try {
+      record = (ObjectNode) objectMapper.readTree(payload);
+    } catch (IOException | ClassCastException e) {
+      logger.error("Could not read order journal record at offset " + position + ": "
+          + e.getMessage());
+      return null;
+    }
+
+    try {
+      cardSealer.open(record);
+    } catch (IllegalStateException | IllegalArgumentException e) {
+      // a missing or wrong key must not skip the purchase, so replay waits until it is fixed
+      logger.error("Could not open the card of order journal record at offset " + position + ": "
+          + e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+
+    try {
+      return objectMapper.treeToValue(record, Purchase.class);
+    } catch (IOException e) {
+      logger.error("Could not read order journal record at offset " + position + ": "
+          + e.getMessage());
+      return null;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package io.catalyte.training.sportsproducts.journal;
+
+import io.catalyte.training.sportsproducts.domains.purchase.Purchase;
+import io.catalyte.training.sportsproducts.domains.purchase.PurchaseService;
+import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies journaled purchases to the database once it is reachable again, in the order they were
+ * accepted.
+ */
+@Component
+public class OrderJournalReplayer {
+
+  private final Logger logger = LogManager.getLogger(OrderJournalReplayer.class);
+
+  private final OrderJournal orderJournal;
+  private final PurchaseService purchaseService;
+  private final int batchSize;
+
+  @Autowired
+  public OrderJournalReplayer(OrderJournal orderJournal, PurchaseService purchaseService,
+      @Value("${purchases.journal.replay-batch-size:100}") int batchSize) {
+    this.orderJournal = orderJournal;
+    this.purchaseService = purchaseService;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Replays pending purchases until the journal is empty or the database fails again. A purchase
+   * rejected for any other reason, such as a product that no longer exists, is logged and skipped
+   * so it cannot block the purchases behind it.
+   */
+  @Scheduled(fixedDelayString = "${purchases.journal.replay-interval-ms:1000}")
+  public void replay() {
+    while (orderJournal.hasPending()) {
+      List<JournalRecord> records = orderJournal.readPending(batchSize);
+      if (records.isEmpty()) {
+        return;
+      }
+
+      for (JournalRecord record : records) {
+        Purchase purchase = record.getPurchase();
+
+        if (purchase != null) {
+          try {
+            purchaseService.replayPurchase(purchase);
+          } catch (RuntimeException e) {
+            if (DatabaseOutage.isOutage(e) || e instanceof ServerError) {
+              logger.warn("Could not replay journaled purchases, will retry: "
+                  + e.getMessage());
+              return;
+            }
+            logger.error("Skipping journaled purchase at offset " + record.getOffset() + " for "
+                + (purchase.getBillingAddress() == null ? null
+                : purchase.getBillingAddress().getEmail()) + ": " + e.getMessage());
+          }
+        }
+
+        orderJournal.markReplayed(record);
+      }
+
+      logger.info("Replayed " + records.size() + " journaled purchases");
+    }
+  }
+}
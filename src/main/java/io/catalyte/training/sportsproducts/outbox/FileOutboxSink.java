@@ -0,0 +1,64 @@
+package io.catalyte.training.sportsproducts.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appends outbox events to a local file as newline delimited JSON, one fsync per batch. Downstream
+ * consumers tail the file.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileOutboxSink implements OutboxSink {
+
+  private final ObjectMapper objectMapper;
+  private final Path file;
+
+  @Autowired
+  public FileOutboxSink(ObjectMapper objectMapper,
+      @Value("${outbox.file:outbox/purchase-events.ndjson}") String file) {
+    this.objectMapper = objectMapper;
+    this.file = Paths.get(file);
+  }
+
+  @Override
+  public synchronized void publish(List<OutboxEvent> events) throws IOException {
+    StringBuilder lines = new StringBuilder();
+
+    for (OutboxEvent event : events) {
+      ObjectNode line = objectMapper.createObjectNode();
+      line.put("id", event.getId());
+      line.put("eventType", event.getEventType());
+      line.put("aggregateId", event.getAggregateId());
+      line.put("createdAt", event.getCreatedAt().toString());
+      line.set("payload", objectMapper.readTree(event.getPayload()));
+      lines.append(objectMapper.writeValueAsString(line)).append('\n');
+    }
+
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package io.catalyte.training.sportsproducts.outbox;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps published outbox events in an in-process queue. Used by tests and local development.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+  private final BlockingQueue<OutboxEvent> events = new LinkedBlockingQueue<>();
+
+  @Override
+  public void publish(List<OutboxEvent> batch) {
+    events.addAll(batch);
+  }
+
+  public BlockingQueue<OutboxEvent> getEvents() {
+    return events;
+  }
+}
@@ -0,0 +1,106 @@
+package io.catalyte.training.sportsproducts.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the outbox table in batches to the configured sink. A batch is deleted only after the
+ * sink accepted it, so every event is delivered at least once; consumers de-duplicate by event id.
+ *
+ * <p>Publishes outbox.pending (events waiting), outbox.lag.seconds (age of the oldest waiting
+ * event), outbox.dispatched and outbox.dispatch.failures.
+ */
+@Component
+public class OutboxDispatcher {
+
+  private final Logger logger = LogManager.getLogger(OutboxDispatcher.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxSink outboxSink;
+  private final int batchSize;
+  private final int maxBatchesPerPoll;
+
+  private final AtomicLong pending = new AtomicLong();
+  private final AtomicLong lagSeconds = new AtomicLong();
+  private final Counter dispatched;
+  private final Counter failures;
+
+  @Autowired
+  public OutboxDispatcher(OutboxEventRepository outboxEventRepository, OutboxSink outboxSink,
+      MeterRegistry meterRegistry,
+      @Value("${outbox.batch-size:100}") int batchSize,
+      @Value("${outbox.max-batches-per-poll:50}") int maxBatchesPerPoll) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.outboxSink = outboxSink;
+    this.batchSize = batchSize;
+    this.maxBatchesPerPoll = maxBatchesPerPoll;
+
+    Gauge.builder("outbox.pending", pending, AtomicLong::get)
+        .description("Outbox events waiting to be dispatched")
+        .register(meterRegistry);
+    Gauge.builder("outbox.lag.seconds", lagSeconds, AtomicLong::get)
+        .description("Age of the oldest outbox event waiting to be dispatched")
+        .register(meterRegistry);
+    dispatched = Counter.builder("outbox.dispatched")
+        .description("Outbox events accepted by the sink")
+        .register(meterRegistry);
+    failures = Counter.builder("outbox.dispatch.failures")
+        .description("Outbox batches the sink or database failed to process")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Publishes waiting events oldest first until the outbox is empty or the per poll limit is
+   * reached. A failed batch stops the poll and is retried on the next one.
+   */
+  @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+  public void dispatch() {
+    try {
+      for (int i = 0; i < maxBatchesPerPoll; i++) {
+        List<OutboxEvent> batch = outboxEventRepository
+            .findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+        updateLag(batch);
+
+        if (batch.isEmpty()) {
+          break;
+        }
+
+        outboxSink.publish(batch);
+        outboxEventRepository.deleteInBatch(batch);
+        dispatched.increment(batch.size());
+
+        if (batch.size() < batchSize) {
+          updateLag(null);
+          break;
+        }
+      }
+
+      pending.set(outboxEventRepository.count());
+    } catch (DataAccessException | IOException e) {
+      failures.increment();
+      logger.error("Could not dispatch outbox events: " + e.getMessage());
+    }
+  }
+
+  private void updateLag(List<OutboxEvent> batch) {
+    if (batch == null || batch.isEmpty()) {
+      lagSeconds.set(0);
+    } else {
+      lagSeconds.set(Duration.between(batch.get(0).getCreatedAt(), Instant.now()).getSeconds());
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package io.catalyte.training.sportsproducts.outbox;
+
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * An event waiting to be delivered to downstream systems. Events are written in the same
+ * transaction as the change they describe and deleted once a sink has accepted them.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private String eventType;
+
+  private Long aggregateId;
+
+  @Column(columnDefinition = "text", nullable = false)
+  private String payload;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  public OutboxEvent() {
+  }
+
+  public OutboxEvent(String eventType, Long aggregateId, String payload, Instant createdAt) {
+    this.eventType = eventType;
+    this.aggregateId = aggregateId;
+    this.payload = payload;
+    this.createdAt = createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+
+  public Long getAggregateId() {
+    return aggregateId;
+  }
+
+  public void setAggregateId(Long aggregateId) {
+    this.aggregateId = aggregateId;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public void setPayload(String payload) {
+    this.payload = payload;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  @Override
+  public String toString() {
+    return "OutboxEvent{" +
+        "id=" + id +
+        ", eventType='" + eventType + '\'' +
+        ", aggregateId=" + aggregateId +
+        ", createdAt=" + createdAt +
+        '}';
+  }
+}
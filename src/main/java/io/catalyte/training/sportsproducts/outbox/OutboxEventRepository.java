@@ -0,0 +1,12 @@
+package io.catalyte.training.sportsproducts.outbox;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  List<OutboxEvent> findAllByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,74 @@
+package io.catalyte.training.sportsproducts.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.sportsproducts.domains.purchase.LineItem;
+import io.catalyte.training.sportsproducts.domains.purchase.Purchase;
+import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes events to the outbox table. Callers must invoke it inside the transaction that saves the
+ * change, so the event is stored if and only if the change commits.
+ */
+@Service
+public class OutboxService {
+
+  private final Logger logger = LogManager.getLogger(OutboxService.class);
+
+  public static final String PURCHASE_CREATED = "PurchaseCreated";
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final ObjectMapper objectMapper;
+
+  @Autowired
+  public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Adds a PurchaseCreated event for a saved purchase to the outbox.
+   *
+   * @param purchase - the purchase, after it and its line items have been saved
+   */
+  public void enqueuePurchaseCreated(Purchase purchase) {
+    Map<String, Object> payload = new LinkedHashMap<>();
+    payload.put("purchaseId", purchase.getId());
+    payload.put("email", purchase.getBillingAddress() == null ? null
+        : purchase.getBillingAddress().getEmail());
+    payload.put("promocode", purchase.getPromocode());
+    payload.put("total", purchase.getTotal());
+
+    List<Map<String, Object>> lineItems = new ArrayList<>();
+    if (purchase.getProducts() != null) {
+      for (LineItem lineItem : purchase.getProducts()) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("productId", lineItem.getProduct() == null ? null : lineItem.getProduct().getId());
+        item.put("quantity", lineItem.getQuantity());
+        lineItems.add(item);
+      }
+    }
+    payload.put("lineItems", lineItems);
+
+    String json;
+
+    try {
+      json = objectMapper.writeValueAsString(payload);
+    } catch (JsonProcessingException e) {
+      logger.error(e.getMessage());
+      throw new ServerError(e.getMessage());
+    }
+
+    outboxEventRepository.save(
+        new OutboxEvent(PURCHASE_CREATED, purchase.getId(), json, Instant.now()));
+  }
+}
@@ -0,0 +1,13 @@
+package io.catalyte.training.sportsproducts.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A destination for outbox events. Implementations must only return once the whole batch has been
+ * accepted; events are redelivered if publish throws.
+ */
+public interface OutboxSink {
+
+  void publish(List<OutboxEvent> events) throws IOException;
+}
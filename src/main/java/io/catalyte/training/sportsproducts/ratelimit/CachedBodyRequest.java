@@ -0,0 +1,105 @@
+package io.catalyte.training.sportsproducts.ratelimit;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Reads the start of a request body so the filter can inspect it, and replays it to the
+ * controllers followed by the rest of the body, through either the input stream or the reader.
+ *
+ * <p>Only blocking reads are supported. The rate limited routes are plain synchronous endpoints,
+ * and a ReadListener could not be told when the replayed head runs into the unread rest of the
+ * body, so setReadListener throws rather than silently never calling it.
+ */
+class CachedBodyRequest extends HttpServletRequestWrapper {
+
+  private final byte[] head;
+  private final InputStream rest;
+  private final InputStream body;
+  private BufferedReader reader;
+
+  CachedBodyRequest(HttpServletRequest request, int maxBytes) throws IOException {
+    super(request);
+
+    rest = request.getInputStream();
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(maxBytes, 4096));
+    byte[] chunk = new byte[4096];
+    int read;
+    while (buffer.size() < maxBytes
+        && (read = rest.read(chunk, 0, Math.min(chunk.length, maxBytes - buffer.size()))) != -1) {
+      buffer.write(chunk, 0, read);
+    }
+
+    head = buffer.toByteArray();
+    body = new SequenceInputStream(new ByteArrayInputStream(head), rest);
+  }
+
+  /**
+   * @return up to maxBytes from the start of the body
+   */
+  byte[] getHead() {
+    return head;
+  }
+
+  @Override
+  public ServletInputStream getInputStream() {
+    return new ServletInputStream() {
+      private boolean finished;
+
+      @Override
+      public int read() throws IOException {
+        int b = body.read();
+        finished = b == -1;
+        return b;
+      }
+
+      @Override
+      public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = body.read(bytes, offset, length);
+        finished = read == -1;
+        return read;
+      }
+
+      @Override
+      public boolean isFinished() {
+        return finished;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener readListener) {
+        throw new UnsupportedOperationException(
+            "Non-blocking reads of a rate limited request body are not supported");
+      }
+    };
+  }
+
+  /**
+   * @return a reader of the replayed body, in the request's character encoding or the servlet
+   * default of ISO-8859-1
+   */
+  @Override
+  public BufferedReader getReader() {
+    if (reader == null) {
+      String encoding = getCharacterEncoding();
+      Charset charset = encoding == null ? StandardCharsets.ISO_8859_1 : Charset.forName(encoding);
+      reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+    return reader;
+  }
+}
@@ -0,0 +1,36 @@
+package io.catalyte.training.sportsproducts.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers the rate limiter ahead of every other filter, including Spring Security, so rejected
+ * requests cost as little as possible.
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(name = "ratelimit.enabled", matchIfMissing = true)
+public class RateLimitConfig {
+
+  @Bean
+  public RateLimitFilter rateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    return new RateLimitFilter(properties, objectMapper, meterRegistry);
+  }
+
+  @Bean
+  public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(
+      RateLimitFilter rateLimitFilter) {
+    FilterRegistrationBean<RateLimitFilter> registration =
+        new FilterRegistrationBean<>(rateLimitFilter);
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+    registration.addUrlPatterns("/*");
+    return registration;
+  }
+}
@@ -0,0 +1,229 @@
+package io.catalyte.training.sportsproducts.ratelimit;
+
+import static io.catalyte.training.sportsproducts.constants.StringConstants.API_KEY_HEADER;
+import static io.catalyte.training.sportsproducts.constants.StringConstants.TOO_MANY_REQUESTS;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.sportsproducts.exceptions.ExceptionResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Rejects requests over their route's rate limit with 429 before they reach security, validation
+ * or the database. Routes are keyed by client (the X-Api-Key header if it is a known key, otherwise
+ * the client IP) or by the email in the request body; a request must pass every route it matches.
+ * Unknown API keys are ignored, so a client cannot get a fresh bucket by sending a new key.
+ *
+ * <p>Publishes ratelimit.rejected and ratelimit.keys, tagged by route.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  private final Logger logger = LogManager.getLogger(RateLimitFilter.class);
+
+  static final String CLIENT_KEY = "client";
+
+  static final String EMAIL_KEY = "email";
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final List<LimitedRoute> routes = new ArrayList<>();
+  private final Set<String> apiKeys = new HashSet<>();
+  private final boolean trustForwardedFor;
+  private final int maxBodyBytes;
+  private final ObjectMapper objectMapper;
+
+  private final AntPathMatcher pathMatcher = new AntPathMatcher();
+  private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+  public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this.trustForwardedFor = properties.isTrustForwardedFor();
+    this.maxBodyBytes = properties.getMaxBodyBytes();
+    this.objectMapper = objectMapper;
+
+    for (String apiKey : properties.getApiKeys()) {
+      if (apiKey != null && !apiKey.trim().isEmpty()) {
+        apiKeys.add(apiKey.trim());
+      }
+    }
+
+    for (RateLimitProperties.Route route : properties.getRoutes()) {
+      LimitedRoute limitedRoute = new LimitedRoute(route, properties.getMaxKeys(), meterRegistry);
+      routes.add(limitedRoute);
+      logger.info("Rate limiting " + route.getMethod() + " " + route.getPath() + " by "
+          + route.getKey() + " to " + route.getCapacity() + " requests, refilling "
+          + route.getRefillPerSecond() + " per second");
+    }
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String path = urlPathHelper.getPathWithinApplication(request);
+    HttpServletRequest filteredRequest = request;
+    String clientKey = null;
+    String email = null;
+    boolean bodyRead = false;
+
+    for (LimitedRoute route : routes) {
+      if (!route.method.equalsIgnoreCase(request.getMethod())
+          || !pathMatcher.match(route.path, path)) {
+        continue;
+      }
+
+      String key;
+      if (route.byEmail) {
+        if (!bodyRead) {
+          CachedBodyRequest cachedBodyRequest = new CachedBodyRequest(request, maxBodyBytes);
+          filteredRequest = cachedBodyRequest;
+          email = findEmail(cachedBodyRequest.getHead());
+          bodyRead = true;
+        }
+        if (email == null) {
+          continue;
+        }
+        key = email;
+      } else {
+        if (clientKey == null) {
+          clientKey = clientKey(request);
+        }
+        key = clientKey;
+      }
+
+      long waitNanos = route.limiter.tryAcquire(key);
+      if (waitNanos > 0) {
+        route.rejected.increment();
+        reject(response, waitNanos);
+        return;
+      }
+    }
+
+    filterChain.doFilter(filteredRequest, response);
+  }
+
+  /**
+   * Drops the buckets of clients that have been idle long enough to refill completely.
+   */
+  @Scheduled(fixedDelayString = "${ratelimit.eviction-interval-ms:30000}")
+  public void evictIdle() {
+    for (LimitedRoute route : routes) {
+      route.limiter.evictIdle();
+    }
+  }
+
+  private String clientKey(HttpServletRequest request) {
+    String apiKey = request.getHeader(API_KEY_HEADER);
+    if (apiKey != null && apiKeys.contains(apiKey)) {
+      return "key:" + apiKey;
+    }
+
+    if (trustForwardedFor) {
+      String forwardedFor = request.getHeader("X-Forwarded-For");
+      if (forwardedFor != null && !forwardedFor.isEmpty()) {
+        int comma = forwardedFor.indexOf(',');
+        return "ip:" + (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+      }
+    }
+
+    return "ip:" + request.getRemoteAddr();
+  }
+
+  /**
+   * Finds the first field named email in a JSON body without binding the whole document.
+   *
+   * @return the lower cased email, or null if the body is not JSON or has no email
+   */
+  static String findEmail(byte[] body) {
+    if (body.length == 0) {
+      return null;
+    }
+
+    try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        if (token == JsonToken.FIELD_NAME && "email".equalsIgnoreCase(parser.getCurrentName())
+            && parser.nextToken() == JsonToken.VALUE_STRING) {
+          String email = parser.getText().trim().toLowerCase(Locale.ROOT);
+          return email.isEmpty() ? null : email;
+        }
+      }
+    } catch (IOException e) {
+      // malformed or truncated bodies are rejected later by the controller
+    }
+
+    return null;
+  }
+
+  private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+    long retryAfterSeconds = Math.max(1,
+        (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), new ExceptionResponse(TOO_MANY_REQUESTS,
+        new Date(), "Too many requests, retry in " + retryAfterSeconds + " seconds."));
+  }
+
+  /**
+   * A configured route with its buckets and rejection counter
+   */
+  private static final class LimitedRoute {
+
+    private final String method;
+    private final String path;
+    private final boolean byEmail;
+    private final TokenBucketLimiter limiter;
+    private final Counter rejected;
+
+    LimitedRoute(RateLimitProperties.Route route, int maxKeys, MeterRegistry meterRegistry) {
+      if (!CLIENT_KEY.equals(route.getKey()) && !EMAIL_KEY.equals(route.getKey())) {
+        throw new IllegalArgumentException("Unknown rate limit key '" + route.getKey()
+            + "' for " + route.getPath() + ", must be either 'client' or 'email'.");
+      }
+
+      this.method = route.getMethod();
+      this.path = route.getPath();
+      this.byEmail = EMAIL_KEY.equals(route.getKey());
+      this.limiter = new TokenBucketLimiter(route.getCapacity(), route.getRefillPerSecond(),
+          maxKeys);
+
+      String name = route.getMethod() + " " + route.getPath();
+      this.rejected = Counter.builder("ratelimit.rejected")
+          .description("Requests rejected with 429 by the rate limiter")
+          .tag("route", name)
+          .tag("key", route.getKey())
+          .register(meterRegistry);
+      Gauge.builder("ratelimit.keys", limiter, TokenBucketLimiter::size)
+          .description("Clients tracked by the rate limiter")
+          .tag("route", name)
+          .tag("key", route.getKey())
+          .register(meterRegistry);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package io.catalyte.training.sportsproducts.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Rate limits for write endpoints, read from the ratelimit section of application.yml
+ */
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+  private boolean enabled = true;
+
+  /**
+   * Most clients tracked per route. New clients beyond it are rejected until idle ones are evicted.
+   */
+  private int maxKeys = 100_000;
+
+  /**
+   * API keys issued to partners. Only these are rate limited by key, any other X-Api-Key is
+   * ignored and the request is limited by its IP.
+   */
+  private List<String> apiKeys = new ArrayList<>();
+
+  /**
+   * Use the first X-Forwarded-For address as the client IP. Only enable behind a trusted proxy.
+   */
+  private boolean trustForwardedFor = false;
+
+  /**
+   * Largest request body read to find the email for email keyed routes
+   */
+  private int maxBodyBytes = 64 * 1024;
+
+  private List<Route> routes = new ArrayList<>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getMaxKeys() {
+    return maxKeys;
+  }
+
+  public void setMaxKeys(int maxKeys) {
+    this.maxKeys = maxKeys;
+  }
+
+  public List<String> getApiKeys() {
+    return apiKeys;
+  }
+
+  public void setApiKeys(List<String> apiKeys) {
+    this.apiKeys = apiKeys;
+  }
+
+  public boolean isTrustForwardedFor() {
+    return trustForwardedFor;
+  }
+
+  public void setTrustForwardedFor(boolean trustForwardedFor) {
+    this.trustForwardedFor = trustForwardedFor;
+  }
+
+  public int getMaxBodyBytes() {
+    return maxBodyBytes;
+  }
+
+  public void setMaxBodyBytes(int maxBodyBytes) {
+    this.maxBodyBytes = maxBodyBytes;
+  }
+
+  public List<Route> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(List<Route> routes) {
+    this.routes = routes;
+  }
+
+  /**
+   * The limit for one method and path. A request matching several routes must pass all of them.
+   */
+  public static class Route {
+
+    private String method;
+
+    /**
+     * An Ant style pattern, for example /purchases or /users/**
+     */
+    private String path;
+
+    /**
+     * client (a known X-Api-Key, otherwise the client IP) or email (from the request body)
+     */
+    private String key = RateLimitFilter.CLIENT_KEY;
+
+    /**
+     * Requests allowed in a burst
+     */
+    private int capacity;
+
+    /**
+     * Requests added back to the bucket per second
+     */
+    private double refillPerSecond;
+
+    public String getMethod() {
+      return method;
+    }
+
+    public void setMethod(String method) {
+      this.method = method;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public void setPath(String path) {
+      this.path = path;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public void setKey(String key) {
+      this.key = key;
+    }
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+      this.capacity = capacity;
+    }
+
+    public double getRefillPerSecond() {
+      return refillPerSecond;
+    }
+
+    public void setRefillPerSecond(double refillPerSecond) {
+      this.refillPerSecond = refillPerSecond;
+    }
+  }
+}
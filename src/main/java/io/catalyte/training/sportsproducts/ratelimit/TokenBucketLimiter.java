@@ -0,0 +1,116 @@
+package io.catalyte.training.sportsproducts.ratelimit;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets for many clients, without locks.
+ *
+ * <p>Each bucket is one AtomicLong holding its theoretical arrival time (the generic cell rate
+ * algorithm): the instant at which the bucket would be full again. A request is allowed if that
+ * instant is no more than capacity - 1 emission intervals ahead of now, and moves it one interval
+ * further with a compare-and-set. A bucket whose arrival time has passed is full, so removing it
+ * loses nothing; that is how idle clients are evicted once the number of keys reaches its bound.
+ * If every tracked client is still active, new clients are rejected rather than sharing a bucket,
+ * so filling the table cannot throttle the clients already in it.
+ */
+public class TokenBucketLimiter {
+
+  private final long emissionIntervalNanos;
+  private final long burstToleranceNanos;
+  private final int maxKeys;
+  private final LongSupplier nanoClock;
+
+  private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  public TokenBucketLimiter(int capacity, double refillPerSecond, int maxKeys) {
+    this(capacity, refillPerSecond, maxKeys, System::nanoTime);
+  }
+
+  TokenBucketLimiter(int capacity, double refillPerSecond, int maxKeys, LongSupplier nanoClock) {
+    if (capacity < 1 || refillPerSecond <= 0) {
+      throw new IllegalArgumentException("Rate limits need a capacity of at least 1 and a "
+          + "positive refill rate.");
+    }
+    this.emissionIntervalNanos = (long) (1_000_000_000L / refillPerSecond);
+    this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+    this.maxKeys = maxKeys;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Takes one token from the bucket of a client.
+   *
+   * @param key - identifies the client
+   * @return 0 if the request is allowed, otherwise the nanoseconds until a token is available
+   */
+  public long tryAcquire(String key) {
+    long now = nanoClock.getAsLong();
+    AtomicLong bucket = bucketFor(key, now);
+    if (bucket == null) {
+      // the table is full of active clients, retry once one of them could have gone idle
+      return emissionIntervalNanos;
+    }
+    return tryAcquire(bucket, now);
+  }
+
+  /**
+   * @return the number of clients currently tracked
+   */
+  public int size() {
+    return buckets.size();
+  }
+
+  /**
+   * Removes the buckets that have refilled completely.
+   */
+  public void evictIdle() {
+    long now = nanoClock.getAsLong();
+    for (Iterator<AtomicLong> iterator = buckets.values().iterator(); iterator.hasNext(); ) {
+      if (iterator.next().get() - now <= 0) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private long tryAcquire(AtomicLong bucket, long now) {
+    while (true) {
+      long arrival = bucket.get();
+      long theoretical = arrival - now > 0 ? arrival : now;
+      long ahead = theoretical - now;
+
+      if (ahead > burstToleranceNanos) {
+        return ahead - burstToleranceNanos;
+      }
+      if (bucket.compareAndSet(arrival, theoretical + emissionIntervalNanos)) {
+        return 0;
+      }
+    }
+  }
+
+  private AtomicLong bucketFor(String key, long now) {
+    AtomicLong bucket = buckets.get(key);
+    if (bucket != null) {
+      return bucket;
+    }
+
+    if (buckets.size() >= maxKeys) {
+      if (evicting.compareAndSet(false, true)) {
+        try {
+          evictIdle();
+        } finally {
+          evicting.set(false);
+        }
+      }
+      if (buckets.size() >= maxKeys) {
+        return null;
+      }
+    }
+
+    return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+  }
+}
@@ -0,0 +1,57 @@
+package io.catalyte.training.sportsproducts.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Hashes secrets such as tokens and card numbers, so they can be used as keys without being kept,
+ * and mixes the bits of non-cryptographic hashes.
+ */
+public final class Hashing {
+
+  private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  });
+
+  private Hashing() {
+  }
+
+  /**
+   * @param value - the value to hash
+   * @return the base64 encoded SHA-256 of the UTF-8 bytes of the value
+   */
+  public static String sha256(String value) {
+    return sha256(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param bytes - the bytes to hash
+   * @return the base64 encoded SHA-256 of the bytes
+   */
+  public static String sha256(byte[] bytes) {
+    MessageDigest digest = SHA_256.get();
+    digest.reset();
+    return Base64.getEncoder().encodeToString(digest.digest(bytes));
+  }
+
+  /**
+   * The MurmurHash3 finalizer, which spreads every input bit over the whole hash.
+   *
+   * @param h - the value to mix
+   * @return the mixed value
+   */
+  public static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,194 @@
+package io.catalyte.training.sportsproducts.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A bounded in-memory cache whose entries expire at a given time.
+ *
+ * <p>The cache is split into segments, each a small LRU map behind its own lock, so concurrent
+ * requests rarely wait on each other. An expired entry is dropped when it is next looked up, and
+ * a full segment drops its least recently used entry, so the cache never grows past its bound
+ * however many keys it is offered.
+ *
+ * @param <K> - the type of the keys
+ * @param <V> - the type of the values
+ */
+public class SegmentedCache<K, V> {
+
+  /**
+   * The expiry of entries that are only dropped when they are least recently used
+   */
+  public static final long NEVER = Long.MAX_VALUE;
+
+  private static final int SEGMENTS = 16;
+
+  private final Segment<K, V>[] segments;
+  private final LongSupplier clock;
+
+  /**
+   * @param maxEntries - the most entries to keep
+   * @param clock      - the current time in milliseconds
+   */
+  @SuppressWarnings("unchecked")
+  public SegmentedCache(int maxEntries, LongSupplier clock) {
+    this.segments = new Segment[SEGMENTS];
+    int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment<>(perSegment);
+    }
+    this.clock = clock;
+  }
+
+  /**
+   * @param key - the key
+   * @return the value, or null if the key is unknown or has expired
+   */
+  public V get(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    long now = clock.getAsLong();
+
+    synchronized (segment) {
+      Entry<V> entry = segment.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (now >= entry.expiresAtMillis) {
+        segment.remove(key);
+        return null;
+      }
+      return entry.value;
+    }
+  }
+
+  /**
+   * @param key             - the key
+   * @param value           - the value to return for it
+   * @param expiresAtMillis - when the entry expires, or NEVER
+   */
+  public void put(K key, V value, long expiresAtMillis) {
+    putIf(key, value, expiresAtMillis, () -> true);
+  }
+
+  /**
+   * Stores a value if a condition still holds once the segment is locked. A remove of the same
+   * key that follows a change to the condition therefore cannot be undone by a put that read the
+   * old state.
+   *
+   * @param key             - the key
+   * @param value           - the value to return for it
+   * @param expiresAtMillis - when the entry expires, or NEVER
+   * @param condition       - checked under the segment lock
+   * @return true if the value was stored
+   */
+  public boolean putIf(K key, V value, long expiresAtMillis, BooleanSupplier condition) {
+    if (clock.getAsLong() >= expiresAtMillis) {
+      return false;
+    }
+
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      if (!condition.getAsBoolean()) {
+        return false;
+      }
+      segment.put(key, new Entry<>(value, expiresAtMillis));
+      return true;
+    }
+  }
+
+  /**
+   * @param key     - the key
+   * @param factory - creates the value of a key that is not cached
+   * @return the cached value, or the new one, which never expires by time
+   */
+  public V computeIfAbsent(K key, Function<K, V> factory) {
+    Segment<K, V> segment = segmentFor(key);
+    long now = clock.getAsLong();
+
+    synchronized (segment) {
+      Entry<V> entry = segment.get(key);
+      if (entry == null || now >= entry.expiresAtMillis) {
+        entry = new Entry<>(factory.apply(key), NEVER);
+        segment.put(key, entry);
+      }
+      return entry.value;
+    }
+  }
+
+  /**
+   * @param key - the key to drop
+   */
+  public void remove(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      segment.remove(key);
+    }
+  }
+
+  /**
+   * Drops expired entries and the entries whose value matches, one segment at a time.
+   *
+   * @param filter - selects the values to drop
+   */
+  public void removeIf(Predicate<V> filter) {
+    long now = clock.getAsLong();
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        for (Iterator<Entry<V>> iterator = segment.values().iterator(); iterator.hasNext(); ) {
+          Entry<V> entry = iterator.next();
+          if (now >= entry.expiresAtMillis || filter.test(entry.value)) {
+            iterator.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of entries, including expired ones not yet dropped
+   */
+  public int size() {
+    int size = 0;
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  private Segment<K, V> segmentFor(K key) {
+    return segments[(key.hashCode() & Integer.MAX_VALUE) % SEGMENTS];
+  }
+
+  private static final class Entry<V> {
+
+    private final V value;
+    private final long expiresAtMillis;
+
+    Entry(V value, long expiresAtMillis) {
+      this.value = value;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+
+  private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+
+    private final int maxEntries;
+
+    Segment(int maxEntries) {
+      super(16, 0.75f, true);
+      this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+      return size() > maxEntries;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package io.catalyte.training.sportsproducts.util;
+
+import java.sql.SQLException;
+
+/**
+ * Tells apart a write rejected by a unique constraint from other integrity violations, such as a
+ * value that is too long or missing.
+ */
+public final class UniqueViolation {
+
+  /**
+   * The SQL state of a unique constraint violation, in both Postgres and H2
+   */
+  static final String SQL_STATE = "23505";
+
+  private UniqueViolation() {
+  }
+
+  /**
+   * @param e - the exception thrown by a repository or JDBC call
+   * @return true if the write would have duplicated a unique value
+   */
+  public static boolean isUniqueViolation(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLException
+          && SQL_STATE.equals(((SQLException) cause).getSQLState())) {
+        return true;
+      }
+      if (cause.getCause() == cause) {
+        break;
+      }
+    }
+    return false;
+  }
+}
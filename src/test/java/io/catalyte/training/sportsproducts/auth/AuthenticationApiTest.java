@@ -0,0 +1,102 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static io.catalyte.training.sportsproducts.constants.Paths.ANALYTICS_PATH;
+import static io.catalyte.training.sportsproducts.constants.Paths.USERS_PATH;
+import static io.catalyte.training.sportsproducts.constants.Roles.ADMIN;
+import static io.catalyte.training.sportsproducts.constants.Roles.CUSTOMER;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Runs requests through the security filter chain to check bearer tokens are verified before any
+ * endpoint runs.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AuthenticationApiTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private SessionTokenService sessionTokenService;
+
+  private String bearer(String email, String role) {
+    return "Bearer " + sessionTokenService.issue(email, role).getToken();
+  }
+
+  @Test
+  public void updateUserWithoutToken_Returns401() throws Exception {
+    mockMvc.perform(put(USERS_PATH + "/1")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"email\":\"customer@example.com\"}"))
+        .andExpect(status().isUnauthorized())
+        .andExpect(header().string("WWW-Authenticate", "Bearer"));
+  }
+
+  @Test
+  public void updateUserWithInvalidToken_Returns401() throws Exception {
+    mockMvc.perform(put(USERS_PATH + "/1")
+        .header("Authorization", "Bearer not-a-token")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"email\":\"customer@example.com\"}"))
+        .andExpect(status().isUnauthorized())
+        .andExpect(jsonPath("$.errorMessage").value("There was a problem reading the token"));
+  }
+
+  @Test
+  public void updateUserWithOtherUsersEmail_Returns400() throws Exception {
+    mockMvc.perform(put(USERS_PATH + "/1")
+        .header("Authorization", bearer("customer@example.com", CUSTOMER))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"email\":\"someone-else@example.com\"}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void analyticsAsCustomer_Returns403() throws Exception {
+    mockMvc.perform(get(ANALYTICS_PATH + "/sales")
+        .header("Authorization", bearer("customer@example.com", CUSTOMER)))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  public void importUsersAsCustomer_Returns403() throws Exception {
+    mockMvc.perform(post(USERS_PATH + "/import")
+        .header("Authorization", bearer("customer@example.com", CUSTOMER))
+        .contentType("text/csv")
+        .content("email\nimported@example.com\n"))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  public void importUsersAsAdmin_Returns200() throws Exception {
+    mockMvc.perform(post(USERS_PATH + "/import")
+        .header("Authorization", bearer("admin@example.com", ADMIN))
+        .contentType("text/csv")
+        .content("email\nimported@example.com\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.imported").value(1));
+  }
+
+  @Test
+  public void analyticsAsAdmin_Returns200() throws Exception {
+    mockMvc.perform(get(ANALYTICS_PATH + "/sales")
+        .header("Authorization", bearer("admin@example.com", ADMIN)))
+        .andExpect(status().isOk());
+  }
+}
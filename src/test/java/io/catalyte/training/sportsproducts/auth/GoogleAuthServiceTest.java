@@ -0,0 +1,203 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import com.sun.net.httpserver.HttpServer;
+import io.catalyte.training.sportsproducts.domains.user.User;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Verifies tokens signed with test keys served by a local stand-in for Google's certs endpoint.
+ */
+public class GoogleAuthServiceTest {
+
+  private static final String CLIENT_ID = "test-client.apps.googleusercontent.com";
+  private static final long REFRESH_INTERVAL_MILLIS = 60_000;
+
+  private HttpServer server;
+  private final AtomicInteger fetches = new AtomicInteger();
+  private final AtomicReference<String> certs = new AtomicReference<>();
+  private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+
+  private GoogleAuthService googleAuthService;
+  private PrivateKey key1;
+  private PrivateKey key2;
+
+  @BeforeEach
+  void setup() throws Exception {
+    key1 = privateKey("signing-key-1.pem");
+    key2 = privateKey("signing-key-2.pem");
+    certs.set(certsJson("key1", "signing-cert-1.pem"));
+
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/certs", exchange -> {
+      fetches.incrementAndGet();
+      byte[] body = certs.get().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.getResponseHeaders().add("Cache-Control", "public, max-age=3600");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+
+    googleAuthService = new GoogleAuthService(new NetHttpTransport(),
+        "http://127.0.0.1:" + server.getAddress().getPort() + "/certs", CLIENT_ID,
+        REFRESH_INTERVAL_MILLIS, true, 100, now::get);
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  private static String resource(String name) throws IOException {
+    try (InputStream in = GoogleAuthServiceTest.class.getResourceAsStream("/auth/" + name);
+        Scanner scanner = new Scanner(in, "UTF-8")) {
+      return scanner.useDelimiter("\\A").next();
+    }
+  }
+
+  private static PrivateKey privateKey(String name) throws Exception {
+    String pem = resource(name).replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+    return KeyFactory.getInstance("RSA")
+        .generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(pem)));
+  }
+
+  private static String certsJson(String keyId, String certificate) throws IOException {
+    return "{\"" + keyId + "\": \"" + resource(certificate).trim().replace("\n", "\\n") + "\"}";
+  }
+
+  private String token(PrivateKey key, String keyId, String email, long expiresInSeconds)
+      throws GeneralSecurityException, IOException {
+    JsonWebSignature.Header header = new JsonWebSignature.Header();
+    header.setAlgorithm("RS256");
+    header.setKeyId(keyId);
+
+    long issuedAt = now.get() / 1000;
+    GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
+    payload.setIssuer("https://accounts.google.com");
+    payload.setAudience(CLIENT_ID);
+    payload.setIssuedAtTimeSeconds(issuedAt);
+    payload.setExpirationTimeSeconds(issuedAt + expiresInSeconds);
+    payload.setEmail(email);
+
+    return JsonWebSignature.signUsingRsaSha256(key, GsonFactory.getDefaultInstance(), header,
+        payload);
+  }
+
+  @Test
+  void verifyToken_FetchesKeysOnceForManyTokens() throws Exception {
+    googleAuthService.warmKeys();
+    assertEquals(1, fetches.get());
+
+    for (int i = 0; i < 100; i++) {
+      String email = "customer" + i + "@example.com";
+      assertEquals(email, googleAuthService.verifyToken(token(key1, "key1", email, 3600))
+          .getEmail());
+    }
+
+    assertEquals(1, fetches.get());
+  }
+
+  @Test
+  void verifyToken_KeyRotation_RefreshesAndAccepts() throws Exception {
+    googleAuthService.verifyToken(token(key1, "key1", "customer@example.com", 3600));
+    certs.set(certsJson("key2", "signing-cert-2.pem"));
+
+    assertEquals("customer@example.com",
+        googleAuthService.verifyToken(token(key2, "key2", "customer@example.com", 3600))
+            .getEmail());
+    assertEquals(2, fetches.get());
+  }
+
+  @Test
+  void verifyToken_UnknownSignatures_RefreshAtMostOncePerInterval() throws Exception {
+    googleAuthService.warmKeys();
+    now.addAndGet(REFRESH_INTERVAL_MILLIS);
+
+    for (int i = 0; i < 10; i++) {
+      String forged = token(key2, "key2", "customer@example.com", 3600);
+      ResponseStatusException e = assertThrows(ResponseStatusException.class,
+          () -> googleAuthService.verifyToken(forged));
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+    assertEquals(2, fetches.get());
+
+    now.addAndGet(REFRESH_INTERVAL_MILLIS);
+    assertThrows(ResponseStatusException.class, () -> googleAuthService.verifyToken(
+        token(key2, "key2", "customer@example.com", 3600)));
+    assertEquals(3, fetches.get());
+  }
+
+  @Test
+  void verifyToken_ExpiredToken_RejectedWithoutRefresh() throws Exception {
+    googleAuthService.warmKeys();
+    String token = token(key1, "key1", "customer@example.com", 60);
+    now.addAndGet(REFRESH_INTERVAL_MILLIS * 10);
+
+    assertThrows(ResponseStatusException.class, () -> googleAuthService.verifyToken(token));
+    assertEquals(1, fetches.get());
+  }
+
+  @Test
+  void verifyToken_RepeatToken_SkipsVerification() throws Exception {
+    String token = token(key1, "key1", "customer@example.com", 7200);
+    googleAuthService.verifyToken(token);
+
+    // the cached keys are now stale and the endpoint is gone, so only the cache can answer
+    server.stop(0);
+    now.addAndGet(3_500_000);
+
+    assertEquals("customer@example.com", googleAuthService.verifyToken(token).getEmail());
+  }
+
+  @Test
+  void verifyToken_CachedTokenPastExpiry_Rejected() throws Exception {
+    String token = token(key1, "key1", "customer@example.com", 60);
+    googleAuthService.verifyToken(token);
+    now.addAndGet(REFRESH_INTERVAL_MILLIS * 10);
+
+    assertThrows(ResponseStatusException.class, () -> googleAuthService.verifyToken(token));
+  }
+
+  @Test
+  void verifyToken_Garbage_Rejected() {
+    assertThrows(ResponseStatusException.class,
+        () -> googleAuthService.verifyToken("not-a-token"));
+  }
+
+  @Test
+  void authenticateUser_MatchesEmailFromToken() throws Exception {
+    User user = new User();
+    user.setEmail("customer@example.com");
+
+    assertTrue(googleAuthService.authenticateUser(
+        "Bearer " + token(key1, "key1", "customer@example.com", 3600), user));
+  }
+}
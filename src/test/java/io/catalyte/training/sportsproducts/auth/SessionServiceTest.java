@@ -0,0 +1,64 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static io.catalyte.training.sportsproducts.constants.Roles.ADMIN;
+import static io.catalyte.training.sportsproducts.constants.Roles.CUSTOMER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import io.catalyte.training.sportsproducts.domains.user.User;
+import io.catalyte.training.sportsproducts.domains.user.UserRepository;
+import io.catalyte.training.sportsproducts.domains.user.UserServiceImpl;
+import java.util.Base64;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class SessionServiceTest {
+
+  private static final String SECRET =
+      Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+  @Mock
+  private GoogleAuthService googleAuthService;
+
+  @Mock
+  private UserRepository userRepository;
+
+  private final SessionTokenService sessionTokenService =
+      new SessionTokenService(SECRET, 15 * 60_000, System::currentTimeMillis);
+
+  private SessionService sessionService;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.initMocks(this);
+    sessionService = new SessionService(googleAuthService, sessionTokenService,
+        new UserServiceImpl(userRepository, 100, 300));
+    when(googleAuthService.getTokenFromHeader(anyString())).thenReturn("id-token");
+  }
+
+  @Test
+  void createSession_MixedCaseEmail_FindsTheStoredRole() {
+    when(googleAuthService.verifyToken("id-token"))
+        .thenReturn(new GoogleIdToken.Payload().setEmail("Admin@Example.com"));
+    when(userRepository.findByEmail("admin@example.com"))
+        .thenReturn(new User(1L, "admin@example.com", ADMIN, "Ada", "Min"));
+
+    Session session = sessionService.createSession("Bearer id-token");
+
+    assertEquals(ADMIN, session.getRole());
+  }
+
+  @Test
+  void createSession_UserNotSignedUp_IsCustomer() {
+    when(googleAuthService.verifyToken("id-token"))
+        .thenReturn(new GoogleIdToken.Payload().setEmail("new@example.com"));
+
+    Session session = sessionService.createSession("Bearer id-token");
+
+    assertEquals(CUSTOMER, session.getRole());
+  }
+}
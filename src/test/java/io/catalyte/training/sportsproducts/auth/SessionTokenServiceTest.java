@@ -0,0 +1,69 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class SessionTokenServiceTest {
+
+  private static final String SECRET =
+      Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+  private static final long TTL_MILLIS = 15 * 60_000;
+
+  private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+  private final SessionTokenService sessionTokenService =
+      new SessionTokenService(SECRET, TTL_MILLIS, now::get);
+
+  @Test
+  public void validate_IssuedSession_ReturnsEmailAndRole() {
+    Session session = sessionTokenService.issue("customer@example.com", "Customer");
+
+    Claims claims = sessionTokenService.validate(session.getToken());
+    assertEquals("customer@example.com", claims.getSubject());
+    assertEquals("Customer", claims.get(SessionTokenService.ROLE_CLAIM, String.class));
+    assertEquals(now.get() / 1000 + TTL_MILLIS / 1000, session.getExpiresAt().getEpochSecond());
+  }
+
+  @Test
+  public void validate_ExpiredSession_Rejected() {
+    Session session = sessionTokenService.issue("customer@example.com", "Customer");
+    now.addAndGet(TTL_MILLIS + 1000);
+
+    assertThrows(ExpiredJwtException.class,
+        () -> sessionTokenService.validate(session.getToken()));
+  }
+
+  @Test
+  public void validate_TamperedSession_Rejected() {
+    String token = sessionTokenService.issue("customer@example.com", "Customer").getToken();
+    String[] parts = token.split("\\.");
+    String forgedClaims = Base64.getUrlEncoder().withoutPadding().encodeToString(
+        new String(Base64.getUrlDecoder().decode(parts[1])).replace("Customer", "Admin")
+            .getBytes());
+
+    assertThrows(JwtException.class, () -> sessionTokenService.validate(
+        parts[0] + "." + forgedClaims + "." + parts[2]));
+  }
+
+  @Test
+  public void validate_SessionFromAnotherKey_Rejected() {
+    SessionTokenService other = new SessionTokenService("", TTL_MILLIS, now::get);
+    String token = other.issue("customer@example.com", "Customer").getToken();
+
+    assertThrows(JwtException.class, () -> sessionTokenService.validate(token));
+  }
+
+  @Test
+  public void constructor_ShortSecret_Rejected() {
+    String secret = Base64.getEncoder().encodeToString("too short".getBytes());
+
+    assertThrows(IllegalStateException.class,
+        () -> new SessionTokenService(secret, TTL_MILLIS, now::get));
+  }
+}
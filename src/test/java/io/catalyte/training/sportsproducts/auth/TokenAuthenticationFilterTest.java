@@ -0,0 +1,137 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.web.server.ResponseStatusException;
+
+public class TokenAuthenticationFilterTest {
+
+  private static final String SECRET = "c2Vzc2lvbi10b2tlbi1maWx0ZXItdGVzdC1zaWduaW5nLWtleQ==";
+
+  private final SessionTokenService sessionTokenService =
+      new SessionTokenService(SECRET, 60_000, System::currentTimeMillis);
+  private final GoogleAuthService googleAuthService = mock(GoogleAuthService.class);
+  private final TokenAuthenticationFilter filter = new TokenAuthenticationFilter(
+      sessionTokenService, googleAuthService, new AuthenticationErrorHandler(new ObjectMapper()),
+      new AntPathRequestMatcher("/users/**", "PUT"));
+
+  private MockHttpServletResponse response;
+  private MockFilterChain chain;
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private Authentication filter(String authorization) throws Exception {
+    return filter("PUT", "/users/1", authorization);
+  }
+
+  private Authentication filter(String method, String uri, String authorization)
+      throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+    request.setServletPath(uri);
+    if (authorization != null) {
+      request.addHeader("Authorization", authorization);
+    }
+    response = new MockHttpServletResponse();
+    chain = new MockFilterChain();
+    filter.doFilter(request, response, chain);
+    return SecurityContextHolder.getContext().getAuthentication();
+  }
+
+  @Test
+  public void validSession_Authenticates() throws Exception {
+    String token = sessionTokenService.issue("admin@example.com", "Admin").getToken();
+
+    Authentication authentication = filter("Bearer " + token);
+
+    assertTrue(authentication instanceof TokenAuthentication);
+    assertEquals("admin@example.com", authentication.getPrincipal());
+    assertEquals("ROLE_Admin", authentication.getAuthorities().iterator().next().getAuthority());
+    assertTrue(chain.getRequest() != null);
+    verify(googleAuthService, never()).verifyToken(anyString());
+  }
+
+  @Test
+  public void validGoogleToken_AuthenticatesAsCustomer() throws Exception {
+    GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
+    payload.setEmail("customer@example.com");
+    when(googleAuthService.verifyToken("google-token")).thenReturn(payload);
+
+    Authentication authentication = filter("Bearer google-token");
+
+    assertEquals("customer@example.com", authentication.getPrincipal());
+    assertEquals("ROLE_Customer",
+        authentication.getAuthorities().iterator().next().getAuthority());
+    assertTrue(chain.getRequest() != null);
+  }
+
+  @Test
+  public void invalidGoogleToken_Returns401BeforeTheEndpoint() throws Exception {
+    when(googleAuthService.verifyToken("forged"))
+        .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not verify token"));
+
+    assertNull(filter("Bearer forged"));
+    assertEquals(401, response.getStatus());
+    assertEquals("Bearer", response.getHeader("WWW-Authenticate"));
+    assertTrue(response.getContentAsString().contains("Could not verify token"));
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  public void expiredSession_Returns401() throws Exception {
+    SessionTokenService expired = new SessionTokenService(SECRET, -1_000, System::currentTimeMillis);
+    String token = expired.issue("customer@example.com", "Customer").getToken();
+
+    assertNull(filter("Bearer " + token));
+    assertEquals(401, response.getStatus());
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  public void headerWithoutBearer_Returns401() throws Exception {
+    assertNull(filter("Basic dXNlcjpwYXNz"));
+    assertEquals(401, response.getStatus());
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  public void invalidTokenOnPublicRoute_PassesThroughUnauthenticated() throws Exception {
+    SessionTokenService expired =
+        new SessionTokenService(SECRET, -1_000, System::currentTimeMillis);
+    String token = expired.issue("customer@example.com", "Customer").getToken();
+
+    assertNull(filter("GET", "/products", "Bearer " + token));
+    assertEquals(200, response.getStatus());
+    assertTrue(chain.getRequest() != null);
+
+    assertNull(filter("GET", "/products", "Basic dXNlcjpwYXNz"));
+    assertTrue(chain.getRequest() != null);
+  }
+
+  @Test
+  public void noHeader_PassesThroughUnauthenticated() throws Exception {
+    assertNull(filter(null));
+    assertEquals(200, response.getStatus());
+    assertTrue(chain.getRequest() != null);
+  }
+}
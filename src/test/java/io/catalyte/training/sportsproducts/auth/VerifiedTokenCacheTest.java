@@ -0,0 +1,56 @@
+package io.catalyte.training.sportsproducts.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class VerifiedTokenCacheTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+
+  @Test
+  public void get_ReturnsValueUntilExpiry() {
+    VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(100, now::get);
+    cache.put("token", "customer@example.com", now.get() + 1000);
+
+    assertEquals("customer@example.com", cache.get("token"));
+    now.addAndGet(999);
+    assertEquals("customer@example.com", cache.get("token"));
+    now.addAndGet(1);
+    assertNull(cache.get("token"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void put_AlreadyExpired_Ignored() {
+    VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(100, now::get);
+    cache.put("token", "customer@example.com", now.get());
+
+    assertNull(cache.get("token"));
+  }
+
+  @Test
+  public void put_BeyondCapacity_EvictsLeastRecentlyUsed() {
+    VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(160, now::get);
+
+    for (int i = 0; i < 10_000; i++) {
+      cache.put("token" + i, "value" + i, now.get() + 60_000);
+      // keep the first token in use so it is never the eldest
+      assertEquals("value0", cache.get("token0"));
+    }
+
+    assertTrue(cache.size() <= 160);
+    assertEquals("value9999", cache.get("token9999"));
+    assertNull(cache.get("token1"));
+  }
+
+  @Test
+  public void get_UnknownToken_ReturnsNull() {
+    VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(100, now::get);
+
+    assertNull(cache.get("token"));
+  }
+}
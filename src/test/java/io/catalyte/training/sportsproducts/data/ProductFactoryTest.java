@@ -0,0 +1,87 @@
+package io.catalyte.training.sportsproducts.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ProductFactoryTest {
+
+  private final ProductFactory productFactory = new ProductFactory();
+
+  private static void assertSameProduct(Product expected, Product actual) {
+    assertEquals(expected, actual);
+    assertEquals(expected.getPrice(), actual.getPrice());
+    assertEquals(expected.getBrand(), actual.getBrand());
+    assertEquals(expected.getMaterial(), actual.getMaterial());
+    assertEquals(expected.getQuantity(), actual.getQuantity());
+  }
+
+  @Test
+  public void generateSeededProducts_SameSeed_SameProducts() {
+    int count = ProductFactory.CHUNK_SIZE * 5 + 17;
+
+    List<Product> first = productFactory.generateSeededProducts(count, 42);
+    List<Product> second = new ProductFactory().generateSeededProducts(count, 42);
+
+    assertEquals(count, first.size());
+    for (int i = 0; i < count; i++) {
+      assertSameProduct(first.get(i), second.get(i));
+    }
+  }
+
+  @Test
+  public void generateSeededProducts_DifferentSeed_DifferentProducts() {
+    List<Product> first = productFactory.generateSeededProducts(100, 1);
+    List<Product> second = productFactory.generateSeededProducts(100, 2);
+
+    assertNotEquals(first, second);
+  }
+
+  @Test
+  public void generateSeededProducts_ChunksDiffer() {
+    List<Product> products = productFactory.generateSeededProducts(ProductFactory.CHUNK_SIZE * 2,
+        7);
+
+    // EACH CHUNK HAS ITS OWN GENERATOR, SO THE SECOND CHUNK DOES NOT REPEAT THE FIRST
+    assertNotEquals(products.subList(0, ProductFactory.CHUNK_SIZE),
+        products.subList(ProductFactory.CHUNK_SIZE, ProductFactory.CHUNK_SIZE * 2));
+  }
+
+  @Test
+  public void generateSeededProducts_FieldsInRange() {
+    for (Product product : productFactory.generateSeededProducts(2_000, 99)) {
+      assertTrue(product.getGlobalProductCode().matches("po-\\d{7}"));
+      assertTrue(product.getStyleNumber().matches("sc\\d{5}"));
+      assertTrue(product.getPrice().compareTo(new BigDecimal("0.01")) >= 0);
+      assertTrue(product.getPrice().compareTo(new BigDecimal("500.00")) <= 0);
+      assertTrue(product.getQuantity() >= 0 && product.getQuantity() <= 2500);
+      LocalDate releaseDate = LocalDate.parse(product.getReleaseDate());
+      assertTrue(!releaseDate.isBefore(ProductFactory.SEEDED_RELEASE_START));
+      assertTrue(releaseDate.isBefore(ProductFactory.SEEDED_RELEASE_END));
+      assertTrue(product.getDescription().startsWith(
+          product.getCategory() + " " + product.getDemographic() + " "));
+    }
+  }
+
+  @Test
+  public void generateSeededProducts_None_Empty() {
+    assertEquals(0, productFactory.generateSeededProducts(0, 42).size());
+  }
+
+  @Test
+  public void generateRandomProducts_ReturnsRequestedNumber() {
+    List<Product> products = productFactory.generateRandomProducts(50);
+
+    assertEquals(50, products.size());
+    for (Product product : products) {
+      assertTrue(product.getDescription().startsWith(
+          product.getCategory() + " " + product.getDemographic() + " "));
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package io.catalyte.training.sportsproducts.domains.analytics;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import io.catalyte.training.sportsproducts.domains.product.ProductRepository;
+import io.catalyte.training.sportsproducts.domains.purchase.LineItem;
+import io.catalyte.training.sportsproducts.domains.purchase.Purchase;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnalyticsServiceImplTest {
+
+  @InjectMocks
+  private AnalyticsServiceImpl analyticsService;
+
+  @Mock
+  private SalesRollupRepository salesRollupRepository;
+
+  @Mock
+  private ProductRepository productRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  private LineItem lineItem(String name, String category, String brand, String price,
+      int quantity) {
+    Product product = new Product();
+    product.setName(name);
+    product.setCategory(category);
+    product.setBrand(brand);
+    product.setPrice(new BigDecimal(price));
+    LineItem lineItem = new LineItem();
+    lineItem.setProduct(product);
+    lineItem.setQuantity(quantity);
+    return lineItem;
+  }
+
+  @Test
+  void testRecordPurchase_CombinesLineItemsIntoOneIncrementPerGroup() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>(Arrays.asList(
+        lineItem("Ball", "Soccer", "Nike", "10.00", 2),
+        lineItem("Cleat", "Soccer", "Nike", "55.50", 1))));
+    when(salesRollupRepository.increment(any(LocalDate.class), anyString(), anyString(),
+        anyLong(), anyLong())).thenReturn(1);
+
+    analyticsService.recordPurchase(purchase);
+
+    verify(salesRollupRepository).increment(any(LocalDate.class), eq("Soccer"), eq("Nike"),
+        eq(3L), eq(7550L));
+    verify(salesRollupRepository, never()).save(any(SalesRollup.class));
+  }
+
+  @Test
+  void testRecordPurchase_UpdatesGroupsInKeyOrder() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>(Arrays.asList(
+        lineItem("Stick", "Hockey", "Bauer", "80.00", 1),
+        lineItem("Ball", "Soccer", "Adidas", "10.00", 1),
+        lineItem("Puck", "Hockey", "Ccm", "4.25", 1),
+        lineItem("Cleat", "Baseball", "Nike", "55.50", 1))));
+    when(salesRollupRepository.increment(any(LocalDate.class), anyString(), anyString(),
+        anyLong(), anyLong())).thenReturn(1);
+
+    analyticsService.recordPurchase(purchase);
+
+    InOrder order = inOrder(salesRollupRepository);
+    order.verify(salesRollupRepository).increment(any(LocalDate.class), eq("Baseball"),
+        eq("Nike"), anyLong(), anyLong());
+    order.verify(salesRollupRepository).increment(any(LocalDate.class), eq("Hockey"),
+        eq("Bauer"), anyLong(), anyLong());
+    order.verify(salesRollupRepository).increment(any(LocalDate.class), eq("Hockey"),
+        eq("Ccm"), anyLong(), anyLong());
+    order.verify(salesRollupRepository).increment(any(LocalDate.class), eq("Soccer"),
+        eq("Adidas"), anyLong(), anyLong());
+  }
+
+  @Test
+  void testPrepareRollups_CreatesOnlyMissingRowsForTodayAndTomorrow() {
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    when(productRepository.findDistinctCategoriesAndBrands()).thenReturn(Arrays.asList(
+        new Object[]{"Hockey", "Bauer"}, new Object[]{"Soccer", null}));
+    when(salesRollupRepository.findBySaleDateBetweenOrderBySaleDate(today, today.plusDays(1)))
+        .thenReturn(Collections.singletonList(new SalesRollup(today, "Hockey", "Bauer", 3, 900)));
+
+    analyticsService.prepareRollups();
+
+    ArgumentCaptor<SalesRollup> captor = ArgumentCaptor.forClass(SalesRollup.class);
+    verify(salesRollupRepository, times(3)).save(captor.capture());
+    List<SalesRollup> created = captor.getAllValues();
+    assertEquals(today.plusDays(1), created.get(0).getSaleDate());
+    assertEquals("Bauer", created.get(0).getBrand());
+    assertEquals(AnalyticsServiceImpl.UNKNOWN, created.get(1).getBrand());
+    assertEquals(0, created.get(2).getUnits());
+  }
+
+  @Test
+  void testRecordPurchase_InsertsMissingRollup() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>(Arrays.asList(
+        lineItem("Puck", "Hockey", null, "4.25", 4))));
+    when(salesRollupRepository.increment(any(LocalDate.class), anyString(), anyString(),
+        anyLong(), anyLong())).thenReturn(0).thenReturn(1);
+
+    analyticsService.recordPurchase(purchase);
+
+    ArgumentCaptor<SalesRollup> captor = ArgumentCaptor.forClass(SalesRollup.class);
+    verify(salesRollupRepository).save(captor.capture());
+    assertEquals("Hockey", captor.getValue().getCategory());
+    assertEquals(AnalyticsServiceImpl.UNKNOWN, captor.getValue().getBrand());
+    assertEquals(0, captor.getValue().getUnits());
+    verify(salesRollupRepository, times(2)).increment(any(LocalDate.class), eq("Hockey"),
+        eq(AnalyticsServiceImpl.UNKNOWN), eq(4L), eq(1700L));
+  }
+
+  @Test
+  void testRecordPurchase_RowCreatedConcurrently_StillIncrements() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>(Arrays.asList(
+        lineItem("Puck", "Hockey", "Bauer", "4.25", 1))));
+    when(salesRollupRepository.increment(any(LocalDate.class), anyString(), anyString(),
+        anyLong(), anyLong())).thenReturn(0).thenReturn(1);
+    when(salesRollupRepository.save(any(SalesRollup.class)))
+        .thenThrow(new DataIntegrityViolationException("duplicate"));
+
+    analyticsService.recordPurchase(purchase);
+
+    verify(salesRollupRepository, times(2)).increment(any(LocalDate.class), eq("Hockey"),
+        eq("Bauer"), eq(1L), eq(425L));
+  }
+
+  @Test
+  void testGetSales_GroupByCategory_CombinesDaysAndBrands() {
+    LocalDate day = LocalDate.of(2026, 10, 1);
+    when(salesRollupRepository.findBySaleDateBetweenOrderBySaleDate(day, day.plusDays(1)))
+        .thenReturn(Arrays.asList(
+            new SalesRollup(day, "Golf", "Nike", 2, 1000),
+            new SalesRollup(day, "Golf", "Adidas", 1, 250),
+            new SalesRollup(day.plusDays(1), "Golf", "Nike", 1, 500),
+            new SalesRollup(day.plusDays(1), "Boxing", "Nike", 3, 3000)));
+
+    List<SalesSummary> sales = analyticsService.getSales(day, day.plusDays(1), "category");
+
+    assertEquals(2, sales.size());
+    assertEquals("Golf", sales.get(0).getCategory());
+    assertEquals(4, sales.get(0).getUnits());
+    assertEquals(new BigDecimal("17.50"), sales.get(0).getRevenue());
+    assertEquals(null, sales.get(0).getBrand());
+    assertEquals(new BigDecimal("30.00"), sales.get(1).getRevenue());
+  }
+
+  @Test
+  void testGetSales_InvalidGroupBy_ThrowsBadRequest() {
+    assertThrows(ResponseStatusException.class,
+        () -> analyticsService.getSales(null, null, "material"));
+  }
+}
@@ -5,9 +5,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.catalyte.training.sportsproducts.data.ProductFactory;
+import io.catalyte.training.sportsproducts.domains.purchase.PriceTable;
 import io.catalyte.training.sportsproducts.exceptions.ResourceNotFound;
 import java.math.BigDecimal;
 import io.catalyte.training.sportsproducts.exceptions.ServerError;
@@ -40,6 +42,9 @@ public class ProductServiceImplTest {
   @Mock
   private ProductRepository productRepository;
 
+  @Mock
+  private PriceTable priceTable;
+
   Product testProduct;
 
   ProductFactory productFactory;
@@ -65,9 +70,7 @@ public class ProductServiceImplTest {
     assertThrows(ResourceNotFound.class, () -> productServiceImpl.getProductById(123L));
   }
 
-  @Test
-  public void testCreateProductWithValidProduct() {
-    // Create a valid product
+  private Product validProduct() {
     Product validProduct = new Product();
     validProduct.setReleaseDate("07-25-1994"); // Set a valid release date
     validProduct.setName("Test Product");
@@ -85,6 +88,13 @@ public class ProductServiceImplTest {
     validProduct.setStyleNumber("ABC123");
     validProduct.setGlobalProductCode("XYZ789");
     validProduct.setActive(true);
+    return validProduct;
+  }
+
+  @Test
+  public void testCreateProductWithValidProduct() {
+    // Create a valid product
+    Product validProduct = validProduct();
 
     // Mock the save method of productRepository to return the same product
     when(productRepository.save(any())).thenReturn(validProduct);
@@ -96,6 +106,17 @@ public class ProductServiceImplTest {
     assertEquals(validProduct, createdProduct);
   }
 
+  @Test
+  public void testCreateProductWithExistingId_EvictsCachedPrice() {
+    Product product = validProduct();
+    product.setId(7L);
+    when(productRepository.save(any())).thenReturn(product);
+
+    productServiceImpl.createProduct(product);
+
+    verify(priceTable).evict(7L);
+  }
+
   @Test
   public void testCreateProductWithInvalidProduct() {
     // Create an invalid product with missing fields
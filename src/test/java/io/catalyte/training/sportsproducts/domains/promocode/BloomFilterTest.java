@@ -0,0 +1,64 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+
+  @Test
+  void mightContain_EveryPutTitle() {
+    BloomFilter filter = BloomFilter.create(10_000, 0.01);
+
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("SUMMER" + i);
+    }
+
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("SUMMER" + i));
+    }
+  }
+
+  @Test
+  void isOverCapacity_OncePastExpectedInsertions() {
+    BloomFilter filter = BloomFilter.create(100, 0.01);
+
+    for (int i = 0; i < 100; i++) {
+      filter.put("SUMMER" + i);
+    }
+    assertFalse(filter.isOverCapacity());
+
+    filter.put("SUMMER100");
+    assertTrue(filter.isOverCapacity());
+  }
+
+  @Test
+  void mightContain_FalsePositivesNearTheTargetRate() {
+    BloomFilter filter = BloomFilter.create(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("SUMMER" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("GUESS" + i)) {
+        falsePositives++;
+      }
+    }
+
+    assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+  }
+
+  @Test
+  void create_SizesForTheTargetRate() {
+    BloomFilter filter = BloomFilter.create(1_000, 0.01);
+
+    assertTrue(filter.bitSize() >= 9_585);
+    assertEquals(7, filter.hashCount());
+    assertFalse(filter.mightContain("ANYTHING"));
+    assertEquals(0.0, filter.expectedFalsePositiveRate());
+  }
+}
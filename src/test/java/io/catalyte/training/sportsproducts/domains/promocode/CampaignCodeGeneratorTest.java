@@ -0,0 +1,69 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class CampaignCodeGeneratorTest {
+
+  private final CampaignCodeGenerator generator = new CampaignCodeGenerator(new SecureRandom());
+
+  @Test
+  public void codeFor_ProducesUniqueCodes() {
+    Set<String> codes = new HashSet<>();
+    for (long sequence = 0; sequence < 200_000; sequence++) {
+      assertTrue(codes.add(generator.codeFor(sequence)));
+    }
+  }
+
+  @Test
+  public void codeFor_UsesAlphabetAndLength() {
+    String code = generator.codeFor(42);
+    assertEquals(CampaignCodeGenerator.CODE_LENGTH, code.length());
+    for (char c : code.toCharArray()) {
+      assertTrue(CampaignCodeGenerator.ALPHABET.indexOf(c) >= 0);
+    }
+  }
+
+  @Test
+  public void codeFor_HasValidCheckCharacter() {
+    for (long sequence = 0; sequence < 10_000; sequence++) {
+      assertTrue(CampaignCodeGenerator.hasValidCheck(generator.codeFor(sequence)));
+    }
+  }
+
+  @Test
+  public void hasValidCheck_DetectsEverySingleCharacterTypo() {
+    char[] code = generator.codeFor(7).toCharArray();
+
+    for (int i = 0; i < code.length; i++) {
+      char original = code[i];
+      for (char replacement : CampaignCodeGenerator.ALPHABET.toCharArray()) {
+        if (replacement != original) {
+          code[i] = replacement;
+          assertFalse(CampaignCodeGenerator.hasValidCheck(new String(code)));
+        }
+      }
+      code[i] = original;
+    }
+  }
+
+  @Test
+  public void hasValidCheck_RejectsWrongLengthAndAlphabet() {
+    String code = generator.codeFor(7);
+    assertFalse(CampaignCodeGenerator.hasValidCheck(code.substring(1)));
+    assertFalse(CampaignCodeGenerator.hasValidCheck(code.substring(1) + "U"));
+  }
+
+  @Test
+  public void codeFor_DiffersBetweenGenerators() {
+    CampaignCodeGenerator other = new CampaignCodeGenerator(new SecureRandom());
+    assertNotEquals(generator.codeFor(0), other.codeFor(0));
+  }
+}
@@ -0,0 +1,186 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures checking every item of a cart against every active code, with compiled predicates and
+ * with the rules walked directly for comparison. Run the main method to execute it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EligibilityBenchmark {
+
+  private static final String[] CATEGORIES = {"Running", "Training", "Golf", "Tennis",
+      "Basketball", "Soccer", "Hiking", "Skateboarding", "Swimming", "Baseball"};
+  private static final String[] BRANDS = {"Nike", "Adidas", "Puma", "Reebok", "Asics", "Acme",
+      "Under Armour", "New Balance"};
+  private static final String[] DEMOGRAPHICS = {"Men", "Women", "Kids"};
+
+  @Param({"100"})
+  private int cartSize;
+
+  @Param({"10", "50"})
+  private int codeCount;
+
+  private Product[] cart;
+  private Promocode[] codes;
+  private EligibilityRule[] rules;
+
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+
+    cart = new Product[cartSize];
+    for (int i = 0; i < cartSize; i++) {
+      Product product = new Product();
+      product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+      product.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+      product.setDemographic(DEMOGRAPHICS[random.nextInt(DEMOGRAPHICS.length)]);
+      cart[i] = product;
+    }
+
+    codes = new Promocode[codeCount];
+    rules = new EligibilityRule[codeCount];
+    for (int i = 0; i < codeCount; i++) {
+      rules[i] = randomRule(random, 3);
+      codes[i] = new Promocode("CODE" + i, "Benchmark code", "percent", null);
+      codes[i].setEligibility(rules[i]);
+      codes[i].compileEligibility();
+    }
+  }
+
+  private static EligibilityRule randomRule(SplittableRandom random, int depth) {
+    EligibilityRule rule = new EligibilityRule();
+    int kind = depth == 0 ? 3 + random.nextInt(3) : random.nextInt(6);
+
+    switch (kind) {
+      case 0:
+      case 1:
+        List<EligibilityRule> children = new ArrayList<>();
+        for (int i = 0; i < 2 + random.nextInt(3); i++) {
+          children.add(randomRule(random, depth - 1));
+        }
+        if (kind == 0) {
+          rule.setAll(children);
+        } else {
+          rule.setAny(children);
+        }
+        break;
+      case 2:
+        rule.setNot(randomRule(random, depth - 1));
+        break;
+      case 3:
+        rule.setCategories(sample(random, CATEGORIES));
+        break;
+      case 4:
+        rule.setBrands(sample(random, BRANDS));
+        break;
+      default:
+        rule.setDemographics(sample(random, DEMOGRAPHICS));
+    }
+    return rule;
+  }
+
+  private static List<String> sample(SplittableRandom random, String[] values) {
+    List<String> sample = new ArrayList<>();
+    for (String value : values) {
+      if (random.nextInt(3) == 0) {
+        sample.add(value);
+      }
+    }
+    return sample.isEmpty() ? Arrays.asList(values[random.nextInt(values.length)]) : sample;
+  }
+
+  @Benchmark
+  public int compiled() {
+    int eligible = 0;
+    for (Promocode code : codes) {
+      for (Product product : cart) {
+        if (code.appliesTo(product)) {
+          eligible++;
+        }
+      }
+    }
+    return eligible;
+  }
+
+  @Benchmark
+  public int interpreted() {
+    int eligible = 0;
+    for (EligibilityRule rule : rules) {
+      for (Product product : cart) {
+        if (interpret(rule, product)) {
+          eligible++;
+        }
+      }
+    }
+    return eligible;
+  }
+
+  @Benchmark
+  public Predicate<Product> compile() {
+    return EligibilityCompiler.compile(rules[0]);
+  }
+
+  /**
+   * Evaluates a rule by walking it, as the pricing engine would without compilation.
+   */
+  private static boolean interpret(EligibilityRule rule, Product product) {
+    if (rule.getAll() != null) {
+      for (EligibilityRule child : rule.getAll()) {
+        if (!interpret(child, product)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (rule.getAny() != null) {
+      for (EligibilityRule child : rule.getAny()) {
+        if (interpret(child, product)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (rule.getNot() != null) {
+      return !interpret(rule.getNot(), product);
+    }
+    if (rule.getCategories() != null) {
+      return rule.getCategories().contains(product.getCategory());
+    }
+    if (rule.getBrands() != null) {
+      return rule.getBrands().contains(product.getBrand());
+    }
+    return rule.getDemographics().contains(product.getDemographic());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(EligibilityBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
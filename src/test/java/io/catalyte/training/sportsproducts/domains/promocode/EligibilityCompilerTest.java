@@ -0,0 +1,160 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+public class EligibilityCompilerTest {
+
+  private static Product product(String category, String brand, String demographic) {
+    Product product = new Product();
+    product.setCategory(category);
+    product.setBrand(brand);
+    product.setDemographic(demographic);
+    return product;
+  }
+
+  private static EligibilityRule categories(String... values) {
+    EligibilityRule rule = new EligibilityRule();
+    rule.setCategories(Arrays.asList(values));
+    return rule;
+  }
+
+  private static EligibilityRule brands(String... values) {
+    EligibilityRule rule = new EligibilityRule();
+    rule.setBrands(Arrays.asList(values));
+    return rule;
+  }
+
+  private static EligibilityRule demographics(String... values) {
+    EligibilityRule rule = new EligibilityRule();
+    rule.setDemographics(Arrays.asList(values));
+    return rule;
+  }
+
+  private static EligibilityRule all(EligibilityRule... rules) {
+    EligibilityRule rule = new EligibilityRule();
+    rule.setAll(Arrays.asList(rules));
+    return rule;
+  }
+
+  private static EligibilityRule any(EligibilityRule... rules) {
+    EligibilityRule rule = new EligibilityRule();
+    rule.setAny(Arrays.asList(rules));
+    return rule;
+  }
+
+  private static EligibilityRule not(EligibilityRule child) {
+    EligibilityRule rule = new EligibilityRule();
+    rule.setNot(child);
+    return rule;
+  }
+
+  @Test
+  public void compile_NullRule_MatchesEverything() {
+    assertSame(EligibilityCompiler.ALWAYS, EligibilityCompiler.compile(null));
+  }
+
+  @Test
+  public void compile_Fields_MatchExactly() {
+    Predicate<Product> predicate = EligibilityCompiler.compile(categories("Running"));
+
+    assertTrue(predicate.test(product("Running", "Nike", "Men")));
+    assertFalse(predicate.test(product("running", "Nike", "Men")));
+    assertFalse(predicate.test(product(null, "Nike", "Men")));
+  }
+
+  @Test
+  public void compile_ManyValues_UsesSetLookup() {
+    Predicate<Product> predicate = EligibilityCompiler.compile(
+        brands("A", "B", "C", "D", "E", "F", "Nike"));
+
+    assertTrue(predicate.test(product("Running", "Nike", "Men")));
+    assertFalse(predicate.test(product("Running", "Acme", "Men")));
+    assertFalse(predicate.test(product("Running", null, "Men")));
+  }
+
+  @Test
+  public void compile_Tree_EvaluatesLikeTheRule() {
+    Predicate<Product> predicate = EligibilityCompiler.compile(all(
+        any(categories("Running"), categories("Training")),
+        not(brands("Acme")),
+        demographics("Women", "Kids")));
+
+    assertTrue(predicate.test(product("Running", "Nike", "Women")));
+    assertTrue(predicate.test(product("Training", "Nike", "Kids")));
+    assertFalse(predicate.test(product("Golf", "Nike", "Women")));
+    assertFalse(predicate.test(product("Running", "Acme", "Women")));
+    assertFalse(predicate.test(product("Running", "Nike", "Men")));
+  }
+
+  @Test
+  public void compile_AllOfDisjointLists_MatchesNothing() {
+    assertSame(EligibilityCompiler.NEVER,
+        EligibilityCompiler.compile(all(categories("Running"), categories("Golf"))));
+  }
+
+  @Test
+  public void compile_EmptyAllAndAny_FoldToConstants() {
+    EligibilityRule emptyAll = new EligibilityRule();
+    emptyAll.setAll(Collections.emptyList());
+    EligibilityRule emptyAny = new EligibilityRule();
+    emptyAny.setAny(Collections.emptyList());
+
+    assertSame(EligibilityCompiler.ALWAYS, EligibilityCompiler.compile(emptyAll));
+    assertSame(EligibilityCompiler.NEVER, EligibilityCompiler.compile(emptyAny));
+    assertSame(EligibilityCompiler.NEVER, EligibilityCompiler.compile(not(emptyAll)));
+  }
+
+  @Test
+  public void compile_DoubleNegation_Cancels() {
+    Predicate<Product> predicate = EligibilityCompiler.compile(not(not(categories("Running"))));
+
+    assertTrue(predicate.test(product("Running", "Nike", "Men")));
+    assertFalse(predicate.test(product("Golf", "Nike", "Men")));
+  }
+
+  @Test
+  public void compile_RuleWithTwoFields_Rejected() {
+    EligibilityRule rule = categories("Running");
+    rule.setBrands(Collections.singletonList("Nike"));
+
+    assertThrows(IllegalArgumentException.class, () -> EligibilityCompiler.compile(rule));
+  }
+
+  @Test
+  public void compile_EmptyValues_Rejected() {
+    assertThrows(IllegalArgumentException.class,
+        () -> EligibilityCompiler.compile(categories()));
+  }
+
+  @Test
+  public void compile_TooDeep_Rejected() {
+    EligibilityRule rule = categories("Running");
+    for (int i = 0; i < EligibilityCompiler.MAX_DEPTH; i++) {
+      rule = not(rule);
+    }
+    EligibilityRule tooDeep = rule;
+
+    assertThrows(IllegalArgumentException.class, () -> EligibilityCompiler.compile(tooDeep));
+  }
+
+  @Test
+  public void converter_RoundTripsRule() {
+    EligibilityRuleConverter converter = new EligibilityRuleConverter();
+    EligibilityRule rule = all(categories("Running"), not(brands("Acme")));
+
+    String json = converter.convertToDatabaseColumn(rule);
+    assertEquals("{\"all\":[{\"categories\":[\"Running\"]},{\"not\":{\"brands\":[\"Acme\"]}}]}",
+        json);
+    assertEquals(json, converter.convertToDatabaseColumn(converter.convertToEntityAttribute(json)));
+  }
+}
@@ -0,0 +1,90 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class HashedTimerWheelTest {
+
+  private final AtomicLong now = new AtomicLong(10_000);
+
+  private HashedTimerWheel wheel;
+
+  private List<String> fired;
+
+  @BeforeEach
+  void setup() {
+    wheel = new HashedTimerWheel("test-wheel", 100, 8, now::get);
+    fired = new ArrayList<>();
+  }
+
+  @Test
+  void advance_FiresAtTheFirstTickAfterTheDeadline() {
+    wheel.schedule(() -> fired.add("a"), 10_250);
+
+    now.set(10_299);
+    assertEquals(0, wheel.advance());
+
+    now.set(10_300);
+    assertEquals(1, wheel.advance());
+    assertEquals("a", fired.get(0));
+  }
+
+  @Test
+  void advance_NeverFiresEarly() {
+    wheel.schedule(() -> fired.add("exact"), 10_200);
+
+    now.set(10_199);
+    wheel.advance();
+    assertTrue(fired.isEmpty());
+
+    now.set(10_200);
+    wheel.advance();
+    assertEquals(1, fired.size());
+  }
+
+  @Test
+  void advance_DeadlinesBeyondOneTurnWaitForTheirRound() {
+    // the wheel turns every 800ms
+    wheel.schedule(() -> fired.add("far"), 12_050);
+    wheel.schedule(() -> fired.add("near"), 10_050);
+
+    now.set(10_900);
+    wheel.advance();
+    assertEquals(1, fired.size());
+    assertEquals("near", fired.get(0));
+
+    now.set(12_099);
+    wheel.advance();
+    assertEquals(1, fired.size());
+
+    now.set(12_100);
+    wheel.advance();
+    assertEquals(2, fired.size());
+  }
+
+  @Test
+  void cancel_StopsTheTask() {
+    HashedTimerWheel.Timeout timeout = wheel.schedule(() -> fired.add("cancelled"), 10_100);
+    timeout.cancel();
+
+    now.set(11_000);
+    assertEquals(0, wheel.advance());
+    assertTrue(fired.isEmpty());
+  }
+
+  @Test
+  void advance_PastDeadlineFiresOnTheNextTick() {
+    now.set(10_500);
+    wheel.advance();
+    wheel.schedule(() -> fired.add("late"), 9_000);
+
+    now.set(10_600);
+    assertEquals(1, wheel.advance());
+  }
+}
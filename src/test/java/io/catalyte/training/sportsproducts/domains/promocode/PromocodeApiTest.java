@@ -2,6 +2,9 @@ package io.catalyte.training.sportsproducts.domains.promocode;
 import static io.catalyte.training.sportsproducts.constants.Paths.PROMOCODE_PATH;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -9,9 +12,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,8 +26,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -30,6 +39,7 @@ import java.util.Optional;
 @RunWith(SpringRunner.class)
 @WebMvcTest(PromocodeController.class)
 @Import(PromocodeServiceImpl.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
 public class PromocodeApiTest {
 
   @Autowired
@@ -38,9 +48,15 @@ public class PromocodeApiTest {
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private PromocodeServiceImpl promocodeService;
+
   @MockBean
   private PromocodeRepository promocodeRepository;
 
+  @MockBean
+  private PromocodeBulkService promocodeBulkService;
+
   @Test
   public void createPromocode() throws Exception {
     Promocode promoCode = new Promocode();
@@ -65,6 +81,23 @@ public class PromocodeApiTest {
     assertEquals(promoCode.getRate(), savedPromoCode.getRate());
   }
 
+  @Test
+  public void createPromocode_DuplicateTitle_ReturnsConflict() throws Exception {
+    Promocode promoCode = new Promocode("DUPLICATE", "Test Description", "flat",
+        BigDecimal.valueOf(5));
+
+    when(promocodeRepository.save(any(Promocode.class)))
+        .thenThrow(new DataIntegrityViolationException("unique index on title",
+            new SQLException("Unique index or primary key violation", "23505")));
+
+    mockMvc.perform(post(PROMOCODE_PATH)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(promoCode)))
+        .andExpect(status().isConflict());
+
+    verify(promocodeRepository, never()).findByTitle(anyString());
+  }
+
   @Test
   public void getPromoCodes() throws Exception {
     Promocode promoCode1 = new Promocode();
@@ -99,7 +132,9 @@ public class PromocodeApiTest {
     promoCode.setType("percent");
     promoCode.setRate(BigDecimal.valueOf(50));
 
-    when(promocodeRepository.findByTitle(promoCode.getTitle())).thenReturn(Optional.of(promoCode));
+    when(promocodeRepository.findByCampaignFalse())
+        .thenReturn(Collections.singletonList(promoCode));
+    promocodeService.loadCodes();
 
     MvcResult result = mockMvc.perform(get(PROMOCODE_PATH + "/" + promoCode.getTitle()))
         .andExpect(status().isOk())
@@ -110,5 +145,92 @@ public class PromocodeApiTest {
     assertEquals(promoCode.getTitle(), responsePromoCode.getTitle());
   }
 
+  @Test
+  public void getPromoCodeByTitleAfterCreate_ServedFromMemory() throws Exception {
+    Promocode promoCode = new Promocode("MEMORYTITLE", "Test Description", "flat",
+        BigDecimal.valueOf(5));
+
+    when(promocodeRepository.save(any(Promocode.class))).thenReturn(promoCode);
+
+    mockMvc.perform(post(PROMOCODE_PATH)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(promoCode)))
+        .andExpect(status().isCreated());
+    clearInvocations(promocodeRepository);
+
+    mockMvc.perform(get(PROMOCODE_PATH + "/MEMORYTITLE"))
+        .andExpect(status().isOk());
+
+    verify(promocodeRepository, never()).findByTitle(anyString());
+  }
+
+  @Test
+  public void getPromoCodeByTitle_Unknown_RejectedWithoutDatabase() throws Exception {
+    when(promocodeRepository.findByTitle("UNKNOWN")).thenReturn(Optional.empty());
+
+    mockMvc.perform(get(PROMOCODE_PATH + "/UNKNOWN"))
+        .andExpect(status().isNotFound());
+
+    verify(promocodeRepository, never()).findByTitle(anyString());
+  }
+
+  @Test
+  public void getPromoCodeByTitle_CreatedElsewhere_FoundAfterReload() throws Exception {
+    Promocode promoCode = new Promocode("ELSEWHERE", "Test Description", "flat",
+        BigDecimal.valueOf(5));
+
+    when(promocodeRepository.findByTitle("ELSEWHERE")).thenReturn(Optional.of(promoCode));
+
+    mockMvc.perform(get(PROMOCODE_PATH + "/ELSEWHERE"))
+        .andExpect(status().isNotFound());
+
+    when(promocodeRepository.findByCampaignFalse())
+        .thenReturn(Collections.singletonList(promoCode));
+    promocodeService.loadCodes();
+
+    mockMvc.perform(get(PROMOCODE_PATH + "/ELSEWHERE"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void applyPromoCode() throws Exception {
+    Promocode promoCode = new Promocode("APPLYTITLE", "Test Description", "percent",
+        BigDecimal.valueOf(25));
+
+    when(promocodeRepository.findByCampaignFalse())
+        .thenReturn(Collections.singletonList(promoCode));
+    promocodeService.loadCodes();
+
+    MvcResult result = mockMvc.perform(post(PROMOCODE_PATH + "/apply")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(
+                new ApplyPromocodeRequest("APPLYTITLE", new BigDecimal("40.10")))))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    JsonNode applied = objectMapper.readTree(result.getResponse().getContentAsString());
+    assertEquals(new BigDecimal("10.03"), applied.get("discount").decimalValue());
+    assertEquals(new BigDecimal("30.07"), applied.get("total").decimalValue());
+
+    // cart refreshes do not reach the database
+    mockMvc.perform(post(PROMOCODE_PATH + "/apply")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(
+                new ApplyPromocodeRequest("APPLYTITLE", new BigDecimal("12.00")))))
+        .andExpect(status().isOk());
+    verify(promocodeRepository, never()).findByTitle(anyString());
+  }
+
+  @Test
+  public void applyPromoCode_Unknown_ReturnsBadRequest() throws Exception {
+    when(promocodeRepository.findByTitle("NOPE")).thenReturn(Optional.empty());
+
+    mockMvc.perform(post(PROMOCODE_PATH + "/apply")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(
+                new ApplyPromocodeRequest("NOPE", new BigDecimal("12.00")))))
+        .andExpect(status().isBadRequest());
+  }
+
 }
 
@@ -0,0 +1,90 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "promocodes.bulk.batch-size=500")
+public class PromocodeBulkServiceTest {
+
+  private static final int COUNT = 2_500;
+
+  @Autowired
+  private PromocodeBulkService promocodeBulkService;
+
+  @Autowired
+  private PromocodeServiceImpl promocodeService;
+
+  @Autowired
+  private PromocodeRepository promocodeRepository;
+
+  @Test
+  public void generate_InsertsUniqueSingleUseCodes() throws Exception {
+    BulkPromocodeJob job = promocodeBulkService.generate(new BulkPromocodeRequest("SPRING",
+        COUNT, new Promocode(null, "Spring campaign", "flat", BigDecimal.valueOf(5))));
+
+    long deadline = System.currentTimeMillis() + 30_000;
+    while (job.getStatus() == BulkPromocodeJob.Status.RUNNING
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+
+    assertEquals(BulkPromocodeJob.Status.COMPLETED, job.getStatus());
+    assertEquals(COUNT, job.getGenerated());
+    assertEquals(job, promocodeBulkService.getJob(job.getId()));
+
+    List<Promocode> codes = promocodeRepository.findAll().stream()
+        .filter(promocode -> promocode.getTitle().startsWith("SPRING"))
+        .collect(Collectors.toList());
+    assertEquals(COUNT, codes.size());
+    assertEquals(COUNT, codes.stream().map(Promocode::getTitle).distinct().count());
+    for (Promocode code : codes) {
+      assertTrue(CampaignCodeGenerator.hasValidCheck(code.getTitle().substring(6)));
+      assertTrue(code.isCampaign());
+      assertEquals(Long.valueOf(1), code.getMaxRedemptions());
+      assertEquals(new BigDecimal("5.00"), code.getRate());
+    }
+
+    String title = codes.get(0).getTitle();
+    assertEquals(title, promocodeService.getPromoCodeByTitle(title).getTitle());
+
+    // after a reload campaign codes are only in the filter, and are read on first lookup
+    promocodeService.loadCodes();
+    String other = codes.get(COUNT - 1).getTitle();
+    assertEquals(other, promocodeService.getPromoCodeByTitle(other).getTitle());
+  }
+
+  @Test
+  public void generate_InvalidTemplate_Rejected() {
+    try {
+      promocodeBulkService.generate(new BulkPromocodeRequest("SUMMER", 10,
+          new Promocode(null, "Summer campaign", "percent", BigDecimal.valueOf(150))));
+      fail();
+    } catch (ResponseStatusException e) {
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+  }
+
+  @Test
+  public void generate_InvalidPrefix_Rejected() {
+    try {
+      promocodeBulkService.generate(new BulkPromocodeRequest("summer sale", 10,
+          new Promocode(null, "Summer campaign", "percent", BigDecimal.valueOf(15))));
+      fail();
+    } catch (ResponseStatusException e) {
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+  }
+}
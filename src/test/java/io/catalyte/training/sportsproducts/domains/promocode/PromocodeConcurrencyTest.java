@@ -0,0 +1,119 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class PromocodeConcurrencyTest {
+
+  private static final int THREADS = 8;
+
+  @Autowired
+  private PromocodeService promocodeService;
+
+  @Autowired
+  private PromocodeRepository promocodeRepository;
+
+  @Autowired
+  private PromocodeRedemptionRepository redemptionRepository;
+
+  @Test
+  public void parallelDuplicateCreates_OnlyOneSucceeds() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<HttpStatus>> results = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          try {
+            promocodeService.savePromoCode(
+                new Promocode("BURST", "Campaign launch", "percent", BigDecimal.valueOf(10)));
+            return HttpStatus.CREATED;
+          } catch (ResponseStatusException e) {
+            return e.getStatus();
+          }
+        }));
+      }
+      start.countDown();
+
+      int created = 0;
+      int conflicts = 0;
+      for (Future<HttpStatus> result : results) {
+        HttpStatus status = result.get(30, TimeUnit.SECONDS);
+        if (status == HttpStatus.CREATED) {
+          created++;
+        } else if (status == HttpStatus.CONFLICT) {
+          conflicts++;
+        }
+      }
+
+      assertEquals(1, created);
+      assertEquals(THREADS - 1, conflicts);
+      assertEquals(1, promocodeRepository.findAll().stream()
+          .filter(promocode -> "BURST".equals(promocode.getTitle())).count());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+  @Test
+  public void parallelRedeemsOnTwoInstances_NeverExceedTheLimit() throws Exception {
+    Promocode promocode = new Promocode("CAPPED", "Capped launch", "flat", BigDecimal.valueOf(5));
+    promocode.setMaxRedemptions(5L);
+    promocodeService.savePromoCode(promocode);
+
+    // two trackers share the database like two instances of the service
+    PromocodeRedemptionTracker[] instances = {
+        new PromocodeRedemptionTracker(promocodeService, promocodeRepository, redemptionRepository),
+        new PromocodeRedemptionTracker(promocodeService, promocodeRepository, redemptionRepository)
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < THREADS * 4; i++) {
+        PromocodeRedemptionTracker tracker = instances[i % 2];
+        results.add(executor.submit(() -> {
+          start.await();
+          try {
+            tracker.redeem("CAPPED", null);
+            return true;
+          } catch (ResponseStatusException e) {
+            return false;
+          }
+        }));
+      }
+      start.countDown();
+
+      int redeemed = 0;
+      for (Future<Boolean> result : results) {
+        if (result.get(30, TimeUnit.SECONDS)) {
+          redeemed++;
+        }
+      }
+
+      assertEquals(5, redeemed);
+      assertEquals(5, promocodeRepository.findByTitle("CAPPED").get().getRedemptions());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
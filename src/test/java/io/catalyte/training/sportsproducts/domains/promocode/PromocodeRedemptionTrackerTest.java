@@ -0,0 +1,139 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class PromocodeRedemptionTrackerTest {
+
+  @InjectMocks
+  private PromocodeRedemptionTracker redemptionTracker;
+
+  @Mock
+  private PromocodeService promocodeService;
+
+  @Mock
+  private PromocodeRepository promocodeRepository;
+
+  @Mock
+  private PromocodeRedemptionRepository redemptionRepository;
+
+  private Promocode promocode;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.initMocks(this);
+    promocode = new Promocode("LAUNCH", "Launch offer", "percent", BigDecimal.valueOf(20));
+    when(promocodeService.getPromoCodeByTitle("LAUNCH")).thenReturn(promocode);
+  }
+
+  @Test
+  void redeem_OverCodeLimit_ThrowsUnprocessableEntity() {
+    promocode.setMaxRedemptions(3L);
+    when(promocodeRepository.redeemWithinLimit("LAUNCH")).thenReturn(1).thenReturn(0);
+
+    redemptionTracker.redeem("LAUNCH", "a@example.com");
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> redemptionTracker.redeem("LAUNCH", "b@example.com"));
+
+    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus());
+    redemptionTracker.flush();
+    verify(promocodeRepository, never()).addRedemptions(anyString(), anyLong());
+  }
+
+  @Test
+  void redeem_LimitedCodeWhileDatabaseUnavailable_Returns503() {
+    promocode.setMaxRedemptions(3L);
+    promocode.setMaxRedemptionsPerCustomer(1L);
+    when(promocodeRepository.redeemWithinLimit("LAUNCH"))
+        .thenThrow(new QueryTimeoutException("timeout"))
+        .thenReturn(1);
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> redemptionTracker.redeem("LAUNCH", "a@example.com"));
+    redemptionTracker.flush();
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    verify(promocodeRepository, never()).addRedemptions(anyString(), anyLong());
+    // the customer's slot was given back
+    redemptionTracker.redeem("LAUNCH", "a@example.com");
+  }
+
+  @Test
+  void redeem_OverCustomerLimit_CountsStoredRedemptions() {
+    promocode.setMaxRedemptionsPerCustomer(2L);
+    when(redemptionRepository.findByTitleAndEmail("LAUNCH", "a@example.com"))
+        .thenReturn(Optional.of(new PromocodeRedemption("LAUNCH", "a@example.com", 1)));
+
+    redemptionTracker.redeem("LAUNCH", "A@example.com");
+
+    assertThrows(ResponseStatusException.class,
+        () -> redemptionTracker.redeem("LAUNCH", "a@example.com"));
+    redemptionTracker.redeem("LAUNCH", "b@example.com");
+    verify(redemptionRepository, times(1)).findByTitleAndEmail("LAUNCH", "a@example.com");
+  }
+
+  @Test
+  void redeem_CodeLimitReached_GivesBackTheCustomerRedemption() {
+    promocode.setMaxRedemptions(1L);
+    promocode.setMaxRedemptionsPerCustomer(1L);
+    when(redemptionRepository.findByTitleAndEmail(anyString(), anyString()))
+        .thenReturn(Optional.empty());
+    when(promocodeRepository.redeemWithinLimit("LAUNCH")).thenReturn(1, 0, 1);
+
+    redemptionTracker.redeem("LAUNCH", "a@example.com");
+    assertThrows(ResponseStatusException.class,
+        () -> redemptionTracker.redeem("LAUNCH", "b@example.com"));
+    redemptionTracker.release("LAUNCH", "a@example.com");
+
+    redemptionTracker.redeem("LAUNCH", "b@example.com");
+    verify(promocodeRepository, times(1)).releaseRedemption("LAUNCH");
+  }
+
+  @Test
+  void flush_WritesCountedRedemptionsOnce() {
+    promocode.setMaxRedemptionsPerCustomer(5L);
+    when(redemptionRepository.findByTitleAndEmail(anyString(), anyString()))
+        .thenReturn(Optional.empty());
+    when(redemptionRepository.addRedemptions("LAUNCH", "a@example.com", 2)).thenReturn(0);
+
+    redemptionTracker.redeem("LAUNCH", "a@example.com");
+    redemptionTracker.redeem("LAUNCH", "a@example.com");
+    redemptionTracker.flush();
+    redemptionTracker.flush();
+
+    verify(promocodeRepository, times(1)).addRedemptions("LAUNCH", 2);
+    verify(redemptionRepository, times(1)).save(any(PromocodeRedemption.class));
+  }
+
+  @Test
+  void flush_DatabaseFailure_KeepsCountsForTheNextFlush() {
+    when(promocodeRepository.addRedemptions("LAUNCH", 1))
+        .thenThrow(new QueryTimeoutException("timeout"))
+        .thenReturn(1);
+
+    redemptionTracker.redeem("LAUNCH", null);
+    redemptionTracker.flush();
+    redemptionTracker.flush();
+
+    verify(promocodeRepository, times(2)).addRedemptions("LAUNCH", 1);
+    verify(redemptionRepository, never()).addRedemptions(anyString(), anyString(), anyLong());
+  }
+}
@@ -6,13 +6,17 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
@@ -52,14 +56,39 @@ public class PromocodeServiceImplTest {
     promocodeService.savePromoCode(promoCode);
   }
 
-  @Test(expected = ResponseStatusException.class)
+  @Test
   public void testSavePromoCodeDuplicateTitle() {
-    Promocode promoCode = new Promocode();
-    promoCode.setTitle("TEST_TITLE");
-
-    when(promoCodeRepository.findByTitle("TEST_TITLE")).thenReturn(Optional.of(promoCode));
+    Promocode promoCode = new Promocode("TEST_TITLE", "Test Description", "flat",
+        new BigDecimal("10.00"));
+
+    when(promoCodeRepository.save(promoCode))
+        .thenThrow(new DataIntegrityViolationException("unique index on title",
+            new SQLException("Unique index or primary key violation", "23505")));
+
+    try {
+      promocodeService.savePromoCode(promoCode);
+      fail("Expected a conflict");
+    } catch (ResponseStatusException e) {
+      assertEquals(HttpStatus.CONFLICT, e.getStatus());
+      assertEquals("Invalid title: title must be unique.", e.getReason());
+    }
+  }
 
-    promocodeService.savePromoCode(promoCode);
+  @Test
+  public void testSavePromoCodeOtherConstraintViolation() {
+    Promocode promoCode = new Promocode("TEST_TITLE", "Test Description", "flat",
+        new BigDecimal("10.00"));
+
+    when(promoCodeRepository.save(promoCode))
+        .thenThrow(new DataIntegrityViolationException("value too long",
+            new SQLException("Value too long for column", "22001")));
+
+    try {
+      promocodeService.savePromoCode(promoCode);
+      fail("Expected a bad request");
+    } catch (ResponseStatusException e) {
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
   }
 
   @Test(expected = ResponseStatusException.class)
@@ -0,0 +1,131 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PromocodeTableTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+
+  private HashedTimerWheel wheel;
+
+  private PromocodeTable table;
+
+  @BeforeEach
+  void setup() {
+    wheel = new HashedTimerWheel("test-wheel", 100, 64, now::get);
+    table = new PromocodeTable(wheel, now::get);
+  }
+
+  @Test
+  void put_WithoutWindow_IsActive() {
+    Promocode promocode = promocode("ALWAYS", null, null);
+
+    table.put(promocode);
+
+    assertSame(promocode, table.getActive("ALWAYS"));
+  }
+
+  @Test
+  void put_FutureStart_ActivatesWhenTheTimerFires() {
+    table.put(promocode("LATER", 1_005_000L, null));
+
+    assertNull(table.getActive("LATER"));
+    assertTrue(table.contains("LATER"));
+
+    now.set(1_005_000);
+    wheel.advance();
+
+    assertEquals("LATER", table.getActive("LATER").getTitle());
+  }
+
+  @Test
+  void getActive_AtTheEndBoundary_RejectsEvenBeforeTheTimerFires() {
+    table.put(promocode("ENDING", null, 1_002_000L));
+    assertEquals("ENDING", table.getActive("ENDING").getTitle());
+
+    now.set(1_002_000);
+
+    assertNull(table.getActive("ENDING"));
+  }
+
+  @Test
+  void removeExpired_RemovesInBatches() {
+    for (int i = 0; i < 5; i++) {
+      table.put(promocode("FLASH" + i, null, 1_001_000L));
+    }
+
+    now.set(1_001_000);
+    wheel.advance();
+
+    assertEquals(2, table.removeExpired(2));
+    assertEquals(3, table.size());
+    assertEquals(3, table.removeExpired(10));
+    assertFalse(table.contains("FLASH4"));
+  }
+
+  @Test
+  void put_AlreadyExpired_IsNotAdded() {
+    table.put(promocode("OLD", null, 999_000L));
+
+    assertFalse(table.contains("OLD"));
+  }
+
+  @Test
+  void replaceAll_CancelsTheTimersOfReplacedCodes() {
+    table.put(promocode("MOVED", 1_001_000L, null));
+    table.replaceAll(Arrays.asList(promocode("MOVED", 1_009_000L, null)));
+
+    now.set(1_001_000);
+    wheel.advance();
+    assertNull(table.getActive("MOVED"));
+
+    now.set(1_009_000);
+    wheel.advance();
+    assertEquals("MOVED", table.getActive("MOVED").getTitle());
+  }
+
+  @Test
+  void replaceAll_WithoutAScheduledCode_CancelsItsTimers() {
+    table.put(promocode("DROPPED", 1_001_000L, 1_005_000L));
+    assertTrue(table.hasTimers("DROPPED"));
+
+    table.replaceAll(Arrays.asList(promocode("KEPT", null, null)));
+
+    assertFalse(table.hasTimers("DROPPED"));
+    now.set(1_001_000);
+    wheel.advance();
+    assertNull(table.getActive("DROPPED"));
+    assertFalse(table.contains("DROPPED"));
+  }
+
+  @Test
+  void removeExpired_CodeDroppedByAReload_ForgetsItsTimers() {
+    table.put(promocode("GONE", null, 1_001_000L));
+    now.set(1_001_000);
+    wheel.advance();
+
+    table.replaceAll(Arrays.asList(promocode("KEPT", null, null)));
+    table.removeExpired(10);
+
+    assertFalse(table.hasTimers("GONE"));
+    assertEquals(1, table.size());
+  }
+
+  private Promocode promocode(String title, Long startsAt, Long endsAt) {
+    Promocode promocode = new Promocode(title, "Test Description", "flat", BigDecimal.ONE);
+    promocode.setStartsAt(startsAt == null ? null : Instant.ofEpochMilli(startsAt));
+    promocode.setEndsAt(endsAt == null ? null : Instant.ofEpochMilli(endsAt));
+    return promocode;
+  }
+}
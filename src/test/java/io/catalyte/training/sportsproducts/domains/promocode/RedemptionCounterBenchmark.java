@@ -0,0 +1,72 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures many threads redeeming one code at once, comparing the striped counter with a single
+ * shared atomic. Run the main method to execute it; set the thread count with -t on the command
+ * line to try other levels of contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+public class RedemptionCounterBenchmark {
+
+  private RedemptionCounter limitedCounter;
+  private RedemptionCounter unlimitedCounter;
+  private AtomicLong sharedRemaining;
+
+  @Setup
+  public void setup() {
+    limitedCounter = new RedemptionCounter(Long.MAX_VALUE / 2, 0);
+    unlimitedCounter = new RedemptionCounter(RedemptionCounter.UNLIMITED, 0);
+    sharedRemaining = new AtomicLong(Long.MAX_VALUE / 2);
+  }
+
+  @Benchmark
+  public boolean stripedLimited() {
+    return limitedCounter.tryRedeem();
+  }
+
+  @Benchmark
+  public boolean stripedUnlimited() {
+    return unlimitedCounter.tryRedeem();
+  }
+
+  @Benchmark
+  public boolean sharedAtomic() {
+    long available = sharedRemaining.get();
+    while (available > 0) {
+      if (sharedRemaining.compareAndSet(available, available - 1)) {
+        return true;
+      }
+      available = sharedRemaining.get();
+    }
+    return false;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(RedemptionCounterBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,103 @@
+package io.catalyte.training.sportsproducts.domains.promocode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class RedemptionCounterTest {
+
+  @Test
+  void tryRedeem_StopsAtTheLimitAcrossStripes() {
+    RedemptionCounter counter = new RedemptionCounter(10, 3, 4);
+
+    for (int i = 0; i < 7; i++) {
+      assertTrue(counter.tryRedeem());
+    }
+
+    assertFalse(counter.tryRedeem());
+    assertEquals(0, counter.remaining());
+    assertEquals(7, counter.drainUnflushed());
+  }
+
+  @Test
+  void release_MakesTheRedemptionAvailableAgain() {
+    RedemptionCounter counter = new RedemptionCounter(1, 0, 4);
+
+    assertTrue(counter.tryRedeem());
+    assertFalse(counter.tryRedeem());
+    counter.release();
+
+    assertTrue(counter.tryRedeem());
+    assertEquals(1, counter.drainUnflushed());
+  }
+
+  @Test
+  void unlimited_CountsEveryRedemption() {
+    RedemptionCounter counter = new RedemptionCounter(RedemptionCounter.UNLIMITED, 50, 4);
+
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(counter.tryRedeem());
+    }
+
+    assertEquals(RedemptionCounter.UNLIMITED, counter.remaining());
+    assertEquals(1000, counter.drainUnflushed());
+    assertEquals(0, counter.drainUnflushed());
+  }
+
+  @Test
+  void restoreUnflushed_KeepsAFailedFlushForTheNextOne() {
+    RedemptionCounter counter = new RedemptionCounter(RedemptionCounter.UNLIMITED, 0, 4);
+    counter.tryRedeem();
+    counter.tryRedeem();
+
+    counter.restoreUnflushed(counter.drainUnflushed());
+    counter.tryRedeem();
+
+    assertEquals(3, counter.drainUnflushed());
+  }
+
+  @Test
+  void concurrentRedemptions_NeverExceedTheLimit() throws Exception {
+    int threads = 16;
+    int attemptsPerThread = 1000;
+    RedemptionCounter counter = new RedemptionCounter(5000, 0);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+
+    try {
+      for (int t = 0; t < threads; t++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          int redeemed = 0;
+          for (int i = 0; i < attemptsPerThread; i++) {
+            if (counter.tryRedeem()) {
+              redeemed++;
+            }
+          }
+          return redeemed;
+        }));
+      }
+      start.countDown();
+
+      int redeemed = 0;
+      for (Future<Integer> result : results) {
+        redeemed += result.get(30, TimeUnit.SECONDS);
+      }
+
+      assertEquals(5000, redeemed);
+      assertEquals(5000, counter.drainUnflushed());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
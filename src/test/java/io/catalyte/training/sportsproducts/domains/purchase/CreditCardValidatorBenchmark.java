@@ -0,0 +1,79 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures card validation over a batch that mixes valid cards with the malformed input bots
+ * send. Run the main method to execute it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CreditCardValidatorBenchmark {
+
+  private static final int BATCH_SIZE = 1024;
+
+  private CreditCardValidator validator;
+  private CreditCard[] batch;
+  private CreditCard validCard;
+
+  @Setup
+  public void setup() {
+    validator = new CreditCardValidator();
+    validCard = new CreditCard("4111111111111111", "123", "12/35", "John Doe");
+
+    CreditCard[] samples = {
+        validCard,
+        new CreditCard("5555555555554444", "321", "01/34", "Jane Doe"),
+        new CreditCard("4111111111111112", "123", "12/35", "Bot"),
+        new CreditCard("4111111111111111", "123", "99/99", "Bot"),
+        new CreditCard("41111111", "1", "garbage", null),
+        new CreditCard("4111111111111111", "123", "01/20", "Expired"),
+        new CreditCard(null, null, null, null),
+        new CreditCard("3530111333300000", "123", "12/35", "Unsupported")
+    };
+
+    batch = new CreditCard[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      batch[i] = samples[i % samples.length];
+    }
+  }
+
+  @Benchmark
+  public List<String> validateValidCard() {
+    return validator.validate(validCard);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void validateMixedBatch(Blackhole blackhole) {
+    for (CreditCard card : batch) {
+      blackhole.consume(validator.validate(card));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(CreditCardValidatorBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
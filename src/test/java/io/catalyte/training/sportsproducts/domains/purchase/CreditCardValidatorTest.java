@@ -0,0 +1,123 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import io.catalyte.training.sportsproducts.domains.purchase.CreditCardValidator.CardBrand;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CreditCardValidatorTest {
+
+  private CreditCardValidator validatorAt(String instant) {
+    return new CreditCardValidator(Clock.fixed(Instant.parse(instant), ZoneOffset.UTC));
+  }
+
+  private CreditCard card(String cardNumber, String expiration) {
+    return new CreditCard(cardNumber, "123", expiration, "John Doe");
+  }
+
+  @Test
+  void testPassesLuhn() {
+    assertTrue(CreditCardValidator.passesLuhn("4111111111111111"));
+    assertTrue(CreditCardValidator.passesLuhn("5555555555554444"));
+    assertFalse(CreditCardValidator.passesLuhn("1234567890123456"));
+  }
+
+  @Test
+  void testDetectBrand() {
+    assertEquals(CardBrand.VISA, CreditCardValidator.detectBrand("4111111111111111"));
+    assertEquals(CardBrand.MASTERCARD, CreditCardValidator.detectBrand("5555555555554444"));
+    assertEquals(CardBrand.MASTERCARD, CreditCardValidator.detectBrand("2223003122003222"));
+    assertEquals(CardBrand.DISCOVER, CreditCardValidator.detectBrand("6011111111111117"));
+    assertNull(CreditCardValidator.detectBrand("3530111333300000"));
+  }
+
+  @Test
+  void testParseExpiration_RejectsMalformedInput() {
+    assertEquals(2026 * 12 + 11, CreditCardValidator.parseExpiration("12/26"));
+    assertEquals(-1, CreditCardValidator.parseExpiration("00/26"));
+    assertEquals(-1, CreditCardValidator.parseExpiration("1/26"));
+    assertEquals(-1, CreditCardValidator.parseExpiration("12-26"));
+    assertEquals(-1, CreditCardValidator.parseExpiration("ab/cd"));
+  }
+
+  @Test
+  void testValidate_CardIsValidThroughLastDayOfExpirationMonth() {
+    CreditCardValidator validator = validatorAt("2026-10-31T23:59:59Z");
+
+    assertTrue(validator.validate(card("4111111111111111", "10/26")).isEmpty());
+  }
+
+  @Test
+  void testValidate_CardExpiresWhenMonthEnds() {
+    CreditCardValidator validator = validatorAt("2026-11-01T00:00:00Z");
+
+    List<String> errors = validator.validate(card("4111111111111111", "10/26"));
+
+    assertEquals(1, errors.size());
+    assertEquals("Credit card is expired.", errors.get(0));
+  }
+
+  @Test
+  void testValidate_CachedMonthFollowsTheClock() {
+    Instant endOfOctober = Instant.parse("2026-10-31T23:59:59Z");
+    MutableClock clock = new MutableClock(endOfOctober);
+    CreditCardValidator validator = new CreditCardValidator(clock);
+
+    assertTrue(validator.validate(card("4111111111111111", "10/26")).isEmpty());
+    clock.instant = endOfOctober.plusSeconds(1);
+    assertEquals("Credit card is expired.",
+        validator.validate(card("4111111111111111", "10/26")).get(0));
+  }
+
+  @Test
+  void testValidate_UnsupportedBrand() {
+    List<String> errors = validatorAt("2026-10-19T12:00:00Z")
+        .validate(card("3530111333300000", "12/30"));
+
+    assertEquals(1, errors.size());
+    assertEquals("Credit card type is not supported.", errors.get(0));
+  }
+
+  @Test
+  void testValidate_NonDigitCardNumber() {
+    List<String> errors = validatorAt("2026-10-19T12:00:00Z")
+        .validate(card("4111-1111-1111-1", "12/30"));
+
+    assertEquals("Credit card number must have 16 digits.", errors.get(0));
+  }
+
+  /**
+   * A clock that tests can move
+   */
+  private static class MutableClock extends Clock {
+
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
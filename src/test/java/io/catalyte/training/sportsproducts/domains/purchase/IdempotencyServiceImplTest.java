@@ -0,0 +1,231 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.sportsproducts.journal.OrderJournal;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IdempotencyServiceImplTest {
+
+  private IdempotencyServiceImpl idempotencyService;
+
+  @Mock
+  private IdempotencyRecordRepository idempotencyRecordRepository;
+
+  @Mock
+  private OrderJournal orderJournal;
+
+  private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  private Purchase request;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.initMocks(this);
+    idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, objectMapper,
+        orderJournal, 3600);
+    when(idempotencyRecordRepository.save(any(IdempotencyRecord.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    request = requestFrom("customer@example.com", "4111111111111111");
+  }
+
+  private Purchase purchaseWithId(long id) {
+    Purchase purchase = new Purchase();
+    purchase.setId(id);
+    return purchase;
+  }
+
+  private Purchase requestFrom(String email, String cardNumber) {
+    Purchase purchase = new Purchase();
+    purchase.getBillingAddress().setEmail(email);
+    purchase.getCreditCard().setCardNumber(cardNumber);
+    return purchase;
+  }
+
+  private IdempotencyRecord storedRecord(Purchase request) {
+    return new IdempotencyRecord("stored-key", idempotencyService.hashRequest(request),
+        Instant.now());
+  }
+
+  @Test
+  void testExecute_Replay_ReturnsOriginalPurchaseWithoutSavingAgain() {
+    AtomicInteger saves = new AtomicInteger();
+
+    Purchase first = idempotencyService.execute("key-1", request, () -> {
+      saves.incrementAndGet();
+      return purchaseWithId(1L);
+    });
+    Purchase replay = idempotencyService.execute("key-1", request, () -> {
+      saves.incrementAndGet();
+      return purchaseWithId(2L);
+    });
+
+    assertEquals(1, saves.get());
+    assertSame(first, replay);
+    // one claim insert and one response update, nothing for the replay
+    verify(idempotencyRecordRepository, times(2)).save(any(IdempotencyRecord.class));
+  }
+
+  @Test
+  void testExecute_ConcurrentDuplicates_AreCollapsed() throws Exception {
+    AtomicInteger saves = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    Future<?>[] results = new Future<?>[8];
+    for (int i = 0; i < results.length; i++) {
+      results[i] = executor.submit(() -> idempotencyService.execute("key-2", request, () -> {
+        saves.incrementAndGet();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return purchaseWithId(3L);
+      }));
+    }
+    release.countDown();
+
+    for (Future<?> result : results) {
+      assertEquals(3L, ((Purchase) result.get(5, TimeUnit.SECONDS)).getId());
+    }
+    executor.shutdown();
+
+    assertEquals(1, saves.get());
+  }
+
+  @Test
+  void testExecute_KeyClaimedElsewhere_ReplaysStoredResponse() throws Exception {
+    IdempotencyRecord stored = storedRecord(request);
+    stored.setResponseBody(objectMapper.writeValueAsString(purchaseWithId(4L)));
+    when(idempotencyRecordRepository.save(any(IdempotencyRecord.class)))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+    when(idempotencyRecordRepository.findByIdempotencyKey(anyString()))
+        .thenReturn(Optional.of(stored));
+
+    Purchase replay = idempotencyService.execute("key-3", request, () -> purchaseWithId(5L));
+
+    assertEquals(4L, replay.getId());
+  }
+
+  @Test
+  void testExecute_KeyInProgressElsewhere_ReturnsConflict() {
+    when(idempotencyRecordRepository.save(any(IdempotencyRecord.class)))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+    when(idempotencyRecordRepository.findByIdempotencyKey(anyString()))
+        .thenReturn(Optional.of(storedRecord(request)));
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> idempotencyService.execute("key-4", request, () -> purchaseWithId(6L)));
+    assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+  }
+
+  @Test
+  void testExecute_FailedPurchase_ReleasesKeyForRetry() {
+    assertThrows(ResponseStatusException.class,
+        () -> idempotencyService.execute("key-5", request, () -> {
+          throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Credit card is expired.");
+        }));
+
+    Purchase retry = idempotencyService.execute("key-5", request, () -> purchaseWithId(7L));
+
+    assertEquals(7L, retry.getId());
+    verify(idempotencyRecordRepository).delete(any(IdempotencyRecord.class));
+  }
+
+  @Test
+  void testExecute_DatabaseUnavailable_DeduplicatesInMemory() {
+    when(idempotencyRecordRepository.save(any(IdempotencyRecord.class)))
+        .thenThrow(new CannotCreateTransactionException("connection refused"));
+    AtomicInteger saves = new AtomicInteger();
+
+    Purchase first = idempotencyService.execute("key-6", request, () -> {
+      saves.incrementAndGet();
+      return new Purchase();
+    });
+    Purchase replay = idempotencyService.execute("key-6", request, () -> {
+      saves.incrementAndGet();
+      return new Purchase();
+    });
+
+    assertSame(first, replay);
+    assertEquals(1, saves.get());
+  }
+
+  @Test
+  void testExecute_SameKeyDifferentPurchase_ReturnsUnprocessableEntity() {
+    idempotencyService.execute("key-7", request, () -> purchaseWithId(8L));
+
+    Purchase changed = requestFrom("customer@example.com", "5555555555554444");
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> idempotencyService.execute("key-7", changed, () -> purchaseWithId(9L)));
+    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus());
+  }
+
+  @Test
+  void testExecute_StoredRecordForDifferentPurchase_ReturnsUnprocessableEntity() {
+    IdempotencyRecord stored = storedRecord(requestFrom("customer@example.com", "5555"));
+    stored.setResponseBody("{}");
+    when(idempotencyRecordRepository.save(any(IdempotencyRecord.class)))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+    when(idempotencyRecordRepository.findByIdempotencyKey(anyString()))
+        .thenReturn(Optional.of(stored));
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> idempotencyService.execute("key-8", request, () -> purchaseWithId(10L)));
+    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus());
+  }
+
+  @Test
+  void testExecute_SameKeyFromAnotherCustomer_SavesBoth() {
+    Purchase first = idempotencyService.execute("key-9", request, () -> purchaseWithId(11L));
+    Purchase second = idempotencyService.execute("key-9",
+        requestFrom("other@example.com", "4111111111111111"), () -> purchaseWithId(12L));
+
+    assertEquals(11L, first.getId());
+    assertEquals(12L, second.getId());
+  }
+
+  @Test
+  void testExecute_StoredResponse_LeavesOutCreditCard() {
+    ArgumentCaptor<IdempotencyRecord> records = ArgumentCaptor.forClass(IdempotencyRecord.class);
+
+    idempotencyService.execute("key-10", request, () -> {
+      Purchase saved = requestFrom("customer@example.com", "4111111111111111");
+      saved.setId(13L);
+      return saved;
+    });
+
+    verify(idempotencyRecordRepository, times(2)).save(records.capture());
+    String responseBody = records.getAllValues().get(1).getResponseBody();
+    assertTrue(responseBody.contains("\"id\":13"));
+    assertFalse(responseBody.contains("4111111111111111"));
+    assertFalse(responseBody.contains("creditCard"));
+  }
+}
@@ -0,0 +1,80 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import io.catalyte.training.sportsproducts.domains.promocode.Promocode;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures pricing of large carts against a warm price table. Run the main method to execute it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PricingEngineBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int cartSize;
+
+  private PricingEngine pricingEngine;
+  private List<LineItem> lineItems;
+  private Promocode promocode;
+
+  @Setup
+  public void setup() {
+    PriceTable priceTable = new PriceTable(null);
+    pricingEngine = new PricingEngine(priceTable, null);
+    lineItems = new ArrayList<>(cartSize);
+
+    for (int i = 0; i < cartSize; i++) {
+      Product product = new Product();
+      product.setId((long) i);
+      product.setName("Product " + i);
+      product.setPrice(BigDecimal.valueOf(100 + i % 50000, 2));
+      product.setActive(true);
+      priceTable.put(product);
+
+      LineItem lineItem = new LineItem();
+      lineItem.setProduct(product);
+      lineItem.setQuantity(1 + i % 3);
+      lineItems.add(lineItem);
+    }
+
+    promocode = new Promocode("SAVE15", "15 percent off", "percent", BigDecimal.valueOf(15));
+  }
+
+  @Benchmark
+  public Quote quoteWithoutPromocode() {
+    return pricingEngine.quote(lineItems, null);
+  }
+
+  @Benchmark
+  public Quote quoteWithPromocode() {
+    return pricingEngine.quote(lineItems, promocode);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PricingEngineBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
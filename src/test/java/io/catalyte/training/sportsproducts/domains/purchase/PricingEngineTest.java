@@ -0,0 +1,174 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import io.catalyte.training.sportsproducts.domains.product.Product;
+import io.catalyte.training.sportsproducts.domains.product.ProductRepository;
+import io.catalyte.training.sportsproducts.domains.promocode.EligibilityRule;
+import io.catalyte.training.sportsproducts.domains.promocode.Promocode;
+import io.catalyte.training.sportsproducts.domains.promocode.PromocodeService;
+import io.catalyte.training.sportsproducts.exceptions.ResourceNotFound;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PricingEngineTest {
+
+  private PricingEngine pricingEngine;
+
+  @Mock
+  private ProductRepository productRepository;
+
+  @Mock
+  private PromocodeService promocodeService;
+
+  private Product shirt;
+  private Product shoe;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.initMocks(this);
+    pricingEngine = new PricingEngine(new PriceTable(productRepository), promocodeService);
+
+    shirt = product(1L, "Shirt", "19.99");
+    shoe = product(2L, "Shoe", "120.50");
+    shirt.setCategory("Apparel");
+    shoe.setCategory("Footwear");
+    when(productRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(shirt, shoe));
+  }
+
+  private Product product(Long id, String name, String price) {
+    Product product = new Product();
+    product.setId(id);
+    product.setName(name);
+    product.setPrice(new BigDecimal(price));
+    product.setActive(true);
+    return product;
+  }
+
+  private Purchase cart(String promocode) {
+    LineItem shirts = new LineItem();
+    shirts.setProduct(shirt);
+    shirts.setQuantity(3);
+    LineItem shoes = new LineItem();
+    shoes.setProduct(shoe);
+    shoes.setQuantity(1);
+
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>(Arrays.asList(shirts, shoes)));
+    purchase.setPromocode(promocode);
+    return purchase;
+  }
+
+  @Test
+  void testQuote_WithoutPromocode_SumsLineItems() {
+    Quote quote = pricingEngine.quote(cart(null));
+
+    assertEquals(new BigDecimal("180.47"), quote.getSubtotal());
+    assertEquals(new BigDecimal("0.00"), quote.getDiscount());
+    assertEquals(new BigDecimal("180.47"), quote.getTotal());
+    assertEquals(4, quote.getItemCount());
+  }
+
+  @Test
+  void testQuote_LoadsPricesOnceAndCachesThem() {
+    pricingEngine.quote(cart(null));
+    pricingEngine.quote(cart(null));
+
+    verify(productRepository, times(1)).findAllById(anyCollection());
+  }
+
+  @Test
+  void testQuote_WithPercentPromocode_RoundsHalfUp() {
+    when(promocodeService.getPromoCodeByTitle("SAVE15"))
+        .thenReturn(new Promocode("SAVE15", "15 percent off", "percent", BigDecimal.valueOf(15)));
+
+    Quote quote = pricingEngine.quote(cart("SAVE15"));
+
+    // 15% of 180.47 is 27.0705
+    assertEquals(new BigDecimal("27.07"), quote.getDiscount());
+    assertEquals(new BigDecimal("153.40"), quote.getTotal());
+    assertEquals("SAVE15", quote.getPromocode());
+  }
+
+  @Test
+  void testQuote_WithFlatPromocode_NeverGoesBelowZero() {
+    Promocode flat = new Promocode("BIGFLAT", "500 off", "flat", new BigDecimal("500.00"));
+
+    List<LineItem> lineItems = Collections.singletonList(cart(null).getProducts().stream()
+        .filter(lineItem -> lineItem.getProduct() == shirt).findFirst().get());
+    Quote quote = pricingEngine.quote(lineItems, flat);
+
+    assertEquals(new BigDecimal("59.97"), quote.getDiscount());
+    assertEquals(new BigDecimal("0.00"), quote.getTotal());
+  }
+
+  @Test
+  void testQuote_WithEligibilityRule_DiscountsEligibleItemsOnly() {
+    Promocode footwear = new Promocode("SHOES10", "10 percent off shoes", "percent",
+        BigDecimal.valueOf(10));
+    footwear.setEligibility(categories("Footwear"));
+    when(promocodeService.getPromoCodeByTitle("SHOES10")).thenReturn(footwear);
+
+    Quote quote = pricingEngine.quote(cart("SHOES10"));
+
+    // 10% of the 120.50 shoe, not of the 180.47 cart
+    assertEquals(new BigDecimal("12.05"), quote.getDiscount());
+    assertEquals(new BigDecimal("180.47"), quote.getSubtotal());
+  }
+
+  @Test
+  void testQuote_WithNoEligibleItems_ThrowsBadRequest() {
+    Promocode golf = new Promocode("GOLF10", "10 percent off golf", "percent",
+        BigDecimal.valueOf(10));
+    golf.setEligibility(categories("Golf"));
+    when(promocodeService.getPromoCodeByTitle("GOLF10")).thenReturn(golf);
+
+    assertThrows(ResponseStatusException.class, () -> pricingEngine.quote(cart("GOLF10")));
+  }
+
+  @Test
+  void testQuote_BelowMinCartValue_ThrowsBadRequest() {
+    Promocode big = new Promocode("BIGCART", "20 off big carts", "flat", new BigDecimal("20.00"));
+    big.setMinCartValue(new BigDecimal("200.00"));
+    when(promocodeService.getPromoCodeByTitle("BIGCART")).thenReturn(big);
+
+    assertThrows(ResponseStatusException.class, () -> pricingEngine.quote(cart("BIGCART")));
+
+    big.setMinCartValue(new BigDecimal("180.47"));
+    assertEquals(new BigDecimal("20.00"), pricingEngine.quote(cart("BIGCART")).getDiscount());
+  }
+
+  private static EligibilityRule categories(String... categories) {
+    EligibilityRule rule = new EligibilityRule();
+    rule.setCategories(Arrays.asList(categories));
+    return rule;
+  }
+
+  @Test
+  void testQuote_WithUnknownPromocode_ThrowsBadRequest() {
+    when(promocodeService.getPromoCodeByTitle("NOPE")).thenThrow(new ResourceNotFound());
+
+    assertThrows(ResponseStatusException.class, () -> pricingEngine.quote(cart("NOPE")));
+  }
+
+  @Test
+  void testQuote_WithZeroQuantity_ThrowsBadRequest() {
+    Purchase purchase = cart(null);
+    purchase.getProducts().forEach(lineItem -> lineItem.setQuantity(0));
+
+    assertThrows(ResponseStatusException.class, () -> pricingEngine.quote(purchase));
+  }
+}
@@ -1,8 +1,14 @@
 package io.catalyte.training.sportsproducts.domains.purchase;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -31,5 +38,36 @@ public class PurchaseApiTest {
     mockMvc.perform(get("/purchases/"))
         .andExpect(status().isNotFound());
   }
+  @Test
+  public void exportPurchases_WithDateRange_StreamsCsv() throws Exception {
+    String today = LocalDate.now(ZoneOffset.UTC).toString();
+    MvcResult result = mockMvc.perform(get("/purchases/export")
+            .param("from", today).param("to", today))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    String csv = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    assertTrue(csv.startsWith(PurchaseExportService.HEADER));
+    assertTrue(csv.contains("bob@ross.com"));
+  }
+  @Test
+  public void exportPurchases_UsesTheConfiguredAsyncTimeout() throws Exception {
+    String today = LocalDate.now(ZoneOffset.UTC).toString();
+    MvcResult result = mockMvc.perform(get("/purchases/export")
+            .param("from", today).param("to", today))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    assertEquals(60 * 60 * 1000L, result.getRequest().getAsyncContext().getTimeout());
+    mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+  }
+  @Test
+  public void exportPurchases_WithoutDateRange_Returns400BadRequest() throws Exception {
+    mockMvc.perform(get("/purchases/export"))
+        .andExpect(status().isBadRequest());
+  }
 
 }
@@ -0,0 +1,128 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PurchaseExportServiceTest {
+
+  private static final LocalDate DAY = LocalDate.of(2026, 10, 1);
+
+  private DriverManagerDataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  private PurchaseExportService exportService;
+
+  @BeforeEach
+  void setup() {
+    dataSource = new DriverManagerDataSource("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1", "sa", "sa");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("CREATE TABLE product (id BIGINT PRIMARY KEY, name VARCHAR(255), "
+        + "price DECIMAL(10, 2))");
+    jdbcTemplate.execute("CREATE TABLE purchase (id BIGINT, created_at TIMESTAMP, "
+        + "email VARCHAR(255), promocode VARCHAR(255), subtotal DECIMAL(10, 2), "
+        + "discount DECIMAL(10, 2), total DECIMAL(10, 2))");
+    jdbcTemplate.execute("CREATE TABLE line_item (id BIGINT, purchase_id BIGINT, "
+        + "created_at TIMESTAMP, product_id BIGINT, quantity INT)");
+    jdbcTemplate.update("INSERT INTO product VALUES (1, 'Ball', 10.00), (2, 'Cleat, Pro', 55.50)");
+
+    exportService = new PurchaseExportService(dataSource,
+        new DataSourceTransactionManager(dataSource), 100);
+  }
+
+  @AfterEach
+  void teardown() {
+    jdbcTemplate.execute("DROP ALL OBJECTS");
+  }
+
+  @Test
+  void testExportCsv_PurchaseWithSeveralLineItems_WritesOneRowPerLineItem() throws Exception {
+    LocalDateTime createdAt = DAY.atTime(9, 30);
+    insertPurchase(1, createdAt, "bob@ross.com");
+    jdbcTemplate.update("INSERT INTO line_item VALUES (10, 1, ?, 1, 2), (11, 1, ?, 2, 1), "
+        + "(12, 1, ?, 1, 3)", createdAt, createdAt, createdAt);
+
+    List<String> lines = export(DAY, DAY);
+
+    assertEquals(4, lines.size());
+    assertEquals(PurchaseExportService.HEADER, lines.get(0));
+    assertEquals("1,2026-10-01T09:30:00Z,bob@ross.com,,65.50,0.00,65.50,10,1,Ball,2,10.00",
+        lines.get(1));
+    assertEquals("1,2026-10-01T09:30:00Z,bob@ross.com,,65.50,0.00,65.50,11,2,\"Cleat, Pro\",1,"
+        + "55.50", lines.get(2));
+    assertTrue(lines.get(3).endsWith(",12,1,Ball,3,10.00"));
+  }
+
+  @Test
+  void testExportCsv_ManyPurchases_StreamsEveryRowInOrder() throws Exception {
+    int purchases = 20_000;
+    List<Object[]> rows = new ArrayList<>(purchases);
+    for (int i = 1; i <= purchases; i++) {
+      rows.add(new Object[]{i, DAY.atStartOfDay().plusSeconds(i), "buyer" + i + "@example.com"});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO purchase VALUES (?, ?, ?, NULL, 65.50, 0.00, 65.50)",
+        rows);
+
+    List<String> lines = export(DAY, DAY);
+
+    // the header, then every purchase after the fetch size has been crossed many times
+    assertEquals(purchases + 1, lines.size());
+    assertTrue(lines.get(1).startsWith("1,"));
+    assertTrue(lines.get(purchases).startsWith(purchases + ","));
+  }
+
+  @Test
+  void testExportCsv_OutsideRange_WritesOnlyTheHeader() throws Exception {
+    insertPurchase(1, DAY.plusDays(1).atStartOfDay(), "bob@ross.com");
+
+    List<String> lines = export(DAY, DAY);
+
+    assertEquals(1, lines.size());
+  }
+
+  @Test
+  void testEscape_PlainValuesAreUnchanged() {
+    assertEquals("bob@ross.com", PurchaseExportService.escape("bob@ross.com"));
+    assertEquals("-12.50", PurchaseExportService.escape("-12.50"));
+  }
+
+  @Test
+  void testEscape_QuotesSeparatorsAndQuotes() {
+    assertEquals("\"Shoe, \"\"Pro\"\"\"", PurchaseExportService.escape("Shoe, \"Pro\""));
+  }
+
+  @Test
+  void testEscape_DefusesFormulas() {
+    assertEquals("'=SUM(A1:A2)", PurchaseExportService.escape("=SUM(A1:A2)"));
+    assertEquals("'@cmd", PurchaseExportService.escape("@cmd"));
+  }
+
+  private void insertPurchase(long id, LocalDateTime createdAt, String email) {
+    jdbcTemplate.update("INSERT INTO purchase VALUES (?, ?, ?, NULL, 65.50, 0.00, 65.50)", id,
+        createdAt, email);
+  }
+
+  private List<String> export(LocalDate from, LocalDate to) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exportService.exportCsv(from, to).writeTo(out);
+
+    List<String> lines = new ArrayList<>();
+    for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+      lines.add(line);
+    }
+    return lines;
+  }
+}
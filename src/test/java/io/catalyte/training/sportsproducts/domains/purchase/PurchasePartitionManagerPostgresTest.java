@@ -0,0 +1,136 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the partition manager against a real Postgres, since H2 has no declarative partitioning.
+ * Set PURCHASES_POSTGRES_URL (and PURCHASES_POSTGRES_USER and PURCHASES_POSTGRES_PASSWORD if they
+ * are not postgres) to a scratch database to run it; the purchase tables in it are dropped.
+ */
+@EnabledIfEnvironmentVariable(named = "PURCHASES_POSTGRES_URL", matches = ".+")
+public class PurchasePartitionManagerPostgresTest {
+
+  private final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+  private DriverManagerDataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setup() {
+    dataSource = new DriverManagerDataSource(System.getenv("PURCHASES_POSTGRES_URL"),
+        env("PURCHASES_POSTGRES_USER"), env("PURCHASES_POSTGRES_PASSWORD"));
+    jdbcTemplate = new JdbcTemplate(dataSource);
+
+    for (String table : jdbcTemplate.queryForList("SELECT relname FROM pg_class "
+        + "WHERE relkind IN ('r', 'p') AND (relname LIKE 'purchase%' OR relname LIKE 'line_item%')",
+        String.class)) {
+      jdbcTemplate.execute("DROP TABLE IF EXISTS " + table + " CASCADE");
+    }
+    jdbcTemplate.execute("DROP TABLE IF EXISTS product CASCADE");
+
+    // the shape Hibernate creates
+    jdbcTemplate.execute("CREATE TABLE product (id bigserial PRIMARY KEY)");
+    jdbcTemplate.execute("CREATE TABLE purchase (id bigserial PRIMARY KEY, "
+        + "created_at timestamp NOT NULL, email varchar(255))");
+    jdbcTemplate.execute("CREATE TABLE line_item (id bigserial PRIMARY KEY, "
+        + "created_at timestamp NOT NULL, quantity integer, "
+        + "purchase_id bigint REFERENCES purchase (id), "
+        + "product_id bigint REFERENCES product (id))");
+    jdbcTemplate.update("INSERT INTO product DEFAULT VALUES");
+  }
+
+  @Test
+  void testInitialize_ConvertsTablesAndKeepsRows() {
+    long purchaseId = insertPurchase(current);
+
+    manager(3, 24).initialize();
+
+    for (String table : PurchasePartitionManager.PARTITIONED_TABLES) {
+      List<String> partitions = partitions(table);
+      assertTrue(partitions.contains(table + "_default"));
+      for (int i = -1; i <= 3; i++) {
+        assertTrue(partitions.contains(
+            PurchasePartitionManager.partitionName(table, current.plusMonths(i))));
+      }
+    }
+    assertEquals(1, count(PurchasePartitionManager.partitionName("purchase", current)));
+    assertEquals(1, count(PurchasePartitionManager.partitionName("line_item", current)));
+
+    // the id sequence carries on after the conversion
+    assertTrue(insertPurchase(current) > purchaseId);
+  }
+
+  @Test
+  void testMaintainPartitions_MovesRowsOutOfTheDefaultPartition() {
+    manager(3, 24).initialize();
+    YearMonth later = current.plusMonths(6);
+    insertPurchase(later);
+    assertEquals(1, count("purchase_default"));
+
+    manager(6, 24).maintainPartitions();
+
+    assertEquals(0, count("purchase_default"));
+    assertEquals(0, count("line_item_default"));
+    assertEquals(1, count(PurchasePartitionManager.partitionName("purchase", later)));
+    assertEquals(1, count(PurchasePartitionManager.partitionName("line_item", later)));
+    assertEquals(2, count("purchase"));
+    assertTrue(partitions("purchase").contains("purchase_default"));
+  }
+
+  @Test
+  void testMaintainPartitions_DetachesPartitionsPastRetention() {
+    manager(3, 24).initialize();
+    String previous = PurchasePartitionManager.partitionName("purchase", current.minusMonths(1));
+
+    manager(3, 0).maintainPartitions();
+
+    assertFalse(partitions("purchase").contains(previous));
+    assertEquals(0, count(previous));
+  }
+
+  private PurchasePartitionManager manager(int monthsAhead, int retentionMonths) {
+    return new PurchasePartitionManager(dataSource, new DataSourceTransactionManager(dataSource),
+        true, monthsAhead, retentionMonths);
+  }
+
+  private long insertPurchase(YearMonth month) {
+    Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(month.getYear(),
+        month.getMonth(), 10, 12, 0));
+    Long id = jdbcTemplate.queryForObject("INSERT INTO purchase (created_at, email) "
+        + "VALUES (?, 'partition@example.com') RETURNING id", Long.class, createdAt);
+    jdbcTemplate.update("INSERT INTO line_item (created_at, quantity, purchase_id, product_id) "
+        + "VALUES (?, 1, ?, (SELECT min(id) FROM product))", createdAt, id);
+    return id;
+  }
+
+  private List<String> partitions(String table) {
+    return jdbcTemplate.queryForList("SELECT child.relname FROM pg_inherits i "
+        + "JOIN pg_class child ON child.oid = i.inhrelid "
+        + "JOIN pg_class parent ON parent.oid = i.inhparent "
+        + "WHERE parent.relname = ?", String.class, table);
+  }
+
+  private long count(String table) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+  }
+
+  private static String env(String name) {
+    String value = System.getenv(name);
+    return value == null ? "postgres" : value;
+  }
+}
@@ -0,0 +1,42 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import java.time.YearMonth;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class PurchasePartitionManagerTest {
+
+  @Test
+  void testPartitionName_RoundTripsMonth() {
+    String name = PurchasePartitionManager.partitionName("line_item", YearMonth.of(2026, 3));
+
+    assertEquals("line_item_y2026m03", name);
+    assertEquals(YearMonth.of(2026, 3), PurchasePartitionManager.monthOf(name));
+  }
+
+  @Test
+  void testMonthOf_DefaultPartition_IsNeverDetached() {
+    assertNull(PurchasePartitionManager.monthOf("purchase_default"));
+  }
+
+  @Test
+  void testInitialize_NotPostgres_LeavesTablesAlone() {
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    PurchasePartitionManager manager = new PurchasePartitionManager(
+        new DriverManagerDataSource("jdbc:h2:mem:partitions;DB_CLOSE_DELAY=-1", "sa", "sa"),
+        transactionManager, true, 3, 24);
+
+    manager.initialize();
+    manager.maintainPartitions();
+
+    verify(transactionManager, never()).getTransaction(any());
+  }
+}
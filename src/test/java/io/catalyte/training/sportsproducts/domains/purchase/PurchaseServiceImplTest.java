@@ -1,24 +1,43 @@
 package io.catalyte.training.sportsproducts.domains.purchase;
 
+import io.catalyte.training.sportsproducts.domains.analytics.AnalyticsService;
 import io.catalyte.training.sportsproducts.domains.product.Product;
 import io.catalyte.training.sportsproducts.domains.product.ProductService;
+import io.catalyte.training.sportsproducts.domains.promocode.PromocodeRedemptionTracker;
+import io.catalyte.training.sportsproducts.exceptions.ServerError;
+import io.catalyte.training.sportsproducts.journal.OrderJournal;
+import io.catalyte.training.sportsproducts.outbox.OutboxService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -38,6 +57,31 @@ public class PurchaseServiceImplTest {
   @Mock
   private LineItemRepository lineItemRepository;
 
+  @Mock
+  private PricingEngine pricingEngine;
+
+  @Mock
+  private PromocodeRedemptionTracker redemptionTracker;
+
+  @Spy
+  private CreditCardValidator creditCardValidator = new CreditCardValidator(
+      Clock.fixed(Instant.parse("2026-10-19T12:00:00Z"), ZoneOffset.UTC));
+
+  @Mock
+  private VelocityScreen velocityScreen;
+
+  @Mock
+  private AnalyticsService analyticsService;
+
+  @Mock
+  private OutboxService outboxService;
+
+  @Mock
+  private OrderJournal orderJournal;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
   @Mock
   private CreditCard validCreditCard;
 
@@ -45,9 +89,9 @@ public class PurchaseServiceImplTest {
   void setup() {
     MockitoAnnotations.initMocks(this);
     validCreditCard = new CreditCard();
-    validCreditCard.setCardNumber("1234567890123456");
+    validCreditCard.setCardNumber("4111111111111111");
     validCreditCard.setCvv("123");
-    validCreditCard.setExpiration("12/23");
+    validCreditCard.setExpiration("12/35");
     validCreditCard.setCardholder("John Doe");
   }
 
@@ -66,6 +110,14 @@ public class PurchaseServiceImplTest {
     assertEquals("Credit card number must have 16 digits.", errors.get(0));
   }
 
+  @Test
+  void testValidateCreditCard_failsLuhnCheck() {
+    validCreditCard.setCardNumber("4111111111111112");
+    List<String> errors = purchaseService.validateCreditCard(validCreditCard);
+    assertEquals(1, errors.size());
+    assertEquals("Credit card number is invalid.", errors.get(0));
+  }
+
   @Test
   void testValidateCreditCard_invalidCvv() {
     validCreditCard.setCvv("12");
@@ -90,6 +142,14 @@ public class PurchaseServiceImplTest {
     assertEquals("Credit card is expired.", errors.get(0));
   }
 
+  @Test
+  void testValidateCreditCard_malformedExpiration() {
+    validCreditCard.setExpiration("13/25");
+    List<String> errors = purchaseService.validateCreditCard(validCreditCard);
+    assertEquals(1, errors.size());
+    assertEquals("Expiration date must be in MM/yy format.", errors.get(0));
+  }
+
   @Test
   void testValidateCreditCard_missingCardholder() {
     validCreditCard.setCardholder(null);
@@ -116,6 +176,27 @@ public class PurchaseServiceImplTest {
     verify(purchaseRepository).findByBillingAddressEmail(email);
   }
 
+  @Test
+  void testFindPurchasesByEmail_WithDateRange_QueriesHalfOpenUtcRange() {
+    String email = "test@example.com";
+    List<Purchase> expectedPurchases = new ArrayList<>();
+    when(purchaseRepository.findByBillingAddressEmailAndCreatedAtRange(email,
+        Instant.parse("2026-09-01T00:00:00Z"), Instant.parse("2026-10-01T00:00:00Z")))
+        .thenReturn(expectedPurchases);
+
+    List<Purchase> actualPurchases = purchaseService.findPurchasesByEmail(email,
+        LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 30));
+
+    assertEquals(expectedPurchases, actualPurchases);
+    verify(purchaseRepository, never()).findByBillingAddressEmail(email);
+  }
+
+  @Test
+  void testFindPurchasesByEmail_WithFromAfterTo_ShouldThrowException() {
+    assertThrows(ResponseStatusException.class, () -> purchaseService.findPurchasesByEmail(
+        "test@example.com", LocalDate.of(2026, 10, 2), LocalDate.of(2026, 10, 1)));
+  }
+
   @Test
   void testFindPurchasesByEmail_WithInvalidEmail_ShouldThrowException() {
     String email = null;
@@ -160,11 +241,177 @@ public class PurchaseServiceImplTest {
     purchase.setCreditCard(validCreditCard); // Set the valid credit card
 
     when(productService.getProductById(1L)).thenReturn(product1);
+    when(pricingEngine.quote(purchase)).thenReturn(new Quote(null, 1999, 0, 1));
 
     Purchase savedPurchase = purchaseService.savePurchase(purchase);
 
     verify(purchaseRepository, times(1)).save(purchase);
     verify(lineItemRepository, times(1)).save(lineItem1);
+    verify(outboxService, times(1)).enqueuePurchaseCreated(purchase);
+    verify(transactionManager, times(1)).commit(any());
+    verify(analyticsService, times(1)).recordPurchase(purchase);
     assertEquals(purchase, savedPurchase);
+    assertEquals(new BigDecimal("19.99"), savedPurchase.getTotal());
+    assertEquals(savedPurchase.getCreatedAt(), lineItem1.getCreatedAt());
+  }
+
+  @Test
+  void testSavePurchase_RollupFails_ShouldRollBackPurchase() {
+    Purchase purchase = new Purchase();
+    LineItem lineItem1 = new LineItem();
+    Product product1 = new Product();
+    product1.setId(1L);
+    product1.setActive(true);
+    lineItem1.setProduct(product1);
+    purchase.setProducts(new HashSet<>(Collections.singletonList(lineItem1)));
+    purchase.setCreditCard(validCreditCard);
+
+    when(productService.getProductById(1L)).thenReturn(product1);
+    when(pricingEngine.quote(purchase)).thenReturn(new Quote(null, 1999, 0, 1));
+    doThrow(new DataIntegrityViolationException("constraint"))
+        .when(analyticsService).recordPurchase(purchase);
+
+    assertThrows(ServerError.class, () -> purchaseService.savePurchase(purchase));
+
+    verify(transactionManager, times(1)).rollback(any());
+    verify(transactionManager, never()).commit(any());
+    verify(orderJournal, never()).append(any(Purchase.class));
+  }
+
+  @Test
+  void testSavePurchase_OverVelocityLimit_ShouldThrowBeforeWriting() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>());
+    purchase.setCreditCard(validCreditCard);
+
+    doThrow(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS))
+        .when(velocityScreen).screen(purchase);
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> purchaseService.savePurchase(purchase));
+
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+    verify(pricingEngine, never()).quote(any(Purchase.class));
+    verify(transactionManager, never()).getTransaction(any());
+    verify(orderJournal, never()).append(any(Purchase.class));
+  }
+
+  @Test
+  void testSavePurchase_DatabaseUnavailable_ShouldJournalPurchase() {
+    Purchase purchase = new Purchase();
+    LineItem lineItem1 = new LineItem();
+    Product product1 = new Product();
+    product1.setId(1L);
+    product1.setActive(true);
+    lineItem1.setProduct(product1);
+    purchase.setProducts(new HashSet<>(Collections.singletonList(lineItem1)));
+    purchase.setCreditCard(validCreditCard);
+
+    when(pricingEngine.quote(purchase)).thenReturn(new Quote(null, 1999, 0, 1));
+    when(transactionManager.getTransaction(any()))
+        .thenThrow(new CannotCreateTransactionException("Connection refused"));
+
+    Purchase savedPurchase = purchaseService.savePurchase(purchase);
+
+    verify(orderJournal, times(1)).append(purchase);
+    verify(purchaseRepository, never()).save(any(Purchase.class));
+    verify(analyticsService, never()).recordPurchase(any(Purchase.class));
+    assertNull(savedPurchase.getId());
+  }
+
+  @Test
+  void testSavePurchase_DatabaseUnavailableWhilePricing_ShouldJournalUnpricedPurchase() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>());
+    purchase.setCreditCard(validCreditCard);
+
+    when(pricingEngine.quote(purchase))
+        .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+    Purchase savedPurchase = purchaseService.savePurchase(purchase);
+
+    verify(orderJournal, times(1)).append(purchase);
+    verify(redemptionTracker, never()).redeem(any(), any());
+    assertNull(savedPurchase.getId());
+    assertNull(savedPurchase.getTotal());
+  }
+
+  @Test
+  void testReplayPurchase_Unpriced_ShouldPriceAndRedeemBeforeSaving() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>());
+    purchase.setCreditCard(validCreditCard);
+
+    when(pricingEngine.quote(purchase)).thenReturn(new Quote("SAVE10", 1000, 100, 1));
+
+    purchaseService.replayPurchase(purchase);
+
+    assertNotNull(purchase.getTotal());
+    verify(redemptionTracker, times(1)).redeem("SAVE10", null);
+    verify(purchaseRepository, times(1)).save(purchase);
+  }
+
+  @Test
+  void testSavePurchase_WithPromocode_ShouldRedeemBeforeSaving() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>());
+    purchase.setCreditCard(validCreditCard);
+    BillingAddress billingAddress = new BillingAddress();
+    billingAddress.setEmail("buyer@example.com");
+    purchase.setBillingAddress(billingAddress);
+
+    when(pricingEngine.quote(purchase)).thenReturn(new Quote("SAVE10", 1000, 100, 1));
+
+    purchaseService.savePurchase(purchase);
+
+    verify(redemptionTracker, times(1)).redeem("SAVE10", "buyer@example.com");
+    verify(redemptionTracker, never()).release(any(), any());
+  }
+
+  @Test
+  void testSavePurchase_SaveFails_ShouldReleaseRedemption() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>());
+    purchase.setCreditCard(validCreditCard);
+
+    when(pricingEngine.quote(purchase)).thenReturn(new Quote("SAVE10", 1000, 100, 1));
+    when(purchaseRepository.save(purchase))
+        .thenThrow(new DataIntegrityViolationException("constraint"));
+
+    assertThrows(ServerError.class, () -> purchaseService.savePurchase(purchase));
+
+    verify(redemptionTracker, times(1)).redeem("SAVE10", null);
+    verify(redemptionTracker, times(1)).release("SAVE10", null);
+  }
+
+  @Test
+  void testSavePurchase_PromocodeLimitReached_ShouldNotSave() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>());
+    purchase.setCreditCard(validCreditCard);
+
+    when(pricingEngine.quote(purchase)).thenReturn(new Quote("SAVE10", 1000, 100, 1));
+    doThrow(new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY))
+        .when(redemptionTracker).redeem("SAVE10", null);
+
+    assertThrows(ResponseStatusException.class, () -> purchaseService.savePurchase(purchase));
+
+    verify(transactionManager, never()).getTransaction(any());
+    verify(redemptionTracker, never()).release(any(), any());
+  }
+
+  @Test
+  void testSavePurchase_WhileJournalHasPending_ShouldJournalWithoutDatabase() {
+    Purchase purchase = new Purchase();
+    purchase.setProducts(new HashSet<>());
+    purchase.setCreditCard(validCreditCard);
+
+    when(pricingEngine.quote(purchase)).thenReturn(new Quote(null, 0, 0, 0));
+    when(orderJournal.hasPending()).thenReturn(true);
+
+    purchaseService.savePurchase(purchase);
+
+    verify(orderJournal, times(1)).append(purchase);
+    verify(transactionManager, never()).getTransaction(any());
   }
 }
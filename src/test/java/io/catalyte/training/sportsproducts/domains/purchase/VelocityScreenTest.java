@@ -0,0 +1,194 @@
+package io.catalyte.training.sportsproducts.domains.purchase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class VelocityScreenTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000L);
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private VelocityScreen velocityScreen;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    velocityScreen = new VelocityScreen(meterRegistry, 60, 12, 3, 5, 100, now::get);
+  }
+
+  @Test
+  void screen_UnderLimit_Passes() {
+    for (int i = 0; i < 3; i++) {
+      velocityScreen.screen(purchase("4111111111111111", "buyer" + i + "@example.com"));
+    }
+  }
+
+  @Test
+  void screen_CardOverLimit_ThrowsTooManyRequests() {
+    for (int i = 0; i < 3; i++) {
+      velocityScreen.screen(purchase("4111111111111111", "buyer" + i + "@example.com"));
+    }
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> velocityScreen.screen(purchase("4111111111111111", "other@example.com")));
+
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+    assertEquals(1.0, meterRegistry.get("purchases.velocity.rejected").tag("key", "card")
+        .counter().count());
+  }
+
+  @Test
+  void screen_EmailOverLimit_IgnoresCaseAndThrows() {
+    for (int i = 0; i < 5; i++) {
+      velocityScreen.screen(purchase("411111111111111" + i, "Buyer@Example.com"));
+    }
+
+    assertThrows(ResponseStatusException.class,
+        () -> velocityScreen.screen(purchase("5555555555554444", "buyer@example.com")));
+    assertEquals(1.0, meterRegistry.get("purchases.velocity.rejected").tag("key", "email")
+        .counter().count());
+  }
+
+  @Test
+  void screen_RejectedAttempt_IsNotCountedAgainstTheOtherKey() {
+    for (int i = 0; i < 3; i++) {
+      velocityScreen.screen(purchase("4111111111111111", "first@example.com"));
+    }
+    assertThrows(ResponseStatusException.class,
+        () -> velocityScreen.screen(purchase("4111111111111111", "second@example.com")));
+
+    for (int i = 0; i < 3; i++) {
+      velocityScreen.screen(purchase("5555555555554444", "second@example.com"));
+    }
+  }
+
+  @Test
+  void screen_ConcurrentCardRejections_GiveBackTheEmailSlot() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger accepted = new AtomicInteger();
+    List<Future<?>> attempts = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < 40; i++) {
+        attempts.add(executor.submit(() -> {
+          start.await();
+          try {
+            velocityScreen.screen(purchase("4111111111111111", "buyer@example.com"));
+            accepted.incrementAndGet();
+          } catch (ResponseStatusException e) {
+            // over the card limit
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> attempt : attempts) {
+        attempt.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(3, accepted.get());
+    // only the 3 accepted orders count against the email limit of 5
+    velocityScreen.screen(purchase("5555555555554444", "buyer@example.com"));
+    velocityScreen.screen(purchase("5555555555554444", "buyer@example.com"));
+    assertThrows(ResponseStatusException.class,
+        () -> velocityScreen.screen(purchase("5555555555554444", "buyer@example.com")));
+  }
+
+  @Test
+  void screen_AfterWindowSlides_PassesAgain() {
+    for (int i = 0; i < 3; i++) {
+      velocityScreen.screen(purchase("4111111111111111", "buyer@example.com"));
+      now.addAndGet(10_000);
+    }
+    assertThrows(ResponseStatusException.class,
+        () -> velocityScreen.screen(purchase("4111111111111111", "buyer@example.com")));
+
+    // the first order leaves the 60 second window
+    now.addAndGet(31_000);
+    velocityScreen.screen(purchase("4111111111111111", "buyer@example.com"));
+  }
+
+  @Test
+  void screen_MoreKeysThanTracked_StillScreensActiveCard() {
+    for (int i = 0; i < 3; i++) {
+      velocityScreen.screen(purchase("4111111111111111", "buyer@example.com"));
+    }
+    for (int i = 0; i < 1000; i++) {
+      velocityScreen.screen(purchase(String.valueOf(5_000_000_000_000_000L + i),
+          "flood" + i + "@example.com"));
+      if (i % 10 == 0) {
+        assertThrows(ResponseStatusException.class,
+            () -> velocityScreen.screen(purchase("4111111111111111", "buyer@example.com")));
+      }
+    }
+
+    // a card never seen before is screened even though the windows are full
+    for (int i = 0; i < 3; i++) {
+      velocityScreen.screen(purchase("4012888888881881", "new" + i + "@example.com"));
+    }
+    assertThrows(ResponseStatusException.class,
+        () -> velocityScreen.screen(purchase("4012888888881881", "last@example.com")));
+  }
+
+  @Test
+  void slidingWindowCounter_ResetsBucketsWhenTheRingWraps() {
+    SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 12);
+
+    assertTrue(counter.tryAdd(0, 2));
+    assertTrue(counter.tryAdd(1_000, 2));
+    assertFalse(counter.tryAdd(2_000, 2));
+    assertEquals(2, counter.count(59_999));
+
+    // same bucket index one full window later
+    assertEquals(0, counter.count(60_000));
+    assertTrue(counter.tryAdd(60_000, 1));
+    assertEquals(1, counter.count(60_000));
+    assertFalse(counter.isIdle(60_000));
+    assertTrue(counter.isIdle(125_000));
+  }
+
+  @Test
+  void slidingWindowCounter_Remove_FreesTheSlot() {
+    SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 12);
+
+    assertTrue(counter.tryAdd(1_000, 1));
+    counter.remove(1_000);
+
+    assertTrue(counter.isIdle(1_000));
+    assertTrue(counter.tryAdd(1_000, 1));
+  }
+
+  private Purchase purchase(String cardNumber, String email) {
+    CreditCard creditCard = new CreditCard();
+    creditCard.setCardNumber(cardNumber);
+
+    BillingAddress billingAddress = new BillingAddress();
+    billingAddress.setEmail(email);
+
+    Purchase purchase = new Purchase();
+    purchase.setCreditCard(creditCard);
+    purchase.setBillingAddress(billingAddress);
+    return purchase;
+  }
+}
@@ -0,0 +1,70 @@
+package io.catalyte.training.sportsproducts.domains.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class UserCacheTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private final UserCache cache = new UserCache(160, 1000, now::get);
+
+  private User user(String email) {
+    return new User(1L, email, "Customer", "Jane", "Doe");
+  }
+
+  @Test
+  public void normalize_TrimsAndLowercases() {
+    assertEquals("jane@example.com", UserCache.normalize("  Jane@Example.COM "));
+    assertNull(UserCache.normalize(null));
+  }
+
+  @Test
+  public void get_ReturnsCopyUntilExpiry() {
+    User user = user("jane@example.com");
+    cache.put(user, cache.generation());
+
+    User cached = cache.get("jane@example.com");
+    assertEquals("Jane", cached.getFirstName());
+    assertNotSame(user, cached);
+
+    cached.setFirstName("Changed");
+    assertEquals("Jane", cache.get("jane@example.com").getFirstName());
+
+    now.addAndGet(1000);
+    assertNull(cache.get("jane@example.com"));
+  }
+
+  @Test
+  public void invalidate_DropsUser() {
+    cache.put(user("jane@example.com"), cache.generation());
+
+    cache.invalidate("jane@example.com");
+
+    assertNull(cache.get("jane@example.com"));
+  }
+
+  @Test
+  public void put_AfterInvalidationDuringLoad_Skipped() {
+    long generation = cache.generation();
+    cache.invalidate("jane@example.com");
+
+    cache.put(user("jane@example.com"), generation);
+
+    assertNull(cache.get("jane@example.com"));
+  }
+
+  @Test
+  public void put_BeyondCapacity_EvictsLeastRecentlyUsed() {
+    for (int i = 0; i < 10_000; i++) {
+      cache.put(user("user" + i + "@example.com"), cache.generation());
+    }
+
+    assertTrue(cache.size() <= 160);
+    assertEquals("user9999@example.com", cache.get("user9999@example.com").getEmail());
+  }
+}
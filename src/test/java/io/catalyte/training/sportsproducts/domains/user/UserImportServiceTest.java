@@ -0,0 +1,122 @@
+package io.catalyte.training.sportsproducts.domains.user;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.catalyte.training.sportsproducts.domains.user.UserImportService.Format;
+import io.catalyte.training.sportsproducts.domains.user.UserImportResult.RejectedRow;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"users.import.batch-size=100", "users.import.max-rejected-rows=5"})
+public class UserImportServiceTest {
+
+  private static final int COUNT = 1_050;
+
+  @Autowired
+  private UserImportService userImportService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  private static InputStream body(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private long countWithPrefix(String prefix) {
+    return userRepository.findAll().stream()
+        .filter(user -> user.getEmail() != null && user.getEmail().startsWith(prefix)).count();
+  }
+
+  @Test
+  public void importNdjson_InsertsInBatches() {
+    StringBuilder ndjson = new StringBuilder();
+    for (int i = 0; i < COUNT; i++) {
+      ndjson.append("{\"email\":\"Ndjson").append(i)
+          .append("@Example.com\",\"firstName\":\"First\",\"lastName\":\"Last\"}\n");
+    }
+
+    UserImportResult result = userImportService.importUsers(body(ndjson.toString()),
+        Format.NDJSON);
+
+    assertEquals(COUNT, result.getReceived());
+    assertEquals(COUNT, result.getImported());
+    assertEquals(0, result.getRejected());
+    assertEquals(COUNT, countWithPrefix("ndjson"));
+
+    User user = userRepository.findByEmail("ndjson7@example.com");
+    assertEquals("Customer", user.getRole());
+    assertEquals("First", user.getFirstName());
+  }
+
+  @Test
+  public void importCsv_ReportsDuplicatesAndInvalidRows() {
+    userRepository.save(new User("csv-existing@example.com", "Customer", "Already", "Here"));
+
+    String csv = "Email,First_Name,Last_Name\n"
+        + "csv1@example.com,\"Smith, Jr.\",\"O\"\"Brien\"\n"
+        + "CSV1@example.com,Again,Duplicate\n"
+        + "csv-existing@example.com,Taken,Email\n"
+        + "not-an-email,Bad,Email\n"
+        + "\n"
+        + ",Missing,Email\n"
+        + "csv2@example.com,\"Unterminated,Quote\n"
+        + "csv3@example.com,Last,Row\n";
+
+    UserImportResult result = userImportService.importUsers(body(csv), Format.CSV);
+
+    assertEquals(7, result.getReceived());
+    assertEquals(2, result.getImported());
+    assertEquals(2, result.getDuplicates());
+    assertEquals(5, result.getRejected());
+    assertFalse(result.isTruncated());
+    assertEquals(3, countWithPrefix("csv"));
+
+    User user = userRepository.findByEmail("csv1@example.com");
+    assertEquals("Smith, Jr.", user.getFirstName());
+    assertEquals("O\"Brien", user.getLastName());
+    assertEquals("Here", userRepository.findByEmail("csv-existing@example.com").getLastName());
+
+    // ROWS TAKEN IN THE DATABASE ARE FOUND WHEN THEIR BATCH IS INSERTED
+    List<RejectedRow> rows = result.getRejectedRows();
+    assertEquals(3, rows.get(0).getLine());
+    assertEquals("Email is taken", rows.get(0).getReason());
+    assertEquals("not-an-email", rows.get(1).getEmail());
+    assertEquals("Email is not valid", rows.get(1).getReason());
+    assertEquals(8, rows.get(3).getLine());
+    assertEquals(4, rows.get(4).getLine());
+    assertEquals("Email is taken", rows.get(4).getReason());
+  }
+
+  @Test
+  public void importNdjson_CapsRejectedRowsReported() {
+    StringBuilder ndjson = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      ndjson.append("not json\n");
+    }
+
+    UserImportResult result = userImportService.importUsers(body(ndjson.toString()),
+        Format.NDJSON);
+
+    assertEquals(20, result.getRejected());
+    assertEquals(5, result.getRejectedRows().size());
+    assertEquals("Row is not valid JSON", result.getRejectedRows().get(0).getReason());
+  }
+
+  @Test
+  public void parseCsvLine_HandlesQuotedFields() {
+    assertEquals(Arrays.asList("a", "b,c", "d\"e", ""),
+        UserImportService.parseCsvLine("a,\"b,c\",\"d\"\"e\","));
+    assertTrue(UserImportService.parseHeader("email,firstName").containsKey("firstname"));
+  }
+}
@@ -0,0 +1,120 @@
+package io.catalyte.training.sportsproducts.domains.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class UserServiceImplTest {
+
+  private UserServiceImpl userService;
+
+  @Mock
+  private UserRepository userRepository;
+
+  private final User stored = new User(1L, "jane@example.com", "Customer", "Jane", "Doe");
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.initMocks(this);
+    userService = new UserServiceImpl(userRepository, 100, 300);
+    when(userRepository.findByEmail("jane@example.com")).thenReturn(stored);
+    when(userRepository.findById(1L)).thenReturn(Optional.of(stored));
+    when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  void getUserByEmail_RepeatLookups_QueryOnce() {
+    userService.getUserByEmail("jane@example.com");
+    userService.getUserByEmail("Jane@Example.com");
+    User user = userService.getUserByEmail("jane@example.com");
+
+    assertEquals("Jane", user.getFirstName());
+    verify(userRepository, times(1)).findByEmail("jane@example.com");
+  }
+
+  @Test
+  void updateUser_InvalidatesCachedUser() {
+    userService.getUserByEmail("jane@example.com");
+
+    User updated = new User(1L, "jane@example.com", "Customer", "Janet", "Doe");
+    when(userRepository.findByEmail("jane@example.com")).thenReturn(updated);
+    userService.updateUser("jane@example.com", 1L, updated);
+
+    assertEquals("Janet", userService.getUserByEmail("jane@example.com").getFirstName());
+    verify(userRepository, times(2)).findByEmail("jane@example.com");
+  }
+
+  @Test
+  void updateUser_EmailTaken_Returns409() {
+    when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException(
+        "duplicate key", new SQLException("duplicate key", "23505")));
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> userService.updateUser("jane@example.com", 1L,
+            new User(1L, "jane@example.com", "Customer", "Jane", "Doe")));
+
+    assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+  }
+
+  @Test
+  void createUser_StoresNormalizedEmail() {
+    User created = userService.createUser("new@example.com",
+        new User(" New@Example.com", null, "New", "User"));
+
+    assertEquals("new@example.com", created.getEmail());
+    assertEquals("Customer", created.getRole());
+    verify(userRepository, never()).findByEmail(anyString());
+  }
+
+  @Test
+  void createUser_UniqueViolation_Returns409() {
+    when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException(
+        "duplicate key", new SQLException("duplicate key", "23505")));
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> userService.createUser("jane@example.com",
+            new User("jane@example.com", null, "Jane", "Doe")));
+
+    assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+    assertEquals("Email is taken", exception.getReason());
+  }
+
+  @Test
+  void createUser_OtherConstraintViolation_Returns400() {
+    when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException(
+        "value too long", new SQLException("value too long", "22001")));
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> userService.createUser("jane@example.com",
+            new User("jane@example.com", null, "Jane", "Doe")));
+
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+  }
+
+  @Test
+  void updateUser_OtherConstraintViolation_Returns400() {
+    when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException(
+        "not null", new SQLException("not null", "23502")));
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+        () -> userService.updateUser("jane@example.com", 1L,
+            new User(1L, "jane@example.com", "Customer", "Jane", "Doe")));
+
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+  }
+}
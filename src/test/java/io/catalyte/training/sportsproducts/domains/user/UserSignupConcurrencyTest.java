@@ -0,0 +1,105 @@
+package io.catalyte.training.sportsproducts.domains.user;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserSignupConcurrencyTest {
+
+  private static final int THREADS = 16;
+
+  private static final int ROUNDS = 20;
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Test
+  public void parallelSignupsWithSameEmail_OnlyOneSucceeds() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    try {
+      for (int round = 0; round < ROUNDS; round++) {
+        String email = "burst" + round + "@example.com";
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatus>> results = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+          // MIXED CASE SIGN-UPS ARE THE SAME USER
+          String entered = i % 2 == 0 ? email : email.toUpperCase();
+          results.add(executor.submit(() -> {
+            start.await();
+            try {
+              userService.createUser(email, new User(entered, null, "Burst", "Signup"));
+              return HttpStatus.CREATED;
+            } catch (ResponseStatusException e) {
+              return e.getStatus();
+            }
+          }));
+        }
+        start.countDown();
+
+        int created = 0;
+        int conflicts = 0;
+        for (Future<HttpStatus> result : results) {
+          HttpStatus status = result.get(30, TimeUnit.SECONDS);
+          if (status == HttpStatus.CREATED) {
+            created++;
+          } else if (status == HttpStatus.CONFLICT) {
+            conflicts++;
+          }
+        }
+
+        assertEquals(1, created);
+        assertEquals(THREADS - 1, conflicts);
+        assertEquals(email, userRepository.findByEmail(email).getEmail());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void parallelSignupsWithDistinctEmails_AllSucceed() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<User>> results = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < THREADS * ROUNDS; i++) {
+        String email = "distinct" + i + "@example.com";
+        results.add(executor.submit(() -> {
+          start.await();
+          return userService.createUser(email, new User(email, null, "Distinct", "Signup"));
+        }));
+      }
+      start.countDown();
+
+      for (Future<User> result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+
+      assertEquals(THREADS * ROUNDS, userRepository.findAll().stream()
+          .filter(user -> user.getEmail().startsWith("distinct")).count());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
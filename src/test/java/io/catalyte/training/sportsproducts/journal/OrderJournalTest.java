@@ -0,0 +1,176 @@
+package io.catalyte.training.sportsproducts.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.catalyte.training.sportsproducts.domains.purchase.CreditCard;
+import io.catalyte.training.sportsproducts.domains.purchase.Purchase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderJournalTest {
+
+  private static final String CARD_KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+  @TempDir
+  Path directory;
+
+  private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  private OrderJournal orderJournal;
+
+  @BeforeEach
+  void setup() throws IOException {
+    orderJournal = open();
+  }
+
+  @AfterEach
+  void teardown() throws IOException {
+    orderJournal.close();
+  }
+
+  private OrderJournal open() throws IOException {
+    return new OrderJournal(objectMapper, new SimpleMeterRegistry(),
+        directory.resolve("orders.journal").toString(), 1, 5000, CARD_KEY);
+  }
+
+  private Purchase purchaseWithCard(String cardNumber) {
+    Purchase purchase = purchase("a@example.com");
+    purchase.getCreditCard().setCardNumber(cardNumber);
+    purchase.getCreditCard().setCvv("123");
+    return purchase;
+  }
+
+  private String fileContents() throws IOException {
+    return new String(Files.readAllBytes(directory.resolve("orders.journal")),
+        StandardCharsets.ISO_8859_1);
+  }
+
+  private Purchase purchase(String email) {
+    Purchase purchase = new Purchase();
+    purchase.getBillingAddress().setEmail(email);
+    return purchase;
+  }
+
+  @Test
+  void testAppend_EncryptsCardNumberAndDropsCvv() throws IOException {
+    orderJournal.append(purchaseWithCard("4111111111111111"));
+
+    CreditCard creditCard = orderJournal.readPending(1).get(0).getPurchase().getCreditCard();
+
+    assertEquals("4111111111111111", creditCard.getCardNumber());
+    assertNull(creditCard.getCvv());
+    assertFalse(fileContents().contains("4111111111111111"));
+    assertFalse(fileContents().contains("cvv"));
+  }
+
+  @Test
+  void testAppend_WithoutCardKey_KeepsLastFourDigits() throws IOException {
+    orderJournal.close();
+    orderJournal = new OrderJournal(objectMapper, new SimpleMeterRegistry(),
+        directory.resolve("orders.journal").toString(), 1, 5000, "");
+
+    orderJournal.append(purchaseWithCard("4111111111111111"));
+
+    assertEquals("1111",
+        orderJournal.readPending(1).get(0).getPurchase().getCreditCard().getCardNumber());
+    assertFalse(fileContents().contains("4111111111111111"));
+  }
+
+  @Test
+  void testAppend_ReadsBackInOrder() {
+    orderJournal.append(purchase("a@example.com"));
+    orderJournal.append(purchase("b@example.com"));
+
+    List<JournalRecord> records = orderJournal.readPending(10);
+
+    assertTrue(orderJournal.hasPending());
+    assertEquals(2, records.size());
+    assertEquals("a@example.com", records.get(0).getPurchase().getBillingAddress().getEmail());
+    assertEquals("b@example.com", records.get(1).getPurchase().getBillingAddress().getEmail());
+  }
+
+  @Test
+  void testReopen_RecoversOnlyRecordsNotReplayed() throws IOException {
+    orderJournal.append(purchase("a@example.com"));
+    orderJournal.append(purchase("b@example.com"));
+    orderJournal.markReplayed(orderJournal.readPending(1).get(0));
+    orderJournal.close();
+
+    orderJournal = open();
+    List<JournalRecord> records = orderJournal.readPending(10);
+
+    assertEquals(1, records.size());
+    assertEquals("b@example.com", records.get(0).getPurchase().getBillingAddress().getEmail());
+  }
+
+  @Test
+  void testMarkReplayed_AllRecords_RewindsWithoutResurrectingOldOnes() throws IOException {
+    orderJournal.append(purchase("old-with-a-longer-address@example.com"));
+    orderJournal.append(purchase("old2@example.com"));
+    for (JournalRecord record : orderJournal.readPending(10)) {
+      orderJournal.markReplayed(record);
+    }
+    assertFalse(orderJournal.hasPending());
+
+    orderJournal.append(purchase("new@example.com"));
+    orderJournal.close();
+
+    orderJournal = open();
+    List<JournalRecord> records = orderJournal.readPending(10);
+
+    assertEquals(1, records.size());
+    assertEquals("new@example.com", records.get(0).getPurchase().getBillingAddress().getEmail());
+  }
+
+  @Test
+  void testReopen_IgnoresTornRecordAtTail() throws IOException {
+    orderJournal.append(purchase("a@example.com"));
+    orderJournal.append(purchase("b@example.com"));
+    long secondRecord = orderJournal.readPending(10).get(1).getOffset();
+    orderJournal.close();
+
+    try (RandomAccessFile file = new RandomAccessFile(
+        directory.resolve("orders.journal").toFile(), "rw")) {
+      file.seek(secondRecord + OrderJournal.RECORD_HEADER_SIZE + 2);
+      file.write('#');
+    }
+
+    orderJournal = open();
+
+    assertEquals(1, orderJournal.readPending(10).size());
+  }
+
+  @Test
+  void testAppend_ConcurrentWriters_AllRecordsDurable() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int i = 0; i < 200; i++) {
+      String email = "user" + i + "@example.com";
+      futures.add(executor.submit(() -> orderJournal.append(purchase(email))));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    assertEquals(200, orderJournal.readPending(1000).size());
+  }
+}
@@ -0,0 +1,71 @@
+package io.catalyte.training.sportsproducts.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OutboxDispatcherTest {
+
+  @Mock
+  private OutboxEventRepository outboxEventRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private List<OutboxEvent> batch;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.initMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+
+    batch = Arrays.asList(
+        new OutboxEvent(OutboxService.PURCHASE_CREATED, 1L, "{}", Instant.now()),
+        new OutboxEvent(OutboxService.PURCHASE_CREATED, 2L, "{}", Instant.now()));
+    when(outboxEventRepository.findAllByOrderByIdAsc(any(Pageable.class)))
+        .thenReturn(batch)
+        .thenReturn(Collections.<OutboxEvent>emptyList());
+  }
+
+  @Test
+  void testDispatch_PublishesThenDeletesBatch() {
+    InMemoryOutboxSink sink = new InMemoryOutboxSink();
+    OutboxDispatcher dispatcher = new OutboxDispatcher(outboxEventRepository, sink,
+        meterRegistry, 100, 50);
+
+    dispatcher.dispatch();
+
+    assertEquals(2, sink.getEvents().size());
+    verify(outboxEventRepository).deleteInBatch(batch);
+    assertEquals(2.0, meterRegistry.counter("outbox.dispatched").count());
+  }
+
+  @Test
+  void testDispatch_SinkFailure_KeepsEventsForRetry() throws IOException {
+    OutboxSink sink = mock(OutboxSink.class);
+    doThrow(new IOException("disk full")).when(sink).publish(anyList());
+    OutboxDispatcher dispatcher = new OutboxDispatcher(outboxEventRepository, sink,
+        meterRegistry, 100, 50);
+
+    dispatcher.dispatch();
+
+    verify(outboxEventRepository, never()).deleteInBatch(any());
+    assertEquals(1.0, meterRegistry.counter("outbox.dispatch.failures").count());
+  }
+}
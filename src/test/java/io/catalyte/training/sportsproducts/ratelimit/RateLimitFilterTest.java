@@ -0,0 +1,133 @@
+package io.catalyte.training.sportsproducts.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RateLimitFilterTest {
+
+  private static final String BODY = "{\"billingAddress\":{\"email\":\"Bot@Example.com\"}}";
+
+  private RateLimitFilter filter;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setup() {
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setRoutes(Arrays.asList(
+        route("POST", "/purchases", RateLimitFilter.CLIENT_KEY, 2),
+        route("POST", "/purchases", RateLimitFilter.EMAIL_KEY, 1)));
+    properties.setApiKeys(Arrays.asList("partner-key"));
+    meterRegistry = new SimpleMeterRegistry();
+    filter = new RateLimitFilter(properties, new ObjectMapper(), meterRegistry);
+  }
+
+  private RateLimitProperties.Route route(String method, String path, String key, int capacity) {
+    RateLimitProperties.Route route = new RateLimitProperties.Route();
+    route.setMethod(method);
+    route.setPath(path);
+    route.setKey(key);
+    route.setCapacity(capacity);
+    route.setRefillPerSecond(0.01);
+    return route;
+  }
+
+  private MockHttpServletRequest purchase(String remoteAddress, String body) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/purchases");
+    request.setRemoteAddr(remoteAddress);
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    return request;
+  }
+
+  @Test
+  void testFilter_SameEmailFromTwoAddresses_SecondIsRejected() throws Exception {
+    MockFilterChain chain = new MockFilterChain();
+    MockHttpServletResponse first = new MockHttpServletResponse();
+    filter.doFilter(purchase("10.0.0.1", BODY), first, chain);
+
+    MockHttpServletResponse second = new MockHttpServletResponse();
+    filter.doFilter(purchase("10.0.0.2", BODY), second, new MockFilterChain());
+
+    assertEquals(200, first.getStatus());
+    assertEquals(429, second.getStatus());
+    assertEquals("100", second.getHeader("Retry-After"));
+    assertEquals(1.0, meterRegistry.get("ratelimit.rejected").tag("key", "email").counter()
+        .count());
+  }
+
+  private int status(String remoteAddress, String apiKey) throws Exception {
+    MockHttpServletRequest request = purchase(remoteAddress, "{}");
+    if (apiKey != null) {
+      request.addHeader("X-Api-Key", apiKey);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain());
+    return response.getStatus();
+  }
+
+  @Test
+  void testFilter_UnknownApiKeys_LimitedByAddress() throws Exception {
+    assertEquals(200, status("10.0.0.1", "random-1"));
+    assertEquals(200, status("10.0.0.1", "random-2"));
+    assertEquals(429, status("10.0.0.1", "random-3"));
+  }
+
+  @Test
+  void testFilter_KnownApiKey_HasItsOwnBucket() throws Exception {
+    assertEquals(200, status("10.0.0.1", null));
+    assertEquals(200, status("10.0.0.1", null));
+    assertEquals(429, status("10.0.0.1", null));
+
+    assertEquals(200, status("10.0.0.1", "partner-key"));
+  }
+
+  @Test
+  void testFilter_ReplaysBodyToController() throws Exception {
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(purchase("10.0.0.1", BODY), new MockHttpServletResponse(), chain);
+
+    assertEquals(BODY, StreamUtils.copyToString(chain.getRequest().getInputStream(),
+        StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testFilter_ReplaysBodyThroughReader() throws Exception {
+    MockFilterChain chain = new MockFilterChain();
+    MockHttpServletRequest request = purchase("10.0.0.1", BODY);
+    request.setCharacterEncoding("UTF-8");
+
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+    assertEquals(BODY, FileCopyUtils.copyToString(chain.getRequest().getReader()));
+  }
+
+  @Test
+  void testFilter_OtherRoutesAreNotLimited() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      MockHttpServletResponse response = new MockHttpServletResponse();
+      filter.doFilter(new MockHttpServletRequest("GET", "/purchases/a@b.com"), response,
+          new MockFilterChain());
+      assertEquals(200, response.getStatus());
+    }
+  }
+
+  @Test
+  void testFindEmail_IgnoresMalformedBodies() {
+    assertEquals("bot@example.com",
+        RateLimitFilter.findEmail(BODY.getBytes(StandardCharsets.UTF_8)));
+    assertNull(RateLimitFilter.findEmail("not json".getBytes(StandardCharsets.UTF_8)));
+  }
+}
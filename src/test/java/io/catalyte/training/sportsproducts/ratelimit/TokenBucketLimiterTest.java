@@ -0,0 +1,96 @@
+package io.catalyte.training.sportsproducts.ratelimit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketLimiterTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+  @Test
+  void testTryAcquire_AllowsBurstThenRejects() {
+    TokenBucketLimiter limiter = new TokenBucketLimiter(3, 1, 100, now::get);
+
+    assertEquals(0, limiter.tryAcquire("a"));
+    assertEquals(0, limiter.tryAcquire("a"));
+    assertEquals(0, limiter.tryAcquire("a"));
+    long wait = limiter.tryAcquire("a");
+
+    assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+    assertEquals(0, limiter.tryAcquire("b"));
+  }
+
+  @Test
+  void testTryAcquire_RefillsOverTime() {
+    TokenBucketLimiter limiter = new TokenBucketLimiter(2, 2, 100, now::get);
+    limiter.tryAcquire("a");
+    limiter.tryAcquire("a");
+    assertTrue(limiter.tryAcquire("a") > 0);
+
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+    assertEquals(0, limiter.tryAcquire("a"));
+    assertTrue(limiter.tryAcquire("a") > 0);
+  }
+
+  @Test
+  void testEvictIdle_RemovesOnlyFullBuckets() {
+    TokenBucketLimiter limiter = new TokenBucketLimiter(5, 1, 100, now::get);
+    limiter.tryAcquire("idle");
+    now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    limiter.tryAcquire("busy");
+
+    limiter.evictIdle();
+
+    assertEquals(1, limiter.size());
+  }
+
+  @Test
+  void testTryAcquire_BeyondMaxKeys_RejectsNewKeysOnly() {
+    TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1, 2, now::get);
+    limiter.tryAcquire("a");
+    limiter.tryAcquire("b");
+
+    assertTrue(limiter.tryAcquire("c") > 0);
+    assertTrue(limiter.tryAcquire("d") > 0);
+    assertEquals(0, limiter.tryAcquire("a"));
+    assertEquals(2, limiter.size());
+
+    // once a tracked client has refilled it is evicted to make room
+    now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+    assertEquals(0, limiter.tryAcquire("c"));
+  }
+
+  @Test
+  void testTryAcquire_ConcurrentCallers_NeverExceedCapacity() throws Exception {
+    TokenBucketLimiter limiter = new TokenBucketLimiter(100, 0.001, 100, now::get);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger allowed = new AtomicInteger();
+
+    for (int i = 0; i < 8; i++) {
+      executor.submit(() -> {
+        start.await();
+        for (int j = 0; j < 1000; j++) {
+          if (limiter.tryAcquire("shared") == 0) {
+            allowed.incrementAndGet();
+          }
+        }
+        return null;
+      });
+    }
+    start.countDown();
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    assertEquals(100, allowed.get());
+  }
+}
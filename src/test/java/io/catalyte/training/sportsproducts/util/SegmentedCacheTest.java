@@ -0,0 +1,44 @@
+package io.catalyte.training.sportsproducts.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class SegmentedCacheTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+
+  @Test
+  public void putIf_ConditionFails_NotStored() {
+    SegmentedCache<String, String> cache = new SegmentedCache<>(100, now::get);
+
+    assertFalse(cache.putIf("key", "value", SegmentedCache.NEVER, () -> false));
+    assertNull(cache.get("key"));
+  }
+
+  @Test
+  public void computeIfAbsent_ReturnsExistingValue() {
+    SegmentedCache<String, Object> cache = new SegmentedCache<>(100, now::get);
+    Object value = cache.computeIfAbsent("key", k -> new Object());
+
+    assertSame(value, cache.computeIfAbsent("key", k -> new Object()));
+  }
+
+  @Test
+  public void removeIf_DropsMatchingAndExpiredEntries() {
+    SegmentedCache<String, String> cache = new SegmentedCache<>(100, now::get);
+    cache.put("kept", "kept", SegmentedCache.NEVER);
+    cache.put("matching", "matching", SegmentedCache.NEVER);
+    cache.put("expired", "expired", now.get() + 1000);
+    now.addAndGet(1000);
+
+    cache.removeIf("matching"::equals);
+
+    assertEquals(1, cache.size());
+    assertEquals("kept", cache.get("kept"));
+  }
+}